@@ -0,0 +1,165 @@
+package socket_connection;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class lets a single thread wait for the inputs of many connections.
+ * A connection is ready if an input can be read without waiting or if it's closed: connections are
+ * returned by each selection while they are ready, so the inputs not read are selected again and
+ * closed connections are returned until they are unregistered.
+ * Connections notify the selector when they receive an input or are closed: only those connections,
+ * and the ones ready at the previous selection, are checked by the following selection.
+ */
+public class ConnectionSelector {
+
+    private final Map<SocketConnection, Runnable> registered=new LinkedHashMap<>();
+    private Set<SocketConnection> notified=new LinkedHashSet<>();
+    private Set<SocketConnection> lastSelected=new LinkedHashSet<>();
+    private boolean wokenUp;
+    private final Lock lock=new ReentrantLock();
+    private final Condition condition=lock.newCondition();
+
+    /**
+     * @param connection to be selected when it's ready: it's checked by the next selection
+     */
+    public void register(SocketConnection connection){
+        Runnable listener=()->notifyInput(connection);
+        lock.lock();
+        try {
+            if(registered.containsKey(connection)) return;
+            registered.put(connection,listener);
+        } finally {
+            lock.unlock();
+        }
+        connection.addInputListener(listener);
+        notifyInput(connection);
+    }
+
+    /**
+     * @param connection not to be selected anymore
+     */
+    public void unregister(SocketConnection connection){
+        Runnable listener;
+        lock.lock();
+        try {
+            listener=registered.remove(connection);
+            notified.remove(connection);
+            lastSelected.remove(connection);
+        } finally {
+            lock.unlock();
+        }
+        if(listener!=null) connection.removeInputListener(listener);
+    }
+
+    /**
+     * This method waits until a connection is ready
+     * @return the connections ready, empty if the selector was woken up
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Set<SocketConnection> select() throws InterruptedException {
+        return select(Long.MAX_VALUE,TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the connections ready, without waiting
+     */
+    public Set<SocketConnection> selectNow(){
+        try {
+            return select(0,TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new LinkedHashSet<>();
+        }
+    }
+
+    /**
+     * This method waits until a connection is ready or the time elapses
+     * @param timeout max time to wait
+     * @param unit of the timeout
+     * @return the connections ready, empty if none was ready in time or the selector was woken up
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Set<SocketConnection> select(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining=unit.toNanos(timeout);
+        long deadline=System.nanoTime()+remaining;
+        while (true){
+            Set<SocketConnection> candidates;
+            lock.lock();
+            try {
+                candidates=notified;
+                candidates.addAll(lastSelected);
+                notified=new LinkedHashSet<>();
+            } finally {
+                lock.unlock();
+            }
+            //connections are checked without the lock, which is taken by the threads receiving their inputs
+            Set<SocketConnection> ready=new LinkedHashSet<>();
+            for (SocketConnection connection : candidates) if(connection.isReadable()) ready.add(connection);
+            lock.lock();
+            try {
+                ready.retainAll(registered.keySet());
+                if(!ready.isEmpty() || wokenUp || remaining<=0){
+                    wokenUp=false;
+                    lastSelected=ready;
+                    return new LinkedHashSet<>(ready);
+                }
+                while (notified.isEmpty() && !wokenUp && remaining>0) remaining=condition.awaitNanos(remaining);
+                remaining=deadline-System.nanoTime();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * This method makes the current selection, or the next one, return at once
+     */
+    public void wakeUp(){
+        lock.lock();
+        wokenUp=true;
+        condition.signalAll();
+        lock.unlock();
+    }
+
+    /**
+     * This method unregisters all the connections and wakes up the current selection
+     */
+    public void close(){
+        for (SocketConnection connection : getRegistered()) unregister(connection);
+        wakeUp();
+    }
+
+    /**
+     * @return the connections registered
+     */
+    public Set<SocketConnection> getRegistered(){
+        lock.lock();
+        try {
+            return new LinkedHashSet<>(registered.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method is run by a connection when it receives an input or it's closed
+     * @param connection notifying the selector
+     */
+    private void notifyInput(SocketConnection connection){
+        lock.lock();
+        try {
+            if(!registered.containsKey(connection)) return;
+            notified.add(connection);
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package socket_connection;
+
+import socket_connection.socket_exceptions.exceptions.UnreachableHostException;
+import socket_connection.tools.AgentWorkers;
+
+import java.util.Optional;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class publishes the inputs of a connection to a single subscriber.
+ * Inputs are read on {@link AgentWorkers} only when the subscriber requested them, and the connection
+ * doesn't read frames from its socket while it buffers as many inputs as the ones requested:
+ * the remote host is then slowed down by the socket and by the credits of the connection.
+ * The subscriber completes when the connection is closed and all its inputs were delivered.
+ * @param <T> type of the inputs published
+ */
+class InputPublisher<T> implements Flow.Publisher<T> {
+
+    /**
+     * This interface reads an input without waiting for it
+     * @param <T> type of the input
+     */
+    @FunctionalInterface
+    interface InputReader<T>{
+        /**
+         * @return the first input of the connection, empty if there is none
+         * @throws UnreachableHostException if the connection is closed and there are no inputs left
+         */
+        Optional<T> read() throws UnreachableHostException;
+    }
+
+    private final SocketConnection connection;
+    private final InputReader<T> reader;
+    private final AtomicBoolean subscribed=new AtomicBoolean();
+    private final AtomicInteger pendingDrains=new AtomicInteger();
+    private final Runnable listener=this::scheduleDrain;
+    private final Lock lock=new ReentrantLock();
+    private Flow.Subscriber<? super T> subscriber;
+    private long demand;
+    private boolean cancelled;
+    private boolean invalidRequest;
+    private boolean terminated;
+
+    /**
+     * @param connection whose inputs are published
+     * @param reader of the inputs
+     */
+    InputPublisher(SocketConnection connection, InputReader<T> reader){
+        this.connection=connection;
+        this.reader=reader;
+    }
+
+    /**
+     * @param subscriber of the inputs: only a subscriber is accepted, the following ones receive an error
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if(subscriber==null) throw new NullPointerException();
+        if(!subscribed.compareAndSet(false,true)){
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    //no inputs are delivered to this subscriber
+                }
+
+                @Override
+                public void cancel() {
+                    //no inputs are delivered to this subscriber
+                }
+            });
+            subscriber.onError(new IllegalStateException("Inputs are already published to a subscriber"));
+            return;
+        }
+        this.subscriber=subscriber;
+        connection.publishTo(this);
+        connection.addInputListener(listener);
+        //the first drain notifies the subscription, so that it's serialized with the inputs delivered
+        pendingDrains.incrementAndGet();
+        AgentWorkers.getInstance().execute(()->{
+            subscriber.onSubscribe(new InputSubscription());
+            drain();
+        });
+    }
+
+    /**
+     * This method schedules a drain on {@link AgentWorkers}: it's run when an input is received, when the
+     * connection is closed and when the subscriber requests inputs. If a drain is running, it's repeated
+     * by the same worker instead, so the subscriber is never notified concurrently.
+     */
+    private void scheduleDrain(){
+        if(pendingDrains.getAndIncrement()==0) AgentWorkers.getInstance().execute(this::drain);
+    }
+
+    /**
+     * This method delivers the inputs requested by the subscriber that can be read without waiting,
+     * then releases the worker: no thread waits for the inputs of the connection
+     */
+    private void drain(){
+        int drains=1;
+        do {
+            deliverAvailableInputs();
+            drains=pendingDrains.addAndGet(-drains);
+        } while (drains!=0);
+    }
+
+    /**
+     * This method delivers the inputs until none was requested or none can be read, the subscription
+     * was cancelled or the connection was closed without inputs left: the subscriber completes
+     * even if it didn't request inputs
+     */
+    private void deliverAvailableInputs(){
+        try {
+            while (true){
+                boolean stopped;
+                lock.lock();
+                try {
+                    if(terminated) return;
+                    stopped=cancelled;
+                    if(!stopped && (!connection.isReadable() || (demand==0 && connection.isDataAvailable()))) return;
+                } finally {
+                    lock.unlock();
+                }
+                if(stopped){
+                    terminate();
+                    if(isInvalidRequest()) subscriber.onError(new IllegalArgumentException("The inputs requested must be positive"));
+                    return;
+                }
+                Optional<T> input=reader.read();
+                if(!input.isPresent()) return;
+                lock.lock();
+                demand--;
+                lock.unlock();
+                subscriber.onNext(input.get());
+            }
+        } catch (UnreachableHostException e){
+            terminate();
+            subscriber.onComplete();
+        } catch (RuntimeException e){
+            terminate();
+            subscriber.onError(e);
+        }
+    }
+
+    /**
+     * This method stops the publication: the subscriber isn't notified anymore after its last signal
+     */
+    private void terminate(){
+        lock.lock();
+        terminated=true;
+        lock.unlock();
+        connection.removeInputListener(listener);
+        connection.stopPublishing(this);
+    }
+
+    private boolean isInvalidRequest(){
+        lock.lock();
+        try {
+            return invalidRequest;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of inputs requested and not delivered: the connection doesn't read frames from
+     * the socket while it buffers at least as many inputs
+     */
+    long getDemand(){
+        lock.lock();
+        try {
+            return cancelled ? 0 : demand;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private class InputSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                if(n<=0){
+                    //the subscriber is notified by the next drain, which stops delivering
+                    cancelled=true;
+                    invalidRequest=true;
+                } else demand=demand+n<0 ? Long.MAX_VALUE : demand+n;
+            } finally {
+                lock.unlock();
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            lock.lock();
+            cancelled=true;
+            lock.unlock();
+            scheduleDrain();
+        }
+    }
+}
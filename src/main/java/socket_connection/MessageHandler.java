@@ -1,21 +1,44 @@
 package socket_connection;
 
 
+import socket_connection.cryptography.CipherSuite;
+import socket_connection.cryptography.CipherSuites;
+import socket_connection.cryptography.SessionKeys;
 import socket_connection.cryptography.exceptions.NullKeyException;
+import socket_connection.socket_exceptions.runtime_exceptions.BadSetupException;
 import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.ConnectionEventException;
 import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.DataReceivedException;
 import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
+import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.GoodbyeReceivedException;
 import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.HelloEventException;
+import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.PingReceivedException;
+import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.PongReceivedException;
 import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.ServerReadyException;
+import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.StreamReceivedException;
+import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.TypedDataReceivedException;
 import socket_connection.configurations.ConfigurationHandler;
+import socket_connection.tools.BinaryReader;
+import socket_connection.tools.BinaryWriter;
+import socket_connection.tools.CompressionStatistics;
 import socket_connection.tools.DataFormatter;
+import socket_connection.tools.HandshakeParameters;
+import socket_connection.tools.ReliableStream;
+import socket_connection.tools.SendCredits;
+import socket_connection.tools.StringTableDecoder;
+import socket_connection.tools.StringTableEncoder;
+import socket_connection.tools.TypedFrames;
 import socket_connection.configurations.MessageHandlerConfigurations;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.Key;
 import java.security.PrivateKey;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
+import java.util.zip.CRC32;
 
 
 
@@ -23,8 +46,28 @@ class MessageHandler {
 
     private static final Map<String, Optional<DecodingFunction<MessageHandler,String>>> behavioursMap =new HashMap<>();
     private DataFormatter dataFormatter;
+    private byte[] binaryTag;
+    private HandshakeParameters localParameters;
+    private String compressionDictionary;
+    private int compressionThreshold;
+    private int compressionLevel;
+    private StringTableEncoder stringTableEncoder;
+    private StringTableDecoder stringTableDecoder;
+    private TypedDataReceivedException typedDataEvent;
+    private final BinaryWriter output=new BinaryWriter(256);
+    private final BinaryWriter sequencedOutput=new BinaryWriter(256);
+    private ReliableStream reliableStream;
+    private SendCredits sendCredits;
+    private int inputSize;
+    private static final Map<Charset,FixedFrames> fixedFramesByCharset=new ConcurrentHashMap<>();
+    private FixedFrames fixedFrames;
+    //frames whose value is written before each ping, pong and ack: each is used by a single thread
+    private byte[] pingTemplate;
+    private byte[] pongTemplate;
+    private byte[] ackTemplate;
     private static String pingMessage;
     private static String dataMessage;
+    private static String binaryMessage;
     private static String helloMessage;
     private static String serverIsReadyMessage;
     private static boolean configured=false;
@@ -95,12 +138,129 @@ class MessageHandler {
         dataFormatter.setUpEncryption(myPrivateKey,foreignPublicKey);
     }
 
+    /**
+     * This method is used to set up the encryption with the cipher suite negotiated
+     * during the set up phase
+     * @param keys of the session
+     * @param cipherSuite name of the suite negotiated
+     * @throws NullKeyException if the keys of the hosts are null
+     * @exception BadSetupException if the suite isn't available or can't use the keys
+     */
+    void setUpEncryption(SessionKeys keys, String cipherSuite) throws NullKeyException {
+        if(keys.getMyPrivateKey()==null || keys.getForeignPublicKey()==null) throw new NullKeyException();
+        CipherSuite suite=CipherSuites.get(cipherSuite).orElseThrow(BadSetupException::new);
+        try {
+            dataFormatter.setUpEncryption(suite,keys);
+        } catch (GeneralSecurityException e) {
+            throw new BadSetupException();
+        }
+    }
+
+    /**
+     * Messages of a reliable stream are sequenced: the ones already delivered are discarded
+     * @param reliableStream carried by the connection
+     */
+    void setUpReliableStream(ReliableStream reliableStream){
+        this.reliableStream=reliableStream;
+    }
+
+    /**
+     * Credit frames received from the remote host are added to the credits of this host
+     * @param sendCredits granted by the remote host
+     */
+    void setUpFlowControl(SendCredits sendCredits){
+        this.sendCredits=sendCredits;
+    }
+
+    /**
+     * This method is used to set up the session with the parameters negotiated with the remote host
+     * @param parameters negotiated during the set up phase
+     */
+    void setUpSession(HandshakeParameters parameters){
+        Optional.ofNullable(parameters.getCharset())
+                .filter(Charset::isSupported)
+                .map(Charset::forName)
+                .ifPresent(this::setUpCharset);
+        if(parameters.isCompression())
+            dataFormatter.setUpCompression(compressionThreshold,compressionLevel,encode(compressionDictionary));
+        if(parameters.getStringTableSize()>0){
+            stringTableEncoder=new StringTableEncoder(parameters.getStringTableSize());
+            stringTableDecoder=new StringTableDecoder(parameters.getStringTableSize());
+        }
+    }
+
+
+    /**
+     * This method changes the charset used to encode messages
+     * @param charset to be used
+     */
+    private void setUpCharset(Charset charset){
+        dataFormatter.setUpCharset(charset);
+        setUpFrames();
+    }
+
+    /**
+     * The frames that never change are framed once for each charset
+     */
+    private void setUpFrames(){
+        binaryTag=encode(binaryMessage);
+        fixedFrames=fixedFramesByCharset.computeIfAbsent(dataFormatter.getCharset(),charset->new FixedFrames(this));
+        pingTemplate=fixedLongTemplate(TypedFrames.PING);
+        pongTemplate=fixedLongTemplate(TypedFrames.PONG);
+        ackTemplate=fixedLongTemplate(TypedFrames.ACK);
+    }
+
+    /**
+     * @param type of the frame: ping, pong and ack frames carry a fixed long after the type
+     * @return a frame carrying a long, written at its end
+     */
+    private byte[] fixedLongTemplate(byte type){
+        BinaryWriter writer=new BinaryWriter(binaryTag.length+9).writeBytes(binaryTag);
+        writer.writeByte(type).writeFixedLong(0);
+        return DataFormatter.plainFrame(writer.toByteArray());
+    }
+
+    /**
+     * @param template obtained from {@link #fixedLongTemplate(byte)}
+     * @param value to be written in the template
+     * @return the frame ready to be sent: it must be sent before using the template again
+     */
+    private byte[] fixedLongFrame(byte[] template, long value){
+        for (int i=template.length-1; i>=template.length-8; i--){
+            template[i]=(byte) value;
+            value>>>=8;
+        }
+        return dataFormatter.boxControlFrame(template);
+    }
 
     /**
      * This method is used to setupClass the parameters of a single instance
      */
     private void setupInstance(MessageHandlerConfigurations config) {
         dataFormatter=new DataFormatter(config.getCharset());
+        setUpFrames();
+        compressionDictionary=config.getCompressionDictionary();
+        compressionThreshold=config.getCompressionThreshold();
+        compressionLevel=config.getCompressionLevel();
+        CRC32 dictionaryId=new CRC32();
+        dictionaryId.update(compressionDictionary.getBytes(StandardCharsets.UTF_8));
+        Set<String> charsets=new LinkedHashSet<>();
+        for (String charset : config.getSessionCharsets())
+            if(Charset.isSupported(charset)) charsets.add(Charset.forName(charset).name());
+        charsets.add(config.getCharset().name());
+        localParameters=new HandshakeParameters(config.isCompressionEnabled(),dictionaryId.getValue(),
+                config.getStringTableSize(),charsets.toArray(new String[0]))
+                .withCipherSuites(CipherSuites.available(config.getCipherSuites()));
+    }
+
+    /**
+     * @param text to be encoded
+     * @return the text encoded with the used charset
+     */
+    private byte[] encode(String text){
+        BinaryWriter writer=new BinaryWriter(text.length()*2);
+        dataFormatter.encode(text,writer);
+        return writer.toByteArray();
     }
 
     /**
@@ -110,6 +270,7 @@ class MessageHandler {
         Objects.requireNonNull(config);
         pingMessage=config.getPingMessage();
         dataMessage=config.getDataMessage();
+        binaryMessage=config.getBinaryMessage();
         dataTagPosition=config.getDataTagPosition();
         helloMessage=config.getHelloMessage();
         serverIsReadyMessage=config.getServerIsReadyMessage();
@@ -135,13 +296,160 @@ class MessageHandler {
      * @exception UndefinedInputTypeException thrown if the input isn't a data nor a defined-type message
      */
     void computeInput(String input) throws ConnectionEventException{
-        String data = dataFormatter.unBox(input);
+        computeDecodedInput(dataFormatter.unBox(input));
+    }
+
+    /**
+     * This method valuate a frame received from the remote host:
+     * binary frames carry typed data, the others are computed as strings
+     * @param frame to be computed
+     * @exception UndefinedInputTypeException thrown if the input isn't a data nor a defined-type message
+     * @see #computeInput(String)
+     */
+    void computeInputFrame(byte[] frame) throws ConnectionEventException{
+        computeInputFrame(frame,0,frame.length);
+    }
+
+    /**
+     * This method valuate a frame received from the remote host, reusing the buffers
+     * of this handler: frames must be computed by a single thread.
+     * @param frame containing the bytes received
+     * @param offset of the first byte of the frame
+     * @param length of the frame
+     * @exception UndefinedInputTypeException thrown if the input isn't a data nor a defined-type message
+     * @see #computeInputFrame(byte[])
+     */
+    void computeInputFrame(byte[] frame, int offset, int length) throws ConnectionEventException{
+        computeUnBoxedInput(dataFormatter.unBoxFrame(frame,offset,length));
+    }
+
+    /**
+     * This method valuate a frame already decrypted with {@link #decryptFrame(byte[], long)}.
+     * Frames must be computed by a single thread, in the order they were received.
+     * @param frame decrypted
+     * @exception UndefinedInputTypeException thrown if the input isn't a data nor a defined-type message
+     */
+    void computeDecryptedFrame(byte[] frame) throws ConnectionEventException{
+        computeUnBoxedInput(new BinaryReader(dataFormatter.unFrameBytes(frame)));
+    }
+
+    /**
+     * @param reader over the content of a frame
+     */
+    private void computeUnBoxedInput(BinaryReader reader) throws ConnectionEventException{
+        inputSize=reader.remaining();
+        if(isBinary(reader)){
+            reader.skip(binaryTag.length);
+            handleBinaryInput(reader);
+        } else {
+            computeDecodedInput(dataFormatter.decode(reader.array(),reader.position(),reader.remaining()));
+        }
+    }
+
+    /**
+     * This method computes a message already decoded
+     * @param data to be computed
+     */
+    private void computeDecodedInput(String data){
         if(inputIsDataType.test(data))
             handleDataInput(data);
         else
             handleOthersInputs(data);
     }
 
+    /**
+     * @param reader over the data decoded
+     * @return true if data start with the binary tag
+     */
+    private boolean isBinary(BinaryReader reader){
+        if(reader.remaining()<=binaryTag.length) return false;
+        byte[] data=reader.array();
+        int start=reader.position();
+        for (int i=0; i<binaryTag.length; i++)
+            if(data[start+i]!=binaryTag[i]) return false;
+        return true;
+    }
+
+    /**
+     * This method is used to handle binary frames
+     * @param reader positioned on the type of the frame
+     * @exception TypedDataReceivedException is thrown to let the respective
+     *                                       connection knows about this event
+     * @exception DataReceivedException is thrown when a string encoded with the string table is received
+     * @exception PingReceivedException is thrown when the remote host measures the round trip time
+     * @exception PongReceivedException is thrown when the remote host answers a ping
+     * @exception StreamReceivedException is thrown when the remote host opens a reliable stream
+     * @exception UndefinedInputTypeException thrown if the type is undefined or the keys can't be rotated
+     */
+    private void handleBinaryInput(BinaryReader reader){
+        byte type=reader.array()[reader.position()];
+        if(TypedFrames.isDataType(type)) throw typedDataEvent(reader);
+        if(type==TypedFrames.TABLE_STRING && stringTableDecoder!=null){
+            reader.skip(1);
+            throw new DataReceivedException(stringTableDecoder.decode(reader));
+        }
+        if(type==TypedFrames.REKEY){
+            reader.skip(1);
+            dataFormatter.rekeyInput(reader.readVarInt());
+            return;
+        }
+        if(type==TypedFrames.PING){
+            reader.skip(1);
+            throw new PingReceivedException(reader.readFixedLong());
+        }
+        if(type==TypedFrames.PONG){
+            reader.skip(1);
+            throw new PongReceivedException(reader.readFixedLong());
+        }
+        if(type==TypedFrames.STREAM){
+            reader.skip(1);
+            throw new StreamReceivedException(reader.readByteArray(),reader.readBoolean(),reader.readVarLong());
+        }
+        if(type==TypedFrames.GOODBYE) throw new GoodbyeReceivedException();
+        if(type==TypedFrames.CREDIT && sendCredits!=null){
+            reader.skip(1);
+            sendCredits.grant(reader.readFixedLong());
+            return;
+        }
+        if(reliableStream!=null){
+            handleReliableInput(type,reader);
+            return;
+        }
+        throw new UndefinedInputTypeException();
+    }
+
+    /**
+     * This method handles the frames of a reliable stream: the message of a sequenced
+     * frame is computed only if it wasn't already delivered
+     * @param type of the frame
+     * @param reader positioned on the type of the frame
+     * @exception UndefinedInputTypeException thrown if the type is undefined
+     */
+    private void handleReliableInput(byte type, BinaryReader reader){
+        if(type==TypedFrames.ACK){
+            reader.skip(1);
+            reliableStream.acknowledge(reader.readFixedLong());
+            return;
+        }
+        if(type!=TypedFrames.SEQUENCED) throw new UndefinedInputTypeException();
+        reader.skip(1);
+        long sequence=reader.readVarLong();
+        reliableStream.acknowledge(reader.readVarLong());
+        if(reliableStream.deliver(sequence)) computeUnBoxedInput(reader);
+    }
+
+    /**
+     * Events are stackless, so the same event can be thrown for each frame read
+     * with the same reader
+     * @param reader positioned on the type of the frame
+     * @return an event carrying the reader
+     */
+    private TypedDataReceivedException typedDataEvent(BinaryReader reader){
+        if(typedDataEvent==null || typedDataEvent.getReader()!=reader)
+            typedDataEvent=new TypedDataReceivedException(reader);
+        return typedDataEvent;
+    }
+
     /**
      * This method is used to refactor data messages and add them to buffer
      * @param input to be computed
@@ -194,6 +502,152 @@ class MessageHandler {
         return dataFormatter.box(stringBuilder.toString());
     }
 
+    /**
+     * The writer returned is reused for each output: the caller must not prepare outputs
+     * concurrently and must box it with {@link #boxOutput(BinaryWriter)} before preparing another one.
+     * If string tables are enabled, outputs must be sent in the same order they are prepared.
+     * @param string to be computed
+     * @return a writer containing the string marked as "DATA TYPE"
+     */
+    BinaryWriter prepareOutput(String string){
+        if(stringTableEncoder!=null){
+            BinaryWriter writer=prepareBinaryOutput();
+            TypedFrames.writeTableString(writer,stringTableEncoder,string);
+            return writer;
+        }
+        output.reset();
+        dataFormatter.encode(string,dataMessage,dataTagPosition,output);
+        return output;
+    }
+
+    /**
+     * The writer returned is reused for each output: the caller must not prepare outputs
+     * concurrently and must box it with {@link #boxOutput(BinaryWriter)} before preparing another one.
+     * @return a writer already containing the binary tag, where typed data can be written
+     */
+    BinaryWriter prepareBinaryOutput(){
+        output.reset();
+        return output.writeBytes(binaryTag);
+    }
+
+    /**
+     * The writer returned is reused for each output, as {@link #prepareBinaryOutput()} does
+     * @return a writer containing the frame that tells the remote host to rotate its input key
+     */
+    BinaryWriter prepareRekeyOutput(){
+        BinaryWriter writer=prepareBinaryOutput();
+        TypedFrames.writeRekey(writer,dataFormatter.getOutputGeneration()+1);
+        return writer;
+    }
+
+    /**
+     * The writer returned is reused for each output, as {@link #prepareBinaryOutput()} does
+     * @param id of the reliable stream
+     * @param resumed true if this host already knew the stream
+     * @param lastDelivered sequence number of the last message delivered
+     * @return a writer containing the frame opening the reliable stream on the connection
+     */
+    BinaryWriter prepareStreamOutput(byte[] id, boolean resumed, long lastDelivered){
+        BinaryWriter writer=prepareBinaryOutput();
+        TypedFrames.writeStream(writer,id,resumed,lastDelivered);
+        return writer;
+    }
+
+    /**
+     * The writer returned is reused for each sequenced output: it must be boxed
+     * before sequencing another output
+     * @param sequence of the message
+     * @param lastDelivered sequence number of the last message delivered, acknowledged by the frame
+     * @param payload containing the message prepared by {@link #prepareOutput(String)} or {@link #prepareBinaryOutput()}
+     * @param length of the message
+     * @return a writer containing the sequenced frame
+     */
+    BinaryWriter sequenceOutput(long sequence, long lastDelivered, byte[] payload, int length){
+        sequencedOutput.reset();
+        sequencedOutput.writeBytes(binaryTag);
+        TypedFrames.writeSequenced(sequencedOutput,sequence,lastDelivered);
+        return sequencedOutput.writeBytes(payload,0,length);
+    }
+
+    /**
+     * This method rotates the key used to encrypt the outputs: it must be called
+     * after the output prepared by {@link #prepareRekeyOutput()} is boxed
+     * @exception BadSetupException if the keys of the session can't be rotated
+     */
+    void rekeyOutput(){
+        try {
+            dataFormatter.rekeyOutput();
+        } catch (GeneralSecurityException e) {
+            throw new BadSetupException();
+        }
+    }
+
+    /**
+     * @return true if the keys of the session can be rotated
+     */
+    boolean isRekeyable(){
+        return dataFormatter.isRekeyable();
+    }
+
+    /**
+     * @return the generation of the key used to encrypt the outputs
+     */
+    int getOutputGeneration(){
+        return dataFormatter.getOutputGeneration();
+    }
+
+    /**
+     * @return the sequence number of the next frame sent: frames must be written in this order
+     */
+    long nextOutputSequence(){
+        return dataFormatter.nextOutputSequence();
+    }
+
+    /**
+     * @return the sequence number of the next frame received: frames must be numbered in the order they are read
+     */
+    long nextInputSequence(){
+        return dataFormatter.nextInputSequence();
+    }
+
+    /**
+     * @param writer obtained from {@link #prepareOutput(String)} or {@link #prepareBinaryOutput()}
+     * @return a buffer containing the frame to be sent to the remote host, reused for each frame
+     */
+    ByteBuffer boxOutput(BinaryWriter writer){
+        return dataFormatter.boxFrame(writer.array(),0,writer.size());
+    }
+
+    /**
+     * First step to box an output in a thread other than the one preparing it
+     * @param writer obtained from {@link #prepareOutput(String)} or {@link #prepareBinaryOutput()}
+     * @return a new array containing the frame, to be encrypted with {@link #encryptFrame(byte[], int, long)}
+     */
+    byte[] frameOutput(BinaryWriter writer){
+        return dataFormatter.frameBytes(writer.array(),0,writer.size());
+    }
+
+    /**
+     * This method can be called by several threads at the same time
+     * @param frame obtained from {@link #frameOutput(BinaryWriter)}
+     * @param generation of the output key when the frame was framed
+     * @param sequence number of the frame, obtained from {@link #nextOutputSequence()}
+     * @return the bytes to be sent to the remote host
+     */
+    byte[] encryptFrame(byte[] frame, int generation, long sequence){
+        return dataFormatter.encryptBytes(frame,generation,sequence);
+    }
+
+    /**
+     * This method can be called by several threads at the same time
+     * @param frame received from the remote host
+     * @param sequence number of the frame, obtained from {@link #nextInputSequence()}
+     * @return the frame to be computed with {@link #computeDecryptedFrame(byte[])}
+     */
+    byte[] decryptFrame(byte[] frame, long sequence){
+        return dataFormatter.decryptBytes(frame,sequence);
+    }
+
     /**
      * Getter for dataTag
      * @return dataTag
@@ -242,6 +696,107 @@ class MessageHandler {
         return dataFormatter.box(serverIsReadyMessage);
     }
 
+    /**
+     * Pings are sent by a single thread: the frame is reused for each ping
+     * @param timestamp value of {@link System#nanoTime()} when the frame is sent
+     * @return a frame asking the remote host to answer with a pong, to be sent before the next ping
+     */
+    byte[] getPingFrame(long timestamp){
+        return fixedLongFrame(pingTemplate,timestamp);
+    }
+
+    /**
+     * Pongs are sent by the thread computing the inputs: the frame is reused for each pong
+     * @param timestamp of the ping received
+     * @return the frame answering the ping, to be sent before the next pong
+     */
+    byte[] getPongFrame(long timestamp){
+        return fixedLongFrame(pongTemplate,timestamp);
+    }
+
+    /**
+     * Acks are sent by the thread handling the session: the frame is reused for each ack
+     * @param lastDelivered sequence number of the last message delivered
+     * @return the frame acknowledging the messages delivered, to be sent before the next ack
+     */
+    byte[] getAckFrame(long lastDelivered){
+        return fixedLongFrame(ackTemplate,lastDelivered);
+    }
+
+    /**
+     * Credits are granted by the threads reading the messages and by the thread handling the session:
+     * a new frame is created for each grant
+     * @param limit total number of bytes of messages the remote host can send
+     * @return the frame granting the credits
+     */
+    byte[] getCreditFrame(long limit){
+        BinaryWriter writer=new BinaryWriter(binaryTag.length+9).writeBytes(binaryTag);
+        TypedFrames.writeCredit(writer,limit);
+        return dataFormatter.boxControlFrame(DataFormatter.plainFrame(writer.toByteArray()));
+    }
+
+    /**
+     * Goodbyes are sent once per connection: a new frame is created
+     * @return the frame telling the remote host that the connection is closed gracefully
+     */
+    byte[] getGoodbyeFrame(){
+        BinaryWriter writer=new BinaryWriter(binaryTag.length+1).writeBytes(binaryTag);
+        TypedFrames.writeGoodbye(writer);
+        return dataFormatter.boxControlFrame(DataFormatter.plainFrame(writer.toByteArray()));
+    }
+
+    /**
+     * @return the hello message as a frame ready to be sent: it must not be modified
+     */
+    byte[] getHelloFrame() {
+        return dataFormatter.boxControlFrame(fixedFrames.hello);
+    }
+
+    /**
+     * @return the server is ready message as a frame ready to be sent: it must not be modified
+     */
+    byte[] getServerIsReadyFrame() {
+        return dataFormatter.boxControlFrame(fixedFrames.serverIsReady);
+    }
+
+    /**
+     * Frames of the messages that never change, encoded with a charset and shared by all the handlers
+     */
+    private static final class FixedFrames {
+        private final byte[] hello;
+        private final byte[] serverIsReady;
+
+        /**
+         * @param handler encoding the messages with the charset of the frames
+         */
+        private FixedFrames(MessageHandler handler){
+            hello=DataFormatter.plainFrame(handler.encode(helloMessage));
+            serverIsReady=DataFormatter.plainFrame(handler.encode(serverIsReadyMessage));
+        }
+    }
+
+    /**
+     * @return the parameters this host proposes or accepts during the set up phase
+     */
+    HandshakeParameters getLocalParameters() {
+        return localParameters;
+    }
+
+    /**
+     * Flow control counts the messages as prepared by the remote host, before they are boxed
+     * @return the size of the last message computed
+     */
+    int getInputSize(){
+        return inputSize;
+    }
+
+    /**
+     * @return statistics about the compression of the messages
+     */
+    CompressionStatistics getCompressionStatistics(){
+        return dataFormatter.getCompressionStatistics();
+    }
+
     /**
      * @return used charset
      */
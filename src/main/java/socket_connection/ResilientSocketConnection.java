@@ -0,0 +1,577 @@
+package socket_connection;
+
+import socket_connection.codecs.Codec;
+import socket_connection.configurations.ConfigurationHandler;
+import socket_connection.configurations.SocketConnectionConfigurations;
+import socket_connection.socket_exceptions.exceptions.BadMessagesSequenceException;
+import socket_connection.socket_exceptions.exceptions.FailedToConnectException;
+import socket_connection.socket_exceptions.exceptions.UnreachableHostException;
+import socket_connection.tools.Backoff;
+import socket_connection.tools.ReliableStream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A client connection that survives the loss of the connection to the server.
+ * When a read or a write finds the connection closed, a new connection is opened waiting
+ * a random delay that grows at each failed attempt ({@link Backoff}), so clients disconnected
+ * together don't reconnect together. The new connection resumes the previous session
+ * if the server accepts its ticket, otherwise it repeats the whole set up phase.
+ *
+ * The output that found the connection closed is sent again on the new connection. If
+ * "replayWindow" is greater than 0 the last outputs sent are sent again too, before it:
+ * they could have been lost with the connection, so the server may receive them twice.
+ * Arrays are copied when they are kept to be sent again, while objects are kept as they are:
+ * they must not be modified after being written if the replay window is used.
+ * Inputs received and not read before the connection was lost are read before the ones of the new connection.
+ *
+ * If "reliableDelivery" is enabled and the server accepts it, all the connections carry the same
+ * {@link ReliableStream}: messages not acknowledged by the remote host are sent again by the new
+ * connection and the ones already delivered are discarded, in both directions. The replay window isn't used.
+ */
+public class ResilientSocketConnection {
+
+    private final String ip;
+    private final int port;
+    private final Backoff backoff;
+    private final int maxAttempts;
+    private final int replayWindow;
+    private final ReliableStream reliableStream;
+    private final Deque<Output> sentOutputs=new ArrayDeque<>();
+    private final List<Codec<?>> codecs=new ArrayList<>();
+    private final Lock reconnectionLock=new ReentrantLock();
+    private final Logger logger;
+    private volatile SocketConnection connection;
+    private volatile boolean closed;
+    private volatile int reconnections;
+
+    /**
+     * @param ip is the ip-address of the server
+     * @param port the port on which the server is listening
+     * @throws FailedToConnectException if the server is unreachable
+     */
+    @SuppressWarnings("WeakerAccess")
+    public ResilientSocketConnection(String ip, int port) throws FailedToConnectException {
+        this(ip,port,ConfigurationHandler.getInstance().getSocketConnectionConfigurations());
+    }
+
+    private ResilientSocketConnection(String ip, int port, SocketConnectionConfigurations config) throws FailedToConnectException {
+        this(ip,port,new Backoff(config.getReconnectInitialDelayInMs(),config.getReconnectMaxDelayInMs()),
+                config.getReconnectMaxAttempts(),config.getReplayWindow(),
+                config.isReliableDelivery() ?
+                        new ReliableStream(config.getRetransmissionWindowMessages(),config.getRetransmissionWindowBytes()) : null);
+    }
+
+    /**
+     * @param backoff used to choose the delay before each attempt
+     * @param maxAttempts number of attempts before giving up, 0 to never give up
+     * @param replayWindow number of outputs sent again after a reconnection
+     * @param reliableStream carried by all the connections, null if reliable delivery isn't used
+     */
+    ResilientSocketConnection(String ip, int port, Backoff backoff, int maxAttempts, int replayWindow,
+                              ReliableStream reliableStream) throws FailedToConnectException {
+        this.ip=ip;
+        this.port=port;
+        this.backoff=backoff;
+        this.maxAttempts=maxAttempts;
+        this.replayWindow=replayWindow;
+        this.reliableStream=reliableStream;
+        this.logger=Logger.getLogger(ResilientSocketConnection.class.toString()+"%u");
+        this.connection=new SocketConnection(ip,port,reliableStream);
+    }
+
+    /**
+     * An output that can be sent again on a new connection
+     */
+    @FunctionalInterface
+    private interface Output {
+        void writeOn(SocketConnection connection) throws UnreachableHostException;
+    }
+
+    /**
+     * An input read from the current connection
+     * @param <E> exception thrown if the input isn't of the type requested
+     */
+    @FunctionalInterface
+    private interface Input<T,E extends Exception> {
+        T readFrom(SocketConnection connection) throws UnreachableHostException, E;
+    }
+
+    /**
+     * This method sends an output, reconnecting if the connection was lost
+     * @param output to be sent
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     */
+    private void write(Output output) throws UnreachableHostException {
+        while (true){
+            SocketConnection current=currentConnection();
+            try {
+                output.writeOn(current);
+                if(current.getReliableStream()==null) remember(output);
+                return;
+            } catch (UnreachableHostException e){
+                reconnect(current);
+            }
+        }
+    }
+
+    /**
+     * This method reads an input, reconnecting if the connection was lost
+     * @param input to be read
+     * @return the input read
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @throws E if the input received isn't of the type requested
+     */
+    private <T,E extends Exception> T read(Input<T,E> input) throws UnreachableHostException, E {
+        while (true){
+            SocketConnection current=currentConnection();
+            try {
+                return input.readFrom(current);
+            } catch (UnreachableHostException e){
+                reconnect(current);
+            }
+        }
+    }
+
+    private SocketConnection currentConnection() throws UnreachableHostException {
+        if(closed) throw new UnreachableHostException();
+        return connection;
+    }
+
+    /**
+     * @param output sent, kept to be sent again if the connection is lost
+     */
+    private void remember(Output output){
+        if(replayWindow<=0) return;
+        synchronized (sentOutputs){
+            if(sentOutputs.size()==replayWindow) sentOutputs.removeFirst();
+            sentOutputs.addLast(output);
+        }
+    }
+
+    /**
+     * This method replaces a lost connection. If another thread already replaced it,
+     * the new connection is used.
+     * @param lost the connection found closed
+     * @throws UnreachableHostException if the attempts ended or the connection was shut down
+     */
+    private void reconnect(SocketConnection lost) throws UnreachableHostException {
+        reconnectionLock.lock();
+        try {
+            if(closed) throw new UnreachableHostException();
+            if(connection!=lost) return;
+            lost.shutdown();
+            for (int attempt=0; maxAttempts<=0 || attempt<maxAttempts; attempt++){
+                Thread.sleep(backoff.delayInMs(attempt));
+                if(closed) throw new UnreachableHostException();
+                SocketConnection reconnected=tryToConnect();
+                if(reconnected!=null){
+                    lost.moveInputsTo(reconnected);
+                    connection=reconnected;
+                    reconnections++;
+                    logger.log(Level.INFO, "RECONNECTED");
+                    return;
+                }
+            }
+            logger.log(Level.SEVERE, "CAN'T RECONNECT");
+            closed=true;
+            throw new UnreachableHostException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnreachableHostException();
+        } finally {
+            reconnectionLock.unlock();
+        }
+    }
+
+    /**
+     * @return a new connection on which the codecs are registered and the outputs
+     * of the replay window are sent again, null if it can't be opened
+     */
+    private SocketConnection tryToConnect(){
+        SocketConnection reconnected;
+        try {
+            reconnected=new SocketConnection(ip,port,reliableStream);
+        } catch (FailedToConnectException e) {
+            return null;
+        }
+        codecs.forEach(reconnected::registerCodec);
+        try {
+            synchronized (sentOutputs){
+                for (Output output : sentOutputs) output.writeOn(reconnected);
+            }
+            return reconnected;
+        } catch (UnreachableHostException e) {
+            reconnected.shutdown();
+            return null;
+        }
+    }
+
+    /**
+     * This method shuts down the connection: it won't be opened again
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void shutdown() {
+        closed=true;
+        connection.shutdown();
+    }
+
+    /**
+     * @return true if the connection is open or can be opened again
+     */
+    @SuppressWarnings("WeakerAccess")
+    public boolean isConnected() {
+        return !closed;
+    }
+
+    /**
+     * @return the number of times the connection was opened again
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getReconnections() {
+        return reconnections;
+    }
+
+    /**
+     * @return the reliable stream carried by the connection currently used, null if reliable delivery isn't used
+     * @see SocketConnection#getReliableStream()
+     */
+    @SuppressWarnings("WeakerAccess")
+    public ReliableStream getReliableStream() {
+        return connection.getReliableStream();
+    }
+
+    /**
+     * @return the connection currently used
+     */
+    @SuppressWarnings("WeakerAccess")
+    public SocketConnection getConnection() {
+        return connection;
+    }
+
+    /**
+     * The codec is registered on each new connection
+     * @param codec to be registered
+     * @see SocketConnection#registerCodec(Codec)
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void registerCodec(Codec<?> codec){
+        reconnectionLock.lock();
+        try {
+            connection.registerCodec(codec);
+            codecs.add(codec);
+        } finally {
+            reconnectionLock.unlock();
+        }
+    }
+
+    /**
+     * This method can be used to send a string to the server. If the connection was lost,
+     * it's sent on a new connection after the outputs of the replay window, which the server may receive
+     * twice; with reliable delivery, the messages not acknowledged are sent again instead
+     * @param string to be sent
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @see SocketConnection#writeString(String)
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeString(String string) throws UnreachableHostException {
+        write(connection -> connection.writeString(string));
+    }
+
+    /**
+     * This method can be used to send an integer to the server. If the connection was lost,
+     * it's sent on a new connection after the outputs of the replay window, which the server may receive
+     * twice; with reliable delivery, the messages not acknowledged are sent again instead
+     * @param number to be sent
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @see SocketConnection#writeInt(int)
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeInt(int number) throws UnreachableHostException {
+        write(connection -> connection.writeInt(number));
+    }
+
+    /**
+     * This method can be used to send a long to the server. If the connection was lost,
+     * it's sent on a new connection after the outputs of the replay window, which the server may receive
+     * twice; with reliable delivery, the messages not acknowledged are sent again instead
+     * @param number to be sent
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @see SocketConnection#writeLong(long)
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeLong(long number) throws UnreachableHostException {
+        write(connection -> connection.writeLong(number));
+    }
+
+    /**
+     * This method can be used to send a double to the server. If the connection was lost,
+     * it's sent on a new connection after the outputs of the replay window, which the server may receive
+     * twice; with reliable delivery, the messages not acknowledged are sent again instead
+     * @param number to be sent
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @see SocketConnection#writeDouble(double)
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeDouble(double number) throws UnreachableHostException {
+        write(connection -> connection.writeDouble(number));
+    }
+
+    /**
+     * This method can be used to send a boolean to the server. If the connection was lost,
+     * it's sent on a new connection after the outputs of the replay window, which the server may receive
+     * twice; with reliable delivery, the messages not acknowledged are sent again instead
+     * @param value to be sent
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @see SocketConnection#writeBoolean(boolean)
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeBoolean(boolean value) throws UnreachableHostException {
+        write(connection -> connection.writeBoolean(value));
+    }
+
+    /**
+     * This method can be used to send raw bytes to the server. If the connection was lost,
+     * it's sent on a new connection after the outputs of the replay window, which the server may receive
+     * twice; with reliable delivery, the messages not acknowledged are sent again instead
+     * The array is copied if the replay window is used, so it can be modified after this method returns
+     * @param bytes to be sent
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @see SocketConnection#writeBytes(byte[])
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeBytes(byte[] bytes) throws UnreachableHostException {
+        byte[] sent=replayWindow>0 ? bytes.clone() : bytes;
+        write(connection -> connection.writeBytes(sent));
+    }
+
+    /**
+     * This method can be used to send an array of integers to the server. If the connection was lost,
+     * it's sent on a new connection after the outputs of the replay window, which the server may receive
+     * twice; with reliable delivery, the messages not acknowledged are sent again instead
+     * The array is copied if the replay window is used, so it can be modified after this method returns
+     * @param array to be sent
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @see SocketConnection#writeIntArray(int[])
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeIntArray(int[] array) throws UnreachableHostException {
+        int[] sent=replayWindow>0 ? array.clone() : array;
+        write(connection -> connection.writeIntArray(sent));
+    }
+
+    /**
+     * This method can be used to send an array of longs to the server. If the connection was lost,
+     * it's sent on a new connection after the outputs of the replay window, which the server may receive
+     * twice; with reliable delivery, the messages not acknowledged are sent again instead
+     * The array is copied if the replay window is used, so it can be modified after this method returns
+     * @param array to be sent
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @see SocketConnection#writeLongArray(long[])
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeLongArray(long[] array) throws UnreachableHostException {
+        long[] sent=replayWindow>0 ? array.clone() : array;
+        write(connection -> connection.writeLongArray(sent));
+    }
+
+    /**
+     * This method can be used to send an array of doubles to the server. If the connection was lost,
+     * it's sent on a new connection after the outputs of the replay window, which the server may receive
+     * twice; with reliable delivery, the messages not acknowledged are sent again instead
+     * The array is copied if the replay window is used, so it can be modified after this method returns
+     * @param array to be sent
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @see SocketConnection#writeDoubleArray(double[])
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeDoubleArray(double[] array) throws UnreachableHostException {
+        double[] sent=replayWindow>0 ? array.clone() : array;
+        write(connection -> connection.writeDoubleArray(sent));
+    }
+
+    /**
+     * This method can be used to send an object to the server. If the connection was lost,
+     * it's sent on a new connection after the outputs of the replay window, which the server may receive
+     * twice; with reliable delivery, the messages not acknowledged are sent again instead
+     * The object isn't copied: it must not be modified after this method returns if the replay window is used
+     * @param object to be sent
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @see SocketConnection#writeObject(Object)
+     */
+    @SuppressWarnings("WeakerAccess")
+    public <T> void writeObject(T object) throws UnreachableHostException {
+        write(connection -> connection.writeObject(object));
+    }
+
+    /**
+     * This method reads from the current connection: if it was lost, the inputs received and not read
+     * are read before the ones of the new connection
+     * @return the first input received
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @see SocketConnection#readString()
+     */
+    @SuppressWarnings("WeakerAccess")
+    public String readString() throws UnreachableHostException {
+        return read(SocketConnection::readString);
+    }
+
+    /**
+     * This method reads from the current connection: if it was lost, the inputs received and not read
+     * are read before the ones of the new connection
+     * @return an integer from the inputs received
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @throws BadMessagesSequenceException when the first input isn't an integer
+     * @see SocketConnection#readInt()
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int readInt() throws UnreachableHostException, BadMessagesSequenceException {
+        return read(SocketConnection::readInt);
+    }
+
+    /**
+     * This method reads from the current connection: if it was lost, the inputs received and not read
+     * are read before the ones of the new connection
+     * @return a long from the inputs received
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @throws BadMessagesSequenceException when the first input isn't a long
+     * @see SocketConnection#readLong()
+     */
+    @SuppressWarnings("WeakerAccess")
+    public long readLong() throws UnreachableHostException, BadMessagesSequenceException {
+        return read(SocketConnection::readLong);
+    }
+
+    /**
+     * This method reads from the current connection: if it was lost, the inputs received and not read
+     * are read before the ones of the new connection
+     * @return a double from the inputs received
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @throws BadMessagesSequenceException when the first input isn't a double
+     * @see SocketConnection#readDouble()
+     */
+    @SuppressWarnings("WeakerAccess")
+    public double readDouble() throws UnreachableHostException, BadMessagesSequenceException {
+        return read(SocketConnection::readDouble);
+    }
+
+    /**
+     * This method reads from the current connection: if it was lost, the inputs received and not read
+     * are read before the ones of the new connection
+     * @return a boolean from the inputs received
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @throws BadMessagesSequenceException when the first input isn't a boolean
+     * @see SocketConnection#readBoolean()
+     */
+    @SuppressWarnings("WeakerAccess")
+    public boolean readBoolean() throws UnreachableHostException, BadMessagesSequenceException {
+        return read(SocketConnection::readBoolean);
+    }
+
+    /**
+     * This method reads from the current connection: if it was lost, the inputs received and not read
+     * are read before the ones of the new connection
+     * @return the bytes sent with {@link #writeBytes(byte[])}
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @throws BadMessagesSequenceException when the first input isn't a byte array
+     * @see SocketConnection#readBytes()
+     */
+    @SuppressWarnings("WeakerAccess")
+    public byte[] readBytes() throws UnreachableHostException, BadMessagesSequenceException {
+        return read(SocketConnection::readBytes);
+    }
+
+    /**
+     * This method reads from the current connection: if it was lost, the inputs received and not read
+     * are read before the ones of the new connection
+     * @return the array sent with {@link #writeIntArray(int[])}
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @throws BadMessagesSequenceException when the first input isn't an int array
+     * @see SocketConnection#readIntArray()
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int[] readIntArray() throws UnreachableHostException, BadMessagesSequenceException {
+        return read(SocketConnection::readIntArray);
+    }
+
+    /**
+     * This method reads from the current connection: if it was lost, the inputs received and not read
+     * are read before the ones of the new connection
+     * @return the array sent with {@link #writeLongArray(long[])}
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @throws BadMessagesSequenceException when the first input isn't a long array
+     * @see SocketConnection#readLongArray()
+     */
+    @SuppressWarnings("WeakerAccess")
+    public long[] readLongArray() throws UnreachableHostException, BadMessagesSequenceException {
+        return read(SocketConnection::readLongArray);
+    }
+
+    /**
+     * This method reads from the current connection: if it was lost, the inputs received and not read
+     * are read before the ones of the new connection
+     * @return the array sent with {@link #writeDoubleArray(double[])}
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @throws BadMessagesSequenceException when the first input isn't a double array
+     * @see SocketConnection#readDoubleArray()
+     */
+    @SuppressWarnings("WeakerAccess")
+    public double[] readDoubleArray() throws UnreachableHostException, BadMessagesSequenceException {
+        return read(SocketConnection::readDoubleArray);
+    }
+
+    /**
+     * This method reads from the current connection: if it was lost, the inputs received and not read
+     * are read before the ones of the new connection
+     * @param type of the object to be read
+     * @return the object sent with {@link #writeObject(Object)}
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @throws BadMessagesSequenceException when the first input isn't an object
+     * encoded with the codec of the given type
+     * @see SocketConnection#readObject(Class)
+     */
+    @SuppressWarnings("WeakerAccess")
+    public <T> T readObject(Class<T> type) throws UnreachableHostException, BadMessagesSequenceException {
+        return read(connection -> connection.readObject(type));
+    }
+
+    /**
+     * This method reads from the current connection: if it was lost, the inputs received and not read
+     * are read before the ones of the new connection
+     * @return the object sent with {@link #writeObject(Object)}, decoded with the codec
+     * registered with the type id of the object
+     * @throws UnreachableHostException if the server can't be reached again or the connection was shut down
+     * @throws BadMessagesSequenceException when the first input isn't an object
+     * or there isn't a codec registered for it
+     * @see SocketConnection#readObject()
+     */
+    @SuppressWarnings("WeakerAccess")
+    public Object readObject() throws UnreachableHostException, BadMessagesSequenceException {
+        return read(SocketConnection::readObject);
+    }
+
+    /**
+     * @return true if the current connection has inputs to be read
+     */
+    @SuppressWarnings("WeakerAccess")
+    public boolean isDataAvailable(){
+        return connection.isDataAvailable();
+    }
+
+    /**
+     * @return the round trip time of the current connection
+     * @throws UnreachableHostException if the connection was shut down
+     * @see SocketConnection#getPing()
+     */
+    @SuppressWarnings("WeakerAccess")
+    public long getPing() throws UnreachableHostException {
+        return read(SocketConnection::getPing);
+    }
+}
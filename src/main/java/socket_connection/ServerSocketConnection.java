@@ -4,34 +4,57 @@ import org.jetbrains.annotations.NotNull;
 import socket_connection.socket_exceptions.exceptions.*;
 import socket_connection.socket_exceptions.runtime_exceptions.BadSetupException;
 import socket_connection.configurations.ConfigurationHandler;
+import socket_connection.cryptography.ResumptionStatistics;
+import socket_connection.cryptography.SessionTicketIssuer;
+import socket_connection.tools.AdmissionControl;
+import socket_connection.tools.AdmissionStatistics;
 import socket_connection.tools.ConnectionsHandler;
+import socket_connection.tools.ExecutorStatistics;
+import socket_connection.tools.LoadShedder;
+import socket_connection.tools.ReliableStream;
+import socket_connection.tools.SerialExecutor;
 import socket_connection.configurations.ServerSocketConnectionConfigurations;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class ServerSocketConnection extends Thread {
 
-    private int port;
-    private Class<? extends SocketUserAgentInterface> agentClassType;
+    private List<Listener> listeners;
     private ConnectionsHandler connectionsHandler;
     private ReentrantLock serverStatusLock;
     private ExecutorService threadsHandler;
+    private ExecutorService agentPool;
+    private ExecutorStatistics agentStatistics;
+    private int drainThreads;
+    private long drainTimeoutInNs;
+    private AdmissionControl admissionControl;
+    private LoadShedder loadShedder;
+    private long healthCheckInMs;
     private Condition serverStatusCondition;
     private Logger logger;
     private Status currentStatus;
-    private ServerSocket serverSocket;
     private long sleepInMs;
     private long awaitExecutorInMs;
+    private SessionTicketIssuer sessionTicketIssuer;
+    private int maxReliableStreams;
+    private Map<ByteBuffer,ReliableStream> reliableStreams;
     public enum Status {
         /**
          * if the server is accepting incoming connections
@@ -85,17 +108,37 @@ public class ServerSocketConnection extends Thread {
     @SuppressWarnings("WeakerAccess")
     public ServerSocketConnection(int port, Class<? extends SocketUserAgentInterface> userAgentClass, boolean manualStart) throws IOException, IllegalAccessException, InvocationTargetException, InstantiationException, NoDefaultConstructorException {
         this();
-        agentClassType =userAgentClass;
-        this.port=port;
-        serverSocket= new ServerSocket(port);
-        //Test if the passed class has the default constructor
-        try {
-            agentClassType.getDeclaredConstructor().newInstance();
-        } catch (NoSuchMethodException e) {
-            throw new NoDefaultConstructorException();
-        }
+        listeners.add(new Listener(null,port,userAgentClass));
         if(!manualStart) this.start();
     }
+
+    /**
+     * This method makes the server listen on another port: connections accepted by all the listeners
+     * are handled by the same threads, with the same limits, and are counted together.
+     * @param bindAddress local address where to listen, null for all the local addresses
+     * @param port where to listen
+     * @param userAgentClass the class implementing SocketUSerAgentInterface, used to create the agents
+     *                       of the connections accepted by this listener
+     * @throws IOException if the port is already in use
+     * @throws NoDefaultConstructorException if the implementing class doesn't have a default constructor
+     * @throws IllegalAccessException if the constructor of the class passed isn't accessible
+     * @throws InvocationTargetException if the underlying constructor throws an exception
+     * @throws InstantiationException if the class that declares the underlying constructor represents an abstract class
+     * @throws ServerShutdownException if server is shut down
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void addListener(InetAddress bindAddress, int port, Class<? extends SocketUserAgentInterface> userAgentClass) throws IOException, IllegalAccessException, InvocationTargetException, InstantiationException, NoDefaultConstructorException, ServerShutdownException {
+        checkIfShutDown();
+        listeners.add(new Listener(bindAddress,port,userAgentClass));
+    }
+
+    /**
+     * @see #addListener(InetAddress, int, Class)
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void addListener(int port, Class<? extends SocketUserAgentInterface> userAgentClass) throws IOException, IllegalAccessException, InvocationTargetException, InstantiationException, NoDefaultConstructorException, ServerShutdownException {
+        addListener(null,port,userAgentClass);
+    }
     /**
      * Private constructor to initialize principal fields
      */
@@ -103,12 +146,61 @@ public class ServerSocketConnection extends Thread {
         ServerSocketConnectionConfigurations config=ConfigurationHandler.getInstance().getServerSocketConnectionConfigurations();
         this.sleepInMs=config.getSleepInMs();
         this.awaitExecutorInMs=config.getAwaitExecutorInMs();
+        this.drainThreads=config.getDrainThreads();
+        this.admissionControl=new AdmissionControl(config.getMaxConnections(),config.getMaxConnectionsPerAddress(),
+                config.getMaxNewConnectionsPerSecond(),config.getNewConnectionBurst(),
+                config.getMaxInputsPerSecond(),config.getInputBurst());
+        this.healthCheckInMs=config.getHealthCheckInMs();
+        this.loadShedder=new LoadShedder(TimeUnit.MILLISECONDS.toNanos(config.getMaxSchedulingLagInMs()),
+                config.getMaxPendingHandshakes(),config.getMaxBufferedInputBytes(),
+                config.getCriticalLoadRatio(),config.getRecoveryLoadRatio());
+        this.listeners=new CopyOnWriteArrayList<>();
         this.connectionsHandler=new ConnectionsHandler();
         this.serverStatusLock =new ReentrantLock();
         this.serverStatusCondition =serverStatusLock.newCondition();
         this.threadsHandler= Executors.newCachedThreadPool();
+        setUpAgentPool(config.getMaxAgentThreads());
         this.logger=Logger.getLogger(ServerSocketConnection.class.toString()+"%u");
         this.currentStatus=Status.WAITING_LAUNCH;
+        if(config.isSessionTickets()) setUpSessionTickets(config);
+        setUpReliableStreams(config.getMaxReliableStreams());
+    }
+
+    /**
+     * Agents of all the connections run on this pool: the tasks of each connection are run in order
+     * by its own {@link SerialExecutor}
+     * @param maxThreads max number of threads running agents, 0 for no limit
+     */
+    private void setUpAgentPool(int maxThreads){
+        this.agentPool= maxThreads>0 ? Executors.newFixedThreadPool(maxThreads) : Executors.newCachedThreadPool();
+        this.agentStatistics=new ExecutorStatistics();
+    }
+
+    /**
+     * Streams are kept after their connection is closed, so that a new connection of the same
+     * client can resume them: only the last streams used are kept
+     * @param maxStreams max number of streams kept, 0 to refuse reliable streams
+     */
+    private void setUpReliableStreams(int maxStreams){
+        this.maxReliableStreams=maxStreams;
+        this.reliableStreams=new LinkedHashMap<ByteBuffer,ReliableStream>(16,0.75f,true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer,ReliableStream> eldest) {
+                return size()>maxReliableStreams;
+            }
+        };
+    }
+
+    /**
+     * This method creates the issuer of the session tickets sent to clients
+     * @param config of the server
+     */
+    private void setUpSessionTickets(ServerSocketConnectionConfigurations config){
+        try {
+            sessionTicketIssuer=new SessionTicketIssuer(config.getMaxSessionTickets(),config.getSessionTicketLifetimeInMs());
+        } catch (GeneralSecurityException e) {
+            logger.log(Level.SEVERE, "SESSION TICKETS NOT AVAILABLE");
+        }
     }
 
     /**
@@ -119,19 +211,67 @@ public class ServerSocketConnection extends Thread {
         serverStatusLock.lock();
         while (currentStatus!=Status.SHUT_DOWN){
             serverStatusLock.unlock();
-            delay();
-            handleIncomingConnections();
+            if(loadShedder.isAcceptPaused()) delay();
+            else handleIncomingConnections();
             serverStatusLock.lock();
         }
         serverStatusLock.unlock();
         tearDownProtocol();
     }
 
+    /**
+     * This method is run by a daemon thread checking the health of the server: the scheduling lag is
+     * the time this thread sleeps beyond {@link #healthCheckInMs}, as all threads compete for the CPU
+     */
+    private void monitorHealth(){
+        long expectedInNs=TimeUnit.MILLISECONDS.toNanos(healthCheckInMs);
+        while (getStatus()!=Status.SHUT_DOWN){
+            long start=System.nanoTime();
+            try {
+                Thread.sleep(healthCheckInMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long lag=Math.max(0,System.nanoTime()-start-expectedInNs);
+            Map<SocketConnection,SocketUserAgentInterface> agents=connectionsHandler.getAgents();
+            int pendingHandshakes=0;
+            long bufferedBytes=0;
+            for (SocketConnection connection : agents.keySet()){
+                if(connection.isHandshakePending()) pendingHandshakes++;
+                bufferedBytes+=connection.getBufferedInputBytes();
+            }
+            if(loadShedder.update(lag,pendingHandshakes,bufferedBytes)==LoadShedder.Level.CRITICAL) shedSession(agents);
+        }
+    }
+
+    /**
+     * This method disconnects the session with the lowest priority and, among them, the one buffering more inputs
+     * @param agents of the active connections
+     */
+    private void shedSession(Map<SocketConnection,SocketUserAgentInterface> agents){
+        agents.entrySet().stream()
+                .filter(entry->entry.getKey().isConnected())
+                .min(Comparator.comparingInt((Map.Entry<SocketConnection,SocketUserAgentInterface> entry)->entry.getKey().getSheddingPriority())
+                        .thenComparing(entry->-entry.getKey().getBufferedInputBytes()))
+                .ifPresent(entry->{
+                    logger.log(Level.WARNING, "SERVER OVERLOADED: DISCONNECTING A SESSION");
+                    loadShedder.registerShedSession();
+                    entry.getValue().shutdown();
+                });
+    }
+
     /**
      * This getInstance contains all operation to do before server is shut down.
      */
     private void tearDownProtocol() {
-        connectionsHandler.shutdownAllConnections();
+        //the interrupt used to stop accepting connections must not stop the drain
+        Thread.interrupted();
+        long timeout=getDrainTimeoutInNs();
+        if(timeout>0) connectionsHandler.drainAllConnections(System.nanoTime()+timeout,drainThreads);
+        else connectionsHandler.shutdownAllConnections();
+        agentPool.shutdown();
+        threadsHandler.shutdown();
         try {
             threadsHandler.awaitTermination(awaitExecutorInMs, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
@@ -154,31 +294,40 @@ public class ServerSocketConnection extends Thread {
     }
 
     /**
-     * This getInstance accept incoming connection, create and getInstance a new instance of
-     * a generic user agent class implementing SocketUserAgentInterface.
+     * This method accepts a connection from each listener: each listener waits for a part of
+     * {@link #sleepInMs}, so that a single thread accepts the connections of all the listeners
      */
     private void handleIncomingConnections() {
-        SocketUserAgentInterface runningAgent;
-        try {
-            runningAgent = agentClassType.getConstructor().newInstance();
-            setupRunningAgent(runningAgent);
-        } catch (NoSuchMethodException |InstantiationException | IllegalAccessException |InvocationTargetException e) {
-            throw new BadSetupException();
-        }
+        int timeoutInMs=(int) Math.max(1,sleepInMs/Math.max(1,listeners.size()));
+        for (Listener listener : listeners) setupRunningAgent(listener,timeoutInMs);
     }
 
     /**
-     * this getInstance getInstance properly a running agent when a connection request
-     * is received
-     * @param runningAgent to getInstance
+     * this getInstance accept an incoming connection, create and getInstance a new instance of
+     * the user agent class of the listener
+     * @param listener accepting the connection
+     * @param timeoutInMs max time to wait for a connection request
      */
-    private void setupRunningAgent(SocketUserAgentInterface runningAgent) {
+    private void setupRunningAgent(Listener listener, int timeoutInMs) {
         try {
             logger.finest("waiting for connection request");
-            Socket client=serverSocket.accept();
+            Socket client=listener.accept(timeoutInMs);
             logger.finest("Connection request received");
-            setup(client, runningAgent);
+            if(!loadShedder.admitsHandshakes()){
+                logger.finest("Connection request rejected: server overloaded");
+                loadShedder.registerRejectedHandshake();
+                client.close();
+                return;
+            }
+            if(!admissionControl.admit(client.getInetAddress())){
+                logger.finest("Connection request rejected");
+                client.close();
+                return;
+            }
+            setup(client, listener.newAgent());
             logger.finest("Client connected");
+        } catch (SocketTimeoutException e) {
+            logger.finest("No connection request");
         } catch (IOException e) {
             handleThrown();
         } catch (FailedToConnectException e) {
@@ -193,11 +342,20 @@ public class ServerSocketConnection extends Thread {
      * @throws FailedToConnectException if can't connect anymore to the connection just accepted
      */
     private void setup(@NotNull Socket client,@NotNull SocketUserAgentInterface runningAgent) throws FailedToConnectException {
-        SocketConnection connection=new SocketConnection(client,this);
+        SocketConnection connection;
+        try {
+            connection=new SocketConnection(client,this);
+        } catch (FailedToConnectException e){
+            admissionControl.release(client.getInetAddress());
+            throw e;
+        }
+        connection.setInputRateLimit(admissionControl.newInputLimit());
         connectionsHandler.addConnection(connection, runningAgent);
         connection.setToActive();
         runningAgent.setConnection(connection);
-        new Thread(runningAgent).start();
+        SerialExecutor agentExecutor=new SerialExecutor(agentPool,agentStatistics);
+        connection.setAgentExecutor(agentExecutor);
+        agentExecutor.execute(runningAgent);
     }
 
     /**
@@ -304,6 +462,36 @@ public class ServerSocketConnection extends Thread {
 
     }
 
+    /**
+     * This method shuts down the server gracefully: it stops accepting connections, then gives the
+     * connections time to flush their messages and closes them in parallel, sending a goodbye frame
+     * to the clients. Connections are shut down without waiting when the time elapses,
+     * so the shut down takes a bounded time even with many clients.
+     * @param timeout max time given to connections to flush their messages
+     * @param unit of the timeout
+     * @throws ServerShutdownException if server is already shut down
+     * @throws InterruptedException if the thread is interrupted while waiting for the connections to be closed
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void drain(long timeout, TimeUnit unit) throws ServerShutdownException, InterruptedException {
+        serverStatusLock.lock();
+        drainTimeoutInNs=Math.max(1,unit.toNanos(timeout));
+        serverStatusLock.unlock();
+        shutdown();
+        //connections closed after the deadline don't wait: the server thread ends shortly after it
+        this.join(unit.toMillis(timeout)+awaitExecutorInMs);
+    }
+
+    /**
+     * @return the time given to connections to flush their messages, 0 to shut them down at once
+     */
+    private long getDrainTimeoutInNs(){
+        serverStatusLock.lock();
+        long timeout=drainTimeoutInNs;
+        serverStatusLock.unlock();
+        return timeout;
+    }
+
     /**
      * close server socket
      * @exception BadSetupException is launched just if there's a severe error due
@@ -311,7 +499,7 @@ public class ServerSocketConnection extends Thread {
      */
     private void closeServerSocket(){
         try {
-            serverSocket.close();
+            for (Listener listener : listeners) listener.close();
         } catch (IOException e) {
             throw new BadSetupException();
         }
@@ -324,7 +512,7 @@ public class ServerSocketConnection extends Thread {
      */
     private void openServerSocket() {
         try{
-            serverSocket= new ServerSocket(port);
+            for (Listener listener : listeners) listener.open();
         } catch (IOException e) {
             throw new BadSetupException();
         }
@@ -347,7 +535,14 @@ public class ServerSocketConnection extends Thread {
      * @param connection is the connection who notified the server that it will be closed soon
      */
     void notifyDisconnection(SocketConnection connection) {
-        threadsHandler.execute(()-> connectionsHandler.removeConnection(connection));
+        admissionControl.release(connection.getRemoteAddress());
+        //connections closed by the shut down of the server were already removed
+        if(getStatus()==Status.SHUT_DOWN) return;
+        try {
+            threadsHandler.execute(()-> connectionsHandler.removeConnection(connection));
+        } catch (RejectedExecutionException e) {
+            logger.fine("Connection closed while the server was shut down");
+        }
     }
 
     /**
@@ -373,6 +568,77 @@ public class ServerSocketConnection extends Thread {
         return closed;
     }
 
+    /**
+     * @return the issuer of session tickets, null if session tickets are disabled
+     */
+    SessionTicketIssuer getSessionTicketIssuer() {
+        return sessionTicketIssuer;
+    }
+
+    /**
+     * @return true if clients can open reliable streams
+     */
+    boolean acceptsReliableStreams() {
+        return maxReliableStreams>0;
+    }
+
+    /**
+     * @param id of the stream opened by a client
+     * @return the stream with the given id, null if the server doesn't know it
+     */
+    synchronized ReliableStream getReliableStream(byte[] id) {
+        return reliableStreams.get(ByteBuffer.wrap(id));
+    }
+
+    /**
+     * @param stream opened by a client, to be resumed by its next connections
+     */
+    synchronized void registerReliableStream(ReliableStream stream) {
+        reliableStreams.put(ByteBuffer.wrap(stream.getId()),stream);
+    }
+
+    /**
+     * @return statistics about the sessions resumed by clients with a session ticket
+     */
+    @SuppressWarnings("WeakerAccess")
+    public ResumptionStatistics getResumptionStatistics(){
+        return sessionTicketIssuer==null ? new ResumptionStatistics() : sessionTicketIssuer.getStatistics();
+    }
+
+    /**
+     * @return statistics about the tasks run by the agents, e.g. the time they waited for a thread
+     */
+    @SuppressWarnings("WeakerAccess")
+    public ExecutorStatistics getAgentStatistics(){
+        return agentStatistics;
+    }
+
+    /**
+     * @return statistics about the connections accepted and rejected, and about the inputs throttled
+     */
+    @SuppressWarnings("WeakerAccess")
+    public AdmissionStatistics getAdmissionStatistics(){
+        return admissionControl.getStatistics();
+    }
+
+    /**
+     * @return the level of load shedding and the sessions and handshakes rejected to shed load
+     */
+    @SuppressWarnings("WeakerAccess")
+    public LoadShedder getLoadShedder(){
+        return loadShedder;
+    }
+
+    /**
+     * @return the local ports of the listeners, in the order they were added
+     */
+    @SuppressWarnings("WeakerAccess")
+    public List<Integer> getLocalPorts(){
+        List<Integer> ports=new ArrayList<>();
+        for (Listener listener : listeners) ports.add(listener.getLocalPort());
+        return ports;
+    }
+
     /**
      * @return the number of active connection
      */
@@ -391,6 +657,85 @@ public class ServerSocketConnection extends Thread {
         serverStatusLock.lock();
         super.start();
         this.currentStatus=Status.RUNNING;
+        if(loadShedder.isEnabled()){
+            Thread healthMonitor=new Thread(this::monitorHealth);
+            healthMonitor.setDaemon(true);
+            healthMonitor.start();
+        }
         serverStatusLock.unlock();
     }
+
+    /**
+     * A listener accepts the connections of a port: its connections are handled by agents of its own class
+     */
+    private static class Listener {
+        private final InetAddress bindAddress;
+        private final int port;
+        private final Class<? extends SocketUserAgentInterface> agentClass;
+        private volatile ServerSocket serverSocket;
+
+        /**
+         * @param bindAddress local address where to listen, null for all the local addresses
+         * @param port where to listen
+         * @param agentClass the class of the agents of the connections accepted
+         * @throws IOException if the port is already in use
+         * @throws NoDefaultConstructorException if the implementing class doesn't have a default constructor
+         * @throws IllegalAccessException if the constructor of the class passed isn't accessible
+         * @throws InvocationTargetException if the underlying constructor throws an exception
+         * @throws InstantiationException if the class that declares the underlying constructor represents an abstract class
+         */
+        private Listener(InetAddress bindAddress, int port, Class<? extends SocketUserAgentInterface> agentClass) throws IOException, IllegalAccessException, InvocationTargetException, InstantiationException, NoDefaultConstructorException {
+            this.bindAddress=bindAddress;
+            this.agentClass=agentClass;
+            this.serverSocket=new ServerSocket(port,0,bindAddress);
+            //a port chosen by the system is kept when the listener is opened again
+            this.port=serverSocket.getLocalPort();
+            //Test if the passed class has the default constructor
+            try {
+                agentClass.getDeclaredConstructor().newInstance();
+            } catch (NoSuchMethodException e) {
+                serverSocket.close();
+                throw new NoDefaultConstructorException();
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                serverSocket.close();
+                throw e;
+            }
+        }
+
+        /**
+         * @param timeoutInMs max time to wait for a connection request
+         * @return the socket accepted
+         * @throws SocketTimeoutException if no connection request was received in time
+         * @throws IOException if the listener is closed
+         */
+        private Socket accept(int timeoutInMs) throws IOException {
+            ServerSocket current=serverSocket;
+            current.setSoTimeout(timeoutInMs);
+            return current.accept();
+        }
+
+        /**
+         * @return a new agent for a connection accepted
+         * @exception BadSetupException if the agent can't be created
+         */
+        private SocketUserAgentInterface newAgent(){
+            try {
+                return agentClass.getConstructor().newInstance();
+            } catch (NoSuchMethodException |InstantiationException | IllegalAccessException |InvocationTargetException e) {
+                throw new BadSetupException();
+            }
+        }
+
+        private void open() throws IOException {
+            if(serverSocket.isClosed()) serverSocket=new ServerSocket(port,0,bindAddress);
+        }
+
+        private void close() throws IOException {
+            serverSocket.close();
+        }
+
+        private int getLocalPort(){
+            return port;
+        }
+    }
 }
@@ -1,8 +1,12 @@
 package socket_connection;
 
-import com.google.gson.Gson;
+import socket_connection.codecs.Codec;
+import socket_connection.codecs.CodecRegistry;
 import socket_connection.configurations.ConfigurationHandler;
 import socket_connection.configurations.SocketConnectionConfigurations;
+import socket_connection.cryptography.SessionKeys;
+import socket_connection.cryptography.SessionTicketCache;
+import socket_connection.cryptography.SessionTicketIssuer;
 import socket_connection.cryptography.exceptions.NullKeyException;
 import socket_connection.socket_exceptions.exceptions.BadMessagesSequenceException;
 import socket_connection.socket_exceptions.exceptions.FailedToConnectException;
@@ -10,20 +14,40 @@ import socket_connection.socket_exceptions.exceptions.UnreachableHostException;
 import socket_connection.socket_exceptions.runtime_exceptions.*;
 import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.ConnectionEventException;
 import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.DataReceivedException;
+import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.GoodbyeReceivedException;
 import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.HelloEventException;
+import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.PingReceivedException;
+import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.PongReceivedException;
 import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
 import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.ServerReadyException;
+import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.StreamReceivedException;
+import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.TypedDataReceivedException;
 import socket_connection.tools.*;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.security.*;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Condition;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -45,20 +69,71 @@ public class SocketConnection extends Thread{
     private boolean serverSide;
     private final Logger logger;
     private Key foreignPublicKey;
+    private HandshakeParameters sessionParameters;
+    private byte[] sessionSecret;
+    private static KeyPair sharedKeyPair;
+    private String serverAddress;
+    private boolean sessionResumption;
+    private boolean shareKeyPair;
+    private SessionTicketCache.CachedTicket presentedTicket;
+    private byte[] resumptionNonce;
     private final Lock statusLock;
+    private final Lock outputLock;
+    /**
+     * Held while a frame takes its sequence number and is written, or submitted to {@link #outputPipeline}:
+     * the remote host accepts the frames only in the order of their numbers
+     */
+    private final Lock frameLock;
     private final Condition statusCondition;
     private final MessageHandler messageHandler;
+    private final CodecRegistry codecRegistry;
     private static Map<Class<? extends ConnectionEventException>, eventComputer<SocketConnection,ConnectionEventException>> eventAdministrator=
             new HashMap<>();
     static {
         eventAdministrator.put(DataReceivedException.class,EventAdministrator::handleDataReception);
+        eventAdministrator.put(TypedDataReceivedException.class,EventAdministrator::handleTypedDataReception);
         eventAdministrator.put(HelloEventException.class,EventAdministrator::handleHelloMessage);
         eventAdministrator.put(ServerReadyException.class,EventAdministrator::handleServerIsReadyMessage);
+        eventAdministrator.put(PingReceivedException.class,EventAdministrator::handlePing);
+        eventAdministrator.put(PongReceivedException.class,EventAdministrator::handlePong);
+        eventAdministrator.put(StreamReceivedException.class,EventAdministrator::handleStream);
+        eventAdministrator.put(GoodbyeReceivedException.class,EventAdministrator::handleGoodbye);
     }
     private long delayInMs;
     private int maxReads;
     private boolean enabledMaxReads;
     private int timeToLive;
+    private OrderedPipeline<byte[]> outputPipeline;
+    private OrderedPipeline<byte[]> inputPipeline;
+    /**
+     * Frames decrypted by the crypto workers, computed by the connection thread:
+     * event handlers never run on the workers, which are shared by all the connections
+     */
+    private final Queue<byte[]> decryptedInputs=new ConcurrentLinkedQueue<>();
+    private RekeySchedule rekeySchedule;
+    private final RoundTripStatistics roundTripStatistics;
+    private long heartbeatIdleInNs;
+    private long pingIntervalInNs;
+    private long lastPingTime;
+    private ReliableStream reliableStream;
+    private boolean streamOpened;
+    private boolean reliableDelivery;
+    private int retransmissionWindowMessages;
+    private long retransmissionWindowBytes;
+    private long receiveWindowBytes;
+    private long receiveBudgetBytes;
+    private boolean failWithoutCredits;
+    private long sendWindow;
+    private HandshakeParameters proposal;
+    private SendCredits sendCredits;
+    private ReceiveCredits receiveCredits;
+    private int inputBufferMessages;
+    private long inputBufferBytes;
+    private OverflowPolicy overflowPolicy;
+    private final AtomicReference<InputPublisher<?>> publisher=new AtomicReference<>();
+    private volatile Executor agentExecutor;
+    private volatile TokenBucket inputRateLimit;
+    private volatile int sheddingPriority;
 
     /**
      * Private constructor: this is used from others constructors
@@ -67,8 +142,13 @@ public class SocketConnection extends Thread{
     private SocketConnection(){
         setupConfigurations();
         this.synchronizedBuffer =new SynchronizedDataBuffer();
+        this.synchronizedBuffer.setCapacity(inputBufferMessages,inputBufferBytes);
         this.messageHandler= new MessageHandler();
+        this.codecRegistry= new CodecRegistry();
+        this.roundTripStatistics= new RoundTripStatistics();
         this.statusLock =new ReentrantLock();
+        this.outputLock =new ReentrantLock();
+        this.frameLock =new ReentrantLock();
         this.statusCondition=statusLock.newCondition();
         this.timer=new ConnectionTimer(this);
         logger= Logger.getLogger(SocketConnection.class.toString()+"%u");
@@ -78,17 +158,39 @@ public class SocketConnection extends Thread{
         generateKeysForEncryption();
     }
 
+    /**
+     * Each connection generates its own RSA keys, unless {@link #shareKeyPair} is set
+     */
     private void generateKeysForEncryption() {
         try {
-            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
-            generator.initialize(2048);
-            keyPair = generator.generateKeyPair();
+            keyPair = shareKeyPair ? sharedKeyPair() : newKeyPair();
         } catch (NoSuchAlgorithmException e) {
             logger.log(Level.SEVERE, "CANNOT GENERATE KEYS");
             shutdown();
         }
     }
 
+    /**
+     * @return new RSA keys
+     * @throws NoSuchAlgorithmException if RSA isn't available
+     */
+    private static KeyPair newKeyPair() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    /**
+     * Sharing the keys saves their generation for each connection, but a private key leaked or broken
+     * exposes the secrets of all the sessions of the process, past and future
+     * @return the RSA keys generated by the first connection sharing them
+     * @throws NoSuchAlgorithmException if RSA isn't available
+     */
+    private static synchronized KeyPair sharedKeyPair() throws NoSuchAlgorithmException {
+        if(sharedKeyPair==null) sharedKeyPair = newKeyPair();
+        return sharedKeyPair;
+    }
+
     /**
      * Package-private constructor for socket connection. This is called
      * from a ServerSocketConnection to getInstance an incoming connection
@@ -115,9 +217,23 @@ public class SocketConnection extends Thread{
      */
     @SuppressWarnings("WeakerAccess")
     public SocketConnection(String ip, int port) throws FailedToConnectException {
+        this(ip,port,null);
+    }
+
+    /**
+     * Constructor used to open a new connection of a reliable stream
+     * @param ip is the ip-address of the server
+     * @param port the port on which the server is listening
+     * @param reliableStream to be resumed, null to open a new one if reliable delivery is enabled
+     * @throws FailedToConnectException if the server is unreachable
+     */
+    SocketConnection(String ip, int port, ReliableStream reliableStream) throws FailedToConnectException {
         this();
         serverSide=false;
         this.active=true;
+        this.serverAddress=ip+":"+port;
+        if(reliableStream!=null) this.reliableStream=reliableStream;
+        else if(reliableDelivery) this.reliableStream=newReliableStream(null);
         try {
             socket=new Socket(ip,port);
         } catch (IOException e) {
@@ -136,10 +252,51 @@ public class SocketConnection extends Thread{
         this.maxReads=config.getMaxReads();
         this.enabledMaxReads=config.isEnabledMaxReads();
         this.timeToLive =config.getTimeToLive();
+        this.sessionResumption=config.isSessionResumption();
+        this.shareKeyPair=config.isShareKeyPair();
+        this.heartbeatIdleInNs=heartbeatIdle(config.getHeartbeatIdleInMs());
+        this.pingIntervalInNs=TimeUnit.MILLISECONDS.toNanos(config.getPingIntervalInMs());
+        this.lastPingTime=System.nanoTime();
+        this.reliableDelivery=config.isReliableDelivery();
+        this.retransmissionWindowMessages=config.getRetransmissionWindowMessages();
+        this.retransmissionWindowBytes=config.getRetransmissionWindowBytes();
+        this.receiveWindowBytes=config.getReceiveWindowBytes();
+        this.receiveBudgetBytes=config.getReceiveBudgetBytes();
+        this.failWithoutCredits=config.isFailWithoutCredits();
+        this.inputBufferMessages=config.getInputBufferMessages();
+        this.inputBufferBytes=config.getInputBufferBytes();
+        this.overflowPolicy=OverflowPolicy.parse(config.getInputOverflowPolicy());
+        this.rekeySchedule=new RekeySchedule(config.getRekeyAfterBytes(),config.getRekeyAfterMessages(),config.getRekeyAfterSeconds());
+        if(config.isParallelCrypto()){
+            ExecutorService workers=CryptoWorkers.getInstance(config.getCryptoWorkerThreads());
+            this.outputPipeline=new OrderedPipeline<>(workers,config.getMaxFramesInFlight(),this::writeEncryptedOutput,this::shutdown);
+            this.inputPipeline=new OrderedPipeline<>(workers,config.getMaxFramesInFlight(),decryptedInputs::add,this::shutdown);
+        }
     }
 
 
 
+    /**
+     * @param id of the stream, null to choose a new one
+     * @return a stream whose window has the configured size
+     */
+    private ReliableStream newReliableStream(byte[] id){
+        return id==null ? new ReliableStream(retransmissionWindowMessages,retransmissionWindowBytes) :
+                new ReliableStream(id,retransmissionWindowMessages,retransmissionWindowBytes);
+    }
+
+    /**
+     * The remote host shuts the connection down if nothing is received for timeToLive seconds:
+     * heartbeats are sent after a third of it at most, so that a lost heartbeat isn't fatal
+     * @param configuredIdleInMs idle time configured, 0 to derive it from timeToLive
+     * @return the idle time after which a heartbeat is sent, in nanoseconds
+     */
+    private long heartbeatIdle(long configuredIdleInMs){
+        long maxIdleInNs=TimeUnit.SECONDS.toNanos(timeToLive)/3;
+        if(configuredIdleInMs<=0) return maxIdleInNs;
+        return Math.min(TimeUnit.MILLISECONDS.toNanos(configuredIdleInMs),maxIdleInNs);
+    }
+
     /**
      * The thread started to handle the connection
      */
@@ -180,8 +337,25 @@ public class SocketConnection extends Thread{
      * @throws IOException if the server is unreachable
      */
     private void sendHelloToServer() throws IOException {
-        socketStreamsHandler.writeUTF(messageHandler.getHelloMessage());
-        socketStreamsHandler.writeUTF(new Gson().toJson(keyPair.getPublic().getEncoded()));
+        socketStreamsHandler.writeFrame(messageHandler.getHelloFrame());
+        socketStreamsHandler.writeFrame(keyPair.getPublic().getEncoded());
+        proposal=messageHandler.getLocalParameters().withReliableDelivery(reliableStream!=null)
+                .withReceiveWindow(receiveWindowBytes);
+        socketStreamsHandler.writeFrame(presentTicket(proposal).toFrame());
+    }
+
+    /**
+     * This method adds to the parameters proposed by the client the ticket received
+     * during the last session with the same server, if any
+     * @param parameters proposed by the client
+     * @return the parameters to be sent
+     */
+    private HandshakeParameters presentTicket(HandshakeParameters parameters){
+        if(!sessionResumption) return parameters;
+        presentedTicket=SessionTicketCache.take(serverAddress).orElse(null);
+        if(presentedTicket==null) return parameters;
+        resumptionNonce=SessionKeys.newNonce();
+        return parameters.withTicket(presentedTicket.getTicket()).withResumption(resumptionNonce,false);
     }
 
     /**
@@ -194,8 +368,7 @@ public class SocketConnection extends Thread{
         statusLock.lock();
         while (!ready){
             statusLock.unlock();
-            String input=socketStreamsHandler.aSyncReadUTF();
-            computeRemoteInput(input);
+            computeRemoteInput(socketStreamsHandler.aSyncReadReusableFrame());
             statusLock.lock();
         }
         statusLock.unlock();
@@ -209,8 +382,9 @@ public class SocketConnection extends Thread{
         waitForServerNotification();
         try {
             waitToBeReady();
-            socketStreamsHandler.writeUTF(messageHandler.getServerIsReadyMessage());
-            socketStreamsHandler.writeUTF(new Gson().toJson(keyPair.getPublic().getEncoded()));
+            socketStreamsHandler.writeFrame(messageHandler.getServerIsReadyFrame());
+            socketStreamsHandler.writeFrame(keyPair.getPublic().getEncoded());
+            if(sessionParameters!=null) socketStreamsHandler.writeFrame(sessionParameters.toFrame());
         } catch (IOException e) {
             shutdown();
         }
@@ -218,14 +392,16 @@ public class SocketConnection extends Thread{
 
     /**
      * This method computes each input passed.
-     * @param remoteInput to be computed
+     * @param remoteInput buffer containing the frame to be computed between its position and its limit
      * @exception UndefinedInputTypeException thrown if an undefined message is received
-     * @see MessageHandler#computeInput(String)
+     * @see MessageHandler#computeInputFrame(byte[], int, int)
      */
-    private void computeRemoteInput(String remoteInput){
+    private void computeRemoteInput(ByteBuffer remoteInput){
+        //any frame received shows that the remote host is alive, not only pings
+        this.resetTTL();
         try{
-            messageHandler.computeInput(remoteInput);
-            this.resetTTL();
+            messageHandler.computeInputFrame(remoteInput.array(),
+                    remoteInput.arrayOffset()+remoteInput.position(),remoteInput.remaining());
         } catch (ConnectionEventException e){
             Optional.ofNullable(eventAdministrator.get(e.getClass()))
                     .ifPresent(eventHandler-> eventHandler.computeEvent(this, e));
@@ -233,6 +409,30 @@ public class SocketConnection extends Thread{
     }
 
 
+    /**
+     * This method computes the inputs decrypted by {@link #inputPipeline}, in the order they were received
+     * @exception UndefinedInputTypeException thrown if an undefined message is received
+     */
+    private void computeDecryptedInputs(){
+        byte[] decryptedInput;
+        while (!isInputPaused() && (decryptedInput=decryptedInputs.poll())!=null) computeDecryptedInput(decryptedInput);
+    }
+
+    /**
+     * This method computes an input decrypted by {@link #inputPipeline}
+     * @param decryptedInput the frame decrypted
+     * @exception UndefinedInputTypeException thrown if an undefined message is received
+     */
+    private void computeDecryptedInput(byte[] decryptedInput){
+        this.resetTTL();
+        try{
+            messageHandler.computeDecryptedFrame(decryptedInput);
+        } catch (ConnectionEventException e){
+            Optional.ofNullable(eventAdministrator.get(e.getClass()))
+                    .ifPresent(eventHandler-> eventHandler.computeEvent(this, e));
+        }
+    }
+
     /**
      * This method is used to wait that server notify this connection
      * to set to active
@@ -254,27 +454,219 @@ public class SocketConnection extends Thread{
      */
     private void handleSession() {
         //set up encryption
+        boolean sessionReady=false;
+        statusLock.lock();
         try {
-            statusLock.lock();
-            if(!shutdown) messageHandler.setUpEncryption(keyPair.getPrivate(), foreignPublicKey);
-            keysOK=true;
-            statusCondition.signalAll();
-            statusLock.unlock();
+            if(!shutdown) {
+                messageHandler.setUpEncryption(sessionKeys(), sessionParameters.getCipherSuite());
+                messageHandler.setUpSession(sessionParameters);
+                setUpFlowControl();
+            }
+            sessionReady=true;
         } catch (NullKeyException e) {
             logger.log(Level.SEVERE, "KEYS MUST BE NOT NULL");
-            shutdown();
+        } catch (GeneralSecurityException | UndefinedInputTypeException e) {
+            logger.log(Level.SEVERE, "CAN'T READ THE SESSION KEY");
+        } catch (BadSetupException e) {
+            logger.log(Level.SEVERE, "NO CIPHER SUITE IN COMMON");
+        } finally {
+            statusLock.unlock();
         }
+        //the connection is shut down before waking up writers: nothing is sent without encryption
+        if(!sessionReady) shutdown();
+        else openReliableStream();
+        statusLock.lock();
+        keysOK=true;
+        statusCondition.signalAll();
+        statusLock.unlock();
         statusLock.lock();
         while (!shutdown){
             statusLock.unlock();
             ping();
             computeInputs();
+            acknowledge();
+            grantCredits();
             delay();
             statusLock.lock();
         }
         statusLock.unlock();
     }
 
+    /**
+     * Credit flow control is used if both hosts sent their window: each host can send the bytes
+     * of the window of the other one beyond the ones read by its application
+     */
+    private void setUpFlowControl(){
+        if(sendWindow<=0 || receiveWindowBytes<=0) return;
+        sendCredits=new SendCredits(sendWindow);
+        receiveCredits=new ReceiveCredits(receiveWindowBytes,MemoryBudget.getInstance(receiveBudgetBytes));
+        messageHandler.setUpFlowControl(sendCredits);
+    }
+
+    /**
+     * A reliable stream is opened before waking up the writers: the client sends the id of its stream,
+     * encrypted, and the server answers telling if it already knew the stream. Each frame carries the
+     * last message delivered by its sender: the messages not delivered are then sent again.
+     */
+    private void openReliableStream(){
+        if(sessionParameters==null || !sessionParameters.isReliableDelivery()){
+            reliableStream=null;
+            return;
+        }
+        try {
+            if(!serverSide) sendStreamFrame(false);
+            while (!streamOpened && isConnected())
+                computeRemoteInput(socketStreamsHandler.aSyncReadReusableFrame());
+            if(streamOpened) retransmit();
+        } catch (IOException | UnreachableHostException e) {
+            shutdown();
+        } catch (UndefinedInputTypeException e) {
+            logger.log(Level.SEVERE, "BAD RELIABLE STREAM");
+            shutdown();
+        }
+    }
+
+    /**
+     * This method binds the connection to the stream opened by the remote host:
+     * the server resumes the stream if it knows its id, otherwise it creates a new one
+     * @param stream frame received
+     * @exception UndefinedInputTypeException if reliable delivery wasn't negotiated or the stream is already open
+     */
+    private void attachReliableStream(StreamReceivedException stream){
+        if(streamOpened || sessionParameters==null || !sessionParameters.isReliableDelivery())
+            throw new UndefinedInputTypeException();
+        boolean resumed=true;
+        if(serverSide){
+            reliableStream=handlingServer.getReliableStream(stream.getId());
+            resumed=reliableStream!=null;
+            if(!resumed){
+                reliableStream=newReliableStream(stream.getId());
+                handlingServer.registerReliableStream(reliableStream);
+            }
+        } else if(!stream.isResumed()){
+            //the server doesn't know the stream: it numbers its messages from the beginning
+            reliableStream.resetDelivered();
+        }
+        Optional.ofNullable(reliableStream.attach(this::shutdown)).ifPresent(Runnable::run);
+        reliableStream.acknowledge(stream.getLastDelivered());
+        messageHandler.setUpReliableStream(reliableStream);
+        streamOpened=true;
+        try {
+            if(serverSide) sendStreamFrame(resumed);
+        } catch (UnreachableHostException e) {
+            shutdown();
+        }
+    }
+
+    /**
+     * @param resumed true if this host already knew the stream
+     * @throws UnreachableHostException if the host is unreachable
+     */
+    private void sendStreamFrame(boolean resumed) throws UnreachableHostException {
+        outputLock.lock();
+        try {
+            writeOutput(messageHandler.prepareStreamOutput(reliableStream.getId(),resumed,reliableStream.takeAcknowledgement()));
+        } finally {
+            outputLock.unlock();
+        }
+    }
+
+    /**
+     * This method sends again the messages of the stream not acknowledged by the remote host
+     * @throws UnreachableHostException if the host is unreachable
+     */
+    private void retransmit() throws UnreachableHostException {
+        outputLock.lock();
+        try {
+            for (ReliableStream.Retransmission message : reliableStream.retransmissions())
+                writeOutput(messageHandler.sequenceOutput(message.getSequence(),reliableStream.takeAcknowledgement(),
+                        message.getPayload(),message.getPayload().length));
+        } finally {
+            outputLock.unlock();
+        }
+    }
+
+    /**
+     * The client reads the secret of the session sent by the server, or derives it from
+     * the ticket presented if the session is resumed. The new ticket is saved for the next session.
+     * @return the keys of the session
+     * @throws GeneralSecurityException if the secret can't be decrypted
+     */
+    private SessionKeys sessionKeys() throws GeneralSecurityException {
+        if(!serverSide){
+            byte[] wrappedSecret=sessionParameters.getSessionKey();
+            if(sessionParameters.isResumed() && presentedTicket!=null)
+                sessionSecret=SessionKeys.resumeSecret(presentedTicket.getSecret(),resumptionNonce,
+                        sessionParameters.getResumptionNonce());
+            else if(wrappedSecret!=null)
+                sessionSecret=SessionKeys.unwrapSecret(wrappedSecret,keyPair.getPrivate());
+            byte[] ticket=sessionParameters.getTicket();
+            if(sessionResumption && ticket!=null && sessionSecret!=null)
+                SessionTicketCache.store(serverAddress,ticket,sessionSecret);
+        }
+        return new SessionKeys(keyPair.getPrivate(),foreignPublicKey,sessionSecret,serverSide);
+    }
+
+    /**
+     * This method is used by the server to choose the parameters and the secret of the session
+     * @param remote parameters proposed by the client
+     * @return the parameters of the session, containing the secret encrypted with the public key of the client
+     */
+    private HandshakeParameters negotiateSession(HandshakeParameters remote){
+        HandshakeParameters negotiated=messageHandler.getLocalParameters().negotiate(remote);
+        if(remote.isReliableDelivery() && handlingServer.acceptsReliableStreams())
+            negotiated=negotiated.withReliableDelivery(true);
+        if(remote.getReceiveWindow()>0 && receiveWindowBytes>0){
+            negotiated=negotiated.withReceiveWindow(receiveWindowBytes);
+            sendWindow=remote.getReceiveWindow();
+        }
+        SessionTicketIssuer issuer=handlingServer.getSessionTicketIssuer();
+        try {
+            negotiated=resumeSession(negotiated,remote,issuer);
+            if(issuer!=null && negotiated.getCipherSuite()!=null)
+                negotiated=negotiated.withTicket(issuer.issue(sessionSecret,negotiated.getCipherSuite()));
+        } catch (GeneralSecurityException e) {
+            logger.log(Level.SEVERE, "CAN'T SEND THE SESSION KEY");
+        }
+        return negotiated;
+    }
+
+    /**
+     * This method is used by the client to read the parameters chosen by the server
+     * @param negotiated parameters of the session
+     * @return the parameters of the session
+     * @exception UndefinedInputTypeException if the server chose parameters the client didn't propose
+     */
+    private HandshakeParameters acceptSession(HandshakeParameters negotiated){
+        HandshakeParameters accepted=proposal.accept(negotiated);
+        sendWindow=accepted.getReceiveWindow();
+        return accepted;
+    }
+
+    /**
+     * If the client presented a valid ticket the secret of the session is derived from it,
+     * otherwise a new secret is sent encrypted with the public key of the client
+     * @param negotiated parameters of the session
+     * @param remote parameters proposed by the client
+     * @param issuer of the tickets of the server, null if tickets are disabled
+     * @return the parameters with the nonce of the server or with the encrypted secret
+     * @throws GeneralSecurityException if the secret can't be sent
+     */
+    private HandshakeParameters resumeSession(HandshakeParameters negotiated, HandshakeParameters remote,
+                                              SessionTicketIssuer issuer) throws GeneralSecurityException {
+        byte[] ticket=remote.getTicket();
+        byte[] clientNonce=remote.getResumptionNonce();
+        Optional<SessionTicketIssuer.Ticket> redeemed= issuer==null || ticket==null || clientNonce==null ?
+                Optional.empty() : issuer.redeem(ticket,negotiated.getCipherSuite());
+        if(redeemed.isPresent()){
+            byte[] serverNonce=SessionKeys.newNonce();
+            sessionSecret=SessionKeys.resumeSecret(redeemed.get().getSecret(),clientNonce,serverNonce);
+            return negotiated.withResumption(serverNonce,true);
+        }
+        sessionSecret=SessionKeys.newSecret();
+        return negotiated.withSessionKey(SessionKeys.wrapSecret(sessionSecret,foreignPublicKey));
+    }
+
     /**
      * This method is used to close the socket.
      * @exception ShutDownException if the socket is already closed.
@@ -290,23 +682,142 @@ public class SocketConnection extends Thread{
 
     /**
      * This method is used to put thread in a sleep status for
-     * a defined amount of time: {@link #delayInMs}
+     * a defined amount of time: {@link #delayInMs}.
+     * If no data are waiting to be read the thread waits on the socket instead, so that inputs are read
+     * as soon as they arrive and a connection closed by the remote host is noticed at once
      */
     private void delay() {
         try {
-            Thread.sleep(delayInMs);
+            if(socketStreamsHandler.availableData()>0) Thread.sleep(delayInMs);
+            else if(!socketStreamsHandler.awaitInput(delayInMs)) shutdown();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            shutdown();
         }
     }
 
     /**
-     * This method sends an encoded empty message to let the remote host to know
-     * that the connection is still active even if messages aren't exchanged during the session.
+     * This method sends a ping frame to let the remote host to know that the connection is still active
+     * even if messages aren't exchanged during the session.
+     * The frame is sent if nothing was sent for {@link #heartbeatIdleInNs}, since any frame sent keeps
+     * the connection alive, or if {@link #pingIntervalInNs} elapsed since the last ping, even if outputs are sent.
+     * The remote host answers with a pong frame carrying the same timestamp,
+     * so that the round trip time is measured on the connection itself.
      */
     private void ping() {
+        long now=System.nanoTime();
+        boolean measure=pingIntervalInNs>0 && now-lastPingTime>=pingIntervalInNs;
+        if(!measure && socketStreamsHandler.getOutputIdleTimeInNs()<heartbeatIdleInNs) return;
+        lastPingTime=now;
+        try {
+            writeControlFrame(()->messageHandler.getPingFrame(now));
+        } catch (IOException e) {
+            shutdown();
+        }
+    }
+
+    /**
+     * This method answers a ping frame of the remote host
+     * @param timestamp carried by the ping
+     */
+    private void sendPong(long timestamp) {
+        try {
+            writeControlFrame(()->messageHandler.getPongFrame(timestamp));
+        } catch (IOException e) {
+            shutdown();
+        }
+    }
+
+    /**
+     * This method grants credits to the remote host if the application read enough of the messages received.
+     * Credit frames don't wait for {@link #outputLock}: the writers holding it may be waiting for the credits
+     * of the remote host, which in turn may be waiting for these ones.
+     */
+    private void grantCredits() {
+        if(receiveCredits==null || !receiveCredits.isGrantPending()) return;
+        try {
+            writeControlFrame(()->messageHandler.getCreditFrame(receiveCredits.takeGrant()));
+        } catch (IOException e) {
+            shutdown();
+        }
+    }
+
+    /**
+     * This method is called each time the application reads a message from {@link #synchronizedBuffer}
+     */
+    private void consumeInput() {
+        consumeInputs(1);
+    }
+
+    /**
+     * @param inputs number of messages read from {@link #synchronizedBuffer}
+     */
+    private void consumeInputs(int inputs) {
+        if(receiveCredits==null) return;
+        for (int i=0; i<inputs; i++) receiveCredits.consume();
+        grantCredits();
+    }
+
+    /**
+     * @return true if frames aren't read from the socket until the application reads a message
+     */
+    private boolean isInputPaused() {
+        InputPublisher<?> currentPublisher=publisher.get();
+        if(currentPublisher!=null && synchronizedBuffer.size()>=currentPublisher.getDemand()) return true;
+        return overflowPolicy==OverflowPolicy.BLOCK && synchronizedBuffer.isFull();
+    }
+
+    /**
+     * @return true if a frame can be read, false if the remote host sent too many frames in the last second
+     */
+    private boolean isInputAllowed() {
+        TokenBucket limit=inputRateLimit;
+        return limit==null || limit.tryAcquire();
+    }
+
+    /**
+     * This method applies {@link #overflowPolicy} before a message is added to {@link #synchronizedBuffer}
+     * @return true if the message has to be added, false if it's discarded
+     */
+    private boolean admitInput() {
+        if(!synchronizedBuffer.isFull()) return true;
+        switch (overflowPolicy){
+            case DROP_OLDEST:
+                while (synchronizedBuffer.isFull() && synchronizedBuffer.dropFirst()) consumeInput();
+                return true;
+            case DROP_NEWEST:
+                synchronizedBuffer.registerDrop();
+                if(receiveCredits!=null) receiveCredits.discard(messageHandler.getInputSize());
+                grantCredits();
+                return false;
+            case DISCONNECT:
+                logger.log(Level.WARNING, "INPUT BUFFER FULL: SHUTTING DOWN");
+                shutdown();
+                return false;
+            default:
+                //frames already read are buffered: reading stops until there's room
+                return true;
+        }
+    }
+
+    /**
+     * This method is called before a message is added to {@link #synchronizedBuffer}, so that
+     * it's counted before it can be read
+     */
+    private void registerInput() {
+        if(receiveCredits!=null) receiveCredits.deliver(messageHandler.getInputSize());
+    }
+
+    /**
+     * This method acknowledges the messages of the reliable stream delivered after the last acknowledgement:
+     * acknowledgements are piggybacked on the messages sent, so this frame is sent only if
+     * nothing was sent since the messages were delivered
+     */
+    private void acknowledge() {
+        if(reliableStream==null || !reliableStream.isAcknowledgementPending()) return;
         try {
-            socketStreamsHandler.writeUTF(messageHandler.getPingMessage());
+            writeControlFrame(()->messageHandler.getAckFrame(reliableStream.takeAcknowledgement()));
         } catch (IOException e) {
             shutdown();
         }
@@ -320,14 +831,114 @@ public class SocketConnection extends Thread{
     private void computeInputs() {
         int currentRead=0;
         try {
-            while (socketStreamsHandler.availableData()>0&&(enabledMaxReads &&currentRead< maxReads)){
+            computeDecryptedInputs();
+            if(isInputPaused()){
+                //the remote host is alive: its frames are waiting to be read
+                if(socketStreamsHandler.availableData()>0) resetTTL();
+                return;
+            }
+            while (socketStreamsHandler.availableData()>0&&(enabledMaxReads &&currentRead< maxReads)&&!isInputPaused()){
+                if(!isInputAllowed()){
+                    //frames not read wait in the socket: the remote host is alive
+                    resetTTL();
+                    return;
+                }
                 currentRead++;
-                String string= socketStreamsHandler.aSyncReadUTF();
-                computeRemoteInput(string);
+                if(inputPipeline!=null){
+                    submitRemoteInput(socketStreamsHandler.aSyncReadFrame());
+                    computeDecryptedInputs();
+                }
+                else computeRemoteInput(socketStreamsHandler.aSyncReadReusableFrame());
             }
         } catch (IOException e) {
             shutdown();
+        } catch (UndefinedInputTypeException e) {
+            logger.log(Level.SEVERE, "UNDEFINED INPUT RECEIVED");
+            shutdown();
+        }
+    }
+
+    /**
+     * This method lets a crypto worker decrypt the input: the input is then
+     * computed by the connection thread with {@link #computeDecryptedInputs()}.
+     * The connection is shut down if the thread is interrupted while waiting for the workers,
+     * since the frame can't be dropped without breaking the sequence of the inputs
+     * @param remoteInput the frame received
+     */
+    private void submitRemoteInput(byte[] remoteInput){
+        long sequence=messageHandler.nextInputSequence();
+        try {
+            inputPipeline.submit(()->messageHandler.decryptFrame(remoteInput,sequence));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            shutdown();
+        }
+    }
+
+    /**
+     * This method closes the connection gracefully: it waits for the messages being written, then for the
+     * frames still encrypted by the crypto workers and, with reliable delivery, for the acknowledgement
+     * of the messages sent. A goodbye frame then lets the remote host close the connection.
+     * The connection is shut down when the time elapses, even if the messages weren't flushed.
+     * @param timeout max time to wait for the messages to be flushed
+     * @param unit of the timeout
+     * @return true if the messages were flushed and the goodbye frame was sent
+     */
+    @SuppressWarnings("WeakerAccess")
+    public boolean close(long timeout, TimeUnit unit) {
+        long deadline=System.nanoTime()+unit.toNanos(timeout);
+        boolean flushed=false;
+        try {
+            if(isSessionOpen() && outputLock.tryLock(timeout,unit)){
+                try {
+                    flushed=awaitFlush(deadline);
+                    if(flushed){
+                        writeControlFrame(messageHandler::getGoodbyeFrame);
+                        flushed=awaitFlush(deadline);
+                    }
+                } finally {
+                    outputLock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            flushed=false;
+        }
+        shutdown();
+        return flushed;
+    }
+
+    /**
+     * @return true if the session keys are set up and the connection isn't shut down
+     */
+    private boolean isSessionOpen() {
+        statusLock.lock();
+        boolean open=keysOK && !shutdown;
+        statusLock.unlock();
+        return open;
+    }
+
+    /**
+     * The caller must hold {@link #outputLock}, so that no messages are sent while waiting
+     * @param deadline value of {@link System#nanoTime()} after which the messages are not awaited anymore
+     * @return true if all the messages sent were written and, with reliable delivery, acknowledged
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    private boolean awaitFlush(long deadline) throws InterruptedException {
+        while (isConnected() && !isFlushed()){
+            if(System.nanoTime()-deadline>=0) return false;
+            Thread.sleep(1);
         }
+        return isConnected();
+    }
+
+    /**
+     * @return true if there are no frames being encrypted and no messages waiting for an acknowledgement
+     */
+    private boolean isFlushed() {
+        return (outputPipeline==null || outputPipeline.isIdle()) &&
+                (reliableStream==null || reliableStream.getUnacknowledgedMessages()==0);
     }
 
     /**
@@ -356,6 +967,10 @@ public class SocketConnection extends Thread{
         synchronizedBuffer.closeBuffer();
         this.interrupt();
         statusLock.unlock();
+        //writers waiting for acknowledgements or credits notice that the connection is closed
+        Optional.ofNullable(reliableStream).ifPresent(ReliableStream::wakeUp);
+        Optional.ofNullable(sendCredits).ifPresent(SendCredits::wakeUp);
+        Optional.ofNullable(receiveCredits).ifPresent(ReceiveCredits::close);
         if(!alreadyDown) throw new NotifyServerException();
     }
 
@@ -368,80 +983,703 @@ public class SocketConnection extends Thread{
     public void writeString(String string) throws UnreachableHostException {
         waitSetUpPhaseEnd();
         checkIfShutDown();
-        String toSend=messageHandler.computeOutput(string);
-        sendData(toSend);
+        outputLock.lock();
+        try {
+            awaitCredits();
+            sendOutput(messageHandler.prepareOutput(string));
+        } finally {
+            outputLock.unlock();
+        }
     }
 
     /**
      * This method is used to send data to the remote host after output-computation
-     * typical of this class
+     * typical of this class. The caller must hold {@link #outputLock}: outputs are prepared
+     * and boxed in buffers reused for each frame, and strings encoded with the string table
+     * must be sent in the same order they are prepared.
+     * @param writer containing the output prepared by {@link #messageHandler}
+     */
+    private void sendOutput(BinaryWriter writer) throws UnreachableHostException {
+        int length=writer.size();
+        if(sendCredits!=null) sendCredits.spend(length);
+        if(reliableStream!=null) sendSequenced(writer);
+        else writeOutput(writer);
+        if(rekeySchedule.isEnabled() && rekeySchedule.record(length) && messageHandler.isRekeyable()) rekey();
+    }
+
+    /**
+     * Writers wait for the credits granted by the remote host before preparing their outputs:
+     * an output prepared and not sent would change the state of the string tables.
+     * The caller must hold {@link #outputLock}: credits are granted by the threads computing
+     * the inputs, which don't need it.
+     * @throws UnreachableHostException if the connection is closed while waiting
+     * @exception OutOfCreditsException if there are no credits left and {@link #failWithoutCredits} is set
      */
-    private void sendData(String toSend) throws UnreachableHostException {
+    private void awaitCredits() throws UnreachableHostException {
+        if(sendCredits==null) return;
+        if(failWithoutCredits){
+            if(!sendCredits.isAvailable()) throw new OutOfCreditsException();
+            return;
+        }
         try {
-            socketStreamsHandler.writeUTF(toSend);
-        } catch (IOException e) {
+            sendCredits.await(this::isConnected);
+        } catch (ShutDownException e) {
+            throw new UnreachableHostException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new UnreachableHostException();
         }
     }
 
     /**
-     * This method can be used to send an integer to the remote host
-     * @param number to be sent
-     * @throws UnreachableHostException if the host is unreachable
+     * An output of a reliable stream is accepted once it's in the retransmission window: if the
+     * connection is lost while sending it, it's sent again by the next connection of the stream.
+     * The caller must hold {@link #outputLock}.
+     * @param writer containing the output prepared by {@link #messageHandler}
+     * @throws UnreachableHostException if the connection is closed before the output is accepted
      */
-    @SuppressWarnings("WeakerAccess")
-    public void writeInt(int number) throws UnreachableHostException {
-        waitSetUpPhaseEnd();
-        checkIfShutDown();
-        String toSend= messageHandler.computeOutput(number);
-        sendData(toSend);
+    private void sendSequenced(BinaryWriter writer) throws UnreachableHostException {
+        long sequence;
+        try {
+            sequence=reliableStream.append(writer.array(),writer.size(),this::isConnected);
+        } catch (ShutDownException e) {
+            throw new UnreachableHostException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnreachableHostException();
+        }
+        try {
+            writeOutput(messageHandler.sequenceOutput(sequence,reliableStream.takeAcknowledgement(),writer.array(),writer.size()));
+        } catch (UnreachableHostException e) {
+            shutdown();
+        }
     }
 
     /**
-     * @return a the first element of the synchronizedBuffer
-     * @throws UnreachableHostException when connection is down
+     * This method rotates the key used to encrypt the outputs: the rekey frame is sent with
+     * the previous key, the following outputs with the new one.
+     * The caller must hold {@link #outputLock}.
      */
-    @SuppressWarnings("WeakerAccess")
-    public String readString() throws UnreachableHostException{
-        waitSetUpPhaseEnd();
+    private void rekey() throws UnreachableHostException {
+        writeOutput(messageHandler.prepareRekeyOutput());
         try {
-            return synchronizedBuffer.popString();
-        } catch (ShutDownException e){
+            messageHandler.rekeyOutput();
+        } catch (BadSetupException e) {
+            logger.log(Level.SEVERE, "CAN'T ROTATE THE SESSION KEY");
+            shutdown();
             throw new UnreachableHostException();
         }
-
+        rekeySchedule.reset();
     }
 
     /**
-     * @return an integer from the synchronizedBuffer
-     * @throws UnreachableHostException when connection is down
-     * @throws BadMessagesSequenceException when the first element of the synchronizedBuffer isn't an integer
+     * @param writer containing the output prepared by {@link #messageHandler}
      */
-    @SuppressWarnings("WeakerAccess")
-    public int readInt() throws UnreachableHostException, BadMessagesSequenceException {
-        waitSetUpPhaseEnd();
+    private void writeOutput(BinaryWriter writer) throws UnreachableHostException {
+        frameLock.lock();
         try {
-            return synchronizedBuffer.popInt();
-        } catch (ShutDownException e){
+            if(outputPipeline!=null){
+                submitOutput(messageHandler.frameOutput(writer));
+                return;
+            }
+            ByteBuffer toSend=messageHandler.boxOutput(writer);
+            socketStreamsHandler.writeFrame(toSend.array(),toSend.arrayOffset()+toSend.position(),toSend.remaining());
+        } catch (IOException e) {
             throw new UnreachableHostException();
+        } finally {
+            frameLock.unlock();
         }
     }
 
     /**
-     * This method is used to add data-type message to the {@link #synchronizedBuffer}
-     * @param data to be added
+     * This method writes a frame sent by the connection itself (e.g. a ping), boxed holding {@link #frameLock}:
+     * if outputs are being encrypted by the crypto workers, the frame is written after them.
+     * @param frame boxes the frame to be sent
+     * @throws IOException if the host is unreachable
      */
-    private void addToBuffer(String data) {
-        synchronizedBuffer.put(data);
+    private void writeControlFrame(Supplier<byte[]> frame) throws IOException {
+        frameLock.lock();
+        try {
+            byte[] boxed=frame.get();
+            if(outputPipeline==null || outputPipeline.isIdle()) socketStreamsHandler.writeFrame(boxed);
+            else outputPipeline.submit(()->boxed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            frameLock.unlock();
+        }
     }
 
     /**
-     * Reset the timer checking for timeouts due to disconnections.
+     * This method lets a crypto worker encrypt the output: outputs are written
+     * by {@link #writeEncryptedOutput(byte[])} in the order they are submitted.
+     * The caller must hold {@link #frameLock}.
+     * @param frame to be encrypted
+     * @throws UnreachableHostException if the connection is closed while waiting for the outputs in flight
+     */
+    private void submitOutput(byte[] frame) throws UnreachableHostException {
+        int generation=messageHandler.getOutputGeneration();
+        long sequence=messageHandler.nextOutputSequence();
+        try {
+            outputPipeline.submit(()->messageHandler.encryptFrame(frame,generation,sequence));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnreachableHostException();
+        }
+    }
+
+    /**
+     * @param encryptedOutput to be written on the socket
+     * @throws IOException if the host is unreachable
+     */
+    private void writeEncryptedOutput(byte[] encryptedOutput) throws IOException {
+        socketStreamsHandler.writeFrame(encryptedOutput);
+    }
+
+    /**
+     * This method can be used to send an integer to the remote host
+     * @param number to be sent
+     * @throws UnreachableHostException if the host is unreachable
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeInt(int number) throws UnreachableHostException {
+        sendBinary(writer->TypedFrames.writeInt(writer,number));
+    }
+
+    /**
+     * This method can be used to send a long to the remote host
+     * @param number to be sent
+     * @throws UnreachableHostException if the host is unreachable
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeLong(long number) throws UnreachableHostException {
+        sendBinary(writer->TypedFrames.writeLong(writer,number));
+    }
+
+    /**
+     * This method can be used to send a double to the remote host
+     * @param number to be sent
+     * @throws UnreachableHostException if the host is unreachable
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeDouble(double number) throws UnreachableHostException {
+        sendBinary(writer->TypedFrames.writeDouble(writer,number));
+    }
+
+    /**
+     * This method can be used to send a boolean to the remote host
+     * @param value to be sent
+     * @throws UnreachableHostException if the host is unreachable
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeBoolean(boolean value) throws UnreachableHostException {
+        sendBinary(writer->TypedFrames.writeBoolean(writer,value));
+    }
+
+    /**
+     * This method can be used to send raw bytes to the remote host
+     * @param bytes to be sent
+     * @throws UnreachableHostException if the host is unreachable
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeBytes(byte[] bytes) throws UnreachableHostException {
+        sendBinary(writer->TypedFrames.writeBytes(writer,bytes));
+    }
+
+    /**
+     * This method can be used to send an array of integers to the remote host
+     * @param array to be sent
+     * @throws UnreachableHostException if the host is unreachable
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeIntArray(int[] array) throws UnreachableHostException {
+        sendBinary(writer->TypedFrames.writeIntArray(writer,array));
+    }
+
+    /**
+     * This method can be used to send an array of longs to the remote host
+     * @param array to be sent
+     * @throws UnreachableHostException if the host is unreachable
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeLongArray(long[] array) throws UnreachableHostException {
+        sendBinary(writer->TypedFrames.writeLongArray(writer,array));
+    }
+
+    /**
+     * This method can be used to send an array of doubles to the remote host
+     * @param array to be sent
+     * @throws UnreachableHostException if the host is unreachable
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void writeDoubleArray(double[] array) throws UnreachableHostException {
+        sendBinary(writer->TypedFrames.writeDoubleArray(writer,array));
+    }
+
+    /**
+     * This method can be used to send an object to the remote host.
+     * The object is encoded with the codec registered for its class or, if there isn't
+     * one, as JSON.
+     * @param object to be sent
+     * @throws UnreachableHostException if the host is unreachable
+     * @see #registerCodec(Codec)
+     */
+    @SuppressWarnings({"WeakerAccess","unchecked"})
+    public <T> void writeObject(T object) throws UnreachableHostException {
+        sendBinary(writer->TypedFrames.writeObject(writer,codecRegistry.codecFor((Class<T>) object.getClass()),object));
+    }
+
+    /**
+     * This method is used to register a codec: objects of its type are encoded
+     * and decoded with it. The remote host must register a codec with the same type id.
+     * @param codec to be registered
+     * @exception BadSetupException if the id of the codec is already used for another type
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void registerCodec(Codec<?> codec){
+        codecRegistry.register(codec);
+    }
+
+    /**
+     * This method waits the end of the set up phase and sends a binary frame:
+     * {@link #outputLock} is held while the frame is written and sent
+     * @param content writing the typed data on the writer of the frame
+     * @throws UnreachableHostException if the host is unreachable
+     */
+    private void sendBinary(Consumer<BinaryWriter> content) throws UnreachableHostException {
+        waitSetUpPhaseEnd();
+        checkIfShutDown();
+        outputLock.lock();
+        try {
+            awaitCredits();
+            BinaryWriter writer=messageHandler.prepareBinaryOutput();
+            content.accept(writer);
+            sendOutput(writer);
+        } finally {
+            outputLock.unlock();
+        }
+    }
+
+    /**
+     * @return a the first element of the synchronizedBuffer
+     * @throws UnreachableHostException when connection is down
+     * @exception UnexpectedDataTypeException if the first element is a binary payload: use the
+     * relative read method (e.g. {@link #readBytes()})
+     */
+    @SuppressWarnings("WeakerAccess")
+    public String readString() throws UnreachableHostException{
+        waitSetUpPhaseEnd();
+        try {
+            String value=synchronizedBuffer.popString();
+            consumeInput();
+            return value;
+        } catch (ShutDownException e){
+            throw new UnreachableHostException();
+        }
+
+    }
+
+    /**
+     * This method doesn't wait for inputs, so it can be called periodically
+     * (e.g. once per tick of a game loop) without a thread blocked on the connection
+     * @return the first element of the synchronizedBuffer as {@link #readString()} does, empty if there is none
+     * @throws UnreachableHostException when connection is down and the synchronizedBuffer is empty
+     * @exception UnexpectedDataTypeException if the first element is a binary payload
+     */
+    @SuppressWarnings("WeakerAccess")
+    public Optional<String> tryReadString() throws UnreachableHostException{
+        return readString(0,TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeout max time to wait for an input
+     * @param unit of the timeout
+     * @return the first element of the synchronizedBuffer as {@link #readString()} does,
+     * empty if nothing was received in time
+     * @throws UnreachableHostException when connection is down and the synchronizedBuffer is empty
+     * @exception UnexpectedDataTypeException if the first element is a binary payload
+     */
+    @SuppressWarnings("WeakerAccess")
+    public Optional<String> readString(long timeout, TimeUnit unit) throws UnreachableHostException{
+        waitSetUpPhaseEnd();
+        try {
+            Optional<String> value=synchronizedBuffer.pollString(timeout,unit);
+            if(value.isPresent()) consumeInput();
+            return value;
+        } catch (ShutDownException e){
+            throw new UnreachableHostException();
+        }
+    }
+
+    /**
+     * This method moves the inputs available to a collection, without waiting for them: the lock of the
+     * synchronizedBuffer is taken once for all the inputs. Primitive values are boxed and objects are decoded
+     * with the codec registered with their type id, if any, otherwise they are added as {@link EncodedObject}.
+     * Objects are decoded after the inputs are removed from the synchronizedBuffer and consumed, so a codec
+     * failing doesn't hold the lock nor the credits of the inputs.
+     * @param inputs collection receiving the inputs, in the order they were received
+     * @param maxInputs max number of inputs moved
+     * @return the number of inputs moved
+     * @throws UnreachableHostException when connection is down and the synchronizedBuffer is empty
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int drainTo(Collection<Object> inputs, int maxInputs) throws UnreachableHostException{
+        waitSetUpPhaseEnd();
+        List<Object> drained=new ArrayList<>();
+        try {
+            synchronizedBuffer.drainTo(drained,maxInputs);
+        } catch (ShutDownException e){
+            throw new UnreachableHostException();
+        }
+        if(!drained.isEmpty()) consumeInputs(drained.size());
+        for (Object input : drained) inputs.add(input instanceof EncodedObject ? decode((EncodedObject) input) : input);
+        return drained.size();
+    }
+
+    /**
+     * This method publishes the strings received to a subscriber: they are read from the socket only
+     * when the subscriber requests them. Inputs aren't read by other threads while they are published.
+     * @return a publisher accepting a single subscriber, completed when the connection is closed
+     * @see #readString()
+     */
+    @SuppressWarnings("WeakerAccess")
+    public Flow.Publisher<String> publishStrings(){
+        return new InputPublisher<>(this,this::tryReadString);
+    }
+
+    /**
+     * This method publishes the inputs received, as {@link #drainTo(Collection, int)} moves them
+     * @return a publisher accepting a single subscriber, completed when the connection is closed
+     */
+    @SuppressWarnings("WeakerAccess")
+    public Flow.Publisher<Object> publishInputs(){
+        return publishInputs(Object.class);
+    }
+
+    /**
+     * This method publishes the inputs received, as {@link #drainTo(Collection, int)} moves them:
+     * the subscriber receives an error if an input isn't of the type expected
+     * @param type of the inputs (e.g. Integer.class or the type of a codec registered)
+     * @param <T> type of the inputs
+     * @return a publisher accepting a single subscriber, completed when the connection is closed
+     */
+    @SuppressWarnings("WeakerAccess")
+    public <T> Flow.Publisher<T> publishInputs(Class<T> type){
+        return new InputPublisher<>(this,()->{
+            List<Object> inputs=new ArrayList<>(1);
+            drainTo(inputs,1);
+            return inputs.stream().findFirst().map(type::cast);
+        });
+    }
+
+    /**
+     * @param inputPublisher publishing the inputs: while it's set, frames aren't read from the socket
+     * if the inputs buffered are as many as the ones requested
+     */
+    void publishTo(InputPublisher<?> inputPublisher){
+        publisher.set(inputPublisher);
+    }
+
+    /**
+     * @param inputPublisher whose subscription ended
+     */
+    void stopPublishing(InputPublisher<?> inputPublisher){
+        publisher.compareAndSet(inputPublisher,null);
+    }
+
+    /**
+     * @param encodedObject received
+     * @return the object decoded with the codec registered with its type id, the encoded object if there is none
+     */
+    private Object decode(EncodedObject encodedObject){
+        return codecRegistry.codecFor(encodedObject.getTypeId())
+                .<Object>map(codec->codec.decode(encodedObject.getReader()))
+                .orElse(encodedObject);
+    }
+
+    /**
+     * @return an integer from the synchronizedBuffer
+     * @throws UnreachableHostException when connection is down
+     * @throws BadMessagesSequenceException when the first element of the synchronizedBuffer isn't an integer
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int readInt() throws UnreachableHostException, BadMessagesSequenceException {
+        waitSetUpPhaseEnd();
+        try {
+            int value=synchronizedBuffer.popInt();
+            consumeInput();
+            return value;
+        } catch (ShutDownException e){
+            throw new UnreachableHostException();
+        }
+    }
+
+    /**
+     * @return a long from the synchronizedBuffer (integers are accepted too)
+     * @throws UnreachableHostException when connection is down
+     * @throws BadMessagesSequenceException when the first element of the synchronizedBuffer isn't a long
+     */
+    @SuppressWarnings("WeakerAccess")
+    public long readLong() throws UnreachableHostException, BadMessagesSequenceException {
+        waitSetUpPhaseEnd();
+        try {
+            long value=synchronizedBuffer.popLong();
+            consumeInput();
+            return value;
+        } catch (ShutDownException e){
+            throw new UnreachableHostException();
+        }
+    }
+
+    /**
+     * @return a double from the synchronizedBuffer
+     * @throws UnreachableHostException when connection is down
+     * @throws BadMessagesSequenceException when the first element of the synchronizedBuffer isn't a double
+     */
+    @SuppressWarnings("WeakerAccess")
+    public double readDouble() throws UnreachableHostException, BadMessagesSequenceException {
+        waitSetUpPhaseEnd();
+        try {
+            double value=synchronizedBuffer.popDouble();
+            consumeInput();
+            return value;
+        } catch (ShutDownException e){
+            throw new UnreachableHostException();
+        }
+    }
+
+    /**
+     * @return a boolean from the synchronizedBuffer
+     * @throws UnreachableHostException when connection is down
+     * @throws BadMessagesSequenceException when the first element of the synchronizedBuffer isn't a boolean
+     */
+    @SuppressWarnings("WeakerAccess")
+    public boolean readBoolean() throws UnreachableHostException, BadMessagesSequenceException {
+        waitSetUpPhaseEnd();
+        try {
+            boolean value=synchronizedBuffer.popBoolean();
+            consumeInput();
+            return value;
+        } catch (ShutDownException e){
+            throw new UnreachableHostException();
+        }
+    }
+
+    /**
+     * @return the bytes sent with {@link #writeBytes(byte[])}
+     * @throws UnreachableHostException when connection is down
+     * @throws BadMessagesSequenceException when the first element of the synchronizedBuffer isn't a byte array
+     */
+    @SuppressWarnings("WeakerAccess")
+    public byte[] readBytes() throws UnreachableHostException, BadMessagesSequenceException {
+        waitSetUpPhaseEnd();
+        try {
+            byte[] value=synchronizedBuffer.popBytes();
+            consumeInput();
+            return value;
+        } catch (ShutDownException e){
+            throw new UnreachableHostException();
+        }
+    }
+
+    /**
+     * @return the array sent with {@link #writeIntArray(int[])}
+     * @throws UnreachableHostException when connection is down
+     * @throws BadMessagesSequenceException when the first element of the synchronizedBuffer isn't an int array
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int[] readIntArray() throws UnreachableHostException, BadMessagesSequenceException {
+        waitSetUpPhaseEnd();
+        try {
+            int[] value=synchronizedBuffer.popIntArray();
+            consumeInput();
+            return value;
+        } catch (ShutDownException e){
+            throw new UnreachableHostException();
+        }
+    }
+
+    /**
+     * @return the array sent with {@link #writeLongArray(long[])}
+     * @throws UnreachableHostException when connection is down
+     * @throws BadMessagesSequenceException when the first element of the synchronizedBuffer isn't a long array
+     */
+    @SuppressWarnings("WeakerAccess")
+    public long[] readLongArray() throws UnreachableHostException, BadMessagesSequenceException {
+        waitSetUpPhaseEnd();
+        try {
+            long[] value=synchronizedBuffer.popLongArray();
+            consumeInput();
+            return value;
+        } catch (ShutDownException e){
+            throw new UnreachableHostException();
+        }
+    }
+
+    /**
+     * @return the array sent with {@link #writeDoubleArray(double[])}
+     * @throws UnreachableHostException when connection is down
+     * @throws BadMessagesSequenceException when the first element of the synchronizedBuffer isn't a double array
+     */
+    @SuppressWarnings("WeakerAccess")
+    public double[] readDoubleArray() throws UnreachableHostException, BadMessagesSequenceException {
+        waitSetUpPhaseEnd();
+        try {
+            double[] value=synchronizedBuffer.popDoubleArray();
+            consumeInput();
+            return value;
+        } catch (ShutDownException e){
+            throw new UnreachableHostException();
+        }
+    }
+
+    /**
+     * @param type of the object to be read
+     * @return the object sent with {@link #writeObject(Object)}
+     * @throws UnreachableHostException when connection is down
+     * @throws BadMessagesSequenceException when the first element of the synchronizedBuffer isn't an object
+     * encoded with the codec of the given type
+     */
+    @SuppressWarnings("WeakerAccess")
+    public <T> T readObject(Class<T> type) throws UnreachableHostException, BadMessagesSequenceException {
+        waitSetUpPhaseEnd();
+        Codec<T> codec=codecRegistry.codecFor(type);
+        try {
+            EncodedObject encodedObject=synchronizedBuffer.popObject(codec.getTypeId());
+            consumeInput();
+            return codec.decode(encodedObject.getReader());
+        } catch (ShutDownException e){
+            throw new UnreachableHostException();
+        }
+    }
+
+    /**
+     * @return the object sent with {@link #writeObject(Object)}, decoded with the codec
+     * registered with the type id of the object
+     * @throws UnreachableHostException when connection is down
+     * @throws BadMessagesSequenceException when the first element of the synchronizedBuffer isn't an object
+     * or there isn't a codec registered for it: in the second case the object is discarded
+     */
+    @SuppressWarnings("WeakerAccess")
+    public Object readObject() throws UnreachableHostException, BadMessagesSequenceException {
+        waitSetUpPhaseEnd();
+        EncodedObject encodedObject;
+        try {
+            encodedObject=synchronizedBuffer.popObject();
+        } catch (ShutDownException e){
+            throw new UnreachableHostException();
+        }
+        consumeInput();
+        Optional<Codec<?>> codec=codecRegistry.codecFor(encodedObject.getTypeId());
+        if(!codec.isPresent()) throw new BadMessagesSequenceException(String.valueOf(encodedObject.getTypeId()));
+        return codec.get().decode(encodedObject.getReader());
+    }
+
+    /**
+     * This method moves the inputs not read to the connection replacing this closed one.
+     * It waits for the end of the thread handling this connection, so that no more inputs are added.
+     * @param connection replacing this one
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    void moveInputsTo(SocketConnection connection) throws InterruptedException {
+        join(TimeUnit.SECONDS.toMillis(timeToLive));
+        int moved=synchronizedBuffer.moveTo(connection.synchronizedBuffer);
+        //the inputs moved gave their credits to the remote host of this connection
+        Optional.ofNullable(connection.receiveCredits).ifPresent(credits->credits.prependUncounted(moved));
+    }
+
+    /**
+     * This method is used to add data-type message to the {@link #synchronizedBuffer}
+     * @param data to be added
+     */
+    private void addToBuffer(String data) {
+        synchronizedBuffer.put(data);
+    }
+
+    /**
+     * Reset the timer checking for timeouts due to disconnections.
      */
     private void resetTTL() {
         timer.resetTTL();
     }
 
+    /**
+     * @param inputRateLimit limit of the frames read each second, null for no limit
+     */
+    void setInputRateLimit(TokenBucket inputRateLimit){
+        this.inputRateLimit=inputRateLimit;
+    }
+
+    /**
+     * @return true if the session keys aren't set up yet and the connection isn't shut down
+     */
+    boolean isHandshakePending(){
+        statusLock.lock();
+        boolean pending=!keysOK && !shutdown;
+        statusLock.unlock();
+        return pending;
+    }
+
+    /**
+     * @return the bytes of the inputs received and not yet read
+     */
+    long getBufferedInputBytes(){
+        return synchronizedBuffer.getBufferedBytes();
+    }
+
+    /**
+     * When a server is overloaded, it disconnects the sessions with the lowest priority first
+     * and, among them, the ones buffering more inputs
+     * @param sheddingPriority of the connection, 0 by default
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void setSheddingPriority(int sheddingPriority){
+        this.sheddingPriority=sheddingPriority;
+    }
+
+    /**
+     * @return the priority of the connection when a server sheds load
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getSheddingPriority(){
+        return sheddingPriority;
+    }
+
+    /**
+     * @return the address of the remote host
+     */
+    InetAddress getRemoteAddress(){
+        return socket.getInetAddress();
+    }
+
+    /**
+     * @param agentExecutor running the tasks of the agent handling this connection, on the pool of the server
+     */
+    void setAgentExecutor(Executor agentExecutor){
+        this.agentExecutor=agentExecutor;
+    }
+
+    /**
+     * Tasks submitted to this executor are run in order and never concurrently, so the agent handling
+     * the connection can submit its callbacks without synchronizing them: on server-side they run on
+     * the threads of the server running the agents, after the agent returns from run().
+     * On client-side they run on {@link AgentWorkers}: the executor is created when it's first requested.
+     * @return the executor of the tasks of this connection
+     */
+    @SuppressWarnings("WeakerAccess")
+    public Executor getAgentExecutor(){
+        Executor executor=agentExecutor;
+        if(executor!=null) return executor;
+        statusLock.lock();
+        try {
+            if(agentExecutor==null) agentExecutor=new SerialExecutor(AgentWorkers.getInstance(),new ExecutorStatistics());
+            return agentExecutor;
+        } finally {
+            statusLock.unlock();
+        }
+    }
+
     /**
      * @return true if data are available in the buffer, false in the other case.
      */
@@ -452,21 +1690,120 @@ public class SocketConnection extends Thread{
 
 
     /**
-     * @return the ping.
+     * @return true if an input can be read without waiting, or the connection is closed
+     */
+    boolean isReadable(){
+        return synchronizedBuffer.size()>0 || synchronizedBuffer.isClosed();
+    }
+
+    /**
+     * @param listener run when an input is received or the connection is closed
+     * @see SynchronizedDataBuffer#addListener(Runnable)
+     */
+    void addInputListener(Runnable listener){
+        synchronizedBuffer.addListener(listener);
+    }
+
+    /**
+     * @param listener to be removed
+     */
+    void removeInputListener(Runnable listener){
+        synchronizedBuffer.removeListener(listener);
+    }
+
+    /**
+     * @return the number of messages discarded because the buffer of the inputs was full
+     */
+    @SuppressWarnings("WeakerAccess")
+    public long getDroppedInputs(){
+        return synchronizedBuffer.getDrops();
+    }
+
+    /**
+     * @return the time spent by the buffer of the inputs at its capacity, in milliseconds
+     */
+    @SuppressWarnings("WeakerAccess")
+    public long getTimeAtCapacityInMs(){
+        return TimeUnit.NANOSECONDS.toMillis(synchronizedBuffer.getTimeAtCapacityInNs());
+    }
+
+    /**
+     * The round trip time is measured with the ping frames exchanged during the session:
+     * this method doesn't wait for the network.
+     * @return the smoothed round trip time in milliseconds, 0 until the first pong is received
      * @throws UnreachableHostException if the host is unreachable
      */
     @SuppressWarnings("WeakerAccess")
     public long getPing() throws UnreachableHostException {
         waitSetUpPhaseEnd();
         checkIfShutDown();
-        InetAddress ip= socket.getInetAddress();
-        long currentTime=System.currentTimeMillis();
-        try {
-            if(ip.isReachable(2000)) return System.currentTimeMillis()-currentTime;
-            else throw new UnreachableHostException();
-        } catch (IOException e) {
-            throw new UnreachableHostException();
-        }
+        return TimeUnit.NANOSECONDS.toMillis(roundTripStatistics.getSmoothedRttInNs());
+    }
+
+    /**
+     * @return the round trip times measured with the ping frames exchanged with the remote host
+     */
+    @SuppressWarnings("WeakerAccess")
+    public RoundTripStatistics getRoundTripStatistics(){
+        return roundTripStatistics;
+    }
+
+    /**
+     * @return the reliable stream carried by the connection, with the state of its retransmission window,
+     * null if reliable delivery isn't used
+     */
+    @SuppressWarnings("WeakerAccess")
+    public ReliableStream getReliableStream(){
+        waitSetUpPhaseEnd();
+        return reliableStream;
+    }
+
+    /**
+     * @return the credits granted by the remote host, null if flow control isn't used
+     */
+    @SuppressWarnings("WeakerAccess")
+    public SendCredits getSendCredits(){
+        waitSetUpPhaseEnd();
+        return sendCredits;
+    }
+
+    /**
+     * @return the credits granted to the remote host, with the bytes of the messages not read,
+     * null if flow control isn't used
+     */
+    @SuppressWarnings("WeakerAccess")
+    public ReceiveCredits getReceiveCredits(){
+        waitSetUpPhaseEnd();
+        return receiveCredits;
+    }
+
+    /**
+     * @return statistics about the compression of the messages exchanged with the remote host:
+     * compression is used only if both hosts enable it with the same dictionary
+     */
+    @SuppressWarnings("WeakerAccess")
+    public CompressionStatistics getCompressionStatistics(){
+        return messageHandler.getCompressionStatistics();
+    }
+
+    /**
+     * @return true if the session was resumed with the ticket received during the last session
+     * with the same server: in this case the secret of the session wasn't exchanged
+     */
+    @SuppressWarnings("WeakerAccess")
+    public boolean isSessionResumed(){
+        waitSetUpPhaseEnd();
+        return sessionParameters!=null && sessionParameters.isResumed();
+    }
+
+    /**
+     * @return the name of the cipher suite used to protect the messages exchanged with
+     * the remote host, null if the hosts have no suite in common
+     */
+    @SuppressWarnings("WeakerAccess")
+    public String getCipherSuite(){
+        waitSetUpPhaseEnd();
+        return Optional.ofNullable(sessionParameters).map(HandshakeParameters::getCipherSuite).orElse(null);
     }
 
     /**
@@ -562,6 +1899,7 @@ public class SocketConnection extends Thread{
             if(connection.isServerSide()|| connection.isReady()) throw new BadSetupException();
             connection.setToReady();
             connection.setUpForeignPublicKey();
+            connection.setUpSessionParameters(connection::acceptSession);
         }
 
         /**
@@ -570,9 +1908,59 @@ public class SocketConnection extends Thread{
          * @param e the event registered
          */
         private static void handleDataReception(SocketConnection connection, ConnectionEventException e) {
+            if(!connection.admitInput()) return;
+            connection.registerInput();
             connection.addToBuffer(e.getEventData());
         }
 
+        /**
+         * This method handles a typed data received event
+         * @param connection is the connection which registered the event
+         * @param e the event registered
+         */
+        private static void handleTypedDataReception(SocketConnection connection, ConnectionEventException e) {
+            if(!connection.admitInput()) return;
+            connection.registerInput();
+            TypedFrames.deliver(((TypedDataReceivedException) e).getReader(), connection.synchronizedBuffer);
+        }
+
+        /**
+         * This method handles a ping event, answering with a pong
+         * @param connection is the connection which registered the event
+         * @param e the event registered
+         */
+        private static void handlePing(SocketConnection connection, ConnectionEventException e) {
+            connection.sendPong(((PingReceivedException) e).getTimestamp());
+        }
+
+        /**
+         * This method handles a pong event, registering the round trip time
+         * @param connection is the connection which registered the event
+         * @param e the event registered
+         */
+        private static void handlePong(SocketConnection connection, ConnectionEventException e) {
+            connection.roundTripStatistics.registerPong(((PongReceivedException) e).getTimestamp());
+        }
+
+        /**
+         * This method handles a goodbye event: the remote host sent all its messages, which
+         * remain readable after the connection is shut down
+         * @param connection is the connection which registered the event
+         * @param e the event registered
+         */
+        private static void handleGoodbye(SocketConnection connection, ConnectionEventException e) {
+            connection.shutdown();
+        }
+
+        /**
+         * This method handles a stream event, binding the connection to the reliable stream
+         * @param connection is the connection which registered the event
+         * @param e the event registered
+         */
+        private static void handleStream(SocketConnection connection, ConnectionEventException e) {
+            connection.attachReliableStream((StreamReceivedException) e);
+        }
+
         /**
          * This method handles a hello event
          * @param connection is the connection which registered the event
@@ -584,6 +1972,23 @@ public class SocketConnection extends Thread{
             if(!connection.isServerSide()|| connection.isReady()) throw new BadSetupException();
             connection.setToReady();
             connection.setUpForeignPublicKey();
+            connection.setUpSessionParameters(connection::negotiateSession);
+        }
+    }
+
+    /**
+     * This method is used to read the session parameters sent by the remote host
+     * @param negotiation computes the parameters of the session from the received ones
+     */
+    private void setUpSessionParameters(UnaryOperator<HandshakeParameters> negotiation) {
+        try {
+            sessionParameters = negotiation.apply(HandshakeParameters.fromFrame(socketStreamsHandler.aSyncReadFrame()));
+        } catch (IOException e1) {
+            logger.log(Level.FINE, "Connection lost");
+            shutdown();
+        } catch (UndefinedInputTypeException e1) {
+            logger.log(Level.SEVERE, "BAD SESSION PARAMETERS!");
+            shutdown();
         }
     }
 
@@ -593,8 +1998,8 @@ public class SocketConnection extends Thread{
      */
     private void setUpForeignPublicKey() {
         try {
-            String keyEncodeBytes = socketStreamsHandler.aSyncReadUTF();
-            X509EncodedKeySpec keySpec = new X509EncodedKeySpec(new Gson().fromJson(keyEncodeBytes, byte[].class));
+            byte[] keyEncodeBytes = socketStreamsHandler.aSyncReadFrame();
+            X509EncodedKeySpec keySpec = new X509EncodedKeySpec(keyEncodeBytes);
             foreignPublicKey = KeyFactory.getInstance("RSA").generatePublic(keySpec);
         } catch (IOException e1) {
             logger.log(Level.FINE, "Connection lost");
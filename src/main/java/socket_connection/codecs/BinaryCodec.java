@@ -0,0 +1,215 @@
+package socket_connection.codecs;
+
+import socket_connection.socket_exceptions.runtime_exceptions.BadSetupException;
+import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
+import socket_connection.tools.BinaryReader;
+import socket_connection.tools.BinaryWriter;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact codec writing the fields of an object one after the other, without names.
+ * Supported fields are primitives and their wrappers, Strings, enums, byte arrays and
+ * objects whose fields are supported too. Static and transient fields are ignored.
+ * The list of fields of each class is computed once and cached.
+ * Both hosts must use the same version of the class.
+ * @param <T> the type handled
+ */
+public class BinaryCodec<T> implements Codec<T> {
+
+    private static final Map<Class<?>, ClassPlan> plans=new ConcurrentHashMap<>();
+    private final int typeId;
+    private final Class<T> type;
+    private final ClassPlan plan;
+
+    /**
+     * @param typeId written in each frame
+     * @param type handled by this codec: it must have a constructor with no arguments
+     * @exception BadSetupException if the type has no default constructor or has unsupported fields
+     */
+    public BinaryCodec(int typeId, Class<T> type){
+        this.typeId=typeId;
+        this.type=type;
+        this.plan=planOf(type);
+    }
+
+    @Override
+    public int getTypeId() {
+        return typeId;
+    }
+
+    @Override
+    public Class<T> getType() {
+        return type;
+    }
+
+    @Override
+    public void encode(T value, BinaryWriter writer) {
+        plan.write(value,writer);
+    }
+
+    @Override
+    public T decode(BinaryReader reader) {
+        return type.cast(plan.read(reader));
+    }
+
+    /**
+     * @return the cached plan of the class, creating it if needed
+     */
+    private static ClassPlan planOf(Class<?> type){
+        ClassPlan plan=plans.get(type);
+        if(plan==null){
+            plan=new ClassPlan(type);
+            plans.putIfAbsent(type,plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Encoding and decoding of a single field
+     */
+    private interface FieldCodec {
+        void write(Object value, BinaryWriter writer);
+        Object read(BinaryReader reader);
+    }
+
+    /**
+     * The constructor and the ordered fields of a class
+     */
+    private static final class ClassPlan {
+        private final Constructor<?> constructor;
+        private final Field[] fields;
+        private final FieldCodec[] codecs;
+
+        private ClassPlan(Class<?> type){
+            try {
+                constructor=type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                throw new BadSetupException();
+            }
+            List<Field> selected=new ArrayList<>();
+            for (Class<?> current=type; current!=null && current!=Object.class; current=current.getSuperclass())
+                Arrays.stream(current.getDeclaredFields())
+                        .filter(field->!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers()))
+                        .sorted(Comparator.comparing(Field::getName))
+                        .forEach(selected::add);
+            fields=selected.toArray(new Field[0]);
+            codecs=new FieldCodec[fields.length];
+            for (int i=0; i<fields.length; i++){
+                fields[i].setAccessible(true);
+                codecs[i]=codecFor(fields[i].getType());
+            }
+        }
+
+        private void write(Object object, BinaryWriter writer){
+            try {
+                for (int i=0; i<fields.length; i++) codecs[i].write(fields[i].get(object),writer);
+            } catch (IllegalAccessException e) {
+                throw new BadSetupException();
+            }
+        }
+
+        private Object read(BinaryReader reader){
+            try {
+                Object object=constructor.newInstance();
+                for (int i=0; i<fields.length; i++) fields[i].set(object,codecs[i].read(reader));
+                return object;
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new UndefinedInputTypeException();
+            }
+        }
+    }
+
+    /**
+     * @param type of the field
+     * @return the codec used for fields of the given type
+     * @exception BadSetupException if the type isn't supported
+     */
+    private static FieldCodec codecFor(Class<?> type){
+        if(type==int.class) return fieldCodec((v,w)->w.writeZigZagInt((Integer) v), BinaryReader::readZigZagInt);
+        if(type==long.class) return fieldCodec((v,w)->w.writeZigZagLong((Long) v), BinaryReader::readZigZagLong);
+        if(type==short.class) return fieldCodec((v,w)->w.writeZigZagInt((Short) v), r->(short) r.readZigZagInt());
+        if(type==byte.class) return fieldCodec((v,w)->w.writeByte((Byte) v), BinaryReader::readByte);
+        if(type==char.class) return fieldCodec((v,w)->w.writeVarInt((Character) v), r->(char) r.readVarInt());
+        if(type==boolean.class) return fieldCodec((v,w)->w.writeBoolean((Boolean) v), BinaryReader::readBoolean);
+        if(type==float.class) return fieldCodec((v,w)->w.writeVarInt(Float.floatToRawIntBits((Float) v)), r->Float.intBitsToFloat(r.readVarInt()));
+        if(type==double.class) return fieldCodec((v,w)->w.writeDouble((Double) v), BinaryReader::readDouble);
+        if(type==String.class) return nullable((v,w)->w.writeString((String) v,StandardCharsets.UTF_8),
+                r->r.readString(StandardCharsets.UTF_8));
+        if(type==byte[].class) return nullable((v,w)->w.writeByteArray((byte[]) v), BinaryReader::readByteArray);
+        if(type.isEnum()){
+            Object[] constants=type.getEnumConstants();
+            return nullable((v,w)->w.writeVarInt(((Enum<?>) v).ordinal()), r->constants[checkedIndex(r.readVarInt(),constants.length)]);
+        }
+        if(type.isPrimitive()) throw new BadSetupException();
+        if(type==Integer.class || type==Long.class || type==Short.class || type==Byte.class || type==Character.class
+                || type==Boolean.class || type==Float.class || type==Double.class){
+            FieldCodec primitive=codecFor(primitiveOf(type));
+            return nullable(primitive::write, primitive::read);
+        }
+        if(type.isArray() || type.isInterface() || Modifier.isAbstract(type.getModifiers())) throw new BadSetupException();
+        //nested objects: the plan is resolved when used, so that recursive types are allowed
+        return nullable((v,w)->planOf(type).write(v,w), r->planOf(type).read(r));
+    }
+
+    private static FieldCodec fieldCodec(Writing writing, Reading reading){
+        return new FieldCodec() {
+            @Override
+            public void write(Object value, BinaryWriter writer) {
+                writing.write(value,writer);
+            }
+
+            @Override
+            public Object read(BinaryReader reader) {
+                return reading.read(reader);
+            }
+        };
+    }
+
+    /**
+     * @return a codec writing a byte before the value: 0 if it is null, 1 otherwise
+     */
+    private static FieldCodec nullable(Writing writing, Reading reading){
+        return fieldCodec((value,writer)->{
+            writer.writeBoolean(value!=null);
+            if(value!=null) writing.write(value,writer);
+        }, reader-> reader.readBoolean() ? reading.read(reader) : null);
+    }
+
+    private static int checkedIndex(int index, int length){
+        if(index<0 || index>=length) throw new UndefinedInputTypeException();
+        return index;
+    }
+
+    private static Class<?> primitiveOf(Class<?> wrapper){
+        if(wrapper==Integer.class) return int.class;
+        if(wrapper==Long.class) return long.class;
+        if(wrapper==Short.class) return short.class;
+        if(wrapper==Byte.class) return byte.class;
+        if(wrapper==Character.class) return char.class;
+        if(wrapper==Boolean.class) return boolean.class;
+        if(wrapper==Float.class) return float.class;
+        return double.class;
+    }
+
+    @FunctionalInterface
+    private interface Writing {
+        void write(Object value, BinaryWriter writer);
+    }
+
+    @FunctionalInterface
+    private interface Reading {
+        Object read(BinaryReader reader);
+    }
+}
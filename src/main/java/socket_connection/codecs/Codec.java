@@ -0,0 +1,36 @@
+package socket_connection.codecs;
+
+import socket_connection.tools.BinaryReader;
+import socket_connection.tools.BinaryWriter;
+
+/**
+ * A codec converts objects of a type into bytes and back.
+ * Codecs are registered in a {@link CodecRegistry} by type id: both hosts
+ * must register a codec for the same type with the same id.
+ * @param <T> the type handled
+ */
+public interface Codec<T> {
+
+    /**
+     * @return the id written in each frame encoded with this codec
+     */
+    int getTypeId();
+
+    /**
+     * @return the class of the objects handled by this codec
+     */
+    Class<T> getType();
+
+    /**
+     * @param value to be encoded
+     * @param writer where the bytes are written
+     */
+    void encode(T value, BinaryWriter writer);
+
+    /**
+     * @param reader positioned on the first byte written by {@link #encode(Object, BinaryWriter)}.
+     *               The codec can consume all remaining bytes.
+     * @return the decoded object
+     */
+    T decode(BinaryReader reader);
+}
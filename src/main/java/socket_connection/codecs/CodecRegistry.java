@@ -0,0 +1,65 @@
+package socket_connection.codecs;
+
+import com.google.gson.Gson;
+import socket_connection.socket_exceptions.runtime_exceptions.BadSetupException;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class keeps the codecs used by a connection, indexed by type and by type id.
+ * Objects of types without a registered codec are written as JSON with the
+ * {@link #GENERIC_TYPE_ID}: the receiver decodes them using the class it asks for.
+ */
+public class CodecRegistry {
+
+    public static final int GENERIC_TYPE_ID=0;
+    private static final Gson gson=new Gson();
+    private static final Map<Class<?>, Codec<?>> genericCodecs=new ConcurrentHashMap<>();
+    private final Map<Integer, Codec<?>> codecsById;
+    private final Map<Class<?>, Codec<?>> codecsByType;
+
+    /**
+     * Public constructor of CodecRegistry
+     */
+    public CodecRegistry(){
+        codecsById=new ConcurrentHashMap<>();
+        codecsByType=new ConcurrentHashMap<>();
+    }
+
+    /**
+     * The codec replaces the one registered for its type, if any: the id of the previous codec is freed
+     * @param codec to be registered
+     * @exception BadSetupException if the id is reserved or already used for another type
+     */
+    public synchronized void register(Codec<?> codec){
+        Objects.requireNonNull(codec);
+        if(codec.getTypeId()<=GENERIC_TYPE_ID) throw new BadSetupException();
+        Codec<?> previous=codecsById.get(codec.getTypeId());
+        if(previous!=null && previous.getType()!=codec.getType()) throw new BadSetupException();
+        codecsById.put(codec.getTypeId(),codec);
+        Codec<?> replaced=codecsByType.put(codec.getType(),codec);
+        if(replaced!=null && replaced.getTypeId()!=codec.getTypeId()) codecsById.remove(replaced.getTypeId());
+    }
+
+    /**
+     * @param type of the objects to be encoded/decoded
+     * @return the codec registered for the type, or a generic JSON codec
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Codec<T> codecFor(Class<T> type){
+        Codec<?> codec=codecsByType.get(type);
+        if(codec==null) codec=genericCodecs.computeIfAbsent(type, key->new GsonCodec<>(GENERIC_TYPE_ID,key,gson));
+        return (Codec<T>) codec;
+    }
+
+    /**
+     * @param typeId read from a frame
+     * @return the codec registered with the given id
+     */
+    public Optional<Codec<?>> codecFor(int typeId){
+        return Optional.ofNullable(codecsById.get(typeId));
+    }
+}
@@ -0,0 +1,78 @@
+package socket_connection.codecs;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
+import socket_connection.tools.BinaryReader;
+import socket_connection.tools.BinaryWriter;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codec writing objects as UTF-8 JSON. The type adapter is looked up once,
+ * when the codec is created, and JSON is streamed directly from/to the frame bytes.
+ * @param <T> the type handled
+ */
+public class GsonCodec<T> implements Codec<T> {
+
+    private final int typeId;
+    private final Class<T> type;
+    private final TypeAdapter<T> adapter;
+
+    /**
+     * @param typeId written in each frame
+     * @param type handled by this codec
+     */
+    public GsonCodec(int typeId, Class<T> type){
+        this(typeId,type,new Gson());
+    }
+
+    /**
+     * @param typeId written in each frame
+     * @param type handled by this codec
+     * @param gson configured with the adapters needed by the type
+     */
+    public GsonCodec(int typeId, Class<T> type, Gson gson){
+        this.typeId=typeId;
+        this.type=type;
+        this.adapter=gson.getAdapter(type);
+    }
+
+    @Override
+    public int getTypeId() {
+        return typeId;
+    }
+
+    @Override
+    public Class<T> getType() {
+        return type;
+    }
+
+    @Override
+    public void encode(T value, BinaryWriter writer) {
+        try {
+            Writer streamWriter=new OutputStreamWriter(writer.asOutputStream(), StandardCharsets.UTF_8);
+            adapter.write(new JsonWriter(streamWriter),value);
+            streamWriter.flush();
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    @Override
+    public T decode(BinaryReader reader) {
+        try {
+            return adapter.read(new JsonReader(new InputStreamReader(reader.remainingAsInputStream(), StandardCharsets.UTF_8)));
+        } catch (IOException | JsonSyntaxException | IllegalStateException e) {
+            throw new UndefinedInputTypeException();
+        }
+    }
+}
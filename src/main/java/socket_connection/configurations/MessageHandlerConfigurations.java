@@ -7,18 +7,34 @@ public class MessageHandlerConfigurations {
 
     private String pingMessage;
     private String dataMessage;
+    private String binaryMessage;
     private int dataTagPosition;
     private String helloMessage;
     private String serverIsReadyMessage;
     private String charset;
+    private boolean compressionEnabled;
+    private int compressionThreshold;
+    private int compressionLevel;
+    private String compressionDictionary;
+    private int stringTableSize;
+    private String[] sessionCharsets;
+    private String[] cipherSuites;
 
     MessageHandlerConfigurations(){
         this.pingMessage ="";
         this.dataMessage ="#DATA#";
+        this.binaryMessage ="#BIN#";
         this.helloMessage ="#HELLO#";
         this.serverIsReadyMessage = "#SERVER_READY#";
         this.charset="UTF-8";
         this.dataTagPosition=0;
+        this.compressionEnabled=true;
+        this.compressionThreshold=512;
+        this.compressionLevel=6;
+        this.compressionDictionary="";
+        this.stringTableSize=256;
+        this.sessionCharsets=new String[]{"UTF-8"};
+        this.cipherSuites=new String[]{"AES-GCM","CHACHA20-POLY1305","RSA"};
     }
 
     @Contract(pure = true)
@@ -31,6 +47,11 @@ public class MessageHandlerConfigurations {
         return dataMessage;
     }
 
+    @Contract(pure = true)
+    public String getBinaryMessage() {
+        return binaryMessage;
+    }
+
     @Contract(pure = true)
     public String getHelloMessage() {
         return helloMessage;
@@ -50,4 +71,47 @@ public class MessageHandlerConfigurations {
     public int getDataTagPosition() {
         return dataTagPosition;
     }
+
+    @Contract(pure = true)
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    @Contract(pure = true)
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    @Contract(pure = true)
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    @Contract(pure = true)
+    public String getCompressionDictionary() {
+        return compressionDictionary;
+    }
+
+    @Contract(pure = true)
+    public int getStringTableSize() {
+        return stringTableSize;
+    }
+
+    /**
+     * @return names of the charsets proposed for the session, in order of preference:
+     * the configured charset is used if none of them is supported by the remote host
+     */
+    @Contract(pure = true)
+    public String[] getSessionCharsets() {
+        return sessionCharsets.clone();
+    }
+
+    /**
+     * @return names of the cipher suites accepted for the session, in order of preference:
+     * the server chooses the first of its suites proposed by the client
+     */
+    @Contract(pure = true)
+    public String[] getCipherSuites() {
+        return cipherSuites.clone();
+    }
 }
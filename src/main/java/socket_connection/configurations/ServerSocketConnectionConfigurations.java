@@ -5,10 +5,46 @@ import org.jetbrains.annotations.Contract;
 public class ServerSocketConnectionConfigurations {
     private long sleepInMs;
     private long awaitExecutorInMs;
+    private boolean sessionTickets;
+    private int maxSessionTickets;
+    private long sessionTicketLifetimeInMs;
+    private int maxReliableStreams;
+    private int maxAgentThreads;
+    private int drainThreads;
+    private int maxConnections;
+    private int maxConnectionsPerAddress;
+    private double maxNewConnectionsPerSecond;
+    private long newConnectionBurst;
+    private double maxInputsPerSecond;
+    private long inputBurst;
+    private long healthCheckInMs;
+    private long maxSchedulingLagInMs;
+    private int maxPendingHandshakes;
+    private long maxBufferedInputBytes;
+    private double criticalLoadRatio;
+    private double recoveryLoadRatio;
 
     ServerSocketConnectionConfigurations(){
         this.sleepInMs=20;
         this.awaitExecutorInMs=5000;
+        this.sessionTickets=true;
+        this.maxSessionTickets=10000;
+        this.sessionTicketLifetimeInMs=86400000;
+        this.maxReliableStreams=10000;
+        this.maxAgentThreads=0;
+        this.drainThreads=64;
+        this.maxConnections=0;
+        this.maxConnectionsPerAddress=0;
+        this.maxNewConnectionsPerSecond=0;
+        this.newConnectionBurst=0;
+        this.maxInputsPerSecond=0;
+        this.inputBurst=0;
+        this.healthCheckInMs=100;
+        this.maxSchedulingLagInMs=0;
+        this.maxPendingHandshakes=0;
+        this.maxBufferedInputBytes=0;
+        this.criticalLoadRatio=2;
+        this.recoveryLoadRatio=0.5;
     }
 
     @Contract(pure = true)
@@ -21,4 +57,94 @@ public class ServerSocketConnectionConfigurations {
     public long getAwaitExecutorInMs() {
         return awaitExecutorInMs;
     }
+
+    @Contract(pure = true)
+    public boolean isSessionTickets() {
+        return sessionTickets;
+    }
+
+    @Contract(pure = true)
+    public int getMaxSessionTickets() {
+        return maxSessionTickets;
+    }
+
+    @Contract(pure = true)
+    public long getSessionTicketLifetimeInMs() {
+        return sessionTicketLifetimeInMs;
+    }
+
+    @Contract(pure = true)
+    public int getMaxReliableStreams() {
+        return maxReliableStreams;
+    }
+
+    @Contract(pure = true)
+    public int getMaxAgentThreads() {
+        return maxAgentThreads;
+    }
+
+    @Contract(pure = true)
+    public int getDrainThreads() {
+        return drainThreads;
+    }
+
+    @Contract(pure = true)
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    @Contract(pure = true)
+    public int getMaxConnectionsPerAddress() {
+        return maxConnectionsPerAddress;
+    }
+
+    @Contract(pure = true)
+    public double getMaxNewConnectionsPerSecond() {
+        return maxNewConnectionsPerSecond;
+    }
+
+    @Contract(pure = true)
+    public long getNewConnectionBurst() {
+        return newConnectionBurst;
+    }
+
+    @Contract(pure = true)
+    public double getMaxInputsPerSecond() {
+        return maxInputsPerSecond;
+    }
+
+    @Contract(pure = true)
+    public long getInputBurst() {
+        return inputBurst;
+    }
+
+    @Contract(pure = true)
+    public long getHealthCheckInMs() {
+        return healthCheckInMs;
+    }
+
+    @Contract(pure = true)
+    public long getMaxSchedulingLagInMs() {
+        return maxSchedulingLagInMs;
+    }
+
+    @Contract(pure = true)
+    public int getMaxPendingHandshakes() {
+        return maxPendingHandshakes;
+    }
+
+    @Contract(pure = true)
+    public long getMaxBufferedInputBytes() {
+        return maxBufferedInputBytes;
+    }
+
+    @Contract(pure = true)
+    public double getCriticalLoadRatio() {
+        return criticalLoadRatio;
+    }
+
+    @Contract(pure = true)
+    public double getRecoveryLoadRatio() {
+        return recoveryLoadRatio;
+    }
 }
@@ -6,12 +6,58 @@ public class SocketConnectionConfigurations {
     private int maxReads;
     private boolean enabledMaxReads;
     private final int timeToLive;
+    private boolean parallelCrypto;
+    private int cryptoWorkerThreads;
+    private int maxFramesInFlight;
+    private boolean sessionResumption;
+    private boolean shareKeyPair;
+    private long rekeyAfterBytes;
+    private long rekeyAfterMessages;
+    private long rekeyAfterSeconds;
+    private long pingIntervalInMs;
+    private long heartbeatIdleInMs;
+    private long reconnectInitialDelayInMs;
+    private long reconnectMaxDelayInMs;
+    private int reconnectMaxAttempts;
+    private int replayWindow;
+    private boolean reliableDelivery;
+    private int retransmissionWindowMessages;
+    private long retransmissionWindowBytes;
+    private long receiveWindowBytes;
+    private long receiveBudgetBytes;
+    private boolean failWithoutCredits;
+    private int inputBufferMessages;
+    private long inputBufferBytes;
+    private String inputOverflowPolicy;
 
     SocketConnectionConfigurations(){
         this.delayInMs=200;
         this.maxReads=50;
         this.enabledMaxReads=true;
         this.timeToLive =2;
+        this.parallelCrypto=false;
+        this.cryptoWorkerThreads=0;
+        this.maxFramesInFlight=64;
+        this.sessionResumption=true;
+        this.shareKeyPair=false;
+        this.rekeyAfterBytes=1L<<30;
+        this.rekeyAfterMessages=1L<<24;
+        this.rekeyAfterSeconds=3600;
+        this.pingIntervalInMs=1000;
+        this.heartbeatIdleInMs=0;
+        this.reconnectInitialDelayInMs=100;
+        this.reconnectMaxDelayInMs=10000;
+        this.reconnectMaxAttempts=10;
+        this.replayWindow=0;
+        this.reliableDelivery=false;
+        this.retransmissionWindowMessages=1024;
+        this.retransmissionWindowBytes=1L<<20;
+        this.receiveWindowBytes=0;
+        this.receiveBudgetBytes=1L<<28;
+        this.failWithoutCredits=false;
+        this.inputBufferMessages=0;
+        this.inputBufferBytes=0;
+        this.inputOverflowPolicy="BLOCK";
     }
 
     public long getDelayInMs() {
@@ -29,4 +75,96 @@ public class SocketConnectionConfigurations {
     public int getTimeToLive() {
         return timeToLive;
     }
+
+    public boolean isParallelCrypto() {
+        return parallelCrypto;
+    }
+
+    public int getCryptoWorkerThreads() {
+        return cryptoWorkerThreads;
+    }
+
+    public int getMaxFramesInFlight() {
+        return maxFramesInFlight;
+    }
+
+    public boolean isSessionResumption() {
+        return sessionResumption;
+    }
+
+    public boolean isShareKeyPair() {
+        return shareKeyPair;
+    }
+
+    public long getRekeyAfterBytes() {
+        return rekeyAfterBytes;
+    }
+
+    public long getRekeyAfterMessages() {
+        return rekeyAfterMessages;
+    }
+
+    public long getRekeyAfterSeconds() {
+        return rekeyAfterSeconds;
+    }
+
+    public long getPingIntervalInMs() {
+        return pingIntervalInMs;
+    }
+
+    public long getHeartbeatIdleInMs() {
+        return heartbeatIdleInMs;
+    }
+
+    public long getReconnectInitialDelayInMs() {
+        return reconnectInitialDelayInMs;
+    }
+
+    public long getReconnectMaxDelayInMs() {
+        return reconnectMaxDelayInMs;
+    }
+
+    public int getReconnectMaxAttempts() {
+        return reconnectMaxAttempts;
+    }
+
+    public int getReplayWindow() {
+        return replayWindow;
+    }
+
+    public boolean isReliableDelivery() {
+        return reliableDelivery;
+    }
+
+    public int getRetransmissionWindowMessages() {
+        return retransmissionWindowMessages;
+    }
+
+    public long getRetransmissionWindowBytes() {
+        return retransmissionWindowBytes;
+    }
+
+    public long getReceiveWindowBytes() {
+        return receiveWindowBytes;
+    }
+
+    public long getReceiveBudgetBytes() {
+        return receiveBudgetBytes;
+    }
+
+    public boolean isFailWithoutCredits() {
+        return failWithoutCredits;
+    }
+
+    public int getInputBufferMessages() {
+        return inputBufferMessages;
+    }
+
+    public long getInputBufferBytes() {
+        return inputBufferBytes;
+    }
+
+    public String getInputOverflowPolicy() {
+        return inputOverflowPolicy;
+    }
 }
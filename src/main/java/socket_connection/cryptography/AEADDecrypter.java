@@ -0,0 +1,66 @@
+package socket_connection.cryptography;
+
+import socket_connection.cryptography.exceptions.OperationNotPossibleException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.function.Function;
+
+/**
+ * Decrypter for the frames written by {@link AEADEncrypter}: frames whose tag
+ * doesn't match, or that were encrypted with another sequence number, can't be decrypted.
+ */
+public class AEADDecrypter implements Decrypter {
+
+    private final Cipher cipher;
+    private final SecretKeySpec key;
+    private final Function<byte[],AlgorithmParameterSpec> parameters;
+    private final byte[] nonce;
+
+    /**
+     * @param transformation of the cipher
+     * @param key used to decrypt
+     * @param parameters creates the parameters of the cipher from the nonce
+     * @throws GeneralSecurityException if the cipher isn't available
+     */
+    public AEADDecrypter(String transformation, SecretKeySpec key, Function<byte[],AlgorithmParameterSpec> parameters)
+            throws GeneralSecurityException {
+        this.cipher=Cipher.getInstance(transformation);
+        this.key=key;
+        this.parameters=parameters;
+        this.nonce=new byte[AEADEncrypter.NONCE_LENGTH];
+    }
+
+    /**
+     * Frames are decrypted only with their sequence number
+     * @throws OperationNotPossibleException always
+     * @see #decrypt(byte[], long)
+     */
+    @Override
+    public byte[] decrypt(byte[] toDecrypt) throws OperationNotPossibleException {
+        throw new OperationNotPossibleException();
+    }
+
+    @Override
+    public synchronized byte[] decrypt(byte[] toDecrypt, long sequence) throws OperationNotPossibleException {
+        try {
+            AEADEncrypter.init(cipher,Cipher.DECRYPT_MODE,key,parameters,nonce,sequence);
+            return cipher.doFinal(toDecrypt);
+        } catch (GeneralSecurityException e) {
+            throw new OperationNotPossibleException();
+        }
+    }
+
+    @Override
+    public synchronized void decrypt(ByteBuffer src, ByteBuffer dst, long sequence) throws OperationNotPossibleException {
+        try {
+            AEADEncrypter.init(cipher,Cipher.DECRYPT_MODE,key,parameters,nonce,sequence);
+            cipher.doFinal(src,dst);
+        } catch (GeneralSecurityException e) {
+            throw new OperationNotPossibleException();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package socket_connection.cryptography;
+
+import socket_connection.cryptography.exceptions.OperationNotPossibleException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Encrypter for authenticated ciphers (e.g. AES-GCM): each frame is written as the encrypted bytes
+ * followed by the tag. The nonce isn't sent: it's the sequence number of the frame, which each direction
+ * of the session never repeats, so encrypters sharing a key never repeat a nonce and the remote host
+ * decrypts the frame only at its position in the stream.
+ */
+public class AEADEncrypter implements Encrypter {
+
+    static final int NONCE_LENGTH=12;
+    private final Cipher cipher;
+    private final SecretKeySpec key;
+    private final Function<byte[],AlgorithmParameterSpec> parameters;
+    private final byte[] nonce;
+
+    /**
+     * @param transformation of the cipher
+     * @param key used to encrypt
+     * @param parameters creates the parameters of the cipher from the nonce
+     * @throws GeneralSecurityException if the cipher isn't available
+     */
+    public AEADEncrypter(String transformation, SecretKeySpec key, Function<byte[],AlgorithmParameterSpec> parameters)
+            throws GeneralSecurityException {
+        this.cipher=Cipher.getInstance(transformation);
+        this.key=key;
+        this.parameters=parameters;
+        this.nonce=new byte[NONCE_LENGTH];
+    }
+
+    /**
+     * Frames are encrypted only with their sequence number
+     * @throws OperationNotPossibleException always
+     * @see #encrypt(byte[], long)
+     */
+    @Override
+    public byte[] encrypt(byte[] toEncrypt) throws OperationNotPossibleException {
+        throw new OperationNotPossibleException();
+    }
+
+    @Override
+    public synchronized byte[] encrypt(byte[] toEncrypt, long sequence) throws OperationNotPossibleException {
+        try {
+            init(Cipher.ENCRYPT_MODE,sequence);
+            byte[] encrypted=new byte[cipher.getOutputSize(toEncrypt.length)];
+            int length=cipher.doFinal(toEncrypt,0,toEncrypt.length,encrypted,0);
+            return length==encrypted.length ? encrypted : Arrays.copyOf(encrypted,length);
+        } catch (GeneralSecurityException e) {
+            throw new OperationNotPossibleException();
+        }
+    }
+
+    @Override
+    public synchronized void encrypt(ByteBuffer src, ByteBuffer dst, long sequence) throws OperationNotPossibleException {
+        try {
+            init(Cipher.ENCRYPT_MODE,sequence);
+            cipher.doFinal(src,dst);
+        } catch (GeneralSecurityException e) {
+            throw new OperationNotPossibleException();
+        }
+    }
+
+    @Override
+    public synchronized int getOutputSize(int inputLength) {
+        return inputLength+cipher.getBlockSize()+16;
+    }
+
+    /**
+     * This method writes the sequence number in the last 8 bytes of the nonce and
+     * initializes the cipher with it
+     */
+    private void init(int mode, long sequence) throws GeneralSecurityException {
+        init(cipher,mode,key,parameters,nonce,sequence);
+    }
+
+    /**
+     * @param cipher to be initialized
+     * @param mode of the cipher
+     * @param key of the cipher
+     * @param parameters creates the parameters of the cipher from the nonce
+     * @param nonce buffer whose last 8 bytes are overwritten with the sequence number
+     * @param sequence number of the frame
+     */
+    static void init(Cipher cipher, int mode, SecretKeySpec key, Function<byte[],AlgorithmParameterSpec> parameters,
+                     byte[] nonce, long sequence) throws GeneralSecurityException {
+        for (int i=0; i<8; i++) nonce[NONCE_LENGTH-1-i]=(byte) (sequence>>>(8*i));
+        cipher.init(mode,key,parameters.apply(nonce));
+    }
+}
@@ -0,0 +1,55 @@
+package socket_connection.cryptography;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * A cipher suite protects the frames exchanged during a session.
+ * Suites are identified by name during the set up phase: the server chooses the first
+ * suite of its list proposed by the client.
+ * @see CipherSuites
+ */
+public interface CipherSuite {
+
+    /**
+     * @return the name used to negotiate the suite
+     */
+    String getName();
+
+    /**
+     * @return true if frames that can't be decrypted must be rejected: suites that don't
+     * authenticate the frames deliver them as they are received. Authenticated suites should also
+     * bind each frame to its sequence number, so that frames replayed, reordered or dropped are rejected
+     * @see Encrypter#encrypt(byte[], long)
+     */
+    boolean isAuthenticated();
+
+    /**
+     * @return true if the suite uses the keys derived from the secret of the session, so that
+     * they can be rotated during the session
+     * @see SessionKeys#withOutputGeneration(int)
+     */
+    default boolean isRekeyable(){
+        return false;
+    }
+
+    /**
+     * @return true if the suite can be used in this JVM
+     */
+    default boolean isAvailable(){
+        return true;
+    }
+
+    /**
+     * @param keys of the session
+     * @return a new encrypter for the frames sent, null if frames are sent as they are
+     * @throws GeneralSecurityException if the keys can't be used by this suite
+     */
+    Encrypter newEncrypter(SessionKeys keys) throws GeneralSecurityException;
+
+    /**
+     * @param keys of the session
+     * @return a new decrypter for the frames received, null if frames are received as they are
+     * @throws GeneralSecurityException if the keys can't be used by this suite
+     */
+    Decrypter newDecrypter(SessionKeys keys) throws GeneralSecurityException;
+}
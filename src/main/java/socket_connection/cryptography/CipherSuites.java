@@ -0,0 +1,52 @@
+package socket_connection.cryptography;
+
+import socket_connection.socket_exceptions.runtime_exceptions.BadSetupException;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class keeps the cipher suites that can be negotiated, indexed by name.
+ * It contains the {@link StandardCipherSuite}s: other suites can be registered
+ * before opening connections.
+ */
+public final class CipherSuites {
+
+    private static final Map<String,CipherSuite> suites=new ConcurrentHashMap<>();
+    static {
+        for (StandardCipherSuite suite : StandardCipherSuite.values()) suites.put(suite.getName(),suite);
+    }
+
+    private CipherSuites(){
+        throw new AssertionError();
+    }
+
+    /**
+     * @param suite to be registered
+     * @exception BadSetupException if the name is already used by another suite
+     */
+    public static void register(CipherSuite suite){
+        Objects.requireNonNull(suite);
+        CipherSuite previous=suites.putIfAbsent(suite.getName(),suite);
+        if(previous!=null && previous!=suite) throw new BadSetupException();
+    }
+
+    /**
+     * @param name of the suite
+     * @return the suite registered with the name, if it's available in this JVM
+     */
+    public static Optional<CipherSuite> get(String name){
+        return Optional.ofNullable(name).map(suites::get).filter(CipherSuite::isAvailable);
+    }
+
+    /**
+     * @param names of suites, in order of preference
+     * @return the names of the suites registered and available, in the same order
+     */
+    public static String[] available(String... names){
+        return Arrays.stream(names).filter(name->get(name).isPresent()).distinct().toArray(String[]::new);
+    }
+}
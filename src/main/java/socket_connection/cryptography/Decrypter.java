@@ -2,6 +2,55 @@ package socket_connection.cryptography;
 
 import socket_connection.cryptography.exceptions.OperationNotPossibleException;
 
+import java.nio.ByteBuffer;
+
 public interface Decrypter {
     byte[] decrypt(byte[] toDecrypt) throws OperationNotPossibleException;
+
+    /**
+     * Decrypt the remaining bytes of src, writing the result in dst from its position.
+     * Implementations should reuse their cipher and write directly into dst, without allocating.
+     * @param src containing the bytes to decrypt: it is consumed
+     * @param dst where the decrypted bytes are written: it must have at least
+     *            {@link #getOutputSize(int)} bytes remaining
+     * @throws OperationNotPossibleException if the bytes can't be decrypted
+     */
+    default void decrypt(ByteBuffer src, ByteBuffer dst) throws OperationNotPossibleException {
+        byte[] toDecrypt=new byte[src.remaining()];
+        src.get(toDecrypt);
+        dst.put(decrypt(toDecrypt));
+    }
+
+    /**
+     * Decrypt a frame expected at a given position in the stream: authenticated decrypters reject
+     * frames encrypted with another sequence number, so that frames replayed, reordered or dropped
+     * are noticed. The other decrypters ignore it.
+     * @param toDecrypt frame to decrypt
+     * @param sequence number of the frame among the ones received with this session
+     * @return the decrypted frame
+     * @throws OperationNotPossibleException if the bytes can't be decrypted
+     */
+    default byte[] decrypt(byte[] toDecrypt, long sequence) throws OperationNotPossibleException {
+        return decrypt(toDecrypt);
+    }
+
+    /**
+     * @param src containing the bytes to decrypt: it is consumed
+     * @param dst where the decrypted bytes are written
+     * @param sequence number of the frame among the ones received with this session
+     * @throws OperationNotPossibleException if the bytes can't be decrypted
+     * @see #decrypt(byte[], long)
+     * @see #decrypt(ByteBuffer, ByteBuffer)
+     */
+    default void decrypt(ByteBuffer src, ByteBuffer dst, long sequence) throws OperationNotPossibleException {
+        decrypt(src,dst);
+    }
+
+    /**
+     * @param inputLength number of bytes to decrypt
+     * @return max number of bytes produced decrypting them
+     */
+    default int getOutputSize(int inputLength){
+        return inputLength;
+    }
 }
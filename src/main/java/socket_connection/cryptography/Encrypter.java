@@ -2,6 +2,55 @@ package socket_connection.cryptography;
 
 import socket_connection.cryptography.exceptions.OperationNotPossibleException;
 
+import java.nio.ByteBuffer;
+
 public interface Encrypter {
     byte[] encrypt(byte[] toEncrypt) throws OperationNotPossibleException;
+
+    /**
+     * Encrypt the remaining bytes of src, writing the result in dst from its position.
+     * Implementations should reuse their cipher and write directly into dst, without allocating.
+     * @param src containing the bytes to encrypt: it is consumed
+     * @param dst where the encrypted bytes are written: it must have at least
+     *            {@link #getOutputSize(int)} bytes remaining
+     * @throws OperationNotPossibleException if the bytes can't be encrypted
+     */
+    default void encrypt(ByteBuffer src, ByteBuffer dst) throws OperationNotPossibleException {
+        byte[] toEncrypt=new byte[src.remaining()];
+        src.get(toEncrypt);
+        dst.put(encrypt(toEncrypt));
+    }
+
+    /**
+     * Encrypt a frame bound to its position in the stream: authenticated encrypters protect the
+     * sequence number with the frame, so the remote host can decrypt it only with the same number.
+     * The other encrypters ignore it.
+     * @param toEncrypt frame to encrypt
+     * @param sequence number of the frame among the ones sent with this session
+     * @return the encrypted frame
+     * @throws OperationNotPossibleException if the bytes can't be encrypted
+     */
+    default byte[] encrypt(byte[] toEncrypt, long sequence) throws OperationNotPossibleException {
+        return encrypt(toEncrypt);
+    }
+
+    /**
+     * @param src containing the bytes to encrypt: it is consumed
+     * @param dst where the encrypted bytes are written
+     * @param sequence number of the frame among the ones sent with this session
+     * @throws OperationNotPossibleException if the bytes can't be encrypted
+     * @see #encrypt(byte[], long)
+     * @see #encrypt(ByteBuffer, ByteBuffer)
+     */
+    default void encrypt(ByteBuffer src, ByteBuffer dst, long sequence) throws OperationNotPossibleException {
+        encrypt(src,dst);
+    }
+
+    /**
+     * @param inputLength number of bytes to encrypt
+     * @return max number of bytes produced encrypting them
+     */
+    default int getOutputSize(int inputLength){
+        return inputLength+1024;
+    }
 }
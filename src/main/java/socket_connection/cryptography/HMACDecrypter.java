@@ -0,0 +1,81 @@
+package socket_connection.cryptography;
+
+import socket_connection.cryptography.exceptions.OperationNotPossibleException;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Decrypter for the frames written by {@link HMACEncrypter}: frames whose HMAC
+ * doesn't match, or that were authenticated with another sequence number, can't be decrypted.
+ */
+public class HMACDecrypter implements Decrypter {
+
+    private final Mac mac;
+    private final byte[] expected;
+    private final byte[] received;
+    private final byte[] sequenceBytes=new byte[8];
+
+    /**
+     * @param key used to check the frames
+     * @throws GeneralSecurityException if HMAC-SHA256 isn't available
+     */
+    public HMACDecrypter(byte[] key) throws GeneralSecurityException {
+        mac=Mac.getInstance(HMACEncrypter.ALGORITHM);
+        mac.init(new SecretKeySpec(key,HMACEncrypter.ALGORITHM));
+        expected=new byte[HMACEncrypter.MAC_LENGTH];
+        received=new byte[HMACEncrypter.MAC_LENGTH];
+    }
+
+    /**
+     * Frames are checked only with their sequence number
+     * @throws OperationNotPossibleException always
+     * @see #decrypt(byte[], long)
+     */
+    @Override
+    public byte[] decrypt(byte[] toDecrypt) throws OperationNotPossibleException {
+        throw new OperationNotPossibleException();
+    }
+
+    @Override
+    public synchronized byte[] decrypt(byte[] toDecrypt, long sequence) throws OperationNotPossibleException {
+        int length=toDecrypt.length-HMACEncrypter.MAC_LENGTH;
+        if(length<0) throw new OperationNotPossibleException();
+        HMACEncrypter.updateSequence(mac,sequenceBytes,sequence);
+        mac.update(toDecrypt,0,length);
+        System.arraycopy(toDecrypt,length,received,0,HMACEncrypter.MAC_LENGTH);
+        check();
+        return Arrays.copyOf(toDecrypt,length);
+    }
+
+    @Override
+    public synchronized void decrypt(ByteBuffer src, ByteBuffer dst, long sequence) throws OperationNotPossibleException {
+        int length=src.remaining()-HMACEncrypter.MAC_LENGTH;
+        if(length<0 || dst.remaining()<length) throw new OperationNotPossibleException();
+        HMACEncrypter.updateSequence(mac,sequenceBytes,sequence);
+        ByteBuffer data=src.duplicate();
+        data.limit(data.position()+length);
+        mac.update(data.duplicate());
+        src.position(src.position()+length);
+        src.get(received);
+        check();
+        dst.put(data);
+    }
+
+    /**
+     * @throws OperationNotPossibleException if the received HMAC doesn't match the computed one
+     */
+    private void check() throws OperationNotPossibleException {
+        try {
+            mac.doFinal(expected,0);
+        } catch (ShortBufferException e) {
+            throw new OperationNotPossibleException();
+        }
+        if(!MessageDigest.isEqual(expected,received)) throw new OperationNotPossibleException();
+    }
+}
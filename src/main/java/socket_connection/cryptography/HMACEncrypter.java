@@ -0,0 +1,90 @@
+package socket_connection.cryptography;
+
+import socket_connection.cryptography.exceptions.OperationNotPossibleException;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+/**
+ * Encrypter for integrity-only sessions: frames aren't encrypted, they are
+ * followed by the HMAC-SHA256 of their sequence number and of their bytes,
+ * so the remote host accepts each frame only at its position in the stream.
+ */
+public class HMACEncrypter implements Encrypter {
+
+    static final String ALGORITHM="HmacSHA256";
+    static final int MAC_LENGTH=32;
+    private final Mac mac;
+    private final byte[] sequenceBytes=new byte[8];
+
+    /**
+     * @param key used to authenticate the frames
+     * @throws GeneralSecurityException if HMAC-SHA256 isn't available
+     */
+    public HMACEncrypter(byte[] key) throws GeneralSecurityException {
+        mac=Mac.getInstance(ALGORITHM);
+        mac.init(new SecretKeySpec(key,ALGORITHM));
+    }
+
+    /**
+     * Frames are authenticated only with their sequence number
+     * @throws OperationNotPossibleException always
+     * @see #encrypt(byte[], long)
+     */
+    @Override
+    public byte[] encrypt(byte[] toEncrypt) throws OperationNotPossibleException {
+        throw new OperationNotPossibleException();
+    }
+
+    @Override
+    public synchronized byte[] encrypt(byte[] toEncrypt, long sequence) throws OperationNotPossibleException {
+        byte[] authenticated=new byte[toEncrypt.length+MAC_LENGTH];
+        System.arraycopy(toEncrypt,0,authenticated,0,toEncrypt.length);
+        updateSequence(mac,sequenceBytes,sequence);
+        mac.update(toEncrypt);
+        try {
+            mac.doFinal(authenticated,toEncrypt.length);
+        } catch (ShortBufferException e) {
+            throw new OperationNotPossibleException();
+        }
+        return authenticated;
+    }
+
+    @Override
+    public synchronized void encrypt(ByteBuffer src, ByteBuffer dst, long sequence) throws OperationNotPossibleException {
+        if(dst.remaining()<getOutputSize(src.remaining())) throw new OperationNotPossibleException();
+        ByteBuffer data=src.duplicate();
+        updateSequence(mac,sequenceBytes,sequence);
+        mac.update(src);
+        dst.put(data);
+        try {
+            if(dst.hasArray()){
+                mac.doFinal(dst.array(),dst.arrayOffset()+dst.position());
+                dst.position(dst.position()+MAC_LENGTH);
+            } else {
+                dst.put(mac.doFinal());
+            }
+        } catch (ShortBufferException e) {
+            throw new OperationNotPossibleException();
+        }
+    }
+
+    @Override
+    public int getOutputSize(int inputLength) {
+        return inputLength+MAC_LENGTH;
+    }
+
+    /**
+     * The sequence number is authenticated before the bytes of the frame
+     * @param mac to be updated
+     * @param buffer of 8 bytes where the number is written
+     * @param sequence number of the frame
+     */
+    static void updateSequence(Mac mac, byte[] buffer, long sequence){
+        for (int i=0; i<8; i++) buffer[7-i]=(byte) (sequence>>>(8*i));
+        mac.update(buffer);
+    }
+}
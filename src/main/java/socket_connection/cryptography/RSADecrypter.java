@@ -6,6 +6,8 @@ import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.NoSuchAlgorithmException;
@@ -19,11 +21,25 @@ public class RSADecrypter implements Decrypter {
         cipher.init(Cipher.DECRYPT_MODE, privateKey);
     }
     @Override
-    public byte[] decrypt(byte[] toDecrypt) throws OperationNotPossibleException {
+    public synchronized byte[] decrypt(byte[] toDecrypt) throws OperationNotPossibleException {
         try {
             return cipher.doFinal(toDecrypt);
         } catch (IllegalBlockSizeException | BadPaddingException e) {
             throw new OperationNotPossibleException();
         }
     }
+
+    @Override
+    public synchronized void decrypt(ByteBuffer src, ByteBuffer dst) throws OperationNotPossibleException {
+        try {
+            cipher.doFinal(src,dst);
+        } catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+            throw new OperationNotPossibleException();
+        }
+    }
+
+    @Override
+    public synchronized int getOutputSize(int inputLength) {
+        return cipher.getOutputSize(inputLength);
+    }
 }
@@ -6,6 +6,8 @@ import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.NoSuchAlgorithmException;
@@ -20,11 +22,25 @@ public class RSAEncrypter implements Encrypter {
     }
 
     @Override
-    public byte[] encrypt(byte[] toEncrypt) throws OperationNotPossibleException {
+    public synchronized byte[] encrypt(byte[] toEncrypt) throws OperationNotPossibleException {
         try {
             return cipher.doFinal(toEncrypt);
         } catch (IllegalBlockSizeException | BadPaddingException e) {
             throw new OperationNotPossibleException();
         }
     }
+
+    @Override
+    public synchronized void encrypt(ByteBuffer src, ByteBuffer dst) throws OperationNotPossibleException {
+        try {
+            cipher.doFinal(src,dst);
+        } catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+            throw new OperationNotPossibleException();
+        }
+    }
+
+    @Override
+    public synchronized int getOutputSize(int inputLength) {
+        return cipher.getOutputSize(inputLength);
+    }
 }
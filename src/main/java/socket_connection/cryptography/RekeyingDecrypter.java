@@ -0,0 +1,112 @@
+package socket_connection.cryptography;
+
+import socket_connection.cryptography.exceptions.OperationNotPossibleException;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+
+/**
+ * Decrypter used while the keys of the session are rotated.
+ * The remote host starts using the new key as soon as it has sent the rekey frame, while the
+ * frames around it can be decrypted before or after the rekey frame is computed: frames are
+ * decrypted with the current key and then with the next and the previous ones,
+ * so the keys overlap for the time needed by the frames in flight.
+ * Sequence numbers aren't reset by the rotation: frames are numbered before it's known which key they use.
+ */
+public class RekeyingDecrypter implements Decrypter {
+
+    //generations tried, in order, relative to the current one
+    private static final int[] OFFSETS={0,1,-1};
+    private final CipherSuite cipherSuite;
+    private final SessionKeys keys;
+    private final IntSupplier generation;
+    //decrypters of the generations that can be used, reused for each frame
+    private final int[] generations=new int[OFFSETS.length];
+    private final Decrypter[] decrypters=new Decrypter[OFFSETS.length];
+
+    /**
+     * @param cipherSuite of the session: it must be rekeyable
+     * @param keys of the session
+     * @param generation supplies the generation of the input key currently used
+     */
+    public RekeyingDecrypter(CipherSuite cipherSuite, SessionKeys keys, IntSupplier generation){
+        this.cipherSuite=cipherSuite;
+        this.keys=keys;
+        this.generation=generation;
+        Arrays.fill(generations,Integer.MIN_VALUE);
+    }
+
+    /**
+     * Frames are decrypted only with their sequence number
+     * @throws OperationNotPossibleException always
+     * @see #decrypt(byte[], long)
+     */
+    @Override
+    public byte[] decrypt(byte[] toDecrypt) throws OperationNotPossibleException {
+        throw new OperationNotPossibleException();
+    }
+
+    @Override
+    public synchronized byte[] decrypt(byte[] toDecrypt, long sequence) throws OperationNotPossibleException {
+        int current=generation.getAsInt();
+        for (int offset : OFFSETS) {
+            if(current+offset<0) continue;
+            try {
+                return decrypter(current+offset,current).decrypt(toDecrypt,sequence);
+            } catch (OperationNotPossibleException e) {
+                //the frame was encrypted with another key
+            }
+        }
+        throw new OperationNotPossibleException();
+    }
+
+    @Override
+    public synchronized void decrypt(ByteBuffer src, ByteBuffer dst, long sequence) throws OperationNotPossibleException {
+        int current=generation.getAsInt();
+        int srcPosition=src.position();
+        int dstPosition=dst.position();
+        for (int offset : OFFSETS) {
+            if(current+offset<0) continue;
+            try {
+                src.position(srcPosition);
+                dst.position(dstPosition);
+                decrypter(current+offset,current).decrypt(src,dst,sequence);
+                return;
+            } catch (OperationNotPossibleException e) {
+                //the frame was encrypted with another key
+            }
+        }
+        throw new OperationNotPossibleException();
+    }
+
+    @Override
+    public int getOutputSize(int inputLength) {
+        return inputLength;
+    }
+
+    /**
+     * Decrypters of generations that can't be used anymore are discarded
+     * @param candidate generation of the decrypter
+     * @param current generation of the input key
+     * @return the decrypter of the candidate generation
+     */
+    private Decrypter decrypter(int candidate, int current) throws OperationNotPossibleException {
+        int free=-1;
+        for (int i=0; i<generations.length; i++) {
+            if(generations[i]==candidate) return decrypters[i];
+            if(generations[i]<current-1 || generations[i]>current+1) free=i;
+        }
+        Decrypter decrypter;
+        try {
+            decrypter=cipherSuite.newDecrypter(keys.withInputGeneration(candidate));
+        } catch (GeneralSecurityException e) {
+            throw new OperationNotPossibleException();
+        }
+        if(decrypter==null || free<0) throw new OperationNotPossibleException();
+        generations[free]=candidate;
+        decrypters[free]=decrypter;
+        return decrypter;
+    }
+}
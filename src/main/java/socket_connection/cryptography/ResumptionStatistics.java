@@ -0,0 +1,52 @@
+package socket_connection.cryptography;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class contains statistics about the session tickets of a server:
+ * the hit rate is the fraction of tickets presented by clients that resumed a session.
+ */
+public class ResumptionStatistics {
+
+    private final LongAdder issuedTickets=new LongAdder();
+    private final LongAdder attempts=new LongAdder();
+    private final LongAdder resumptions=new LongAdder();
+
+    void registerIssue(){
+        issuedTickets.increment();
+    }
+
+    void registerAttempt(boolean resumed){
+        attempts.increment();
+        if(resumed) resumptions.increment();
+    }
+
+    /**
+     * @return the number of tickets sent to clients
+     */
+    public long getIssuedTickets() {
+        return issuedTickets.sum();
+    }
+
+    /**
+     * @return the number of tickets presented by clients
+     */
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    /**
+     * @return the number of sessions resumed
+     */
+    public long getResumptions() {
+        return resumptions.sum();
+    }
+
+    /**
+     * @return sessions resumed/tickets presented, 0 if no ticket was presented
+     */
+    public double getHitRate() {
+        long presented=attempts.sum();
+        return presented==0 ? 0 : (double) resumptions.sum()/presented;
+    }
+}
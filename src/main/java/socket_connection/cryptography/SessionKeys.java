@@ -0,0 +1,185 @@
+package socket_connection.cryptography;
+
+import socket_connection.cryptography.exceptions.OperationNotPossibleException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.SecureRandom;
+
+/**
+ * This class contains the keys of a session: the RSA keys exchanged during the set up phase
+ * and the secret chosen by the server, sent to the client encrypted with its public key.
+ * Each direction of the session uses its own key, derived from the secret.
+ */
+public class SessionKeys {
+
+    public static final int SECRET_LENGTH=32;
+    private static final SecureRandom random=new SecureRandom();
+    private final Key myPrivateKey;
+    private final Key foreignPublicKey;
+    private final byte[] secret;
+    private final boolean serverSide;
+    private final int outputGeneration;
+    private final int inputGeneration;
+
+    /**
+     * @param myPrivateKey private key of this host
+     * @param foreignPublicKey public key of the remote host
+     * @param secret shared by the hosts, null if it wasn't exchanged
+     * @param serverSide true if this host is the server
+     */
+    public SessionKeys(Key myPrivateKey, Key foreignPublicKey, byte[] secret, boolean serverSide){
+        this(myPrivateKey,foreignPublicKey,secret,serverSide,0,0);
+    }
+
+    private SessionKeys(Key myPrivateKey, Key foreignPublicKey, byte[] secret, boolean serverSide,
+                        int outputGeneration, int inputGeneration){
+        this.myPrivateKey=myPrivateKey;
+        this.foreignPublicKey=foreignPublicKey;
+        this.secret=secret==null ? null : secret.clone();
+        this.serverSide=serverSide;
+        this.outputGeneration=outputGeneration;
+        this.inputGeneration=inputGeneration;
+    }
+
+    /**
+     * Keys are rotated without exchanging a new secret: the key of a generation is derived
+     * from the key of the previous one, so both hosts can compute it
+     * @param generation of the key used to protect the frames sent
+     * @return the keys of this session with the output key of the given generation
+     */
+    public SessionKeys withOutputGeneration(int generation){
+        return new SessionKeys(myPrivateKey,foreignPublicKey,secret,serverSide,generation,inputGeneration);
+    }
+
+    /**
+     * @param generation of the key used to check the frames received
+     * @return the keys of this session with the input key of the given generation
+     * @see #withOutputGeneration(int)
+     */
+    public SessionKeys withInputGeneration(int generation){
+        return new SessionKeys(myPrivateKey,foreignPublicKey,secret,serverSide,outputGeneration,generation);
+    }
+
+    public int getOutputGeneration() {
+        return outputGeneration;
+    }
+
+    public int getInputGeneration() {
+        return inputGeneration;
+    }
+
+    public Key getMyPrivateKey() {
+        return myPrivateKey;
+    }
+
+    public Key getForeignPublicKey() {
+        return foreignPublicKey;
+    }
+
+    /**
+     * @return the key used to protect the frames sent
+     * @throws GeneralSecurityException if the secret wasn't exchanged
+     */
+    public byte[] outputKey() throws GeneralSecurityException {
+        return rekey(derive(serverSide ? "server" : "client"),outputGeneration);
+    }
+
+    /**
+     * @return the key used to check the frames received
+     * @throws GeneralSecurityException if the secret wasn't exchanged
+     */
+    public byte[] inputKey() throws GeneralSecurityException {
+        return rekey(derive(serverSide ? "client" : "server"),inputGeneration);
+    }
+
+    private byte[] derive(String label) throws GeneralSecurityException {
+        if(secret==null) throw new InvalidKeyException();
+        return hmac(secret,label);
+    }
+
+    /**
+     * @param key of the first generation
+     * @param generation of the key needed
+     * @return the key of the given generation
+     */
+    private static byte[] rekey(byte[] key, int generation) throws GeneralSecurityException {
+        if(generation<0) throw new InvalidKeyException();
+        for (int i=0; i<generation; i++) key=hmac(key,"rekey");
+        return key;
+    }
+
+    private static byte[] hmac(byte[] key, String label) throws GeneralSecurityException {
+        Mac mac=Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key,"HmacSHA256"));
+        return mac.doFinal(label.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return a new random secret
+     */
+    public static byte[] newSecret(){
+        byte[] secret=new byte[SECRET_LENGTH];
+        random.nextBytes(secret);
+        return secret;
+    }
+
+    /**
+     * This method derives the secret of a resumed session, so that each session uses its own keys
+     * @param ticketSecret secret of the session resumed
+     * @param clientNonce random bytes chosen by the client
+     * @param serverNonce random bytes chosen by the server
+     * @return the secret of the new session
+     * @throws GeneralSecurityException if HMAC-SHA256 isn't available
+     */
+    public static byte[] resumeSecret(byte[] ticketSecret, byte[] clientNonce, byte[] serverNonce) throws GeneralSecurityException {
+        if(ticketSecret==null || clientNonce==null || serverNonce==null) throw new InvalidKeyException();
+        Mac mac=Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(ticketSecret,"HmacSHA256"));
+        mac.update("resumption".getBytes(StandardCharsets.US_ASCII));
+        mac.update(clientNonce);
+        return mac.doFinal(serverNonce);
+    }
+
+    /**
+     * @return random bytes used to derive the secret of a resumed session
+     */
+    public static byte[] newNonce(){
+        byte[] nonce=new byte[16];
+        random.nextBytes(nonce);
+        return nonce;
+    }
+
+    /**
+     * @param secret to be sent
+     * @param foreignPublicKey public key of the remote host
+     * @return the secret encrypted with the public key
+     * @throws GeneralSecurityException if the key can't be used
+     */
+    public static byte[] wrapSecret(byte[] secret, Key foreignPublicKey) throws GeneralSecurityException {
+        try {
+            return new RSAEncrypter(foreignPublicKey).encrypt(secret);
+        } catch (OperationNotPossibleException e) {
+            throw new InvalidKeyException();
+        }
+    }
+
+    /**
+     * @param wrappedSecret received from the remote host
+     * @param myPrivateKey private key of this host
+     * @return the secret decrypted
+     * @throws GeneralSecurityException if the secret can't be decrypted
+     */
+    public static byte[] unwrapSecret(byte[] wrappedSecret, Key myPrivateKey) throws GeneralSecurityException {
+        if(wrappedSecret==null) throw new InvalidKeyException();
+        try {
+            return new RSADecrypter(myPrivateKey).decrypt(wrappedSecret);
+        } catch (OperationNotPossibleException e) {
+            throw new InvalidKeyException();
+        }
+    }
+}
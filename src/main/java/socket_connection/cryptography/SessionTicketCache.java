@@ -0,0 +1,62 @@
+package socket_connection.cryptography;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * This class keeps the last session ticket received from each server, with the secret
+ * of the session it resumes. Tickets are removed when they are presented: a ticket can be used once.
+ */
+public final class SessionTicketCache {
+
+    /**
+     * A ticket received from a server
+     */
+    public static final class CachedTicket {
+        private final byte[] ticket;
+        private final byte[] secret;
+
+        private CachedTicket(byte[] ticket, byte[] secret){
+            this.ticket=ticket.clone();
+            this.secret=secret.clone();
+        }
+
+        public byte[] getTicket() {
+            return ticket.clone();
+        }
+
+        public byte[] getSecret() {
+            return secret.clone();
+        }
+    }
+
+    private static final int MAX_SERVERS=64;
+    private static final Map<String,CachedTicket> tickets=new LinkedHashMap<String,CachedTicket>(16,0.75f,true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String,CachedTicket> eldest) {
+            return size()>MAX_SERVERS;
+        }
+    };
+
+    private SessionTicketCache(){
+        throw new AssertionError();
+    }
+
+    /**
+     * @param server address of the server, as "ip:port"
+     * @param ticket received from the server
+     * @param secret of the session the ticket resumes
+     */
+    public static synchronized void store(String server, byte[] ticket, byte[] secret){
+        tickets.put(server,new CachedTicket(ticket,secret));
+    }
+
+    /**
+     * @param server address of the server, as "ip:port"
+     * @return the ticket received from the server, removed from the cache
+     */
+    public static synchronized Optional<CachedTicket> take(String server){
+        return Optional.ofNullable(tickets.remove(server));
+    }
+}
@@ -0,0 +1,145 @@
+package socket_connection.cryptography;
+
+import socket_connection.cryptography.exceptions.OperationNotPossibleException;
+
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * This class issues the session tickets of a server. A ticket contains the secret and the cipher suite of
+ * a session, encrypted with a key known only by the server: a client presenting it can resume the session
+ * without exchanging a new secret.
+ * Each ticket starts with its id, which is unique and used as the nonce of its encryption.
+ * Tickets can be used once, until they expire. The server remembers only the last
+ * {@code maxTickets} tickets issued: older tickets are no longer valid.
+ */
+public class SessionTicketIssuer {
+
+    /**
+     * The content of a valid ticket
+     */
+    public static final class Ticket {
+        private final byte[] secret;
+        private final String cipherSuite;
+
+        private Ticket(byte[] secret, String cipherSuite){
+            this.secret=secret;
+            this.cipherSuite=cipherSuite;
+        }
+
+        public byte[] getSecret() {
+            return secret.clone();
+        }
+
+        public String getCipherSuite() {
+            return cipherSuite;
+        }
+    }
+
+    private static final SecureRandom random=new SecureRandom();
+    private final Encrypter encrypter;
+    private final Decrypter decrypter;
+    private final Map<Long,Long> validTickets;
+    private final long lifetimeInMs;
+    private final LongSupplier clock;
+    private final ResumptionStatistics statistics;
+    private long nextId;
+
+    /**
+     * @param maxTickets max number of valid tickets
+     * @param lifetimeInMs time after which a ticket expires
+     * @throws GeneralSecurityException if AES-GCM isn't available
+     */
+    public SessionTicketIssuer(int maxTickets, long lifetimeInMs) throws GeneralSecurityException {
+        this(maxTickets,lifetimeInMs,System::currentTimeMillis);
+    }
+
+    SessionTicketIssuer(int maxTickets, long lifetimeInMs, LongSupplier clock) throws GeneralSecurityException {
+        byte[] key=new byte[32];
+        random.nextBytes(key);
+        SecretKeySpec ticketKey=new SecretKeySpec(key,"AES");
+        this.encrypter=new AEADEncrypter("AES/GCM/NoPadding",ticketKey,nonce -> new GCMParameterSpec(128,nonce));
+        this.decrypter=new AEADDecrypter("AES/GCM/NoPadding",ticketKey,nonce -> new GCMParameterSpec(128,nonce));
+        this.validTickets=new LinkedHashMap<Long,Long>(){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long,Long> eldest) {
+                return size()>maxTickets;
+            }
+        };
+        this.lifetimeInMs=lifetimeInMs;
+        this.clock=clock;
+        this.statistics=new ResumptionStatistics();
+        this.nextId=random.nextLong();
+    }
+
+    /**
+     * @param secret of the session
+     * @param cipherSuite of the session
+     * @return the ticket to be sent to the client
+     * @throws GeneralSecurityException if the ticket can't be encrypted
+     */
+    public synchronized byte[] issue(byte[] secret, String cipherSuite) throws GeneralSecurityException {
+        long id=nextId++;
+        long expiry=clock.getAsLong()+lifetimeInMs;
+        byte[] suite=cipherSuite.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer content=ByteBuffer.allocate(16+SessionKeys.SECRET_LENGTH+suite.length);
+        content.putLong(id).putLong(expiry).put(secret,0,SessionKeys.SECRET_LENGTH).put(suite);
+        try {
+            byte[] encrypted=encrypter.encrypt(content.array(),id);
+            byte[] ticket=ByteBuffer.allocate(8+encrypted.length).putLong(id).put(encrypted).array();
+            validTickets.put(id,expiry);
+            statistics.registerIssue();
+            return ticket;
+        } catch (OperationNotPossibleException e) {
+            throw new GeneralSecurityException(e);
+        }
+    }
+
+    /**
+     * This method validates a ticket presented by a client: a ticket can be redeemed once
+     * @param ticket presented by the client
+     * @param cipherSuite negotiated for the new session: the ticket is valid only if it was issued
+     *                    for the same suite
+     * @return the content of the ticket, if it's valid
+     */
+    public synchronized Optional<Ticket> redeem(byte[] ticket, String cipherSuite){
+        Optional<Ticket> redeemed=open(ticket).filter(content->content.cipherSuite.equals(cipherSuite));
+        statistics.registerAttempt(redeemed.isPresent());
+        return redeemed;
+    }
+
+    private Optional<Ticket> open(byte[] ticket){
+        try {
+            ByteBuffer header=ByteBuffer.wrap(ticket);
+            long nonce=header.getLong();
+            ByteBuffer content=ByteBuffer.wrap(decrypter.decrypt(Arrays.copyOfRange(ticket,8,ticket.length),nonce));
+            long id=content.getLong();
+            long expiry=content.getLong();
+            Long valid=validTickets.remove(id);
+            if(valid==null || id!=nonce || valid!=expiry || expiry<clock.getAsLong()) return Optional.empty();
+            byte[] secret=new byte[SessionKeys.SECRET_LENGTH];
+            content.get(secret);
+            byte[] suite=Arrays.copyOfRange(content.array(),content.position(),content.limit());
+            return Optional.of(new Ticket(secret,new String(suite,StandardCharsets.UTF_8)));
+        } catch (OperationNotPossibleException | BufferUnderflowException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return statistics about the tickets issued and redeemed
+     */
+    public ResumptionStatistics getStatistics() {
+        return statistics;
+    }
+}
@@ -0,0 +1,127 @@
+package socket_connection.cryptography;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+
+/**
+ * The cipher suites available by default:
+ *  - AES-GCM and CHACHA20-POLY1305 encrypt and authenticate the frames with the keys derived
+ *    from the secret of the session
+ *  - HMAC-SHA256 only authenticates them: use it on trusted networks, where frames don't need
+ *    to be confidential
+ *  - NONE sends frames as they are
+ *  - RSA encrypts each frame with the public key of the remote host, as done before the other suites
+ *    were introduced: frames longer than the RSA block can't be encrypted and are sent as they are
+ */
+public enum StandardCipherSuite implements CipherSuite {
+
+    AES_GCM("AES-GCM", true) {
+        private static final String TRANSFORMATION="AES/GCM/NoPadding";
+
+        @Override
+        public Encrypter newEncrypter(SessionKeys keys) throws GeneralSecurityException {
+            return new AEADEncrypter(TRANSFORMATION,new SecretKeySpec(keys.outputKey(),"AES"),
+                    nonce -> new GCMParameterSpec(128,nonce));
+        }
+
+        @Override
+        public Decrypter newDecrypter(SessionKeys keys) throws GeneralSecurityException {
+            return new AEADDecrypter(TRANSFORMATION,new SecretKeySpec(keys.inputKey(),"AES"),
+                    nonce -> new GCMParameterSpec(128,nonce));
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return isCipherAvailable(TRANSFORMATION);
+        }
+    },
+    CHACHA20_POLY1305("CHACHA20-POLY1305", true) {
+        private static final String TRANSFORMATION="ChaCha20-Poly1305";
+
+        @Override
+        public Encrypter newEncrypter(SessionKeys keys) throws GeneralSecurityException {
+            return new AEADEncrypter(TRANSFORMATION,new SecretKeySpec(keys.outputKey(),"ChaCha20"),IvParameterSpec::new);
+        }
+
+        @Override
+        public Decrypter newDecrypter(SessionKeys keys) throws GeneralSecurityException {
+            return new AEADDecrypter(TRANSFORMATION,new SecretKeySpec(keys.inputKey(),"ChaCha20"),IvParameterSpec::new);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return isCipherAvailable(TRANSFORMATION);
+        }
+    },
+    HMAC_SHA256("HMAC-SHA256", true) {
+        @Override
+        public Encrypter newEncrypter(SessionKeys keys) throws GeneralSecurityException {
+            return new HMACEncrypter(keys.outputKey());
+        }
+
+        @Override
+        public Decrypter newDecrypter(SessionKeys keys) throws GeneralSecurityException {
+            return new HMACDecrypter(keys.inputKey());
+        }
+    },
+    NONE("NONE", false) {
+        @Override
+        public Encrypter newEncrypter(SessionKeys keys) {
+            return null;
+        }
+
+        @Override
+        public Decrypter newDecrypter(SessionKeys keys) {
+            return null;
+        }
+    },
+    RSA("RSA", false) {
+        @Override
+        public Encrypter newEncrypter(SessionKeys keys) throws GeneralSecurityException {
+            return new RSAEncrypter(keys.getForeignPublicKey());
+        }
+
+        @Override
+        public Decrypter newDecrypter(SessionKeys keys) throws GeneralSecurityException {
+            return new RSADecrypter(keys.getMyPrivateKey());
+        }
+    };
+
+    private final String name;
+    private final boolean authenticated;
+
+    StandardCipherSuite(String name, boolean authenticated){
+        this.name=name;
+        this.authenticated=authenticated;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    /**
+     * Only the authenticated suites use the keys derived from the secret of the session
+     */
+    @Override
+    public boolean isRekeyable() {
+        return authenticated;
+    }
+
+    private static boolean isCipherAvailable(String transformation){
+        try {
+            Cipher.getInstance(transformation);
+            return true;
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+}
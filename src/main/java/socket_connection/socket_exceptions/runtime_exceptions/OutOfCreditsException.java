@@ -0,0 +1,4 @@
+package socket_connection.socket_exceptions.runtime_exceptions;
+
+public class OutOfCreditsException extends RuntimeException {
+}
@@ -3,7 +3,12 @@ package socket_connection.socket_exceptions.runtime_exceptions.socket_connection
 public class ConnectionEventException extends RuntimeException {
     private String eventData;
 
+    /**
+     * Events are thrown for each message received: the stack trace isn't needed
+     * and it isn't filled to keep them cheap.
+     */
     public ConnectionEventException(String eventData){
+        super(null, null, false, false);
         this.eventData = eventData;
     }
 
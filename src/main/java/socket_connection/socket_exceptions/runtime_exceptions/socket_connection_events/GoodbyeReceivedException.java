@@ -0,0 +1,11 @@
+package socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events;
+
+public class GoodbyeReceivedException extends ConnectionEventException {
+
+    /**
+     * The remote host sent all its messages and is closing the connection
+     */
+    public GoodbyeReceivedException() {
+        super(null);
+    }
+}
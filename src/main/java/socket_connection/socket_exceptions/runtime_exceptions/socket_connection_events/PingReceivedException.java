@@ -0,0 +1,17 @@
+package socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events;
+
+public class PingReceivedException extends ConnectionEventException {
+    private final long timestamp;
+
+    /**
+     * @param timestamp chosen by the remote host, to be sent back with the pong
+     */
+    public PingReceivedException(long timestamp) {
+        super(null);
+        this.timestamp=timestamp;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,17 @@
+package socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events;
+
+public class PongReceivedException extends ConnectionEventException {
+    private final long timestamp;
+
+    /**
+     * @param timestamp of the ping answered by the remote host
+     */
+    public PongReceivedException(long timestamp) {
+        super(null);
+        this.timestamp=timestamp;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,31 @@
+package socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events;
+
+public class StreamReceivedException extends ConnectionEventException {
+    private final byte[] id;
+    private final boolean resumed;
+    private final long lastDelivered;
+
+    /**
+     * @param id of the reliable stream opened by the remote host
+     * @param resumed true if the remote host already knew the stream
+     * @param lastDelivered sequence number of the last message delivered by the remote host
+     */
+    public StreamReceivedException(byte[] id, boolean resumed, long lastDelivered) {
+        super(null);
+        this.id=id;
+        this.resumed=resumed;
+        this.lastDelivered=lastDelivered;
+    }
+
+    public byte[] getId() {
+        return id;
+    }
+
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    public long getLastDelivered() {
+        return lastDelivered;
+    }
+}
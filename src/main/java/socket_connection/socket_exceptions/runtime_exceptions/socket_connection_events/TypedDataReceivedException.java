@@ -0,0 +1,16 @@
+package socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events;
+
+import socket_connection.tools.BinaryReader;
+
+public class TypedDataReceivedException extends ConnectionEventException {
+    private final transient BinaryReader reader;
+
+    public TypedDataReceivedException(BinaryReader reader) {
+        super(null);
+        this.reader=reader;
+    }
+
+    public BinaryReader getReader() {
+        return reader;
+    }
+}
@@ -0,0 +1,89 @@
+package socket_connection.tools;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class decides if a server accepts a socket before the handshake starts, so that rejecting it
+ * only costs closing the socket: a server can limit its connections, the connections of each remote address
+ * and the connections opened each second. It also creates the limits of the frames read by each connection.
+ * Limits set to 0 are disabled.
+ */
+public class AdmissionControl {
+
+    private final int maxConnections;
+    private final int maxConnectionsPerAddress;
+    private final double maxInputsPerSecond;
+    private final long inputBurst;
+    private final TokenBucket newConnections;
+    private final AdmissionStatistics statistics=new AdmissionStatistics();
+    private final Map<InetAddress,Integer> connectionsByAddress=new HashMap<>();
+    private int connections;
+
+    /**
+     * @param maxConnections max number of connections at the same time
+     * @param maxConnectionsPerAddress max number of connections of the same remote address at the same time
+     * @param maxNewConnectionsPerSecond max number of connections accepted each second
+     * @param newConnectionBurst max number of connections accepted at once, 0 for a second of connections
+     * @param maxInputsPerSecond max number of frames read each second by each connection
+     * @param inputBurst max number of frames read at once by each connection, 0 for a second of frames
+     */
+    public AdmissionControl(int maxConnections, int maxConnectionsPerAddress, double maxNewConnectionsPerSecond,
+                            long newConnectionBurst, double maxInputsPerSecond, long inputBurst){
+        this.maxConnections=maxConnections;
+        this.maxConnectionsPerAddress=maxConnectionsPerAddress;
+        this.maxInputsPerSecond=maxInputsPerSecond;
+        this.inputBurst=inputBurst;
+        this.newConnections= maxNewConnectionsPerSecond>0 ?
+                new TokenBucket(maxNewConnectionsPerSecond,newConnectionBurst,statistics.getRejectedOverRateCounter()) : null;
+    }
+
+    /**
+     * A connection admitted must be released when it's closed
+     * @param address of the remote host
+     * @return true if the connection is admitted, false if the socket has to be closed
+     */
+    public synchronized boolean admit(InetAddress address){
+        if(maxConnections>0 && connections>=maxConnections){
+            statistics.registerRejectionOverLimit();
+            return false;
+        }
+        int fromAddress=connectionsByAddress.getOrDefault(address,0);
+        if(maxConnectionsPerAddress>0 && fromAddress>=maxConnectionsPerAddress){
+            statistics.registerRejectionOverAddressLimit();
+            return false;
+        }
+        //the rate is checked last, so that connections rejected for the other limits don't take tokens
+        if(newConnections!=null && !newConnections.tryAcquire()) return false;
+        connections++;
+        connectionsByAddress.put(address,fromAddress+1);
+        statistics.registerAcceptance();
+        return true;
+    }
+
+    /**
+     * @param address of the remote host of a connection admitted and then closed
+     */
+    public synchronized void release(InetAddress address){
+        Integer fromAddress=connectionsByAddress.get(address);
+        if(fromAddress==null) return;
+        connections--;
+        if(fromAddress==1) connectionsByAddress.remove(address);
+        else connectionsByAddress.put(address,fromAddress-1);
+    }
+
+    /**
+     * @return the limit of the frames read by a new connection, null if frames aren't limited
+     */
+    public TokenBucket newInputLimit(){
+        return maxInputsPerSecond>0 ? new TokenBucket(maxInputsPerSecond,inputBurst,statistics.getThrottledInputsCounter()) : null;
+    }
+
+    /**
+     * @return the statistics of the connections and inputs rejected
+     */
+    public AdmissionStatistics getStatistics() {
+        return statistics;
+    }
+}
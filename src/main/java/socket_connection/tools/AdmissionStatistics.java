@@ -0,0 +1,77 @@
+package socket_connection.tools;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics about the connections and the inputs rejected by the admission control of a server
+ */
+public class AdmissionStatistics {
+
+    private final LongAdder accepted=new LongAdder();
+    private final LongAdder rejectedOverLimit=new LongAdder();
+    private final LongAdder rejectedOverAddressLimit=new LongAdder();
+    private final LongAdder rejectedOverRate=new LongAdder();
+    private final LongAdder throttledInputs=new LongAdder();
+
+    void registerAcceptance(){
+        accepted.increment();
+    }
+
+    void registerRejectionOverLimit(){
+        rejectedOverLimit.increment();
+    }
+
+    void registerRejectionOverAddressLimit(){
+        rejectedOverAddressLimit.increment();
+    }
+
+    LongAdder getRejectedOverRateCounter(){
+        return rejectedOverRate;
+    }
+
+    LongAdder getThrottledInputsCounter(){
+        return throttledInputs;
+    }
+
+    /**
+     * @return the number of connections accepted
+     */
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * @return the number of connections rejected because the server had too many connections
+     */
+    public long getRejectedOverLimit() {
+        return rejectedOverLimit.sum();
+    }
+
+    /**
+     * @return the number of connections rejected because their address had too many connections
+     */
+    public long getRejectedOverAddressLimit() {
+        return rejectedOverAddressLimit.sum();
+    }
+
+    /**
+     * @return the number of connections rejected because too many connections were opened in the last second
+     */
+    public long getRejectedOverRate() {
+        return rejectedOverRate.sum();
+    }
+
+    /**
+     * @return the number of times a connection stopped reading its frames because it received too many in the last second
+     */
+    public long getThrottledInputs() {
+        return throttledInputs.sum();
+    }
+
+    /**
+     * @return the number of connections rejected for any reason
+     */
+    public long getRejected() {
+        return getRejectedOverLimit()+getRejectedOverAddressLimit()+getRejectedOverRate();
+    }
+}
@@ -0,0 +1,34 @@
+package socket_connection.tools;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class holds the pool of threads shared by the client connections to run the tasks
+ * of their agents. Threads are created when tasks are submitted and end when they are idle,
+ * so clients that never submit tasks don't start any thread.
+ */
+public final class AgentWorkers {
+
+    private static ExecutorService workers;
+
+    private AgentWorkers(){
+        throw new AssertionError();
+    }
+
+    /**
+     * @return the shared pool of workers
+     */
+    public static synchronized ExecutorService getInstance(){
+        if(workers==null){
+            AtomicInteger created=new AtomicInteger();
+            workers=Executors.newCachedThreadPool(task->{
+                Thread thread=new Thread(task,"agent-worker-"+created.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+}
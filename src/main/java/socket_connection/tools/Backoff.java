@@ -0,0 +1,49 @@
+package socket_connection.tools;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Exponential backoff with full jitter: the delay before an attempt is chosen at random
+ * between 0 and a limit that doubles at each attempt, up to a maximum.
+ * Clients disconnected at the same moment spread their attempts instead of retrying together.
+ */
+public class Backoff {
+
+    private final long initialDelayInMs;
+    private final long maxDelayInMs;
+    private final Supplier<Random> random;
+
+    /**
+     * @param initialDelayInMs limit of the delay before the first attempt
+     * @param maxDelayInMs maximum limit of the delay
+     */
+    public Backoff(long initialDelayInMs, long maxDelayInMs){
+        this(initialDelayInMs,maxDelayInMs,ThreadLocalRandom::current);
+    }
+
+    Backoff(long initialDelayInMs, long maxDelayInMs, Supplier<Random> random){
+        this.initialDelayInMs=Math.max(1,initialDelayInMs);
+        this.maxDelayInMs=Math.max(this.initialDelayInMs,maxDelayInMs);
+        this.random=random;
+    }
+
+    /**
+     * @param attempt number of the attempt, starting from 0
+     * @return the limit of the delay before the attempt
+     */
+    public long limitInMs(int attempt){
+        int shift=Math.min(Math.max(attempt,0),62);
+        if(initialDelayInMs>maxDelayInMs>>shift) return maxDelayInMs;
+        return initialDelayInMs<<shift;
+    }
+
+    /**
+     * @param attempt number of the attempt, starting from 0
+     * @return the delay before the attempt
+     */
+    public long delayInMs(int attempt){
+        return (long) (random.get().nextDouble()*(limitInMs(attempt)+1));
+    }
+}
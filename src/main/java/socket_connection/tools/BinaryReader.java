@@ -0,0 +1,204 @@
+package socket_connection.tools;
+
+import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+public class BinaryReader {
+
+    private byte[] data;
+    private int limit;
+    private int position;
+
+    /**
+     * Public constructor of BinaryReader
+     * @param data to be read
+     */
+    public BinaryReader(byte[] data){
+        this(data,0,data.length);
+    }
+
+    /**
+     * Public constructor of BinaryReader
+     * @param data containing bytes to be read
+     * @param offset of the first byte to be read
+     * @param length number of bytes that can be read
+     */
+    public BinaryReader(byte[] data, int offset, int length){
+        reset(data,offset,length);
+    }
+
+    /**
+     * This method lets the reader be reused for other data
+     * @param data containing bytes to be read
+     * @param offset of the first byte to be read
+     * @param length number of bytes that can be read
+     */
+    public void reset(byte[] data, int offset, int length){
+        this.data=data;
+        this.position=offset;
+        this.limit=offset+length;
+    }
+
+    /**
+     * @return the next byte
+     * @exception UndefinedInputTypeException if there are no more bytes
+     */
+    public byte readByte(){
+        check(1);
+        return data[position++];
+    }
+
+    /**
+     * @return a byte array prefixed by its length
+     * @exception UndefinedInputTypeException if the data are malformed
+     */
+    public byte[] readByteArray(){
+        int length=readLength();
+        byte[] toReturn=Arrays.copyOfRange(data,position,position+length);
+        position+=length;
+        return toReturn;
+    }
+
+    /**
+     * @param charset used to encode the string
+     * @return a string written with {@link BinaryWriter#writeString(String, Charset)}
+     * @exception UndefinedInputTypeException if the data are malformed
+     */
+    public String readString(Charset charset){
+        int length=readLength();
+        String toReturn=new String(data,position,length,charset);
+        position+=length;
+        return toReturn;
+    }
+
+    /**
+     * @return an unsigned int written with {@link BinaryWriter#writeVarInt(int)}
+     * @exception UndefinedInputTypeException if the data are malformed
+     */
+    public int readVarInt(){
+        int value=0;
+        for (int shift=0; shift<35; shift+=7){
+            byte current=readByte();
+            value|=(current & 0x7F) << shift;
+            if((current & 0x80)==0) return value;
+        }
+        throw new UndefinedInputTypeException();
+    }
+
+    /**
+     * @return an unsigned long written with {@link BinaryWriter#writeVarLong(long)}
+     * @exception UndefinedInputTypeException if the data are malformed
+     */
+    public long readVarLong(){
+        long value=0;
+        for (int shift=0; shift<70; shift+=7){
+            byte current=readByte();
+            value|=(long) (current & 0x7F) << shift;
+            if((current & 0x80)==0) return value;
+        }
+        throw new UndefinedInputTypeException();
+    }
+
+    /**
+     * @return a signed int written with {@link BinaryWriter#writeZigZagInt(int)}
+     */
+    public int readZigZagInt(){
+        int raw=readVarInt();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    /**
+     * @return a signed long written with {@link BinaryWriter#writeZigZagLong(long)}
+     */
+    public long readZigZagLong(){
+        long raw=readVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    /**
+     * @return a long written with {@link BinaryWriter#writeFixedLong(long)}
+     */
+    public long readFixedLong(){
+        check(8);
+        long value=0;
+        for (int i=0; i<8; i++) value=(value << 8) | (data[position++] & 0xFF);
+        return value;
+    }
+
+    /**
+     * @return a double written with {@link BinaryWriter#writeDouble(double)}
+     */
+    public double readDouble(){
+        return Double.longBitsToDouble(readFixedLong());
+    }
+
+    /**
+     * @return a boolean written with {@link BinaryWriter#writeBoolean(boolean)}
+     */
+    public boolean readBoolean(){
+        return readByte()!=0;
+    }
+
+    /**
+     * This method reads a length and checks that at least that number of bytes is still available
+     * @return the length read
+     */
+    public int readLength(){
+        int length=readVarInt();
+        if(length<0) throw new UndefinedInputTypeException();
+        check(length);
+        return length;
+    }
+
+    /**
+     * @param toSkip number of bytes to be skipped
+     */
+    public void skip(int toSkip){
+        check(toSkip);
+        position+=toSkip;
+    }
+
+    /**
+     * This method consumes all remaining bytes, returning them as a stream:
+     * used to decode data with libraries working on streams without copying them
+     * @return a stream containing the remaining bytes
+     */
+    public InputStream remainingAsInputStream(){
+        InputStream stream=new ByteArrayInputStream(data,position,remaining());
+        position=limit;
+        return stream;
+    }
+
+    /**
+     * @return the number of bytes that can still be read
+     */
+    public int remaining(){
+        return limit-position;
+    }
+
+    /**
+     * @return the index, in the underlying array, of the next byte to be read
+     */
+    public int position(){
+        return position;
+    }
+
+    /**
+     * @return the underlying array
+     */
+    public byte[] array(){
+        return data;
+    }
+
+    /**
+     * @param toRead number of bytes that are going to be read
+     * @exception UndefinedInputTypeException if less bytes are available
+     */
+    private void check(int toRead){
+        if(toRead<0 || position+toRead>limit) throw new UndefinedInputTypeException();
+    }
+}
@@ -0,0 +1,314 @@
+package socket_connection.tools;
+
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+public class BinaryWriter {
+
+    private static final int CHARS_CHUNK=1024;
+    private byte[] data;
+    private int position;
+    private char[] chars;
+
+    /**
+     * Public constructor of BinaryWriter with a default capacity
+     */
+    public BinaryWriter(){
+        this(64);
+    }
+
+    /**
+     * Public constructor of BinaryWriter
+     * @param initialCapacity is the number of bytes that can be written before growing the internal array
+     */
+    public BinaryWriter(int initialCapacity){
+        this.data=new byte[Math.max(initialCapacity,16)];
+        this.position=0;
+    }
+
+    /**
+     * @param value to be written as a single byte
+     * @return this writer
+     */
+    public BinaryWriter writeByte(int value){
+        ensureCapacity(1);
+        data[position++]=(byte) value;
+        return this;
+    }
+
+    /**
+     * This method writes raw bytes, without any length prefix
+     * @param bytes to be written
+     * @return this writer
+     */
+    public BinaryWriter writeBytes(byte[] bytes){
+        return writeBytes(bytes,0,bytes.length);
+    }
+
+    /**
+     * This method writes raw bytes, without any length prefix
+     * @param bytes containing data to be written
+     * @param offset of the first byte to be written
+     * @param length number of bytes to be written
+     * @return this writer
+     */
+    public BinaryWriter writeBytes(byte[] bytes, int offset, int length){
+        ensureCapacity(length);
+        System.arraycopy(bytes,offset,data,position,length);
+        position+=length;
+        return this;
+    }
+
+    /**
+     * This method writes a byte array prefixed by its length
+     * @param bytes to be written
+     * @return this writer
+     */
+    public BinaryWriter writeByteArray(byte[] bytes){
+        writeVarInt(bytes.length);
+        return writeBytes(bytes);
+    }
+
+    /**
+     * This method writes a string prefixed by the length of its encoding
+     * @param string to be written
+     * @param charset used to encode the string
+     * @return this writer
+     */
+    public BinaryWriter writeString(String string, Charset charset){
+        return writeByteArray(string.getBytes(charset));
+    }
+
+    /**
+     * This method writes text encoded in UTF-8, without any length prefix.
+     * ASCII characters are copied directly; unpaired surrogates are replaced by '?'
+     * as done by {@link String#getBytes(Charset)}.
+     * @param text to be written
+     * @return this writer
+     */
+    public BinaryWriter writeUtf8(CharSequence text){
+        return writeUtf8(text,0,text.length());
+    }
+
+    /**
+     * This method writes a part of a text encoded in UTF-8, without any length prefix
+     * @param text containing the characters to be written
+     * @param start index of the first character
+     * @param end index after the last character
+     * @return this writer
+     * @see #writeUtf8(CharSequence)
+     */
+    public BinaryWriter writeUtf8(CharSequence text, int start, int end){
+        if(chars==null) chars=new char[CHARS_CHUNK];
+        while (start<end){
+            int chunkEnd=Math.min(end,start+CHARS_CHUNK);
+            //a surrogate pair is never split between two chunks
+            if(chunkEnd<end && Character.isHighSurrogate(text.charAt(chunkEnd-1))) chunkEnd--;
+            copyChars(text,start,chunkEnd);
+            writeUtf8(chunkEnd-start);
+            start=chunkEnd;
+        }
+        return this;
+    }
+
+    /**
+     * Copy characters into {@link #chars}, using the bulk copy of strings and builders when possible
+     */
+    private void copyChars(CharSequence text, int start, int end){
+        if(text instanceof String) ((String) text).getChars(start,end,chars,0);
+        else if(text instanceof StringBuilder) ((StringBuilder) text).getChars(start,end,chars,0);
+        else for (int i=start; i<end; i++) chars[i-start]=text.charAt(i);
+    }
+
+    /**
+     * Encode the first characters of {@link #chars}
+     * @param count number of characters to be encoded
+     */
+    private void writeUtf8(int count){
+        ensureCapacity(count);
+        //locals let the JIT keep array and position in registers
+        char[] source=chars;
+        byte[] target=data;
+        int written=position;
+        int index=0;
+        while (index<count && source[index]<0x80) target[written++]=(byte) source[index++];
+        position=written;
+        if(index==count) return;
+        ensureCapacity((count-index)*3);
+        target=data;
+        while (index<count){
+            char character=source[index++];
+            if(character<0x80){
+                target[written++]=(byte) character;
+            } else if(character<0x800){
+                target[written++]=(byte) (0xC0 | character>>6);
+                target[written++]=(byte) (0x80 | character & 0x3F);
+            } else if(!Character.isSurrogate(character)){
+                target[written++]=(byte) (0xE0 | character>>12);
+                target[written++]=(byte) (0x80 | character>>6 & 0x3F);
+                target[written++]=(byte) (0x80 | character & 0x3F);
+            } else if(Character.isHighSurrogate(character) && index<count && Character.isLowSurrogate(source[index])){
+                int codePoint=Character.toCodePoint(character,source[index++]);
+                target[written++]=(byte) (0xF0 | codePoint>>18);
+                target[written++]=(byte) (0x80 | codePoint>>12 & 0x3F);
+                target[written++]=(byte) (0x80 | codePoint>>6 & 0x3F);
+                target[written++]=(byte) (0x80 | codePoint & 0x3F);
+            } else {
+                target[written++]=(byte) '?';
+            }
+        }
+        position=written;
+    }
+
+    /**
+     * @param text containing the characters to be measured
+     * @param start index of the first character
+     * @param end index after the last character
+     * @return the number of bytes written by {@link #writeUtf8(CharSequence, int, int)}
+     */
+    public static int utf8Length(CharSequence text, int start, int end){
+        int length=end-start;
+        for (int index=start; index<end; index++){
+            char character=text.charAt(index);
+            if(character<0x80) continue;
+            if(character<0x800) length++;
+            else if(!Character.isSurrogate(character)) length+=2;
+            else if(Character.isHighSurrogate(character) && index+1<end && Character.isLowSurrogate(text.charAt(index+1))){
+                length+=2;
+                index++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * This method writes an unsigned int using from 1 to 5 bytes
+     * @param value to be written
+     * @return this writer
+     */
+    public BinaryWriter writeVarInt(int value){
+        ensureCapacity(5);
+        while ((value & ~0x7F)!=0){
+            data[position++]=(byte) ((value & 0x7F) | 0x80);
+            value>>>=7;
+        }
+        data[position++]=(byte) value;
+        return this;
+    }
+
+    /**
+     * This method writes an unsigned long using from 1 to 10 bytes
+     * @param value to be written
+     * @return this writer
+     */
+    public BinaryWriter writeVarLong(long value){
+        ensureCapacity(10);
+        while ((value & ~0x7FL)!=0){
+            data[position++]=(byte) ((value & 0x7F) | 0x80);
+            value>>>=7;
+        }
+        data[position++]=(byte) value;
+        return this;
+    }
+
+    /**
+     * This method writes a signed int: small negative numbers take few bytes too
+     * @param value to be written
+     * @return this writer
+     */
+    public BinaryWriter writeZigZagInt(int value){
+        return writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * This method writes a signed long: small negative numbers take few bytes too
+     * @param value to be written
+     * @return this writer
+     */
+    public BinaryWriter writeZigZagLong(long value){
+        return writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * This method writes a long using always 8 bytes (big-endian)
+     * @param value to be written
+     * @return this writer
+     */
+    public BinaryWriter writeFixedLong(long value){
+        ensureCapacity(8);
+        for (int shift=56; shift>=0; shift-=8) data[position++]=(byte) (value>>>shift);
+        return this;
+    }
+
+    /**
+     * @param value to be written using always 8 bytes
+     * @return this writer
+     */
+    public BinaryWriter writeDouble(double value){
+        return writeFixedLong(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * @param value to be written as a single byte
+     * @return this writer
+     */
+    public BinaryWriter writeBoolean(boolean value){
+        return writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * @return a stream writing on this writer, used to encode data with libraries working on streams
+     */
+    public OutputStream asOutputStream(){
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                writeByte(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writeBytes(b,off,len);
+            }
+        };
+    }
+
+    /**
+     * @return the number of bytes written
+     */
+    public int size(){
+        return position;
+    }
+
+    /**
+     * This method discards all written bytes, keeping the internal array
+     */
+    public void reset(){
+        position=0;
+    }
+
+    /**
+     * @return the internal array, containing the written bytes from index 0 to {@link #size()}:
+     * it's replaced when the writer grows, so it must be used before writing again
+     */
+    public byte[] array(){
+        return data;
+    }
+
+    /**
+     * @return a copy of the written bytes
+     */
+    public byte[] toByteArray(){
+        return Arrays.copyOf(data,position);
+    }
+
+    /**
+     * Grow the internal array if needed
+     * @param toWrite number of bytes that are going to be written
+     */
+    private void ensureCapacity(int toWrite){
+        if(position+toWrite>data.length)
+            data=Arrays.copyOf(data,Math.max(data.length<<1,position+toWrite));
+    }
+}
@@ -0,0 +1,76 @@
+package socket_connection.tools;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics about the compression of the messages exchanged by a connection
+ */
+public class CompressionStatistics {
+
+    private final LongAdder compressedMessages=new LongAdder();
+    private final LongAdder bytesBeforeCompression=new LongAdder();
+    private final LongAdder bytesAfterCompression=new LongAdder();
+    private final LongAdder compressionTimeInNs=new LongAdder();
+    private final LongAdder decompressedMessages=new LongAdder();
+    private final LongAdder bytesBeforeDecompression=new LongAdder();
+    private final LongAdder bytesAfterDecompression=new LongAdder();
+    private final LongAdder decompressionTimeInNs=new LongAdder();
+
+    void registerCompression(int rawLength, int compressedLength, long timeInNs){
+        compressedMessages.increment();
+        bytesBeforeCompression.add(rawLength);
+        bytesAfterCompression.add(compressedLength);
+        compressionTimeInNs.add(timeInNs);
+    }
+
+    void registerDecompression(int compressedLength, int rawLength, long timeInNs){
+        decompressedMessages.increment();
+        bytesBeforeDecompression.add(compressedLength);
+        bytesAfterDecompression.add(rawLength);
+        decompressionTimeInNs.add(timeInNs);
+    }
+
+    /**
+     * @return the number of messages sent compressed
+     */
+    public long getCompressedMessages() {
+        return compressedMessages.sum();
+    }
+
+    /**
+     * @return the number of messages received compressed
+     */
+    public long getDecompressedMessages() {
+        return decompressedMessages.sum();
+    }
+
+    /**
+     * @return compressed size / original size of the messages sent compressed, 1 if nothing was compressed
+     */
+    public double getCompressionRatio() {
+        long before=bytesBeforeCompression.sum();
+        return before==0 ? 1 : (double) bytesAfterCompression.sum()/before;
+    }
+
+    /**
+     * @return compressed size / original size of the messages received compressed, 1 if nothing was received
+     */
+    public double getDecompressionRatio() {
+        long after=bytesAfterDecompression.sum();
+        return after==0 ? 1 : (double) bytesBeforeDecompression.sum()/after;
+    }
+
+    /**
+     * @return the time spent compressing messages, in nanoseconds
+     */
+    public long getCompressionTimeInNs() {
+        return compressionTimeInNs.sum();
+    }
+
+    /**
+     * @return the time spent decompressing messages, in nanoseconds
+     */
+    public long getDecompressionTimeInNs() {
+        return decompressionTimeInNs.sum();
+    }
+}
@@ -5,8 +5,13 @@ import socket_connection.SocketUserAgentInterface;
 import socket_connection.socket_exceptions.runtime_exceptions.BadSetupException;
 
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -26,13 +31,59 @@ public class ConnectionsHandler {
     }
 
     /**
-     * This method shut down all the active connections
+     * This method shut down all the active connections: agents are shut down without holding the lock,
+     * so that the connections closed meanwhile can be removed
      */
     public void shutdownAllConnections(){
+        takeAllAgents().values().forEach(SocketUserAgentInterface::shutdown);
+    }
+
+    /**
+     * This method closes all the active connections in parallel, giving them time to flush their messages:
+     * the agents are shut down after their connection is closed
+     * @param deadline value of {@link System#nanoTime()} after which connections are shut down without waiting
+     * @param maxThreads max number of connections closed at the same time
+     * @return the number of connections that flushed their messages in time
+     */
+    public int drainAllConnections(long deadline, int maxThreads){
+        Map<SocketConnection,SocketUserAgentInterface> agents=takeAllAgents();
+        if(agents.isEmpty()) return 0;
+        ExecutorService closers=Executors.newFixedThreadPool(Math.max(1,Math.min(maxThreads,agents.size())));
+        AtomicInteger flushed=new AtomicInteger();
+        agents.forEach((connection,agent)->closers.execute(()->{
+            if(connection.close(Math.max(0,deadline-System.nanoTime()),TimeUnit.NANOSECONDS)) flushed.incrementAndGet();
+            agent.shutdown();
+        }));
+        closers.shutdown();
+        try {
+            //closing a connection after the deadline doesn't wait: each thread needs little time for each one
+            closers.awaitTermination(Math.max(0,deadline-System.nanoTime())+TimeUnit.SECONDS.toNanos(agents.size()/Math.max(1,maxThreads)+1),TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return flushed.get();
+    }
+
+    /**
+     * @return the active connections and their agents
+     */
+    public Map<SocketConnection,SocketUserAgentInterface> getAgents(){
         availableConnectionsLock.lock();
-        availableConnections.values().forEach(SocketUserAgentInterface::shutdown);
+        Map<SocketConnection,SocketUserAgentInterface> agents=new HashMap<>(availableConnections);
+        availableConnectionsLock.unlock();
+        return agents;
+    }
+
+    /**
+     * @return the active connections and their agents, removed from the connections handled
+     */
+    private Map<SocketConnection,SocketUserAgentInterface> takeAllAgents(){
+        availableConnectionsLock.lock();
+        Map<SocketConnection,SocketUserAgentInterface> agents=new HashMap<>(availableConnections);
+        availableConnections.clear();
         activeConnections=0;
         availableConnectionsLock.unlock();
+        return agents;
     }
 
     /**
@@ -57,9 +108,12 @@ public class ConnectionsHandler {
     public void removeConnection(SocketConnection connection) {
         Objects.requireNonNull(connection);
         availableConnectionsLock.lock();
-        if(!Optional.ofNullable(availableConnections.remove(connection)).isPresent()) throw new BadSetupException();
-        else activeConnections--;
-        availableConnectionsLock.unlock();
+        try {
+            if(!Optional.ofNullable(availableConnections.remove(connection)).isPresent()) throw new BadSetupException();
+            else activeConnections--;
+        } finally {
+            availableConnectionsLock.unlock();
+        }
     }
 
     /**
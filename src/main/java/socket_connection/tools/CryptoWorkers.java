@@ -0,0 +1,37 @@
+package socket_connection.tools;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class holds the pool of threads shared by all connections to encrypt
+ * and decrypt frames in parallel. Tasks are executed in submission order, so
+ * connections share the workers fairly.
+ */
+public final class CryptoWorkers {
+
+    private static ExecutorService workers;
+
+    private CryptoWorkers(){
+        throw new AssertionError();
+    }
+
+    /**
+     * @param threads number of workers, used only when the pool is created:
+     *                0 to use a worker for each available processor
+     * @return the shared pool of workers
+     */
+    public static synchronized ExecutorService getInstance(int threads){
+        if(workers==null){
+            int size= threads>0 ? threads : Runtime.getRuntime().availableProcessors();
+            AtomicInteger created=new AtomicInteger();
+            workers=Executors.newFixedThreadPool(size, task->{
+                Thread thread=new Thread(task,"crypto-worker-"+created.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+}
@@ -6,21 +6,57 @@ import socket_connection.cryptography.*;
 import socket_connection.cryptography.exceptions.OperationNotPossibleException;
 import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
 
-import javax.crypto.NoSuchPaddingException;
-import java.nio.charset.Charset;
-import java.security.InvalidKeyException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.*;
+import java.security.GeneralSecurityException;
 import java.security.Key;
-import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class DataFormatter {
 
 
-    private final Charset charset;
+    private static final Gson gson= new Gson();
+    private static final byte PLAIN_FRAME=0;
+    private static final byte COMPRESSED_FRAME=1;
+    private final CompressionStatistics compressionStatistics;
+    private final Object encoderLock=new Object();
+    private final Object decoderLock=new Object();
+    private volatile Charset charset;
+    private volatile boolean utf8;
+    private CharsetEncoder encoder;
+    private CharsetDecoder decoder;
+    private ByteBuffer encodedBuffer;
+    private CharBuffer decodedBuffer;
     private Encrypter encrypter;
     private Decrypter decrypter;
+    private FrameCompressor compressor;
     private Logger logger;
+    //ciphers used by threads encrypting and decrypting in parallel
+    private final Queue<SpareEncrypter> spareEncrypters=new ConcurrentLinkedQueue<>();
+    private final Queue<Decrypter> spareDecrypters=new ConcurrentLinkedQueue<>();
+    private CipherSuite cipherSuite;
+    private SessionKeys sessionKeys;
+    //generations of the keys, rotated by rekeyOutput and rekeyInput
+    private volatile int outputGeneration;
+    private volatile int inputGeneration;
+    //sequence numbers of the next frames boxed and unboxed, bound to the frames by authenticated suites
+    private final AtomicLong outputSequence=new AtomicLong();
+    private final AtomicLong inputSequence=new AtomicLong();
+    //buffers reused by boxFrame
+    private final BinaryWriter framedOutput=new BinaryWriter(256);
+    private ByteBuffer framedOutputView;
+    private ByteBuffer boxedOutput=ByteBuffer.allocate(256);
+    //buffers reused by unBoxFrame
+    private final BinaryReader unBoxedInput=new BinaryReader(new byte[0]);
+    private final BinaryReader compressedInput=new BinaryReader(new byte[0]);
+    private ByteBuffer receivedInputView;
+    private ByteBuffer decryptedInput=ByteBuffer.allocate(256);
 
 
     /**
@@ -28,34 +64,419 @@ public class DataFormatter {
      * Create an instance of this class isn' allowed
      */
     public DataFormatter(Charset charset){
-        this.charset=charset;
+        this.compressionStatistics=new CompressionStatistics();
+        setUpCharset(charset);
         logger=Logger.getLogger(DataFormatter.class.toString()+"%u");
     }
 
     public void setUpEncryption(Key myPrivateKey, Key foreignPublicKey){
         try {
-            encrypter = new RSAEncrypter(foreignPublicKey);
-            decrypter = new RSADecrypter(myPrivateKey);
-        } catch (NoSuchPaddingException | NoSuchAlgorithmException | InvalidKeyException e) {
+            setUpEncryption(StandardCipherSuite.RSA,new SessionKeys(myPrivateKey,foreignPublicKey,null,false));
+        } catch (GeneralSecurityException e) {
             logger.log(Level.SEVERE, "ERROR WHILE SETTING UP ENCRYPTION");
         }
     }
 
+    /**
+     * This method sets up the encryption of the frames with a cipher suite
+     * @param cipherSuite negotiated with the remote host
+     * @param sessionKeys keys of the session
+     * @throws GeneralSecurityException if the suite can't use the keys
+     */
+    public void setUpEncryption(CipherSuite cipherSuite, SessionKeys sessionKeys) throws GeneralSecurityException {
+        Encrypter newEncrypter=cipherSuite.newEncrypter(sessionKeys);
+        Decrypter newDecrypter=newDecrypter(cipherSuite,sessionKeys);
+        spareEncrypters.clear();
+        spareDecrypters.clear();
+        this.cipherSuite=cipherSuite;
+        this.sessionKeys=sessionKeys;
+        outputGeneration=0;
+        inputGeneration=0;
+        outputSequence.set(0);
+        inputSequence.set(0);
+        encrypter=newEncrypter;
+        decrypter=newDecrypter;
+    }
+
+    /**
+     * Decrypters of rekeyable suites accept the frames encrypted with the keys of the
+     * generations next to the current one
+     * @return a new decrypter for the frames received
+     */
+    private Decrypter newDecrypter(CipherSuite cipherSuite, SessionKeys sessionKeys) throws GeneralSecurityException {
+        if(cipherSuite.isRekeyable()) return new RekeyingDecrypter(cipherSuite,sessionKeys,()->inputGeneration);
+        return cipherSuite.newDecrypter(sessionKeys);
+    }
+
+    /**
+     * @return true if the keys of the session can be rotated
+     */
+    public boolean isRekeyable(){
+        return cipherSuite!=null && cipherSuite.isRekeyable();
+    }
+
+    /**
+     * This method rotates the key used to encrypt the frames: frames boxed from now on
+     * are encrypted with the key of the next generation.
+     * The remote host must be told of the rotation by a frame sent with the previous key.
+     * @return the new generation of the output key
+     * @throws GeneralSecurityException if the keys of the session can't be rotated
+     */
+    public int rekeyOutput() throws GeneralSecurityException {
+        if(!isRekeyable()) throw new GeneralSecurityException();
+        int generation=outputGeneration+1;
+        Encrypter newEncrypter=cipherSuite.newEncrypter(sessionKeys.withOutputGeneration(generation));
+        encrypter=newEncrypter;
+        outputGeneration=generation;
+        spareEncrypters.clear();
+        return generation;
+    }
+
+    /**
+     * This method rotates the key used to decrypt the frames, after the remote host rotated its output key.
+     * Frames still encrypted with the previous key can be decrypted.
+     * @param generation of the new input key
+     * @exception UndefinedInputTypeException is launched if the generation isn't the next one
+     */
+    public void rekeyInput(int generation){
+        if(!isRekeyable() || generation!=inputGeneration+1) throw new UndefinedInputTypeException();
+        inputGeneration=generation;
+    }
+
+    /**
+     * @return the generation of the key used to encrypt the frames
+     */
+    public int getOutputGeneration() {
+        return outputGeneration;
+    }
+
+    /**
+     * @return the generation of the key used to decrypt the frames
+     */
+    public int getInputGeneration() {
+        return inputGeneration;
+    }
+
+    /**
+     * Frames must be written in the order of their sequence numbers: the methods boxing a frame take
+     * the number themselves, the ones encrypting frames in parallel receive it.
+     * Numbers aren't reset when the keys are rotated.
+     * @return the sequence number of the next frame sent
+     * @see #encryptBytes(byte[], int, long)
+     */
+    public long nextOutputSequence() {
+        return outputSequence.getAndIncrement();
+    }
+
+    /**
+     * Frames must be numbered in the order they are received, even if they are decrypted in parallel
+     * @return the sequence number of the next frame received
+     * @see #decryptBytes(byte[], long)
+     */
+    public long nextInputSequence() {
+        return inputSequence.getAndIncrement();
+    }
+
+    /**
+     * This method changes the charset used to encode and decode text:
+     * the remote host must use the same charset.
+     * @param charset to be used
+     */
+    public void setUpCharset(Charset charset){
+        synchronized (encoderLock){
+            synchronized (decoderLock){
+                this.charset=charset;
+                this.utf8=charset.equals(StandardCharsets.UTF_8);
+                this.encoder=null;
+                this.decoder=null;
+            }
+        }
+    }
+
+    /**
+     * This method encodes a text with the charset of this formatter. UTF-8 is encoded directly
+     * on the writer; the other charsets use an encoder and a buffer reused for each text.
+     * @param text to be encoded
+     * @param writer where the encoded text is written
+     */
+    public void encode(CharSequence text, BinaryWriter writer){
+        if(utf8){
+            writer.writeUtf8(text);
+            return;
+        }
+        synchronized (encoderLock){
+            if(encoder==null){
+                encoder=charset.newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            int expected=(int) (text.length()*encoder.maxBytesPerChar())+8;
+            if(encodedBuffer==null || encodedBuffer.capacity()<expected) encodedBuffer=ByteBuffer.allocate(expected);
+            encodedBuffer.clear();
+            encoder.reset();
+            CharBuffer input=CharBuffer.wrap(text);
+            CoderResult result=encoder.encode(input,encodedBuffer,true);
+            while (result.isOverflow()){
+                encodedBuffer=grow(encodedBuffer);
+                result=encoder.encode(input,encodedBuffer,true);
+            }
+            result=encoder.flush(encodedBuffer);
+            while (result.isOverflow()){
+                encodedBuffer=grow(encodedBuffer);
+                result=encoder.flush(encodedBuffer);
+            }
+            writer.writeBytes(encodedBuffer.array(),0,encodedBuffer.position());
+        }
+    }
+
+    /**
+     * This method encodes a text with a tag inserted at a given position, without
+     * building the tagged string
+     * @param text to be encoded
+     * @param tag to be inserted
+     * @param tagPosition index of the text where the tag is inserted
+     * @param writer where the encoded text is written
+     * @exception StringIndexOutOfBoundsException if the position is outside the text
+     */
+    public void encode(String text, String tag, int tagPosition, BinaryWriter writer){
+        if(!utf8){
+            encode(new TaggedString(text,tag,tagPosition),writer);
+            return;
+        }
+        if(tagPosition<0 || tagPosition>text.length()) throw new StringIndexOutOfBoundsException(tagPosition);
+        writer.writeUtf8(text,0,tagPosition).writeUtf8(tag).writeUtf8(text,tagPosition,text.length());
+    }
+
+    /**
+     * This method decodes a text encoded with the charset of this formatter. UTF-8 and the
+     * single byte charsets are decoded by the String constructor, that checks ASCII text with
+     * intrinsics; the other charsets use a decoder and a buffer reused for each text.
+     * @param data containing the text
+     * @param offset of the first byte of the text
+     * @param length of the text
+     * @return the decoded text
+     */
+    public String decode(byte[] data, int offset, int length){
+        Charset used=charset;
+        if(utf8 || used.equals(StandardCharsets.US_ASCII) || used.equals(StandardCharsets.ISO_8859_1))
+            return new String(data,offset,length,used);
+        synchronized (decoderLock){
+            if(decoder==null){
+                decoder=charset.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            int expected=(int) (length*decoder.maxCharsPerByte())+8;
+            if(decodedBuffer==null || decodedBuffer.capacity()<expected) decodedBuffer=CharBuffer.allocate(expected);
+            decodedBuffer.clear();
+            decoder.reset();
+            decoder.decode(ByteBuffer.wrap(data,offset,length),decodedBuffer,true);
+            decoder.flush(decodedBuffer);
+            return new String(decodedBuffer.array(),0,decodedBuffer.position());
+        }
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer){
+        ByteBuffer bigger=ByteBuffer.allocate(buffer.capacity()<<1);
+        buffer.flip();
+        bigger.put(buffer);
+        return bigger;
+    }
+
+    /**
+     * This method enables the compression of the frames boxed with {@link #boxBytes(byte[])}.
+     * The remote host must use the same dictionary.
+     * @param threshold minimum length of the frames to be compressed
+     * @param level of compression (0-9)
+     * @param dictionary preset dictionary, can be empty
+     */
+    public void setUpCompression(int threshold, int level, byte[] dictionary){
+        compressor=new FrameCompressor(threshold,level,dictionary,compressionStatistics);
+    }
+
     /**
      * @param data containing data to box
      * @return a string containing data as bytes
      */
     public String box(String data){
-        Gson gson= new Gson();
-        byte[] rawData = data.getBytes(charset);
-        byte[] encryptedData;
+        return gson.toJson(encrypt(data.getBytes(charset)));
+    }
+
+    /**
+     * @param rawData containing bytes to box
+     * @return the bytes to be sent to the remote host, compressed if compression is enabled
+     * and convenient
+     */
+    public byte[] boxBytes(byte[] rawData){
+        return encrypt(frameBytes(rawData,0,rawData.length));
+    }
+
+    /**
+     * First step of {@link #boxBytes(byte[])}: it's used with {@link #encryptBytes(byte[], int, long)}
+     * to encrypt frames in parallel. Frames must be framed in the order they are sent.
+     * @param rawData containing bytes to box
+     * @param offset of the first byte to box
+     * @param length number of bytes to box
+     * @return the frame, compressed if compression is enabled and convenient
+     */
+    public byte[] frameBytes(byte[] rawData, int offset, int length){
+        BinaryWriter writer=new BinaryWriter(length+1);
+        frame(writer,rawData,offset,length);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Second step of {@link #boxBytes(byte[])}: the frame takes the next sequence number,
+     * so it must be sent before the frames boxed after it
+     * @param frame obtained from {@link #frameBytes(byte[], int, int)}
+     * @return the bytes to be sent to the remote host
+     */
+    public byte[] encryptBytes(byte[] frame){
+        return encryptBytes(frame,outputGeneration,nextOutputSequence());
+    }
+
+    /**
+     * Second step of {@link #boxBytes(byte[])}: it can be called by several threads at the same time
+     * @param frame obtained from {@link #frameBytes(byte[], int, int)}
+     * @param generation of the output key when the frame was framed: frames framed before
+     *                   a rotation are encrypted with the previous key
+     * @param sequence number of the frame, obtained from {@link #nextOutputSequence()}
+     * @return the bytes to be sent to the remote host
+     */
+    public byte[] encryptBytes(byte[] frame, int generation, long sequence){
+        if(encrypter==null) return frame;
+        SpareEncrypter spare=spareEncrypters.poll();
         try {
-            encryptedData = encrypter!=null ? encrypter.encrypt(rawData) : rawData;
+            if(spare==null || spare.generation!=generation)
+                spare=new SpareEncrypter(generation,cipherSuite.newEncrypter(sessionKeys.withOutputGeneration(generation)));
+            byte[] encrypted=spare.encrypter.encrypt(frame,sequence);
+            if(generation==outputGeneration) spareEncrypters.offer(spare);
+            return encrypted;
+        } catch (GeneralSecurityException | OperationNotPossibleException e) {
+            logger.log(Level.SEVERE, "CAN'T ENCRYPT DATA");
+            return frame;
+        }
+    }
+
+    /**
+     * First step of {@link #unBoxBytes(byte[])}: the frame takes the next sequence number,
+     * so it must be the one received after the frames unboxed before it
+     * @param rawData containing bytes received from the remote host
+     * @return the decrypted frame, to be computed with {@link #unFrameBytes(byte[])}
+     * @exception UndefinedInputTypeException is launched if the cipher suite authenticates the frames
+     * and the frame isn't authentic
+     */
+    public byte[] decryptBytes(byte[] rawData){
+        return decryptBytes(rawData,nextInputSequence());
+    }
+
+    /**
+     * First step of {@link #unBoxBytes(byte[])}: it can be called by several threads at the same time
+     * @param rawData containing bytes received from the remote host
+     * @param sequence number of the frame, obtained from {@link #nextInputSequence()}
+     * @return the decrypted frame, to be computed with {@link #unFrameBytes(byte[])}
+     * @exception UndefinedInputTypeException is launched if the cipher suite authenticates the frames
+     * and the frame isn't authentic or isn't the one expected with this sequence number
+     */
+    public byte[] decryptBytes(byte[] rawData, long sequence){
+        if(decrypter==null) return rawData;
+        Decrypter spare=spareDecrypters.poll();
+        try {
+            if(spare==null) spare=newDecrypter(cipherSuite,sessionKeys);
+            return spare.decrypt(rawData,sequence);
+        } catch (GeneralSecurityException | OperationNotPossibleException e) {
+            return decryptionFailed(rawData);
+        } finally {
+            if(spare!=null) spareDecrypters.offer(spare);
+        }
+    }
+
+    /**
+     * This method frames data without compressing them, so that the frame doesn't depend on
+     * the settings of a connection and can be shared by all the connections using the same charset
+     * @param rawData containing bytes to frame
+     * @return the frame, to be boxed with {@link #boxControlFrame(byte[])}
+     */
+    public static byte[] plainFrame(byte[] rawData){
+        byte[] frame=new byte[rawData.length+1];
+        frame[0]=PLAIN_FRAME;
+        System.arraycopy(rawData,0,frame,1,rawData.length);
+        return frame;
+    }
+
+    /**
+     * This method boxes a frame already framed, without compressing it or framing it again:
+     * frames shared by all the connections are returned as they are if encryption isn't set up
+     * @param frame obtained from {@link #plainFrame(byte[])}
+     * @return the bytes to be sent to the remote host: the frame itself if encryption isn't set up
+     */
+    public byte[] boxControlFrame(byte[] frame){
+        return encrypt(frame);
+    }
+
+    /**
+     * This method boxes data as {@link #boxBytes(byte[])} does, using buffers and ciphers
+     * reused for each frame: nothing is allocated once the buffers reached the size of the frames.
+     * The caller must not box frames concurrently and must use the result before boxing another frame.
+     * @param rawData containing bytes to box
+     * @param offset of the first byte to box
+     * @param length number of bytes to box
+     * @return a buffer containing the bytes to be sent to the remote host between its position and its limit
+     */
+    public ByteBuffer boxFrame(byte[] rawData, int offset, int length){
+        framedOutput.reset();
+        frame(framedOutput,rawData,offset,length);
+        framedOutputView=view(framedOutputView,framedOutput.array(),0,framedOutput.size());
+        if(encrypter==null) return framedOutputView;
+        int outputSize=encrypter.getOutputSize(framedOutput.size());
+        if(boxedOutput.capacity()<outputSize) boxedOutput=ByteBuffer.allocate(outputSize);
+        boxedOutput.clear();
+        try {
+            encrypter.encrypt(framedOutputView,boxedOutput,nextOutputSequence());
+            boxedOutput.flip();
+            return boxedOutput;
         } catch (OperationNotPossibleException e) {
             logger.log(Level.SEVERE, "CAN'T ENCRYPT DATA");
-            encryptedData=rawData;
+            return view(framedOutputView,framedOutput.array(),0,framedOutput.size());
+        }
+    }
+
+    /**
+     * This method writes the flags of the frame followed by the data, compressed if
+     * compression is enabled and convenient
+     * @param writer where the frame is written: it must be empty
+     */
+    private void frame(BinaryWriter writer, byte[] rawData, int offset, int length){
+        writer.writeByte(COMPRESSED_FRAME);
+        if(compressor==null || !compressor.compress(writer,rawData,offset,length)){
+            writer.reset();
+            writer.writeByte(PLAIN_FRAME).writeBytes(rawData,offset,length);
+        }
+    }
+
+    /**
+     * @param cached view to be reused if it wraps the same array
+     * @return a buffer wrapping the array, with position and limit set to the given range
+     */
+    private static ByteBuffer view(ByteBuffer cached, byte[] array, int offset, int length){
+        ByteBuffer view= cached!=null && cached.array()==array ? cached : ByteBuffer.wrap(array);
+        view.clear();
+        view.position(offset);
+        view.limit(offset+length);
+        return view;
+    }
+
+    /**
+     * @param rawData containing bytes to encrypt
+     * @return the encrypted bytes, or rawData if encryption isn't possible
+     */
+    private byte[] encrypt(byte[] rawData){
+        try {
+            return encrypter!=null ? encrypter.encrypt(rawData,nextOutputSequence()) : rawData;
+        } catch (OperationNotPossibleException e) {
+            logger.log(Level.SEVERE, "CAN'T ENCRYPT DATA");
+            return rawData;
         }
-        return gson.toJson(encryptedData);
     }
 
     /**
@@ -65,25 +486,128 @@ public class DataFormatter {
      * something
      */
     public String unBox(String data){
-        Gson gson= new Gson();
         try {
             //get bytes relative to raw data
             byte[] rawData = gson.fromJson(data, byte[].class);
-            //decrypt them
-            byte[] decryptedData;
-            try {
-                decryptedData = decrypter!=null? decrypter.decrypt(rawData) : rawData;
-            } catch (OperationNotPossibleException e) {
-                logger.log(Level.SEVERE, "CAN'T DECRYPT DATA");
-                decryptedData=rawData;
-            }
             //converting them into a String
-            return new String(decryptedData, charset);
+            return new String(decrypt(rawData), charset);
         }catch (JsonSyntaxException e){
             throw new UndefinedInputTypeException();
         }
     }
 
+    /**
+     * @param rawData containing bytes received from the remote host
+     * @return the decrypted and decompressed bytes
+     * @exception UndefinedInputTypeException is launched if the frame is malformed
+     */
+    public byte[] unBoxBytes(byte[] rawData){
+        return unFrameBytes(decrypt(rawData));
+    }
+
+    /**
+     * Second step of {@link #unBoxBytes(byte[])}: frames must be unframed in the order they were sent,
+     * by a single thread
+     * @param frame obtained from {@link #decryptBytes(byte[])}
+     * @return the decompressed bytes
+     * @exception UndefinedInputTypeException is launched if the frame is malformed
+     */
+    public byte[] unFrameBytes(byte[] frame){
+        BinaryReader reader=new BinaryReader(frame);
+        if(reader.remaining()==0) throw new UndefinedInputTypeException();
+        byte flags=reader.readByte();
+        if(flags==PLAIN_FRAME)
+            return Arrays.copyOfRange(reader.array(),reader.position(),reader.array().length);
+        if(flags==COMPRESSED_FRAME && compressor!=null){
+            int decompressed=compressor.decompress(reader);
+            return Arrays.copyOf(compressor.decompressed(),decompressed);
+        }
+        throw new UndefinedInputTypeException();
+    }
+
+    /**
+     * This method unboxes a frame as {@link #unBoxBytes(byte[])} does, using buffers and ciphers
+     * reused for each frame: nothing is allocated once the buffers reached the size of the frames.
+     * The caller must not unbox frames concurrently and must use the result before unboxing another frame.
+     * @param frame containing bytes received from the remote host
+     * @param offset of the first byte of the frame
+     * @param length of the frame
+     * @return a reader over the decrypted and decompressed bytes: the same reader is returned for each frame
+     * @exception UndefinedInputTypeException is launched if the frame is malformed
+     */
+    public BinaryReader unBoxFrame(byte[] frame, int offset, int length){
+        compressedInput.reset(frame,offset,length);
+        if(decrypter!=null){
+            int outputSize=decrypter.getOutputSize(length);
+            if(decryptedInput.capacity()<outputSize) decryptedInput=ByteBuffer.allocate(outputSize);
+            decryptedInput.clear();
+            receivedInputView=view(receivedInputView,frame,offset,length);
+            try {
+                decrypter.decrypt(receivedInputView,decryptedInput,nextInputSequence());
+                compressedInput.reset(decryptedInput.array(),0,decryptedInput.position());
+            } catch (OperationNotPossibleException e) {
+                decryptionFailed(frame);
+            }
+        }
+        if(compressedInput.remaining()==0) throw new UndefinedInputTypeException();
+        byte flags=compressedInput.readByte();
+        if(flags==PLAIN_FRAME){
+            unBoxedInput.reset(compressedInput.array(),compressedInput.position(),compressedInput.remaining());
+            return unBoxedInput;
+        }
+        if(flags==COMPRESSED_FRAME && compressor!=null){
+            int decompressed=compressor.decompress(compressedInput);
+            unBoxedInput.reset(compressor.decompressed(),0,decompressed);
+            return unBoxedInput;
+        }
+        throw new UndefinedInputTypeException();
+    }
+
+    /**
+     * @param rawData containing bytes to decrypt
+     * @return the decrypted bytes, or rawData if decryption isn't possible
+     */
+    private byte[] decrypt(byte[] rawData){
+        try {
+            return decrypter!=null? decrypter.decrypt(rawData,nextInputSequence()) : rawData;
+        } catch (OperationNotPossibleException e) {
+            return decryptionFailed(rawData);
+        }
+    }
+
+    /**
+     * Frames that can't be decrypted are rejected if the cipher suite authenticates them,
+     * otherwise they are used as they are received
+     * @param rawData received from the remote host
+     * @return rawData
+     * @exception UndefinedInputTypeException is launched if the cipher suite authenticates the frames
+     */
+    private byte[] decryptionFailed(byte[] rawData){
+        if(cipherSuite!=null && cipherSuite.isAuthenticated()) throw new UndefinedInputTypeException();
+        logger.log(Level.SEVERE, "CAN'T DECRYPT DATA");
+        return rawData;
+    }
+
+    /**
+     * Encrypter used by the threads encrypting in parallel, with the generation of its key
+     */
+    private static final class SpareEncrypter {
+        private final int generation;
+        private final Encrypter encrypter;
+
+        private SpareEncrypter(int generation, Encrypter encrypter){
+            this.generation=generation;
+            this.encrypter=encrypter;
+        }
+    }
+
+    /**
+     * @return statistics about the compression of the boxed frames
+     */
+    public CompressionStatistics getCompressionStatistics() {
+        return compressionStatistics;
+    }
+
     /**
      * @return the charset used by the data formatter
      */
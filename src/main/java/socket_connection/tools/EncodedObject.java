@@ -0,0 +1,44 @@
+package socket_connection.tools;
+
+/**
+ * An object received from the remote host and not decoded yet:
+ * it is decoded when the application reads it, knowing the expected type.
+ */
+public class EncodedObject {
+
+    private final int typeId;
+    private final byte[] frame;
+    private final int offset;
+    private final int length;
+
+    /**
+     * @param typeId of the codec used to encode the object
+     * @param frame containing the encoded object
+     * @param offset of the first byte of the encoded object
+     * @param length of the encoded object
+     */
+    public EncodedObject(int typeId, byte[] frame, int offset, int length){
+        this.typeId=typeId;
+        this.frame=frame;
+        this.offset=offset;
+        this.length=length;
+    }
+
+    public int getTypeId() {
+        return typeId;
+    }
+
+    /**
+     * @return the number of bytes of the encoded object
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return a reader over the encoded object
+     */
+    public BinaryReader getReader() {
+        return new BinaryReader(frame,offset,length);
+    }
+}
@@ -0,0 +1,55 @@
+package socket_connection.tools;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics about the tasks run by the serial executors sharing a pool of threads:
+ * the queueing delay of a task is the time from its submission to the start of its execution
+ */
+public class ExecutorStatistics {
+
+    private final LongAdder submittedTasks=new LongAdder();
+    private final LongAdder executedTasks=new LongAdder();
+    private final LongAdder queueingDelayInNs=new LongAdder();
+    private final LongAccumulator maxQueueingDelayInNs=new LongAccumulator(Math::max,0);
+
+    void registerSubmission(){
+        submittedTasks.increment();
+    }
+
+    void registerExecution(long delayInNs){
+        executedTasks.increment();
+        queueingDelayInNs.add(delayInNs);
+        maxQueueingDelayInNs.accumulate(delayInNs);
+    }
+
+    /**
+     * @return the number of tasks run
+     */
+    public long getExecutedTasks() {
+        return executedTasks.sum();
+    }
+
+    /**
+     * @return the number of tasks submitted and not yet started
+     */
+    public long getQueuedTasks() {
+        return Math.max(0,submittedTasks.sum()-executedTasks.sum());
+    }
+
+    /**
+     * @return the average time tasks waited before being run, in nanoseconds
+     */
+    public long getAverageQueueingDelayInNs() {
+        long executed=executedTasks.sum();
+        return executed==0 ? 0 : queueingDelayInNs.sum()/executed;
+    }
+
+    /**
+     * @return the longest time a task waited before being run, in nanoseconds
+     */
+    public long getMaxQueueingDelayInNs() {
+        return maxQueueingDelayInNs.get();
+    }
+}
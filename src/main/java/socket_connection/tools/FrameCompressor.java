@@ -0,0 +1,109 @@
+package socket_connection.tools;
+
+import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This class compresses frames with deflate. The Deflater and the Inflater are
+ * created once and reused for each frame; if a dictionary is given it is used
+ * as preset dictionary, so that even short messages sharing common words are compressed.
+ */
+class FrameCompressor {
+
+    private final int threshold;
+    private final byte[] dictionary;
+    private final Deflater deflater;
+    private final Inflater inflater;
+    private final CompressionStatistics statistics;
+    private byte[] deflateBuffer;
+    private byte[] inflateBuffer;
+
+    /**
+     * @param threshold minimum length of the frames to be compressed
+     * @param level of compression (0-9)
+     * @param dictionary preset dictionary, can be empty
+     * @param statistics where results are registered
+     */
+    FrameCompressor(int threshold, int level, byte[] dictionary, CompressionStatistics statistics){
+        this.threshold=threshold;
+        this.dictionary=dictionary;
+        this.deflater=new Deflater(level);
+        this.inflater=new Inflater();
+        this.statistics=statistics;
+        this.deflateBuffer=new byte[1024];
+        this.inflateBuffer=new byte[1024];
+    }
+
+    /**
+     * Compress the data if they are longer than the threshold and if the compression reduces their size.
+     * @param writer where the compressed data are written
+     * @param data containing the bytes to be compressed
+     * @param offset of the first byte to be compressed
+     * @param length number of bytes to be compressed
+     * @return true if the data were compressed and written, false if nothing was written
+     */
+    boolean compress(BinaryWriter writer, byte[] data, int offset, int length){
+        if(length<threshold) return false;
+        long start=System.nanoTime();
+        int compressedLength;
+        synchronized (deflater){
+            deflater.reset();
+            if(dictionary.length>0) deflater.setDictionary(dictionary);
+            deflater.setInput(data,offset,length);
+            deflater.finish();
+            compressedLength=0;
+            while (!deflater.finished()){
+                if(compressedLength==deflateBuffer.length) deflateBuffer=Arrays.copyOf(deflateBuffer,deflateBuffer.length<<1);
+                compressedLength+=deflater.deflate(deflateBuffer,compressedLength,deflateBuffer.length-compressedLength);
+            }
+            if(compressedLength>=length) return false;
+            writer.writeVarInt(length).writeBytes(deflateBuffer,0,compressedLength);
+        }
+        statistics.registerCompression(length,compressedLength,System.nanoTime()-start);
+        return true;
+    }
+
+    /**
+     * The decompressed data are written in a buffer reused for each frame: they must be
+     * used before decompressing another frame. The caller must not decompress frames concurrently.
+     * @param reader positioned on data written by {@link #compress(BinaryWriter, byte[], int, int)}:
+     *               all remaining bytes are consumed
+     * @return the number of decompressed bytes, available from index 0 of {@link #decompressed()}
+     * @exception UndefinedInputTypeException if the data are corrupted or longer than a frame
+     */
+    int decompress(BinaryReader reader){
+        long start=System.nanoTime();
+        int rawLength=reader.readVarInt();
+        int compressedLength=reader.remaining();
+        if(rawLength<0 || rawLength>SocketStreamsHandler.MAX_FRAME_LENGTH) throw new UndefinedInputTypeException();
+        if(inflateBuffer.length<rawLength) inflateBuffer=new byte[Math.max(rawLength,inflateBuffer.length<<1)];
+        inflater.reset();
+        inflater.setInput(reader.array(),reader.position(),compressedLength);
+        try {
+            int inflated=0;
+            while (inflated<rawLength && !inflater.finished()){
+                int read=inflater.inflate(inflateBuffer,inflated,rawLength-inflated);
+                if(read==0 && inflater.needsDictionary()) inflater.setDictionary(dictionary);
+                else if(read==0 && inflater.needsInput()) throw new UndefinedInputTypeException();
+                inflated+=read;
+            }
+            if(inflated!=rawLength) throw new UndefinedInputTypeException();
+        } catch (DataFormatException | IllegalArgumentException e) {
+            throw new UndefinedInputTypeException();
+        }
+        reader.skip(compressedLength);
+        statistics.registerDecompression(compressedLength,rawLength,System.nanoTime()-start);
+        return rawLength;
+    }
+
+    /**
+     * @return the buffer containing the data decompressed by the last {@link #decompress(BinaryReader)}
+     */
+    byte[] decompressed(){
+        return inflateBuffer;
+    }
+}
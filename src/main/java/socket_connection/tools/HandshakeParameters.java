@@ -0,0 +1,297 @@
+package socket_connection.tools;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class contains the parameters of a session negotiated during the setup phase:
+ * the client sends its proposal after the hello message, the server replies with the
+ * accepted parameters after the server is ready message.
+ * The charset negotiated is used after the setup phase: messages of the setup phase
+ * are encoded with the configured charset.
+ * The server chooses the first of its cipher suites proposed by the client, and sends the secret
+ * of the session encrypted with the public key of the client. Hosts that don't propose any suite
+ * are considered as proposing only RSA.
+ * A client can present a session ticket with a random nonce: if the server accepts it, the session is resumed
+ * and its secret is derived from the one of the ticket and from the nonces of both hosts.
+ * A client can propose a reliable stream: its messages are then sequenced and acknowledged, and string tables
+ * aren't used, since messages may be sent again on a new connection.
+ * Each host sends the window of its credit flow control: the bytes the remote host can send before
+ * the application reads them. Flow control is used only if both hosts send a window.
+ */
+public class HandshakeParameters {
+
+    private static final Gson gson=new Gson();
+    private static final String LEGACY_CIPHER_SUITE="RSA";
+    private boolean compression;
+    private long compressionDictionaryId;
+    private int stringTableSize;
+    private String[] charsets;
+    private String[] cipherSuites;
+    private String sessionKey;
+    private String ticket;
+    private String resumptionNonce;
+    private boolean resumed;
+    private boolean reliableDelivery;
+    private long receiveWindow;
+
+    HandshakeParameters(){
+        this.compression=false;
+        this.compressionDictionaryId=0;
+        this.stringTableSize=0;
+        this.charsets=new String[0];
+        this.cipherSuites=new String[]{LEGACY_CIPHER_SUITE};
+    }
+
+    /**
+     * @param compression true if the host is able to compress messages
+     * @param compressionDictionaryId identifies the dictionary used to compress messages
+     * @param stringTableSize max number of words in the string tables, 0 to disable them
+     * @param charsets names of the charsets that can be used during the session, in order of preference
+     */
+    public HandshakeParameters(boolean compression, long compressionDictionaryId, int stringTableSize, String... charsets){
+        this.compression=compression;
+        this.compressionDictionaryId=compressionDictionaryId;
+        this.stringTableSize=stringTableSize;
+        this.charsets=charsets.clone();
+        this.cipherSuites=new String[]{LEGACY_CIPHER_SUITE};
+    }
+
+    /**
+     * @param cipherSuites names of the cipher suites that can be used during the session, in order of preference
+     * @return a copy of these parameters with the given cipher suites
+     */
+    public HandshakeParameters withCipherSuites(String... cipherSuites){
+        HandshakeParameters parameters=copy();
+        parameters.cipherSuites=cipherSuites.clone();
+        return parameters;
+    }
+
+    /**
+     * @param encryptedSecret the secret of the session, encrypted with the public key of the client
+     * @return a copy of these parameters with the given secret
+     */
+    public HandshakeParameters withSessionKey(byte[] encryptedSecret){
+        HandshakeParameters parameters=copy();
+        parameters.sessionKey=Base64.getEncoder().encodeToString(encryptedSecret);
+        return parameters;
+    }
+
+    /**
+     * @param ticket presented by the client or issued by the server
+     * @return a copy of these parameters with the given ticket
+     */
+    public HandshakeParameters withTicket(byte[] ticket){
+        HandshakeParameters parameters=copy();
+        parameters.ticket=Base64.getEncoder().encodeToString(ticket);
+        return parameters;
+    }
+
+    /**
+     * @param nonce random bytes of the client presenting a ticket, or of the server resuming the session
+     * @param resumed true if the server resumes the session
+     * @return a copy of these parameters with the given nonce
+     */
+    public HandshakeParameters withResumption(byte[] nonce, boolean resumed){
+        HandshakeParameters parameters=copy();
+        parameters.resumptionNonce=Base64.getEncoder().encodeToString(nonce);
+        parameters.resumed=resumed;
+        return parameters;
+    }
+
+    /**
+     * @param reliableDelivery true if the client proposes, or the server accepts, a reliable stream
+     * @return a copy of these parameters with the given reliable delivery: string tables are disabled if it's used
+     */
+    public HandshakeParameters withReliableDelivery(boolean reliableDelivery){
+        HandshakeParameters parameters=copy();
+        parameters.reliableDelivery=reliableDelivery;
+        if(reliableDelivery) parameters.stringTableSize=0;
+        return parameters;
+    }
+
+    /**
+     * @param receiveWindow bytes the remote host can send before the application reads them, 0 to disable flow control
+     * @return a copy of these parameters with the given window
+     */
+    public HandshakeParameters withReceiveWindow(long receiveWindow){
+        HandshakeParameters parameters=copy();
+        parameters.receiveWindow=Math.max(0,receiveWindow);
+        return parameters;
+    }
+
+    private HandshakeParameters copy(){
+        HandshakeParameters parameters=new HandshakeParameters(compression,compressionDictionaryId,stringTableSize,charsets);
+        parameters.cipherSuites=cipherSuites;
+        parameters.sessionKey=sessionKey;
+        parameters.ticket=ticket;
+        parameters.resumptionNonce=resumptionNonce;
+        parameters.resumed=resumed;
+        parameters.reliableDelivery=reliableDelivery;
+        parameters.receiveWindow=receiveWindow;
+        return parameters;
+    }
+
+    /**
+     * This method is used by the server to choose the parameters of the session
+     * @param remote parameters proposed by the client
+     * @return the parameters supported by both hosts
+     */
+    public HandshakeParameters negotiate(HandshakeParameters remote){
+        boolean useCompression=compression && remote.compression &&
+                compressionDictionaryId==remote.compressionDictionaryId;
+        List<String> remoteCharsets=remote.charsets==null ? Collections.emptyList() : Arrays.asList(remote.charsets);
+        String[] sessionCharset=Arrays.stream(charsets)
+                .filter(remoteCharsets::contains)
+                .limit(1)
+                .toArray(String[]::new);
+        List<String> remoteCipherSuites=Arrays.asList(remote.cipherSuites==null ?
+                new String[]{LEGACY_CIPHER_SUITE} : remote.cipherSuites);
+        String[] sessionCipherSuite=Arrays.stream(cipherSuites)
+                .filter(remoteCipherSuites::contains)
+                .limit(1)
+                .toArray(String[]::new);
+        return new HandshakeParameters(useCompression,useCompression ? compressionDictionaryId : 0,
+                Math.max(0,Math.min(stringTableSize,remote.stringTableSize)),sessionCharset)
+                .withCipherSuites(sessionCipherSuite);
+    }
+
+    /**
+     * This method is used by the client to check the parameters chosen by the server against its proposal,
+     * so that a session can't be downgraded to a cipher suite the client didn't propose.
+     * The string tables can't be bigger than the ones proposed.
+     * @param negotiated parameters chosen by the server
+     * @return the parameters of the session
+     * @exception UndefinedInputTypeException if the server chose a cipher suite or a charset that wasn't proposed
+     */
+    public HandshakeParameters accept(HandshakeParameters negotiated){
+        String cipherSuite=negotiated.getCipherSuite();
+        if(cipherSuite!=null && !Arrays.asList(cipherSuites).contains(cipherSuite)) throw new UndefinedInputTypeException();
+        String charset=negotiated.getCharset();
+        if(charset!=null && !Arrays.asList(charsets).contains(charset)) throw new UndefinedInputTypeException();
+        if(negotiated.stringTableSize<=stringTableSize) return negotiated;
+        HandshakeParameters accepted=negotiated.copy();
+        accepted.stringTableSize=Math.max(0,stringTableSize);
+        return accepted;
+    }
+
+    /**
+     * @return true if messages can be compressed
+     */
+    public boolean isCompression() {
+        return compression;
+    }
+
+    /**
+     * @return the id of the dictionary used to compress messages
+     */
+    public long getCompressionDictionaryId() {
+        return compressionDictionaryId;
+    }
+
+    /**
+     * @return max number of words in the string tables, 0 if they are disabled
+     */
+    public int getStringTableSize() {
+        return stringTableSize;
+    }
+
+    /**
+     * @return the name of the preferred charset, null if no charset was proposed
+     */
+    public String getCharset() {
+        return charsets==null || charsets.length==0 ? null : charsets[0];
+    }
+
+    /**
+     * @return the name of the preferred cipher suite, null if the hosts have no suite in common
+     */
+    public String getCipherSuite() {
+        return cipherSuites==null || cipherSuites.length==0 ? null : cipherSuites[0];
+    }
+
+    /**
+     * @return the secret of the session encrypted with the public key of the client,
+     * null if it wasn't sent
+     * @exception UndefinedInputTypeException if the key isn't valid
+     */
+    public byte[] getSessionKey() {
+        return decode(sessionKey);
+    }
+
+    /**
+     * @return the ticket presented by the client or issued by the server, null if it wasn't sent
+     * @exception UndefinedInputTypeException if the ticket isn't valid
+     */
+    public byte[] getTicket() {
+        return decode(ticket);
+    }
+
+    /**
+     * @return the nonce of the host, null if it wasn't sent
+     * @exception UndefinedInputTypeException if the nonce isn't valid
+     */
+    public byte[] getResumptionNonce() {
+        return decode(resumptionNonce);
+    }
+
+    /**
+     * @return true if the messages of the session are sent on a reliable stream
+     */
+    public boolean isReliableDelivery() {
+        return reliableDelivery;
+    }
+
+    /**
+     * @return bytes the remote host can send before the application of this host reads them,
+     * 0 if flow control isn't used
+     */
+    public long getReceiveWindow() {
+        return receiveWindow;
+    }
+
+    /**
+     * @return true if the server resumed the session of the ticket presented by the client
+     */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    private static byte[] decode(String field){
+        try {
+            return field==null ? null : Base64.getDecoder().decode(field);
+        } catch (IllegalArgumentException e){
+            throw new UndefinedInputTypeException();
+        }
+    }
+
+    /**
+     * @return the parameters as a frame: it isn't boxed, so that it can be read
+     * before the set up of the session
+     */
+    public byte[] toFrame(){
+        return gson.toJson(this).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param frame obtained from {@link #toFrame()}
+     * @return the parameters contained in the frame
+     * @exception UndefinedInputTypeException if the frame doesn't contain parameters
+     */
+    public static HandshakeParameters fromFrame(byte[] frame){
+        try {
+            HandshakeParameters parameters=gson.fromJson(new String(frame, StandardCharsets.UTF_8),HandshakeParameters.class);
+            if(parameters==null) throw new UndefinedInputTypeException();
+            return parameters;
+        } catch (JsonParseException e){
+            throw new UndefinedInputTypeException();
+        }
+    }
+}
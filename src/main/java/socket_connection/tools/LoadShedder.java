@@ -0,0 +1,156 @@
+package socket_connection.tools;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class decides how a server sheds load from its health signals: the scheduling lag of its threads,
+ * the handshakes not yet completed and the bytes buffered by its connections and not yet read.
+ * The load is the highest ratio between a signal and its threshold:
+ * - at {@link Level#ELEVATED} (load over 1) new handshakes are rejected;
+ * - at {@link Level#CRITICAL} (load over the critical ratio) the server stops accepting connections
+ *   and disconnects the sessions with the lowest priority, one for each check.
+ * A level is left only when the load falls under the recovery ratio of the threshold of the level,
+ * so that sessions aren't disconnected and accepts aren't resumed each time the load crosses a threshold.
+ * Thresholds set to 0 are disabled.
+ */
+public class LoadShedder {
+
+    public enum Level {
+        /**
+         * if the server accepts connections and handshakes
+         */
+        NORMAL,
+        /**
+         * if the server rejects new handshakes
+         */
+        ELEVATED,
+        /**
+         * if the server stops accepting connections and disconnects the sessions with the lowest priority
+         */
+        CRITICAL
+    }
+
+    private final long maxLagInNs;
+    private final int maxPendingHandshakes;
+    private final long maxBufferedBytes;
+    private final double criticalRatio;
+    private final double recoveryRatio;
+    private final LongAdder rejectedHandshakes=new LongAdder();
+    private final LongAdder shedSessions=new LongAdder();
+    private final LongAdder levelChanges=new LongAdder();
+    private volatile Level level=Level.NORMAL;
+    private volatile double load;
+
+    /**
+     * @param maxLagInNs max scheduling lag of the threads of the server
+     * @param maxPendingHandshakes max number of handshakes not yet completed
+     * @param maxBufferedBytes max number of bytes received by all connections and not yet read
+     * @param criticalRatio load of the {@link Level#CRITICAL} level, at least 1
+     * @param recoveryRatio ratio of the threshold of a level under which the level is left, at most 1
+     */
+    public LoadShedder(long maxLagInNs, int maxPendingHandshakes, long maxBufferedBytes, double criticalRatio, double recoveryRatio){
+        this.maxLagInNs=maxLagInNs;
+        this.maxPendingHandshakes=maxPendingHandshakes;
+        this.maxBufferedBytes=maxBufferedBytes;
+        this.criticalRatio=Math.max(1,criticalRatio);
+        this.recoveryRatio=Math.min(1,recoveryRatio);
+    }
+
+    /**
+     * @return true if at least a threshold is set: signals don't need to be measured otherwise
+     */
+    public boolean isEnabled(){
+        return maxLagInNs>0 || maxPendingHandshakes>0 || maxBufferedBytes>0;
+    }
+
+    /**
+     * @param lagInNs scheduling lag measured
+     * @param pendingHandshakes number of handshakes not yet completed
+     * @param bufferedBytes number of bytes received by all connections and not yet read
+     * @return the new level
+     */
+    public synchronized Level update(long lagInNs, int pendingHandshakes, long bufferedBytes){
+        double current=Math.max(ratio(lagInNs,maxLagInNs),
+                Math.max(ratio(pendingHandshakes,maxPendingHandshakes),ratio(bufferedBytes,maxBufferedBytes)));
+        Level target= current>=criticalRatio ? Level.CRITICAL : current>=1 ? Level.ELEVATED : Level.NORMAL;
+        Level next=target;
+        if(target.compareTo(level)<0){
+            //levels are left one at a time, each under the recovery ratio of its own threshold
+            next=level;
+            while (next.compareTo(target)>0 && current<threshold(next)*recoveryRatio) next=Level.values()[next.ordinal()-1];
+        }
+        if(next!=level) levelChanges.increment();
+        level=next;
+        load=current;
+        return next;
+    }
+
+    /**
+     * @param shedding level
+     * @return the load at which the level is entered
+     */
+    private double threshold(Level shedding){
+        return shedding==Level.CRITICAL ? criticalRatio : 1;
+    }
+
+    private static double ratio(double value, double threshold){
+        return threshold>0 ? value/threshold : 0;
+    }
+
+    /**
+     * @return true if new handshakes can be started
+     */
+    public boolean admitsHandshakes(){
+        return level==Level.NORMAL;
+    }
+
+    /**
+     * @return true if the server stops accepting connections
+     */
+    public boolean isAcceptPaused(){
+        return level==Level.CRITICAL;
+    }
+
+    public void registerRejectedHandshake(){
+        rejectedHandshakes.increment();
+    }
+
+    public void registerShedSession(){
+        shedSessions.increment();
+    }
+
+    /**
+     * @return the current level
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return the load measured by the last check: 1 means a signal is at its threshold
+     */
+    public double getLoad() {
+        return load;
+    }
+
+    /**
+     * @return the number of connections closed before their handshake
+     */
+    public long getRejectedHandshakes() {
+        return rejectedHandshakes.sum();
+    }
+
+    /**
+     * @return the number of sessions disconnected to shed load
+     */
+    public long getShedSessions() {
+        return shedSessions.sum();
+    }
+
+    /**
+     * @return the number of times the level changed
+     */
+    public long getLevelChanges() {
+        return levelChanges.sum();
+    }
+}
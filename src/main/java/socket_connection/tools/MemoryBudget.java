@@ -0,0 +1,66 @@
+package socket_connection.tools;
+
+/**
+ * This class counts the bytes of the messages received and not yet read by the application
+ * of all the connections sharing it: while the budget is exhausted, connections stop granting
+ * credits to their remote hosts, so that the messages buffered stop growing.
+ */
+public final class MemoryBudget {
+
+    private static MemoryBudget shared;
+    private final long maxBytes;
+    private long usedBytes;
+
+    /**
+     * @param maxBytes of messages that can be buffered, 0 for no limit
+     */
+    public MemoryBudget(long maxBytes){
+        this.maxBytes=maxBytes;
+    }
+
+    /**
+     * @param maxBytes of messages that can be buffered, used only when the budget is created: 0 for no limit
+     * @return the budget shared by all connections
+     */
+    public static synchronized MemoryBudget getInstance(long maxBytes){
+        if(shared==null) shared=new MemoryBudget(maxBytes);
+        return shared;
+    }
+
+    /**
+     * Messages are received before being counted, so bytes are always reserved:
+     * the budget may be exceeded by the credits already granted
+     * @param bytes of a message received
+     */
+    public synchronized void reserve(long bytes){
+        usedBytes+=bytes;
+    }
+
+    /**
+     * @param bytes of a message read by the application, or discarded with its connection
+     */
+    public synchronized void release(long bytes){
+        usedBytes=Math.max(0,usedBytes-bytes);
+    }
+
+    /**
+     * @return true if no more credits should be granted
+     */
+    public synchronized boolean isExhausted(){
+        return maxBytes>0 && usedBytes>=maxBytes;
+    }
+
+    /**
+     * @return the bytes of the messages buffered
+     */
+    public synchronized long getUsedBytes(){
+        return usedBytes;
+    }
+
+    /**
+     * @return the max number of bytes of the messages buffered, 0 for no limit
+     */
+    public long getMaxBytes(){
+        return maxBytes;
+    }
+}
@@ -0,0 +1,131 @@
+package socket_connection.tools;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * This class executes tasks in parallel and delivers their results in submission order:
+ * each task gets a sequence number and results completed early wait for the previous ones.
+ * Results are delivered by one thread at a time, outside of the lock used to collect them.
+ * @param <T> type of the results
+ */
+public class OrderedPipeline<T> {
+
+    /**
+     * The stage receiving the results in order
+     * @param <T> type of the results
+     */
+    @FunctionalInterface
+    public interface Stage<T>{
+        void deliver(T result) throws Exception;
+    }
+
+    private final Executor executor;
+    private final Semaphore inFlight;
+    private final Stage<T> stage;
+    private final Runnable onFailure;
+    private static final Object FAILED_TASK=new Object();
+    private final Map<Long,Object> completed;
+    private long nextSequence;
+    private long nextToDeliver;
+    private boolean delivering;
+    private volatile boolean failed;
+
+    /**
+     * @param executor executing the tasks
+     * @param maxInFlight max number of tasks submitted and not delivered yet: {@link #submit(Callable)}
+     *                    waits when it's reached
+     * @param stage receiving the results in order
+     * @param onFailure called once if a task or the stage fails: the results after the failure are discarded
+     */
+    public OrderedPipeline(Executor executor, int maxInFlight, Stage<T> stage, Runnable onFailure){
+        this.executor=executor;
+        this.inFlight=new Semaphore(maxInFlight);
+        this.stage=stage;
+        this.onFailure=onFailure;
+        this.completed=new HashMap<>();
+    }
+
+    /**
+     * Submit a task: callers needing a specific order must not submit concurrently
+     * @param task computing the result to be delivered
+     * @throws InterruptedException if interrupted while waiting for the tasks in flight
+     */
+    public void submit(Callable<T> task) throws InterruptedException {
+        inFlight.acquire();
+        long sequence;
+        synchronized (this){
+            sequence=nextSequence++;
+        }
+        executor.execute(()->{
+            Object result;
+            try {
+                result=task.call();
+            } catch (Exception e) {
+                result=FAILED_TASK;
+            }
+            complete(sequence,result);
+        });
+    }
+
+    /**
+     * @return true if all the results submitted were delivered
+     */
+    public synchronized boolean isIdle() {
+        return nextToDeliver==nextSequence && !delivering;
+    }
+
+    /**
+     * @return true if a task or the stage failed
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * @param sequence of the task completed
+     * @param result of the task: null results aren't delivered, a failed task
+     *               fails the pipeline when its turn comes
+     */
+    @SuppressWarnings("unchecked")
+    private void complete(long sequence, Object result){
+        synchronized (this){
+            completed.put(sequence,result);
+            if(delivering) return;
+            delivering=true;
+        }
+        while (true){
+            Object next;
+            synchronized (this){
+                if(!completed.containsKey(nextToDeliver)){
+                    delivering=false;
+                    return;
+                }
+                next=completed.remove(nextToDeliver++);
+            }
+            inFlight.release();
+            if(next==null || failed) continue;
+            if(next==FAILED_TASK){
+                fail();
+                continue;
+            }
+            try {
+                stage.deliver((T) next);
+            } catch (Exception e) {
+                fail();
+            }
+        }
+    }
+
+    private void fail(){
+        boolean first;
+        synchronized (this){
+            first=!failed;
+            failed=true;
+        }
+        if(first) onFailure.run();
+    }
+}
@@ -0,0 +1,34 @@
+package socket_connection.tools;
+
+/**
+ * What a connection does with a message received while its buffer is full
+ */
+public enum OverflowPolicy {
+    /**
+     * The message is buffered, and no more frames are read from the socket until the application
+     * reads a message: the remote host is slowed down by TCP
+     */
+    BLOCK,
+    /**
+     * The oldest messages are discarded to make room for the new one
+     */
+    DROP_OLDEST,
+    /**
+     * The message is discarded
+     */
+    DROP_NEWEST,
+    /**
+     * The connection is shut down
+     */
+    DISCONNECT;
+
+    /**
+     * @param name of the policy
+     * @return the policy with the given name, {@link #BLOCK} if there isn't one
+     */
+    public static OverflowPolicy parse(String name){
+        for (OverflowPolicy policy : values())
+            if(policy.name().equalsIgnoreCase(name)) return policy;
+        return BLOCK;
+    }
+}
@@ -0,0 +1,132 @@
+package socket_connection.tools;
+
+/**
+ * This class grants credits to the remote host as the application reads the messages received.
+ * The remote host can send the bytes of a window beyond the ones read, so a connection never buffers
+ * much more than its window. Grants are sent when half of the window was read, and are withheld
+ * while the memory budget shared with the other connections is exhausted.
+ * Messages are read in the order they are received: the size of each message is kept until it's read.
+ */
+public class ReceiveCredits {
+
+    private final long window;
+    private final MemoryBudget budget;
+    private int[] sizes;
+    private int head;
+    private int count;
+    private long consumed;
+    private long buffered;
+    private long granted;
+    private boolean closed;
+
+    /**
+     * @param window bytes the remote host can send beyond the ones read: it's the initial grant
+     * @param budget shared with the other connections
+     */
+    public ReceiveCredits(long window, MemoryBudget budget){
+        this.window=window;
+        this.budget=budget;
+        this.granted=window;
+        this.sizes=new int[16];
+    }
+
+    /**
+     * @param size of a message received, as counted by the remote host
+     */
+    public synchronized void deliver(int size){
+        if(closed) return;
+        if(count==sizes.length) grow();
+        sizes[(head+count)%sizes.length]=size;
+        count++;
+        buffered+=size;
+        budget.reserve(size);
+    }
+
+    /**
+     * Messages received by another connection may be read before the ones of this connection:
+     * they were counted by the other one, so they don't give credits when read
+     * @param messages number of messages put before the ones received
+     */
+    public synchronized void prependUncounted(int messages){
+        for (int i=0; i<messages; i++){
+            if(count==sizes.length) grow();
+            head=(head-1+sizes.length)%sizes.length;
+            sizes[head]=0;
+            count++;
+        }
+    }
+
+    /**
+     * This method is called each time the application reads a message
+     */
+    public synchronized void consume(){
+        if(count==0) return;
+        int size=sizes[head];
+        head=(head+1)%sizes.length;
+        count--;
+        consumed+=size;
+        buffered-=size;
+        budget.release(size);
+    }
+
+    /**
+     * A message discarded when it's received gives its credits back at once
+     * @param size of the message, as counted by the remote host
+     */
+    public synchronized void discard(int size){
+        if(!closed) consumed+=size;
+    }
+
+    /**
+     * @return true if a grant should be sent to the remote host
+     */
+    public synchronized boolean isGrantPending(){
+        return !closed && !budget.isExhausted() && consumed+window-granted>=Math.max(1,window/2);
+    }
+
+    /**
+     * @return the total number of bytes the remote host can send, registered as granted
+     */
+    public synchronized long takeGrant(){
+        granted=Math.max(granted,consumed+window);
+        return granted;
+    }
+
+    /**
+     * This method releases the budget of the messages not read: it's called when the connection is closed
+     */
+    public synchronized void close(){
+        closed=true;
+        budget.release(buffered);
+        buffered=0;
+        count=0;
+    }
+
+    private void grow(){
+        int[] grown=new int[sizes.length<<1];
+        for (int i=0; i<count; i++) grown[i]=sizes[(head+i)%sizes.length];
+        sizes=grown;
+        head=0;
+    }
+
+    /**
+     * @return the bytes of the messages received and not read
+     */
+    public synchronized long getBufferedBytes(){
+        return buffered;
+    }
+
+    /**
+     * @return the total number of bytes the remote host was allowed to send
+     */
+    public synchronized long getGranted(){
+        return granted;
+    }
+
+    /**
+     * @return the bytes the remote host can send beyond the ones read
+     */
+    public long getWindow(){
+        return window;
+    }
+}
@@ -0,0 +1,67 @@
+package socket_connection.tools;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * This class tells when the keys of a session must be rotated: after a number of bytes,
+ * a number of messages or a period of time, whichever comes first.
+ * A limit equal to 0 is disabled. The schedule isn't thread safe: it's used by the
+ * thread holding the output lock of the connection.
+ */
+public class RekeySchedule {
+
+    private final long maxBytes;
+    private final long maxMessages;
+    private final long maxNanos;
+    private final LongSupplier clock;
+    private long bytes;
+    private long messages;
+    private long start;
+
+    /**
+     * @param afterBytes number of bytes sent with the same key
+     * @param afterMessages number of messages sent with the same key
+     * @param afterSeconds time the same key is used
+     */
+    public RekeySchedule(long afterBytes, long afterMessages, long afterSeconds){
+        this(afterBytes,afterMessages,afterSeconds,System::nanoTime);
+    }
+
+    RekeySchedule(long afterBytes, long afterMessages, long afterSeconds, LongSupplier clock){
+        this.maxBytes=afterBytes;
+        this.maxMessages=afterMessages;
+        this.maxNanos=TimeUnit.SECONDS.toNanos(afterSeconds);
+        this.clock=clock;
+        reset();
+    }
+
+    /**
+     * @return true if at least one of the limits is enabled
+     */
+    public boolean isEnabled(){
+        return maxBytes>0 || maxMessages>0 || maxNanos>0;
+    }
+
+    /**
+     * This method registers a message sent with the current key
+     * @param length of the message
+     * @return true if the keys must be rotated
+     */
+    public boolean record(int length){
+        bytes+=length;
+        messages++;
+        return (maxBytes>0 && bytes>=maxBytes)
+                || (maxMessages>0 && messages>=maxMessages)
+                || (maxNanos>0 && clock.getAsLong()-start>=maxNanos);
+    }
+
+    /**
+     * This method starts counting again after the keys were rotated
+     */
+    public void reset(){
+        bytes=0;
+        messages=0;
+        start=clock.getAsLong();
+    }
+}
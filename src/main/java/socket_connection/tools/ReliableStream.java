@@ -0,0 +1,273 @@
+package socket_connection.tools;
+
+import socket_connection.socket_exceptions.runtime_exceptions.ShutDownException;
+
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * This class contains the state of a reliable stream: a sequence of messages delivered at least once,
+ * even if the connection carrying them is lost and replaced by a new one.
+ * Each message sent gets a sequence number and is kept in the retransmission window until the remote
+ * host acknowledges it. Acknowledgements are cumulative: the remote host sends the sequence number of the
+ * last message it delivered, piggybacked on its messages or alone if it has nothing to send.
+ * When a new connection of the stream is opened the messages in the window are sent again, and the
+ * messages already delivered are discarded by the receiver.
+ * The window is bounded: writers wait for acknowledgements when it's full.
+ */
+public class ReliableStream {
+
+    private static final SecureRandom random=new SecureRandom();
+    private static final int ID_LENGTH=16;
+    private final byte[] id;
+    private final int maxMessages;
+    private final long maxBytes;
+    private final Deque<Entry> window=new ArrayDeque<>();
+    private final RoundTripStatistics acknowledgementLatency=new RoundTripStatistics();
+    private long bufferedBytes;
+    private long lastSent;
+    private long lastAcknowledged;
+    private long lastDelivered;
+    private long lastAcknowledgementSent;
+    private long duplicates;
+    private long retransmissions;
+    private Runnable owner;
+
+    /**
+     * A message waiting to be acknowledged
+     */
+    private static final class Entry {
+        private final long sequence;
+        private final byte[] payload;
+        private final long sentAt;
+
+        private Entry(long sequence, byte[] payload, long sentAt){
+            this.sequence=sequence;
+            this.payload=payload;
+            this.sentAt=sentAt;
+        }
+    }
+
+    /**
+     * A message to be sent again on a new connection of the stream
+     */
+    public static final class Retransmission {
+        private final long sequence;
+        private final byte[] payload;
+
+        private Retransmission(Entry entry){
+            this.sequence=entry.sequence;
+            this.payload=entry.payload;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * @return the message as prepared by the connection: it must not be modified
+         */
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    /**
+     * Creates a stream with a new random id
+     * @param maxMessages max number of messages waiting to be acknowledged
+     * @param maxBytes max number of bytes waiting to be acknowledged
+     */
+    public ReliableStream(int maxMessages, long maxBytes){
+        this(newId(),maxMessages,maxBytes);
+    }
+
+    /**
+     * @param id of the stream, chosen by the host opening it
+     * @param maxMessages max number of messages waiting to be acknowledged
+     * @param maxBytes max number of bytes waiting to be acknowledged
+     */
+    public ReliableStream(byte[] id, int maxMessages, long maxBytes){
+        this.id=id.clone();
+        this.maxMessages=Math.max(1,maxMessages);
+        this.maxBytes=Math.max(1,maxBytes);
+    }
+
+    private static byte[] newId(){
+        byte[] id=new byte[ID_LENGTH];
+        random.nextBytes(id);
+        return id;
+    }
+
+    /**
+     * @return the id of the stream: it must be sent only on encrypted connections
+     */
+    public byte[] getId() {
+        return id.clone();
+    }
+
+    /**
+     * A stream is carried by a connection at a time
+     * @param newOwner shuts down the connection now carrying the stream
+     * @return the callback shutting down the connection that carried the stream before, null if none did
+     */
+    public synchronized Runnable attach(Runnable newOwner){
+        Runnable previous=owner;
+        owner=newOwner;
+        return previous;
+    }
+
+    /**
+     * This method puts a message in the window, waiting if it's full.
+     * A message is always accepted if the window is empty, even if it's bigger than the window.
+     * @param payload containing the message
+     * @param length of the message
+     * @param open tells if the connection sending the message is still open
+     * @return the sequence number of the message
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @exception ShutDownException if the connection is closed before the message is accepted
+     */
+    public synchronized long append(byte[] payload, int length, BooleanSupplier open) throws InterruptedException {
+        while (!window.isEmpty() && (window.size()>=maxMessages || bufferedBytes+length>maxBytes)){
+            if(!open.getAsBoolean()) throw new ShutDownException();
+            wait();
+        }
+        if(!open.getAsBoolean()) throw new ShutDownException();
+        byte[] copy=new byte[length];
+        System.arraycopy(payload,0,copy,0,length);
+        window.addLast(new Entry(++lastSent,copy,System.nanoTime()));
+        bufferedBytes+=length;
+        return lastSent;
+    }
+
+    /**
+     * This method removes from the window the messages delivered by the remote host
+     * @param sequence of the last message delivered by the remote host
+     */
+    public synchronized void acknowledge(long sequence){
+        if(sequence<=lastAcknowledged) return;
+        lastAcknowledged=Math.min(sequence,lastSent);
+        Entry acknowledged=null;
+        while (!window.isEmpty() && window.peekFirst().sequence<=lastAcknowledged){
+            acknowledged=window.removeFirst();
+            bufferedBytes-=acknowledged.payload.length;
+        }
+        if(acknowledged!=null) acknowledgementLatency.registerSample(System.nanoTime()-acknowledged.sentAt);
+        notifyAll();
+    }
+
+    /**
+     * This method wakes up the writers waiting for acknowledgements, so that they can
+     * notice that their connection was closed
+     */
+    public synchronized void wakeUp(){
+        notifyAll();
+    }
+
+    /**
+     * @return the messages in the window, in the order they were sent
+     */
+    public synchronized List<Retransmission> retransmissions(){
+        List<Retransmission> retransmissions=new ArrayList<>(window.size());
+        for (Entry entry : window) retransmissions.add(new Retransmission(entry));
+        this.retransmissions+=retransmissions.size();
+        return retransmissions;
+    }
+
+    /**
+     * @param sequence of a message received
+     * @return true if the message must be delivered, false if it was already delivered
+     */
+    public synchronized boolean deliver(long sequence){
+        if(sequence<=lastDelivered){
+            duplicates++;
+            return false;
+        }
+        //messages lost with a previous remote host aren't waited for
+        lastDelivered=sequence;
+        return true;
+    }
+
+    /**
+     * This method forgets the messages delivered: it's used when the remote host
+     * doesn't know the stream, so it numbers its messages from the beginning
+     */
+    public synchronized void resetDelivered(){
+        lastDelivered=0;
+        lastAcknowledgementSent=0;
+    }
+
+    /**
+     * @return true if messages were delivered after the last acknowledgement sent
+     */
+    public synchronized boolean isAcknowledgementPending(){
+        return lastDelivered>lastAcknowledgementSent;
+    }
+
+    /**
+     * @return the acknowledgement to be sent to the remote host, registered as sent
+     */
+    public synchronized long takeAcknowledgement(){
+        lastAcknowledgementSent=lastDelivered;
+        return lastDelivered;
+    }
+
+    /**
+     * @return the number of messages waiting to be acknowledged
+     */
+    public synchronized int getUnacknowledgedMessages(){
+        return window.size();
+    }
+
+    /**
+     * @return the number of bytes of the messages waiting to be acknowledged
+     */
+    public synchronized long getUnacknowledgedBytes(){
+        return bufferedBytes;
+    }
+
+    /**
+     * @return the sequence number of the last message sent
+     */
+    public synchronized long getLastSent() {
+        return lastSent;
+    }
+
+    /**
+     * @return the sequence number of the last message acknowledged by the remote host
+     */
+    public synchronized long getLastAcknowledged() {
+        return lastAcknowledged;
+    }
+
+    /**
+     * @return the sequence number of the last message delivered
+     */
+    public synchronized long getLastDelivered() {
+        return lastDelivered;
+    }
+
+    /**
+     * @return the number of messages received more than once and discarded
+     */
+    public synchronized long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return the number of messages sent again on a new connection
+     */
+    public synchronized long getRetransmissions() {
+        return retransmissions;
+    }
+
+    /**
+     * @return the time between sending a message and receiving its acknowledgement
+     */
+    public RoundTripStatistics getAcknowledgementLatency(){
+        return acknowledgementLatency;
+    }
+}
@@ -0,0 +1,87 @@
+package socket_connection.tools;
+
+/**
+ * Statistics about the round trip time of a connection, measured with ping and pong frames,
+ * or between sending a message and receiving its acknowledgement.
+ * The smoothed round trip time and its variance are computed as TCP does (RFC 6298):
+ * each sample weighs 1/8 on the smoothed time and 1/4 on the variance.
+ * Samples are registered by a single thread, while statistics can be read by any thread.
+ */
+public class RoundTripStatistics {
+
+    private volatile long samples;
+    private volatile long lastRttInNs;
+    private volatile long smoothedRttInNs;
+    private volatile long rttVarianceInNs;
+    private volatile long minRttInNs;
+    private volatile long maxRttInNs;
+
+    /**
+     * @param rttInNs round trip time measured
+     */
+    synchronized void registerSample(long rttInNs){
+        if(rttInNs<0) return;
+        if(samples==0){
+            smoothedRttInNs=rttInNs;
+            rttVarianceInNs=rttInNs/2;
+            minRttInNs=rttInNs;
+            maxRttInNs=rttInNs;
+        } else {
+            rttVarianceInNs=rttVarianceInNs-(rttVarianceInNs>>2)+(Math.abs(smoothedRttInNs-rttInNs)>>2);
+            smoothedRttInNs=smoothedRttInNs-(smoothedRttInNs>>3)+(rttInNs>>3);
+            minRttInNs=Math.min(minRttInNs,rttInNs);
+            maxRttInNs=Math.max(maxRttInNs,rttInNs);
+        }
+        lastRttInNs=rttInNs;
+        samples++;
+    }
+
+    /**
+     * @param pingTimestamp value of {@link System#nanoTime()} when the ping was sent
+     */
+    public void registerPong(long pingTimestamp){
+        registerSample(System.nanoTime()-pingTimestamp);
+    }
+
+    /**
+     * @return the number of round trips measured
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return the last round trip time measured, 0 if none was measured
+     */
+    public long getLastRttInNs() {
+        return lastRttInNs;
+    }
+
+    /**
+     * @return the smoothed round trip time, 0 if none was measured
+     */
+    public long getSmoothedRttInNs() {
+        return smoothedRttInNs;
+    }
+
+    /**
+     * @return the mean deviation of the round trip time, 0 if none was measured
+     */
+    public long getRttVarianceInNs() {
+        return rttVarianceInNs;
+    }
+
+    /**
+     * @return the minimum round trip time measured, 0 if none was measured
+     */
+    public long getMinRttInNs() {
+        return minRttInNs;
+    }
+
+    /**
+     * @return the maximum round trip time measured, 0 if none was measured
+     */
+    public long getMaxRttInNs() {
+        return maxRttInNs;
+    }
+}
@@ -0,0 +1,94 @@
+package socket_connection.tools;
+
+import socket_connection.socket_exceptions.runtime_exceptions.ShutDownException;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * This class contains the credits granted by the remote host: the number of bytes of messages
+ * this host can send before the remote host reads the ones already sent.
+ * Credits are granted as a limit on the total number of bytes sent, so grants can't be counted twice:
+ * the limit only grows, as the application of the remote host reads its messages.
+ * A message is sent if there is at least a credit left, even if it's bigger than the credits left:
+ * the remote host buffers at most a message more than the credits it granted.
+ */
+public class SendCredits {
+
+    private long limit;
+    private long sent;
+    private long stalls;
+
+    /**
+     * @param initialLimit bytes that can be sent before the first grant: the window of the remote host
+     */
+    public SendCredits(long initialLimit){
+        this.limit=initialLimit;
+    }
+
+    /**
+     * @return true if a message can be sent, false if there are no credits left
+     */
+    public synchronized boolean isAvailable(){
+        return sent<limit;
+    }
+
+    /**
+     * This method waits for credits if there are none left
+     * @param open tells if the connection sending the message is still open
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @exception ShutDownException if the connection is closed before credits are granted
+     */
+    public synchronized void await(BooleanSupplier open) throws InterruptedException {
+        if(sent>=limit) stalls++;
+        while (sent>=limit){
+            if(!open.getAsBoolean()) throw new ShutDownException();
+            wait();
+        }
+        if(!open.getAsBoolean()) throw new ShutDownException();
+    }
+
+    /**
+     * @param length of a message sent
+     */
+    public synchronized void spend(int length){
+        sent+=length;
+    }
+
+    /**
+     * @param newLimit total number of bytes the remote host accepts: older grants received late are ignored
+     */
+    public synchronized void grant(long newLimit){
+        if(newLimit<=limit) return;
+        limit=newLimit;
+        notifyAll();
+    }
+
+    /**
+     * This method wakes up the writers waiting for credits, so that they can
+     * notice that their connection was closed
+     */
+    public synchronized void wakeUp(){
+        notifyAll();
+    }
+
+    /**
+     * @return the number of bytes that can still be sent, 0 if writers have to wait
+     */
+    public synchronized long getAvailable(){
+        return Math.max(0,limit-sent);
+    }
+
+    /**
+     * @return the total number of bytes sent
+     */
+    public synchronized long getSent(){
+        return sent;
+    }
+
+    /**
+     * @return the number of times a writer had to wait for credits
+     */
+    public synchronized long getStalls(){
+        return stalls;
+    }
+}
@@ -0,0 +1,97 @@
+package socket_connection.tools;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * This class runs the tasks of a connection on a pool of threads shared with the other connections:
+ * tasks are run in the order they are submitted and never concurrently, as if the connection had its
+ * own thread. A task is submitted to the pool only when the previous one ends, so a thread of the pool
+ * runs a task of each connection in turn instead of running all the tasks queued by a connection.
+ */
+public class SerialExecutor implements Executor {
+
+    private final Executor pool;
+    private final ExecutorStatistics statistics;
+    private final Queue<QueuedTask> tasks=new ArrayDeque<>();
+    private boolean running;
+
+    /**
+     * @param pool running the tasks
+     * @param statistics shared by the executors using the same pool
+     */
+    public SerialExecutor(Executor pool, ExecutorStatistics statistics){
+        this.pool=pool;
+        this.statistics=statistics;
+    }
+
+    /**
+     * @param task run after the tasks already submitted
+     * @exception java.util.concurrent.RejectedExecutionException if the pool doesn't accept the task
+     */
+    @Override
+    public void execute(Runnable task) {
+        if(task==null) throw new NullPointerException();
+        synchronized (this){
+            tasks.add(new QueuedTask(task,System.nanoTime()));
+            statistics.registerSubmission();
+            if(running) return;
+            running=true;
+        }
+        schedule();
+    }
+
+    /**
+     * @return the number of tasks submitted and not yet started
+     */
+    public synchronized int getQueuedTasks(){
+        return tasks.size();
+    }
+
+    private void schedule(){
+        try {
+            pool.execute(this::runNext);
+        } catch (RuntimeException e){
+            synchronized (this){
+                running=false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * This method runs the first task queued, then submits the next one to the pool
+     */
+    private void runNext(){
+        QueuedTask next;
+        synchronized (this){
+            next=tasks.poll();
+            if(next==null){
+                running=false;
+                return;
+            }
+        }
+        statistics.registerExecution(System.nanoTime()-next.submissionTime);
+        try {
+            next.task.run();
+        } finally {
+            boolean queued;
+            synchronized (this){
+                queued=!tasks.isEmpty();
+                if(!queued) running=false;
+            }
+            if(queued) schedule();
+        }
+    }
+
+    private static class QueuedTask {
+        private final Runnable task;
+        private final long submissionTime;
+
+        private QueuedTask(Runnable task, long submissionTime){
+            this.task=task;
+            this.submissionTime=submissionTime;
+        }
+    }
+}
@@ -2,19 +2,29 @@ package socket_connection.tools;
 
 import socket_connection.socket_exceptions.exceptions.FailedToConnectException;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class SocketStreamsHandler {
 
+    /**
+     * Frames longer than this are considered corrupted
+     */
+    static final int MAX_FRAME_LENGTH=16*1024*1024;
+    private final Socket socket;
     private final DataInputStream inputStream;
     private final DataOutputStream outputStream;
     private final Lock outputStreamLock=new ReentrantLock();
-//    private final Lock inputStreamLock=new ReentrantLock();
+    private ByteBuffer inputFrame=ByteBuffer.allocate(256);
+    private volatile long lastWriteTime=System.nanoTime();
 
     /**
      * This constructor is used to create an instance of this class used to
@@ -22,23 +32,40 @@ public class SocketStreamsHandler {
      * @throws FailedToConnectException if the host/server is unreachable
      */
     public SocketStreamsHandler(Socket socket) throws FailedToConnectException {
+        this.socket=socket;
         try {
-            inputStream= new DataInputStream(socket.getInputStream());
-            outputStream=new DataOutputStream(socket.getOutputStream());
+            inputStream= new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            outputStream=new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
         } catch (IOException e) {
             throw new FailedToConnectException();
         }
     }
 
     /**
-     * This method is used to write a string on the output stream
-     * @param data the string to be written
+     * This method is used to write a frame on the output stream.
+     * A frame is written as its length followed by its bytes.
+     * @param frame the bytes to be written
+     * @throws IOException when the connection is down.
+     */
+    public void writeFrame(byte[] frame) throws IOException {
+        writeFrame(frame,0,frame.length);
+    }
+
+    /**
+     * This method is used to write a frame on the output stream.
+     * @param frame containing the bytes to be written
+     * @param offset of the first byte of the frame
+     * @param length of the frame
      * @throws IOException when the connection is down.
+     * @see #writeFrame(byte[])
      */
-    public void writeUTF(String data) throws IOException {
+    public void writeFrame(byte[] frame, int offset, int length) throws IOException {
         try{
             outputStreamLock.lock();
-            outputStream.writeUTF(data);
+            outputStream.writeInt(length);
+            outputStream.write(frame,offset,length);
+            outputStream.flush();
+            lastWriteTime=System.nanoTime();
         } catch (IOException e){
             throw new IOException(e);
         } finally {
@@ -47,11 +74,39 @@ public class SocketStreamsHandler {
     }
 
     /**
-     * This method is used to read a string from the input stream
-     * @throws IOException when the connection is down.
+     * @return the time passed since the last frame was written, in nanoseconds
+     */
+    public long getOutputIdleTimeInNs(){
+        return System.nanoTime()-lastWriteTime;
+    }
+
+    /**
+     * This method is used to read a frame from the input stream
+     * @return the bytes of the frame
+     * @throws IOException when the connection is down or the frame is corrupted.
      */
-    public String aSyncReadUTF() throws IOException{
-        return inputStream.readUTF();
+    public byte[] aSyncReadFrame() throws IOException{
+        int length=inputStream.readInt();
+        if(length<0 || length>MAX_FRAME_LENGTH) throw new IOException("Invalid frame length: "+length);
+        byte[] frame=new byte[length];
+        inputStream.readFully(frame);
+        return frame;
+    }
+
+    /**
+     * This method is used to read a frame from the input stream into a buffer
+     * reused for each frame: it must be used before reading another frame.
+     * @return a buffer containing the frame between its position and its limit
+     * @throws IOException when the connection is down or the frame is corrupted.
+     */
+    public ByteBuffer aSyncReadReusableFrame() throws IOException{
+        int length=inputStream.readInt();
+        if(length<0 || length>MAX_FRAME_LENGTH) throw new IOException("Invalid frame length: "+length);
+        if(inputFrame.capacity()<length) inputFrame=ByteBuffer.allocate(Math.max(length,inputFrame.capacity()<<1));
+        inputStream.readFully(inputFrame.array(),0,length);
+        inputFrame.clear();
+        inputFrame.limit(length);
+        return inputFrame;
     }
 
     /**
@@ -63,4 +118,28 @@ public class SocketStreamsHandler {
     public int availableData() throws IOException {
         return inputStream.available();
     }
+
+    /**
+     * This method waits until data can be read, the remote host closes the connection or the time elapses.
+     * {@link #availableData()} returns 0 both if the stream is empty and if it's closed, so the end of the
+     * stream is noticed only waiting on it. It must be called by the thread reading the frames.
+     * @param timeoutInMs max time to wait, at least a millisecond
+     * @return false if the end of the stream was reached
+     * @throws IOException if the connection is down
+     */
+    public boolean awaitInput(long timeoutInMs) throws IOException {
+        if(inputStream.available()>0) return true;
+        int timeout=socket.getSoTimeout();
+        socket.setSoTimeout((int) Math.min(Math.max(timeoutInMs,1),Integer.MAX_VALUE));
+        try {
+            inputStream.mark(1);
+            if(inputStream.read()<0) return false;
+            inputStream.reset();
+            return true;
+        } catch (SocketTimeoutException e) {
+            return true;
+        } finally {
+            socket.setSoTimeout(timeout);
+        }
+    }
 }
@@ -0,0 +1,97 @@
+package socket_connection.tools;
+
+import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
+
+/**
+ * A bounded table of words with least recently used eviction.
+ * The encoder and the decoder of a connection apply the same operations in the same
+ * order, so their tables are always equal and a word can be referred by its slot.
+ */
+class StringTable {
+
+    private static final int NONE=-1;
+    private final String[] words;
+    private final int[] previous;
+    private final int[] next;
+    private int mostRecent;
+    private int leastRecent;
+    private int size;
+
+    /**
+     * @param capacity max number of words in the table
+     */
+    StringTable(int capacity){
+        this.words=new String[capacity];
+        this.previous=new int[capacity];
+        this.next=new int[capacity];
+        this.mostRecent=NONE;
+        this.leastRecent=NONE;
+        this.size=0;
+    }
+
+    /**
+     * @return true if adding a word will evict the least recently used one
+     */
+    boolean isFull(){
+        return size==words.length;
+    }
+
+    /**
+     * @return the word that will be evicted by the next {@link #add(String)} if the table is full
+     */
+    String leastRecentlyUsed(){
+        return leastRecent==NONE ? null : words[leastRecent];
+    }
+
+    /**
+     * @param word to be added
+     * @return the slot assigned to the word
+     */
+    int add(String word){
+        int slot;
+        if(isFull()){
+            slot=leastRecent;
+            unlink(slot);
+        } else {
+            slot=size++;
+        }
+        words[slot]=word;
+        linkFirst(slot);
+        return slot;
+    }
+
+    /**
+     * @param slot of the word
+     * @return the word, that becomes the most recently used
+     * @exception UndefinedInputTypeException if the slot is empty
+     */
+    String get(int slot){
+        if(slot<0 || slot>=size) throw new UndefinedInputTypeException();
+        touch(slot);
+        return words[slot];
+    }
+
+    /**
+     * @param slot to be marked as most recently used
+     */
+    void touch(int slot){
+        if(slot==mostRecent) return;
+        unlink(slot);
+        linkFirst(slot);
+    }
+
+    private void unlink(int slot){
+        if(previous[slot]==NONE) mostRecent=next[slot];
+        else next[previous[slot]]=next[slot];
+        if(next[slot]==NONE) leastRecent=previous[slot];
+        else previous[next[slot]]=previous[slot];
+    }
+
+    private void linkFirst(int slot){
+        previous[slot]=NONE;
+        next[slot]=mostRecent;
+        if(mostRecent!=NONE) previous[mostRecent]=slot;
+        mostRecent=slot;
+        if(leastRecent==NONE) leastRecent=slot;
+    }
+}
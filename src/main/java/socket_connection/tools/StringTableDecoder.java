@@ -0,0 +1,57 @@
+package socket_connection.tools;
+
+import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class rebuilds the strings encoded by a {@link StringTableEncoder}
+ */
+public class StringTableDecoder {
+
+    private final StringTable table;
+
+    /**
+     * @param capacity max number of words in the table: it must be the same used by the remote encoder
+     */
+    public StringTableDecoder(int capacity){
+        this.table=new StringTable(capacity);
+    }
+
+    /**
+     * The strings must be decoded in the same order they were encoded.
+     * @param reader positioned on the first segment: all remaining bytes are consumed
+     * @return the decoded string
+     * @exception UndefinedInputTypeException if the segments are malformed
+     */
+    public synchronized String decode(BinaryReader reader){
+        StringBuilder builder=new StringBuilder(reader.remaining());
+        while (reader.remaining()>0){
+            int header=reader.readVarInt();
+            int value=header>>>2;
+            switch (header&3){
+                case StringTableEncoder.LITERAL:
+                    builder.append(readText(reader,value));
+                    break;
+                case StringTableEncoder.DEFINE:
+                    String word=readText(reader,value);
+                    table.add(word);
+                    builder.append(word);
+                    break;
+                case StringTableEncoder.REFERENCE:
+                    builder.append(table.get(value));
+                    break;
+                default:
+                    throw new UndefinedInputTypeException();
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String readText(BinaryReader reader, int length){
+        if(length>reader.remaining()) throw new UndefinedInputTypeException();
+        String text=new String(reader.array(),reader.position(),length, StandardCharsets.UTF_8);
+        reader.skip(length);
+        return text;
+    }
+}
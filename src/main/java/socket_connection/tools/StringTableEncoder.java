@@ -0,0 +1,88 @@
+package socket_connection.tools;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class replaces the words that are sent frequently with a reference to a {@link StringTable}.
+ * A word is added to the table the second time it is sent; from then on it is sent as
+ * the varint of its slot. The remote host rebuilds the string with a {@link StringTableDecoder}.
+ *
+ * The encoded string is a sequence of segments, each one starting with a varint header:
+ *  - (length {@literal <<} 2) | LITERAL followed by length bytes of UTF-8 text
+ *  - (length {@literal <<} 2) | DEFINE followed by length bytes of a word added to the table
+ *  - (slot {@literal <<} 2) | REFERENCE
+ */
+public class StringTableEncoder {
+
+    static final int LITERAL=0;
+    static final int DEFINE=1;
+    static final int REFERENCE=2;
+    private static final int MIN_WORD_LENGTH=3;
+    private final StringTable table;
+    private final Map<String,Integer> slots;
+    private final Map<String,Boolean> seenOnce;
+
+    /**
+     * @param capacity max number of words in the table: it must be the same used by the remote decoder
+     */
+    public StringTableEncoder(int capacity){
+        this.table=new StringTable(capacity);
+        this.slots=new HashMap<>();
+        int candidates=capacity*4;
+        this.seenOnce=new LinkedHashMap<String, Boolean>(16,0.75f,true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size()>candidates;
+            }
+        };
+    }
+
+    /**
+     * The strings must be sent in the same order they are encoded.
+     * @param string to be encoded
+     * @param writer where the segments are written
+     */
+    public synchronized void encode(String string, BinaryWriter writer){
+        int literalStart=0;
+        int index=0;
+        while (index<string.length()){
+            int wordEnd=index;
+            while (wordEnd<string.length() && isWordCharacter(string.charAt(wordEnd))) wordEnd++;
+            if(wordEnd-index>=MIN_WORD_LENGTH){
+                String word=string.substring(index,wordEnd);
+                Integer slot=slots.get(word);
+                if(slot!=null){
+                    writeLiteral(writer,string,literalStart,index);
+                    table.touch(slot);
+                    writer.writeVarInt(slot<<2|REFERENCE);
+                    literalStart=wordEnd;
+                } else if(seenOnce.remove(word)!=null){
+                    writeLiteral(writer,string,literalStart,index);
+                    define(writer,word);
+                    literalStart=wordEnd;
+                } else {
+                    seenOnce.put(word,Boolean.TRUE);
+                }
+            }
+            index=wordEnd==index ? index+1 : wordEnd;
+        }
+        writeLiteral(writer,string,literalStart,string.length());
+    }
+
+    private void define(BinaryWriter writer, String word){
+        if(table.isFull()) slots.remove(table.leastRecentlyUsed());
+        slots.put(word,table.add(word));
+        writer.writeVarInt(BinaryWriter.utf8Length(word,0,word.length())<<2|DEFINE).writeUtf8(word);
+    }
+
+    private static void writeLiteral(BinaryWriter writer, String string, int start, int end){
+        if(start>=end) return;
+        writer.writeVarInt(BinaryWriter.utf8Length(string,start,end)<<2|LITERAL).writeUtf8(string,start,end);
+    }
+
+    private static boolean isWordCharacter(char character){
+        return Character.isLetterOrDigit(character) || character=='_';
+    }
+}
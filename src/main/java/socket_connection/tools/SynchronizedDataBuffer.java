@@ -2,31 +2,53 @@ package socket_connection.tools;
 
 import socket_connection.socket_exceptions.exceptions.BadMessagesSequenceException;
 import socket_connection.socket_exceptions.runtime_exceptions.ShutDownException;
+import socket_connection.socket_exceptions.runtime_exceptions.UnexpectedDataTypeException;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Optional;
 import java.util.Queue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class SynchronizedDataBuffer {
-    private final Queue<String> buffer;
+    /**
+     * Used in {@link #buffer} in place of primitive values: the value itself
+     * is stored in {@link #primitives}, so that it's never boxed.
+     */
+    private enum Primitive {INT, LONG, DOUBLE, BOOLEAN}
+    private static final int PRIMITIVE_BYTES=8;
+
+    private final Queue<Object> buffer;
+    private long[] primitives;
+    private int primitivesHead;
+    private int primitivesSize;
     private boolean connectionDown;
+    private int maxElements;
+    private long maxBytes;
+    private long bufferedBytes;
+    private long drops;
+    private boolean full;
+    private long fullSince;
+    private long timeAtCapacityInNs;
     private final Lock lock;
     private final Condition condition;
+    private final List<Runnable> listeners;
 
     /**
      * Constructor of SynchronizedDataBuffer.
      */
     public SynchronizedDataBuffer(){
-        buffer=new PriorityQueue<>();
+        buffer=new ArrayDeque<>();
+        primitives=new long[16];
         lock= new ReentrantLock();
         connectionDown=false;
         condition=lock.newCondition();
+        listeners=new CopyOnWriteArrayList<>();
     }
 
     /**
@@ -34,10 +56,112 @@ public class SynchronizedDataBuffer {
      * @param string to be inserted
      */
     public void put(String string){
+        putElement(string);
+    }
+
+    /**
+     * @param value to be inserted in the buffer
+     */
+    public void putInt(int value){
+        putPrimitive(Primitive.INT,value);
+    }
+
+    /**
+     * @param value to be inserted in the buffer
+     */
+    public void putLong(long value){
+        putPrimitive(Primitive.LONG,value);
+    }
+
+    /**
+     * @param value to be inserted in the buffer
+     */
+    public void putDouble(double value){
+        putPrimitive(Primitive.DOUBLE,Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * @param value to be inserted in the buffer
+     */
+    public void putBoolean(boolean value){
+        putPrimitive(Primitive.BOOLEAN,value ? 1 : 0);
+    }
+
+    /**
+     * @param value to be inserted in the buffer
+     */
+    public void putBytes(byte[] value){
+        putElement(value);
+    }
+
+    /**
+     * @param value to be inserted in the buffer
+     */
+    public void putIntArray(int[] value){
+        putElement(value);
+    }
+
+    /**
+     * @param value to be inserted in the buffer
+     */
+    public void putLongArray(long[] value){
+        putElement(value);
+    }
+
+    /**
+     * @param value to be inserted in the buffer
+     */
+    public void putDoubleArray(double[] value){
+        putElement(value);
+    }
+
+    /**
+     * @param value to be inserted in the buffer, it will be decoded when read
+     */
+    public void putObject(EncodedObject value){
+        putElement(value);
+    }
+
+    /**
+     * Insert a non-primitive element in the buffer and wake up a waiting reader
+     * @param element to be inserted
+     */
+    private void putElement(Object element){
+        lock.lock();
+        buffer.offer(element);
+        bufferedBytes+=weigh(element);
+        updateCapacity();
+        condition.signal();
+        lock.unlock();
+        notifyListeners();
+    }
+
+    /**
+     * Insert a primitive value in the buffer and wake up a waiting reader
+     * @param type of the value
+     * @param bits representing the value
+     */
+    private void putPrimitive(Primitive type, long bits){
         lock.lock();
-        buffer.offer(string);
+        if(primitivesSize==primitives.length) growPrimitives();
+        primitives[(primitivesHead+primitivesSize)%primitives.length]=bits;
+        primitivesSize++;
+        buffer.offer(type);
+        bufferedBytes+=PRIMITIVE_BYTES;
+        updateCapacity();
         condition.signal();
         lock.unlock();
+        notifyListeners();
+    }
+
+    /**
+     * Double the capacity of the ring containing primitive values
+     */
+    private void growPrimitives(){
+        long[] grown=new long[primitives.length<<1];
+        for (int i=0; i<primitivesSize; i++) grown[i]=primitives[(primitivesHead+i)%primitives.length];
+        primitives=grown;
+        primitivesHead=0;
     }
 
     /**
@@ -65,7 +189,7 @@ public class SynchronizedDataBuffer {
 
     /**
      * Get the first element of the buffer as an int: if the operation goes well the element is also
-     * removed from the buffer
+     * removed from the buffer. No objects are allocated if the element was sent as an int.
      * @return the first element of the buffer, converted to an integer
      * @throws BadMessagesSequenceException when first element can't be converted in an integer
      * This means something went wrong while projecting message exchanges with remote host
@@ -74,47 +198,444 @@ public class SynchronizedDataBuffer {
      */
     public int popInt() throws BadMessagesSequenceException {
         waitForData();
-        String data=popFirstElem();
+        lock.lock();
         try {
-            int intToReturn=Integer.parseInt(data);
-            removeFirstElem();
-            return intToReturn;
-        } catch (NumberFormatException e){
-            throw new BadMessagesSequenceException(data);
+            Object first=buffer.peek();
+            if(first==Primitive.INT) return (int) removeFirstPrimitive();
+            if(first instanceof String) return parseFirstString((String) first);
+            throw new BadMessagesSequenceException(describe(first));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the first element of the buffer as a long: if the operation goes well the element is also
+     * removed from the buffer. Integers are accepted too.
+     * @return the first element of the buffer
+     * @throws BadMessagesSequenceException when first element isn't a long or an int
+     * @exception ShutDownException launched if the connection have been closed while the calling thread is waiting for
+     * an element put in buffer
+     */
+    public long popLong() throws BadMessagesSequenceException {
+        waitForData();
+        lock.lock();
+        try {
+            Object first=buffer.peek();
+            if(first==Primitive.LONG || first==Primitive.INT) return removeFirstPrimitive();
+            throw new BadMessagesSequenceException(describe(first));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the first element of the buffer as a double: if the operation goes well the element is also
+     * removed from the buffer.
+     * @return the first element of the buffer
+     * @throws BadMessagesSequenceException when first element isn't a double
+     * @exception ShutDownException launched if the connection have been closed while the calling thread is waiting for
+     * an element put in buffer
+     */
+    public double popDouble() throws BadMessagesSequenceException {
+        return Double.longBitsToDouble(popPrimitive(Primitive.DOUBLE));
+    }
+
+    /**
+     * Get the first element of the buffer as a boolean: if the operation goes well the element is also
+     * removed from the buffer.
+     * @return the first element of the buffer
+     * @throws BadMessagesSequenceException when first element isn't a boolean
+     * @exception ShutDownException launched if the connection have been closed while the calling thread is waiting for
+     * an element put in buffer
+     */
+    public boolean popBoolean() throws BadMessagesSequenceException {
+        return popPrimitive(Primitive.BOOLEAN)!=0;
+    }
+
+    /**
+     * @return the first element of the buffer if it is a byte array
+     * @throws BadMessagesSequenceException when first element isn't a byte array
+     */
+    public byte[] popBytes() throws BadMessagesSequenceException {
+        return popElement(byte[].class);
+    }
+
+    /**
+     * @return the first element of the buffer if it is an int array
+     * @throws BadMessagesSequenceException when first element isn't an int array
+     */
+    public int[] popIntArray() throws BadMessagesSequenceException {
+        return popElement(int[].class);
+    }
+
+    /**
+     * @return the first element of the buffer if it is a long array
+     * @throws BadMessagesSequenceException when first element isn't a long array
+     */
+    public long[] popLongArray() throws BadMessagesSequenceException {
+        return popElement(long[].class);
+    }
+
+    /**
+     * @return the first element of the buffer if it is a double array
+     * @throws BadMessagesSequenceException when first element isn't a double array
+     */
+    public double[] popDoubleArray() throws BadMessagesSequenceException {
+        return popElement(double[].class);
+    }
+
+    /**
+     * @return the first element of the buffer if it is an object
+     * @throws BadMessagesSequenceException when first element isn't an object
+     */
+    public EncodedObject popObject() throws BadMessagesSequenceException {
+        return popElement(EncodedObject.class);
+    }
+
+    /**
+     * Get the first element of the buffer as an object of the given type: if the element
+     * wasn't encoded with the expected type id it isn't removed.
+     * @param typeId expected
+     * @return the first element of the buffer
+     * @throws BadMessagesSequenceException when first element isn't an object with the given type id
+     */
+    public EncodedObject popObject(int typeId) throws BadMessagesSequenceException {
+        waitForData();
+        lock.lock();
+        try {
+            Object first=buffer.peek();
+            if(!(first instanceof EncodedObject) || ((EncodedObject) first).getTypeId()!=typeId)
+                throw new BadMessagesSequenceException(describe(first));
+            removeFirst();
+            return (EncodedObject) first;
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
      * Get the first element of the buffer, if the operation goes well the element is also
-     * removed from the buffer
+     * removed from the buffer. Primitive values are converted into their textual form.
      * @return the first element of the buffer as a String
      * @exception ShutDownException launched if the connection have been closed while the calling thread is waiting for
      * an element put in buffer
+     * @exception UnexpectedDataTypeException if the first element is a binary payload (arrays, bytes)
      */
     public String popString(){
         waitForData();
-        String toReturn=popFirstElem();
-        removeFirstElem();
+        lock.lock();
+        try {
+            return removeFirstAsString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the first element of the buffer as {@link #popString()} does, waiting at most the given time
+     * @param timeout max time to wait, 0 not to wait
+     * @param unit of the timeout
+     * @return the first element of the buffer as a String, empty if no element was put in time
+     * @exception ShutDownException launched if the connection have been closed and the buffer is empty
+     * @exception UnexpectedDataTypeException if the first element is a binary payload (arrays, bytes)
+     */
+    public Optional<String> pollString(long timeout, TimeUnit unit){
+        lock.lock();
+        try {
+            if(!awaitData(unit.toNanos(timeout))) return Optional.empty();
+            return Optional.of(removeFirstAsString());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method moves the elements of the buffer to a collection without waiting for them,
+     * taking the lock once. Primitive values are boxed, while objects are moved encoded: they can
+     * be decoded after the lock is released.
+     * @param target collection receiving the elements, in the order they were put
+     * @param maxElements max number of elements moved
+     * @return the number of elements moved
+     * @exception ShutDownException launched if the connection have been closed and the buffer is empty
+     */
+    public int drainTo(Collection<Object> target, int maxElements){
+        lock.lock();
+        try {
+            if(buffer.isEmpty() && connectionDown) throw new ShutDownException();
+            int moved=0;
+            while (moved<maxElements && !buffer.isEmpty()){
+                Object first=buffer.peek();
+                if(first instanceof Primitive) target.add(box((Primitive) first, removeFirstPrimitive()));
+                else target.add(removeFirst());
+                moved++;
+            }
+            return moved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until an element is put in the buffer or the time elapses.
+     * Lock must be held by the caller.
+     * @param timeoutInNs max time to wait
+     * @return true if an element is available
+     * @exception ShutDownException launched if the connection have been closed and the buffer is empty,
+     * or if the thread is interrupted
+     */
+    private boolean awaitData(long timeoutInNs){
+        long remaining=timeoutInNs;
+        try {
+            while (buffer.isEmpty() && !connectionDown && remaining>0) remaining=condition.awaitNanos(remaining);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShutDownException();
+        }
+        if(buffer.isEmpty() && connectionDown) throw new ShutDownException();
+        return !buffer.isEmpty();
+    }
+
+    /**
+     * Remove the first element of the buffer, converting primitive values into their textual form.
+     * Lock must be held by the caller.
+     * @return the first element of the buffer as a String, null if the buffer is empty
+     * @exception UnexpectedDataTypeException if the first element is a binary payload (arrays, bytes)
+     */
+    private String removeFirstAsString(){
+        Object first=buffer.peek();
+        if(first==null || first instanceof String){
+            removeFirst();
+            return (String) first;
+        }
+        if(first instanceof Primitive) return primitiveToString((Primitive) first, removeFirstPrimitive());
+        throw new UnexpectedDataTypeException();
+    }
+
+    /**
+     * Pop the first element checking that it is a primitive of the given type.
+     * @param expected type of the first element
+     * @return the bits representing the value
+     * @throws BadMessagesSequenceException when the first element has another type
+     */
+    private long popPrimitive(Primitive expected) throws BadMessagesSequenceException {
+        waitForData();
+        lock.lock();
+        try {
+            Object first=buffer.peek();
+            if(first!=expected) throw new BadMessagesSequenceException(describe(first));
+            return removeFirstPrimitive();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pop the first element checking that it is an instance of the given class
+     * @param type expected
+     * @return the first element
+     * @throws BadMessagesSequenceException when the first element has another type
+     */
+    private <T> T popElement(Class<T> type) throws BadMessagesSequenceException {
+        waitForData();
+        lock.lock();
+        try {
+            Object first=buffer.peek();
+            if(!type.isInstance(first)) throw new BadMessagesSequenceException(describe(first));
+            removeFirst();
+            return type.cast(first);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the first element of the buffer and the relative primitive value.
+     * Lock must be held by the caller.
+     * @return the bits of the value removed
+     */
+    private long removeFirstPrimitive(){
+        removeFirst();
+        long bits=primitives[primitivesHead];
+        primitivesHead=(primitivesHead+1)%primitives.length;
+        primitivesSize--;
+        return bits;
+    }
+
+    /**
+     * Remove the first element of the buffer, without its primitive value.
+     * Lock must be held by the caller.
+     * @return the element removed, null if the buffer is empty
+     */
+    private Object removeFirst(){
+        Object first=buffer.poll();
+        if(first!=null) bufferedBytes-=weigh(first);
+        updateCapacity();
+        return first;
+    }
+
+    /**
+     * @return the number of bytes of the content of an element: strings are counted as UTF-16
+     */
+    private static long weigh(Object element){
+        if(element instanceof Primitive) return PRIMITIVE_BYTES;
+        if(element instanceof String) return 2L*((String) element).length();
+        if(element instanceof byte[]) return ((byte[]) element).length;
+        if(element instanceof int[]) return 4L*((int[]) element).length;
+        if(element instanceof long[]) return 8L*((long[]) element).length;
+        if(element instanceof double[]) return 8L*((double[]) element).length;
+        if(element instanceof EncodedObject) return ((EncodedObject) element).getLength();
+        return 0;
+    }
+
+    /**
+     * Register the time spent at capacity when the buffer becomes full or gets room again.
+     * Lock must be held by the caller.
+     */
+    private void updateCapacity(){
+        boolean nowFull=(maxElements>0 && buffer.size()>=maxElements) || (maxBytes>0 && bufferedBytes>=maxBytes);
+        if(nowFull==full) return;
+        long now=System.nanoTime();
+        if(nowFull) fullSince=now;
+        else timeAtCapacityInNs+=now-fullSince;
+        full=nowFull;
+    }
+
+    /**
+     * Parse the first element as an int, removing it only if the operation goes well.
+     * Lock must be held by the caller.
+     * @param first element of the buffer
+     * @return the parsed value
+     * @throws BadMessagesSequenceException if it isn't an integer
+     */
+    private int parseFirstString(String first) throws BadMessagesSequenceException {
+        try {
+            int intToReturn=Integer.parseInt(first);
+            removeFirst();
+            return intToReturn;
+        } catch (NumberFormatException e){
+            throw new BadMessagesSequenceException(first);
+        }
+    }
+
+    /**
+     * @return a description of the element, used to notify bad sequences
+     */
+    private String describe(Object element){
+        if(element==null) return null;
+        if(element instanceof String) return (String) element;
+        if(element instanceof Primitive) return primitiveToString((Primitive) element, primitives[primitivesHead]);
+        return element.getClass().getSimpleName();
+    }
+
+    /**
+     * @return the primitive value as an object
+     */
+    private static Object box(Primitive type, long bits){
+        switch (type){
+            case INT:
+                return (int) bits;
+            case DOUBLE:
+                return Double.longBitsToDouble(bits);
+            case BOOLEAN:
+                return bits!=0;
+            default:
+                return bits;
+        }
+    }
+
+    /**
+     * @return the textual form of a primitive value
+     */
+    private static String primitiveToString(Primitive type, long bits){
+        switch (type){
+            case DOUBLE:
+                return String.valueOf(Double.longBitsToDouble(bits));
+            case BOOLEAN:
+                return String.valueOf(bits!=0);
+            default:
+                return String.valueOf(bits);
+        }
+    }
+
+    /**
+     * The buffer doesn't refuse elements: its owner checks if it's full before adding them
+     * @param maxElements max number of elements, 0 for no limit
+     * @param maxBytes max number of bytes of the elements, 0 for no limit: the last element added may exceed it
+     */
+    public void setCapacity(int maxElements, long maxBytes){
+        lock.lock();
+        this.maxElements=maxElements;
+        this.maxBytes=maxBytes;
+        updateCapacity();
+        lock.unlock();
+    }
+
+    /**
+     * @return true if the buffer reached its capacity
+     */
+    public boolean isFull(){
+        lock.lock();
+        boolean toReturn=full;
+        lock.unlock();
         return toReturn;
     }
 
     /**
-     * @return the firstElement of the buffer
+     * This method discards the first element of the buffer, registering it as dropped
+     * @return false if the buffer is empty
+     */
+    public boolean dropFirst(){
+        lock.lock();
+        try {
+            Object first=buffer.peek();
+            if(first==null) return false;
+            if(first instanceof Primitive) removeFirstPrimitive();
+            else removeFirst();
+            drops++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method registers an element discarded without being added to the buffer
+     */
+    public void registerDrop(){
+        lock.lock();
+        drops++;
+        lock.unlock();
+    }
+
+    /**
+     * @return the number of elements discarded because the buffer was full
      */
-    private String popFirstElem() {
+    public long getDrops(){
         lock.lock();
-        String firstElement=buffer.peek();
+        long toReturn=drops;
         lock.unlock();
-        return firstElement;
+        return toReturn;
     }
 
     /**
-     * remove the firstElement of the buffer
+     * @return the number of bytes of the elements in the buffer
      */
-    private void removeFirstElem(){
+    public long getBufferedBytes(){
         lock.lock();
-        buffer.poll();
+        long toReturn=bufferedBytes;
         lock.unlock();
+        return toReturn;
+    }
+
+    /**
+     * @return the time spent by the buffer at its capacity, in nanoseconds
+     */
+    public long getTimeAtCapacityInNs(){
+        lock.lock();
+        long toReturn=timeAtCapacityInNs+(full ? System.nanoTime()-fullSince : 0);
+        lock.unlock();
+        return toReturn;
     }
 
     /**
@@ -127,13 +648,79 @@ public class SynchronizedDataBuffer {
         return dimension;
     }
 
+    /**
+     * This method moves the elements of this buffer before the ones of another buffer:
+     * it's used when a new connection replaces a closed one, so that the elements not read are kept.
+     * @param target buffer receiving the elements
+     * @return the number of elements moved
+     */
+    public int moveTo(SynchronizedDataBuffer target){
+        lock.lock();
+        target.lock.lock();
+        try {
+            SynchronizedDataBuffer following=new SynchronizedDataBuffer();
+            target.transferTo(following);
+            int moved=buffer.size();
+            transferTo(target);
+            following.transferTo(target);
+            return moved;
+        } finally {
+            target.lock.unlock();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This method moves all the elements to another buffer, keeping their order.
+     * The locks of both buffers must be held by the caller.
+     * @param target buffer receiving the elements
+     */
+    private void transferTo(SynchronizedDataBuffer target){
+        while (!buffer.isEmpty()){
+            Object element=buffer.peek();
+            if(element instanceof Primitive) target.putPrimitive((Primitive) element,removeFirstPrimitive());
+            else target.putElement(removeFirst());
+        }
+    }
+
     /**
      * used to notify the waiting thread that the connection using this buffer is closed.
      */
     public void closeBuffer(){
         lock.lock();
         connectionDown=true;
-        condition.signal();
+        condition.signalAll();
         lock.unlock();
+        notifyListeners();
+    }
+
+    /**
+     * @return true if the connection using this buffer is closed: the elements left can still be read
+     */
+    public boolean isClosed(){
+        lock.lock();
+        boolean toReturn=connectionDown;
+        lock.unlock();
+        return toReturn;
+    }
+
+    /**
+     * Listeners are run after an element is put in the buffer and when the buffer is closed,
+     * by the thread doing it: they must not wait
+     * @param listener to be added
+     */
+    public void addListener(Runnable listener){
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener to be removed
+     */
+    public void removeListener(Runnable listener){
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners(){
+        for (Runnable listener : listeners) listener.run();
     }
 }
@@ -0,0 +1,47 @@
+package socket_connection.tools;
+
+/**
+ * A string with a tag inserted at a given position: it is encoded without
+ * copying the string.
+ */
+final class TaggedString implements CharSequence{
+
+    private final String string;
+    private final String tag;
+    private final int tagPosition;
+
+    /**
+     * @param string to be tagged
+     * @param tag to be inserted
+     * @param tagPosition index of the string where the tag is inserted
+     * @exception StringIndexOutOfBoundsException if the position is outside the string
+     */
+    TaggedString(String string, String tag, int tagPosition){
+        if(tagPosition<0 || tagPosition>string.length()) throw new StringIndexOutOfBoundsException(tagPosition);
+        this.string=string;
+        this.tag=tag;
+        this.tagPosition=tagPosition;
+    }
+
+    @Override
+    public int length() {
+        return string.length()+tag.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if(index<tagPosition) return string.charAt(index);
+        if(index<tagPosition+tag.length()) return tag.charAt(index-tagPosition);
+        return string.charAt(index-tag.length());
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start,end);
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder(length()).append(string).insert(tagPosition,tag).toString();
+    }
+}
@@ -0,0 +1,45 @@
+package socket_connection.tools;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class limits the rate of an event: tokens are added at a fixed rate up to the size of the bucket,
+ * and each event takes a token. Bursts up to the size of the bucket are allowed after a quiet period.
+ */
+public class TokenBucket {
+
+    private final double tokensPerNs;
+    private final double capacity;
+    private final LongAdder rejections;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param ratePerSecond tokens added each second
+     * @param burst max number of tokens: 0 to allow a second of events at once
+     * @param rejections counter of the events rejected, shared by the buckets enforcing the same limit
+     */
+    public TokenBucket(double ratePerSecond, long burst, LongAdder rejections){
+        this.tokensPerNs=ratePerSecond/TimeUnit.SECONDS.toNanos(1);
+        this.capacity=burst>0 ? burst : Math.max(1,ratePerSecond);
+        this.rejections=rejections;
+        this.tokens=capacity;
+        this.lastRefill=System.nanoTime();
+    }
+
+    /**
+     * @return true if the event is allowed, false if it's rejected: a rejection doesn't take a token
+     */
+    public synchronized boolean tryAcquire(){
+        long now=System.nanoTime();
+        tokens=Math.min(capacity,tokens+(now-lastRefill)*tokensPerNs);
+        lastRefill=now;
+        if(tokens>=1){
+            tokens--;
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+}
@@ -0,0 +1,261 @@
+package socket_connection.tools;
+
+import socket_connection.codecs.Codec;
+import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
+
+import java.util.Arrays;
+
+/**
+ * This class contains the types that can be carried by a binary frame and the methods
+ * used to encode and decode their payloads.
+ * Integers are written as zig-zag varints, doubles as fixed 8 bytes and arrays are
+ * prefixed by their length.
+ */
+public final class TypedFrames {
+
+    public static final byte INT=1;
+    public static final byte LONG=2;
+    public static final byte DOUBLE=3;
+    public static final byte BOOLEAN=4;
+    public static final byte BYTES=5;
+    public static final byte INT_ARRAY=6;
+    public static final byte LONG_ARRAY=7;
+    public static final byte DOUBLE_ARRAY=8;
+    public static final byte OBJECT=9;
+    public static final byte TABLE_STRING=10;
+    public static final byte REKEY=11;
+    public static final byte PING=12;
+    public static final byte PONG=13;
+    public static final byte STREAM=14;
+    public static final byte ACK=15;
+    public static final byte SEQUENCED=16;
+    public static final byte CREDIT=17;
+    public static final byte GOODBYE=18;
+
+    private TypedFrames(){
+        throw new AssertionError();
+    }
+
+    /**
+     * @param type of the frame
+     * @return true if the frame carries data for the application
+     */
+    public static boolean isDataType(byte type){
+        return type>=INT && type<=OBJECT;
+    }
+
+    /**
+     * An int frame carries the value as a zig-zag varint
+     */
+    public static void writeInt(BinaryWriter writer, int value){
+        writer.writeByte(INT).writeZigZagInt(value);
+    }
+
+    /**
+     * A long frame carries the value as a zig-zag varint
+     */
+    public static void writeLong(BinaryWriter writer, long value){
+        writer.writeByte(LONG).writeZigZagLong(value);
+    }
+
+    /**
+     * A double frame carries the value as fixed 8 bytes
+     */
+    public static void writeDouble(BinaryWriter writer, double value){
+        writer.writeByte(DOUBLE).writeDouble(value);
+    }
+
+    /**
+     * A boolean frame carries the value as a single byte
+     */
+    public static void writeBoolean(BinaryWriter writer, boolean value){
+        writer.writeByte(BOOLEAN).writeBoolean(value);
+    }
+
+    /**
+     * A bytes frame carries the length of the array as a varint, followed by the bytes
+     */
+    public static void writeBytes(BinaryWriter writer, byte[] value){
+        writer.writeByte(BYTES).writeByteArray(value);
+    }
+
+    /**
+     * An int array frame carries the length as a varint, followed by the elements as zig-zag varints
+     */
+    public static void writeIntArray(BinaryWriter writer, int[] value){
+        writer.writeByte(INT_ARRAY).writeVarInt(value.length);
+        for (int element : value) writer.writeZigZagInt(element);
+    }
+
+    /**
+     * A long array frame carries the length as a varint, followed by the elements as zig-zag varints
+     */
+    public static void writeLongArray(BinaryWriter writer, long[] value){
+        writer.writeByte(LONG_ARRAY).writeVarInt(value.length);
+        for (long element : value) writer.writeZigZagLong(element);
+    }
+
+    /**
+     * A double array frame carries the length as a varint, followed by the elements as fixed 8 bytes
+     */
+    public static void writeDoubleArray(BinaryWriter writer, double[] value){
+        writer.writeByte(DOUBLE_ARRAY).writeVarInt(value.length);
+        for (double element : value) writer.writeDouble(element);
+    }
+
+    /**
+     * A string is written as the segments produced by the encoder
+     * @see StringTableEncoder
+     */
+    public static void writeTableString(BinaryWriter writer, StringTableEncoder encoder, String value){
+        writer.writeByte(TABLE_STRING);
+        encoder.encode(value,writer);
+    }
+
+    /**
+     * A rekey frame tells the remote host that the following frames are encrypted
+     * with the key of the given generation
+     */
+    public static void writeRekey(BinaryWriter writer, int generation){
+        writer.writeByte(REKEY).writeVarInt(generation);
+    }
+
+    /**
+     * A ping frame carries the time it was sent, as given by {@link System#nanoTime()}:
+     * the remote host answers with a pong frame carrying the same time
+     */
+    public static void writePing(BinaryWriter writer, long timestamp){
+        writer.writeByte(PING).writeFixedLong(timestamp);
+    }
+
+    /**
+     * A pong frame carries the time of the ping it answers, as fixed 8 bytes
+     */
+    public static void writePong(BinaryWriter writer, long timestamp){
+        writer.writeByte(PONG).writeFixedLong(timestamp);
+    }
+
+    /**
+     * A stream frame opens a reliable stream on a connection: it carries the id of the stream,
+     * whether the host already knew it and the sequence number of the last message it delivered
+     */
+    public static void writeStream(BinaryWriter writer, byte[] id, boolean resumed, long lastDelivered){
+        writer.writeByte(STREAM).writeByteArray(id).writeBoolean(resumed).writeVarLong(lastDelivered);
+    }
+
+    /**
+     * An ack frame carries the sequence number of the last message delivered: it's sent
+     * only when there are no messages on which it can be piggybacked
+     */
+    public static void writeAck(BinaryWriter writer, long lastDelivered){
+        writer.writeByte(ACK).writeFixedLong(lastDelivered);
+    }
+
+    /**
+     * A sequenced frame carries the sequence number of a message and the acknowledgement of the
+     * messages received: the message follows, as it would be sent without a reliable stream
+     */
+    public static void writeSequenced(BinaryWriter writer, long sequence, long lastDelivered){
+        writer.writeByte(SEQUENCED).writeVarLong(sequence).writeVarLong(lastDelivered);
+    }
+
+    /**
+     * A credit frame carries the total number of bytes of messages the remote host can send:
+     * it's sent as the application reads the messages received
+     */
+    public static void writeCredit(BinaryWriter writer, long limit){
+        writer.writeByte(CREDIT).writeFixedLong(limit);
+    }
+
+    /**
+     * A goodbye frame is the last frame sent on a connection closed gracefully: the messages sent
+     * before it were flushed, so the remote host can close the connection without losing them
+     */
+    public static void writeGoodbye(BinaryWriter writer){
+        writer.writeByte(GOODBYE);
+    }
+
+    /**
+     * An object is written as the id of its codec followed by the bytes produced by the codec
+     */
+    public static <T> void writeObject(BinaryWriter writer, Codec<T> codec, T value){
+        writer.writeByte(OBJECT).writeVarInt(codec.getTypeId());
+        codec.encode(value,writer);
+    }
+
+    /**
+     * This method decodes a data frame and adds its content to the buffer.
+     * Primitive values are added without being boxed.
+     * @param reader positioned on the type of the frame
+     * @param buffer where data are added
+     * @exception UndefinedInputTypeException if the frame isn't a data frame
+     */
+    public static void deliver(BinaryReader reader, SynchronizedDataBuffer buffer){
+        byte type=reader.readByte();
+        switch (type){
+            case INT:
+                buffer.putInt(reader.readZigZagInt());
+                break;
+            case LONG:
+                buffer.putLong(reader.readZigZagLong());
+                break;
+            case DOUBLE:
+                buffer.putDouble(reader.readDouble());
+                break;
+            case BOOLEAN:
+                buffer.putBoolean(reader.readBoolean());
+                break;
+            case BYTES:
+                buffer.putBytes(reader.readByteArray());
+                break;
+            case INT_ARRAY:
+                buffer.putIntArray(readIntArray(reader));
+                break;
+            case LONG_ARRAY:
+                buffer.putLongArray(readLongArray(reader));
+                break;
+            case DOUBLE_ARRAY:
+                buffer.putDoubleArray(readDoubleArray(reader));
+                break;
+            case OBJECT:
+                //the frame can be reused after delivery: the encoded object is copied
+                int typeId=reader.readVarInt();
+                byte[] encoded=Arrays.copyOfRange(reader.array(),reader.position(),reader.position()+reader.remaining());
+                buffer.putObject(new EncodedObject(typeId,encoded,0,encoded.length));
+                break;
+            default:
+                throw new UndefinedInputTypeException();
+        }
+    }
+
+    private static int[] readIntArray(BinaryReader reader){
+        int[] array=new int[checkedLength(reader,1)];
+        for (int i=0; i<array.length; i++) array[i]=reader.readZigZagInt();
+        return array;
+    }
+
+    private static long[] readLongArray(BinaryReader reader){
+        long[] array=new long[checkedLength(reader,1)];
+        for (int i=0; i<array.length; i++) array[i]=reader.readZigZagLong();
+        return array;
+    }
+
+    private static double[] readDoubleArray(BinaryReader reader){
+        double[] array=new double[checkedLength(reader,8)];
+        for (int i=0; i<array.length; i++) array[i]=reader.readDouble();
+        return array;
+    }
+
+    /**
+     * Read the number of elements of an array, refusing lengths that can't be contained
+     * in the frame: a malformed frame can't make us allocate huge arrays.
+     * @param reader positioned on the length
+     * @param minElementSize minimum number of bytes used by each element
+     * @return the number of elements
+     */
+    private static int checkedLength(BinaryReader reader, int minElementSize){
+        int length=reader.readVarInt();
+        if(length<0 || (long) length*minElementSize>reader.remaining()) throw new UndefinedInputTypeException();
+        return length;
+    }
+}
@@ -0,0 +1,95 @@
+package socket_connection;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import socket_connection.socket_exceptions.exceptions.*;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionSelectorTest {
+
+    private static ServerSocketConnection sendingServer;
+    private static ServerSocketConnection idleServer;
+    private static ServerSocketConnection closingServer;
+    private static final int PORT1 =40201;
+    private static final int PORT2= PORT1 +1;
+    private static final int PORT3= PORT1 +2;
+
+    @BeforeAll
+    static void openServers() throws InvocationTargetException, NoDefaultConstructorException, InstantiationException, IllegalAccessException, IOException {
+        sendingServer=new ServerSocketConnection(PORT1, Agent2.class);
+        idleServer=new ServerSocketConnection(PORT2, Agent5.class);
+        closingServer=new ServerSocketConnection(PORT3, Agent4.class);
+        await("Await server to be ready").atMost(1000, TimeUnit.MILLISECONDS).untilAsserted(()->
+                assertEquals(ServerSocketConnection.Status.RUNNING,closingServer.getStatus()));
+    }
+
+    @AfterAll
+    static void shutdownServers() throws ServerShutdownException {
+        sendingServer.shutdown();
+        idleServer.shutdown();
+        closingServer.shutdown();
+    }
+
+    /**
+     * This test ensures that only the connection that received a message is selected,
+     * until the message is read
+     */
+    @Test
+    void selectConnectionsWithInputs() throws FailedToConnectException, UnreachableHostException, InterruptedException {
+        SocketConnection sending=new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), PORT1);
+        SocketConnection idle=new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), PORT2);
+        ConnectionSelector selector=new ConnectionSelector();
+        selector.register(sending);
+        selector.register(idle);
+        Set<SocketConnection> ready=selector.select(2000,TimeUnit.MILLISECONDS);
+        assertEquals(1,ready.size());
+        assertTrue(ready.contains(sending));
+        //the input not read is selected again
+        assertTrue(selector.selectNow().contains(sending));
+        assertEquals(Agent2.getMessageSent(), sending.readString());
+        assertTrue(selector.selectNow().isEmpty());
+        assertTrue(selector.select(100,TimeUnit.MILLISECONDS).isEmpty());
+        selector.close();
+        sending.shutdown();
+        idle.shutdown();
+    }
+
+    /**
+     * This test ensures that a closed connection is selected and that a selection can be woken up
+     */
+    @Test
+    void selectClosedConnections() throws FailedToConnectException, UnreachableHostException, InterruptedException {
+        SocketConnection idle=new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), PORT2);
+        ConnectionSelector selector=new ConnectionSelector();
+        selector.register(idle);
+        Thread waker=new Thread(()->{
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            selector.wakeUp();
+        });
+        waker.start();
+        assertTrue(selector.select().isEmpty());
+        SocketConnection closing=new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), PORT3);
+        selector.register(closing);
+        Set<SocketConnection> ready=selector.select(2000,TimeUnit.MILLISECONDS);
+        assertEquals(1,ready.size());
+        assertTrue(ready.contains(closing));
+        assertFalse(closing.isConnected());
+        selector.unregister(closing);
+        assertTrue(selector.selectNow().isEmpty());
+        selector.close();
+        idle.shutdown();
+    }
+}
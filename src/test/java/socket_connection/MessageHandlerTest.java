@@ -6,6 +6,9 @@ import org.junit.jupiter.api.Test;
 import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
 import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.ConnectionEventException;
 import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.DataReceivedException;
+import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.HelloEventException;
+import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.PingReceivedException;
+import socket_connection.socket_exceptions.runtime_exceptions.socket_connection_events.PongReceivedException;
 import socket_connection.configurations.ConfigurationHandler;
 
 import java.util.HashSet;
@@ -183,6 +186,26 @@ class MessageHandlerTest {
         messagesToTest.forEach(message->assertNoExceptionThrown(messageHandler::computeInput, ConnectionEventException.class).accept(message));
     }
 
+    /**
+     * This test check that the frames of the messages that never change are encoded once
+     * and shared by the handlers, and that pings carry the timestamp written in their frame
+     */
+    @Test
+    void reuseControlFrames(){
+        MessageHandler other=new MessageHandler();
+        assertSame(messageHandler.getHelloFrame(),other.getHelloFrame());
+        assertSame(messageHandler.getServerIsReadyFrame(),other.getServerIsReadyFrame());
+        assertThrows(HelloEventException.class,()->other.computeInputFrame(messageHandler.getHelloFrame()));
+        for (long timestamp : new long[]{0,42,-1,Long.MAX_VALUE}){
+            PingReceivedException ping=assertThrows(PingReceivedException.class,
+                    ()->other.computeInputFrame(messageHandler.getPingFrame(timestamp)));
+            assertEquals(timestamp,ping.getTimestamp());
+            PongReceivedException pong=assertThrows(PongReceivedException.class,
+                    ()->other.computeInputFrame(messageHandler.getPongFrame(timestamp)));
+            assertEquals(timestamp,pong.getTimestamp());
+        }
+    }
+
     //---------------------------------------------------------------------------------------
     //
     //                                 SUPPORT METHODS
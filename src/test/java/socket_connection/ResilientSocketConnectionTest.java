@@ -0,0 +1,261 @@
+package socket_connection;
+
+import org.junit.jupiter.api.Test;
+import socket_connection.socket_exceptions.exceptions.*;
+import socket_connection.tools.Backoff;
+import socket_connection.tools.ReliableStream;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientSocketConnectionTest {
+
+    private static final int PORT1=40101;
+    private static final int PORT2=PORT1+1;
+    private static final int PORT3=PORT1+2;
+    private static final int PORT4=PORT1+3;
+    private static final int PORT5=PORT1+4;
+    private static final int PORT6=PORT1+5;
+    private static final String IP=InetAddress.getLoopbackAddress().getHostAddress();
+
+    /**
+     * This test checks that the connection is opened again when the server is restarted,
+     * and that the output that found the connection closed is sent on the new one
+     */
+    @Test
+    void reconnectAfterServerRestart() throws IOException, IllegalAccessException, InvocationTargetException,
+            InstantiationException, NoDefaultConstructorException, FailedToConnectException, UnreachableHostException,
+            BadMessagesSequenceException, ServerShutdownException {
+        ServerSocketConnection server=new ServerSocketConnection(PORT1, EchoAgent.class);
+        awaitRunning(server);
+        ResilientSocketConnection connection=new ResilientSocketConnection(IP,PORT1,new Backoff(10,100),20,0,null);
+        connection.writeInt(1);
+        assertEquals(1,connection.readInt());
+        restart(server,connection);
+        server=new ServerSocketConnection(PORT1, EchoAgent.class);
+        awaitRunning(server);
+        try {
+            connection.writeInt(2);
+            assertEquals(2,connection.readInt());
+            assertEquals(1,connection.getReconnections());
+            assertTrue(connection.isConnected());
+        } finally {
+            connection.shutdown();
+            server.shutdown();
+        }
+        assertThrows(UnreachableHostException.class,()->connection.writeInt(3));
+    }
+
+    /**
+     * This test checks that the outputs of the replay window are sent again after a reconnection
+     */
+    @Test
+    void replayOutputsAfterReconnection() throws IOException, IllegalAccessException, InvocationTargetException,
+            InstantiationException, NoDefaultConstructorException, FailedToConnectException, UnreachableHostException,
+            BadMessagesSequenceException, ServerShutdownException {
+        ServerSocketConnection server=new ServerSocketConnection(PORT2, EchoAgent.class);
+        awaitRunning(server);
+        ResilientSocketConnection connection=new ResilientSocketConnection(IP,PORT2,new Backoff(10,100),20,1,null);
+        connection.writeInt(7);
+        assertEquals(7,connection.readInt());
+        restart(server,connection);
+        server=new ServerSocketConnection(PORT2, EchoAgent.class);
+        awaitRunning(server);
+        try {
+            connection.writeInt(8);
+            assertEquals(7,connection.readInt());
+            assertEquals(8,connection.readInt());
+        } finally {
+            connection.shutdown();
+            server.shutdown();
+        }
+    }
+
+    /**
+     * This test checks that the arrays of the replay window are sent again as they were written,
+     * even if the caller modified them after writing
+     */
+    @Test
+    void replayArraysAsWritten() throws IOException, IllegalAccessException, InvocationTargetException,
+            InstantiationException, NoDefaultConstructorException, FailedToConnectException, UnreachableHostException,
+            BadMessagesSequenceException, ServerShutdownException {
+        ServerSocketConnection server=new ServerSocketConnection(PORT6, ArrayEchoAgent.class);
+        awaitRunning(server);
+        ResilientSocketConnection connection=new ResilientSocketConnection(IP,PORT6,new Backoff(10,100),20,1,null);
+        int[] array={1,2,3};
+        connection.writeIntArray(array);
+        assertArrayEquals(new int[]{1,2,3},connection.readIntArray());
+        array[0]=9;
+        restart(server,connection);
+        server=new ServerSocketConnection(PORT6, ArrayEchoAgent.class);
+        awaitRunning(server);
+        try {
+            connection.writeIntArray(new int[]{4});
+            assertArrayEquals(new int[]{1,2,3},connection.readIntArray());
+            assertArrayEquals(new int[]{4},connection.readIntArray());
+        } finally {
+            connection.shutdown();
+            server.shutdown();
+        }
+    }
+
+    /**
+     * This test checks that the connection is closed when the server can't be reached
+     * after the attempts configured
+     */
+    @Test
+    void giveUpAfterMaxAttempts() throws IOException, IllegalAccessException, InvocationTargetException,
+            InstantiationException, NoDefaultConstructorException, FailedToConnectException, ServerShutdownException {
+        ServerSocketConnection server=new ServerSocketConnection(PORT3, EchoAgent.class);
+        awaitRunning(server);
+        ResilientSocketConnection connection=new ResilientSocketConnection(IP,PORT3,new Backoff(10,20),3,0,null);
+        restart(server,connection);
+        assertThrows(UnreachableHostException.class,()->connection.writeString("lost"));
+        assertFalse(connection.isConnected());
+        assertEquals(0,connection.getReconnections());
+    }
+
+    /**
+     * This test checks that a new connection resumes the reliable stream: sequence numbers
+     * go on in both directions and nothing is delivered twice
+     */
+    @Test
+    void resumeReliableStream() throws IOException, IllegalAccessException, InvocationTargetException,
+            InstantiationException, NoDefaultConstructorException, FailedToConnectException, UnreachableHostException,
+            BadMessagesSequenceException, ServerShutdownException {
+        ServerSocketConnection server=new ServerSocketConnection(PORT4, EchoAgent.class);
+        awaitRunning(server);
+        ReliableStream stream=new ReliableStream(16,1<<16);
+        ResilientSocketConnection connection=new ResilientSocketConnection(IP,PORT4,new Backoff(10,100),20,0,stream);
+        try {
+            assertSame(stream,connection.getReliableStream());
+            connection.writeInt(1);
+            assertEquals(1,connection.readInt());
+            //the echo carries the acknowledgement of the message
+            assertEquals(0,stream.getUnacknowledgedMessages());
+            assertEquals(1,stream.getAcknowledgementLatency().getSamples());
+            connection.getConnection().shutdown();
+            connection.writeInt(2);
+            assertEquals(2,connection.readInt());
+            assertEquals(1,connection.getReconnections());
+            assertEquals(2,stream.getLastSent());
+            assertEquals(2,stream.getLastDelivered());
+            assertEquals(0,stream.getDuplicates());
+        } finally {
+            connection.shutdown();
+            server.shutdown();
+        }
+    }
+
+    /**
+     * This test checks that a reliable stream unknown by a restarted server is opened again:
+     * the client numbers its messages from where it was, the server from the beginning
+     */
+    @Test
+    void reopenReliableStreamAfterServerRestart() throws IOException, IllegalAccessException, InvocationTargetException,
+            InstantiationException, NoDefaultConstructorException, FailedToConnectException, UnreachableHostException,
+            BadMessagesSequenceException, ServerShutdownException {
+        ServerSocketConnection server=new ServerSocketConnection(PORT5, EchoAgent.class);
+        awaitRunning(server);
+        ReliableStream stream=new ReliableStream(16,1<<16);
+        ResilientSocketConnection connection=new ResilientSocketConnection(IP,PORT5,new Backoff(10,100),20,0,stream);
+        connection.writeInt(1);
+        assertEquals(1,connection.readInt());
+        restart(server,connection);
+        server=new ServerSocketConnection(PORT5, EchoAgent.class);
+        awaitRunning(server);
+        try {
+            connection.writeInt(2);
+            assertEquals(2,connection.readInt());
+            assertEquals(2,stream.getLastSent());
+            assertEquals(1,stream.getLastDelivered());
+        } finally {
+            connection.shutdown();
+            server.shutdown();
+        }
+    }
+
+    /**
+     * This method waits until the server accepts connections
+     */
+    private static void awaitRunning(ServerSocketConnection server){
+        await("Await server to be ready").atMost(1000, TimeUnit.MILLISECONDS).untilAsserted(()->
+                assertEquals(ServerSocketConnection.Status.RUNNING,server.getStatus()));
+    }
+
+    /**
+     * This method shuts down the server and waits until the client notices it
+     */
+    private static void restart(ServerSocketConnection server, ResilientSocketConnection connection) throws ServerShutdownException {
+        SocketConnection lost=connection.getConnection();
+        server.shutdown();
+        await().atMost(5, TimeUnit.SECONDS).until(()->!lost.isConnected());
+    }
+}
+
+/**
+ * Agent sending back the integers received
+ */
+class EchoAgent implements SocketUserAgentInterface{
+
+    private SocketConnection connection;
+
+    public EchoAgent(){
+        //constructor used by the server
+    }
+
+    @Override
+    public void setConnection(SocketConnection connection) {
+        this.connection=connection;
+    }
+
+    @Override
+    public void shutdown() {
+        connection.shutdown();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (connection.isConnected()) connection.writeInt(connection.readInt());
+        } catch (UnreachableHostException | BadMessagesSequenceException e) {
+            shutdown();
+        }
+    }
+}
+
+/**
+ * Agent sending back the arrays of integers received
+ */
+class ArrayEchoAgent implements SocketUserAgentInterface{
+
+    private SocketConnection connection;
+
+    public ArrayEchoAgent(){
+        //constructor used by the server
+    }
+
+    @Override
+    public void setConnection(SocketConnection connection) {
+        this.connection=connection;
+    }
+
+    @Override
+    public void shutdown() {
+        connection.shutdown();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (connection.isConnected()) connection.writeIntArray(connection.readIntArray());
+        } catch (UnreachableHostException | BadMessagesSequenceException e) {
+            shutdown();
+        }
+    }
+}
@@ -221,6 +221,41 @@ class ServerSocketConnectionTest {
 
     }
 
+    /**
+     * This test check that a server drained gracefully:
+     * ->   Server's thread is terminated well before the deadline, as connections flushed their messages.
+     * ->   All previous opened connection are now closed.
+     * ->   Messages sent before the drain can still be read by the clients.
+     */
+    @Test
+    void serverDrainedProperly() throws InvocationTargetException, NoDefaultConstructorException, InstantiationException, IllegalAccessException, IOException, FailedToConnectException, ServerShutdownException, InterruptedException {
+        final int localPort=getPort();
+        ServerSocketConnection server= new ServerSocketConnection(localPort, ProperAgent.class);
+        addServerToList(server);
+        await("Avoid eventual time waiting due to delay").atMost(200, TimeUnit.MILLISECONDS )
+                .untilAsserted(()->assertEquals(Thread.State.RUNNABLE,server.getState()));
+        List<SocketConnection> openedConnections= new ArrayList<>();
+        openedConnections.add(new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), localPort));
+        openedConnections.add(new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), localPort));
+        openedConnections.forEach(connection ->
+                await("Waiting for connection to be ready")
+                        .until(connection::isReady, is(true)));
+        await().atMost(2, TimeUnit.SECONDS).until(()->server.getAgentStatistics().getExecutedTasks()==2);
+
+        long start=System.nanoTime();
+        server.drain(5, TimeUnit.SECONDS);
+        assertEquals(Thread.State.TERMINATED,server.getState());
+        assertTrue(System.nanoTime()-start<TimeUnit.SECONDS.toNanos(4));
+        assertEquals(0,server.activeConnections());
+
+        openedConnections.forEach(connection ->{
+                await("Waiting for connection to close")
+                        .atMost(500, TimeUnit.MILLISECONDS)
+                        .until(connection::isConnected,is(false));
+                ProperAgent.getMessages().forEach(message->assertIsReceived(message,connection));
+        });
+    }
+
     /**
      * This test assure that after closing a server on port X, a new server can be opened
      * on the same port
@@ -522,6 +557,34 @@ class ServerSocketConnectionTest {
 
     }
 
+    /**
+     * This test ensure that a server listening on two ports accepts the connections of both,
+     * creating the agents of each listener, and counts them together
+     */
+    @Test
+    void serverWithMultipleListeners() throws InvocationTargetException, NoDefaultConstructorException, InstantiationException, IllegalAccessException, IOException, FailedToConnectException, ServerShutdownException, UnreachableHostException {
+        final int firstPort=getPort();
+        final int secondPort=getPort();
+        ServerSocketConnection server= new ServerSocketConnection(firstPort, ProperAgent.class);
+        addServerToList(server);
+        server.addListener(InetAddress.getLoopbackAddress(), secondPort, Agent2.class);
+        assertEquals(2,server.getLocalPorts().size());
+        assertEquals(Integer.valueOf(secondPort),server.getLocalPorts().get(1));
+
+        SocketConnection first=new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), firstPort);
+        SocketConnection second=new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), secondPort);
+        assertIsReceived(ProperAgent.getMessages().get(0),first);
+        assertEquals(Agent2.getMessageSent(),second.readString());
+        await().until(server::activeConnections,is(2));
+
+        server.shutdown();
+        await("Waiting for thread to close properly").atMost(500, TimeUnit.MILLISECONDS )
+                .untilAsserted(()->assertEquals(Thread.State.TERMINATED,server.getState()));
+        assertThrows(FailedToConnectException.class,
+                ()->new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), secondPort));
+        assertThrows(ServerShutdownException.class,()->server.addListener(getPort(), ProperAgent.class));
+    }
+
     //---------------------------------------------------------------------------------------
     //
     //                                 SUPPORT METHODS
@@ -3,14 +3,24 @@ package socket_connection;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import socket_connection.configurations.ConfigurationHandler;
+import socket_connection.configurations.SocketConnectionConfigurations;
 import socket_connection.socket_exceptions.exceptions.*;
+import socket_connection.tools.ReceiveCredits;
+import socket_connection.tools.RoundTripStatistics;
 import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.net.InetAddress;
+import java.util.Collections;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -26,12 +36,16 @@ class SocketConnectionTest {
     private static ServerSocketConnection commonServer4;
     private static ServerSocketConnection commonServer5;
     private static ServerSocketConnection commonServer6;
+    private static ServerSocketConnection commonServer7;
     private static final int PORT1 =40001;
     private static final int PORT2= PORT1 +1;
     private static final int PORT3= PORT1 +2;
     private static final int PORT4 = PORT1 +3;
     private static final int PORT5 = PORT1 +4;
     private static final int PORT6 = PORT1 +5;
+    private static final int PORT7 = PORT1 +6;
+    private static final int PORT8 = PORT1 +7;
+    private static final int PORT9 = PORT1 +8;
 
 
     /**
@@ -46,6 +60,7 @@ class SocketConnectionTest {
         commonServer4=new ServerSocketConnection(PORT4, Agent4.class);
         commonServer5=new ServerSocketConnection(PORT5,Agent5.class );
         commonServer6=new ServerSocketConnection(PORT6,Agent5.class );
+        commonServer7=new ServerSocketConnection(PORT7,TypedAgent.class );
         await("Await server to be ready").atMost(1000, TimeUnit.MILLISECONDS).untilAsserted(()->
         assertEquals(commonServer.getStatus(),ServerSocketConnection.Status.RUNNING));
         await("Await server to be ready").atMost(1000, TimeUnit.MILLISECONDS).untilAsserted(()->
@@ -63,6 +78,7 @@ class SocketConnectionTest {
         commonServer4.shutdown();
         commonServer5.shutdown();
         commonServer6.shutdown();
+        commonServer7.shutdown();
     }
 
 
@@ -107,6 +123,68 @@ class SocketConnectionTest {
     void testReadAndWriteUTF() throws FailedToConnectException, UnreachableHostException {
         SocketConnection connection=new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), PORT2);
         assertEquals(Agent2.getMessageSent(), connection.readString());
+        assertEquals("AES-GCM", connection.getCipherSuite());
+    }
+
+    /**
+     * This test ensure that a client reconnecting to a server resumes the session with the
+     * ticket received during the first one
+     */
+    @Test
+    void resumeSessionWithTicket() throws InvocationTargetException, NoDefaultConstructorException, InstantiationException,
+            IllegalAccessException, IOException, FailedToConnectException, UnreachableHostException, ServerShutdownException {
+        ServerSocketConnection server=new ServerSocketConnection(PORT8, Agent2.class);
+        try {
+            SocketConnection first=new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), PORT8);
+            assertEquals(Agent2.getMessageSent(), first.readString());
+            assertFalse(first.isSessionResumed());
+            first.shutdown();
+            SocketConnection second=new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), PORT8);
+            assertEquals(Agent2.getMessageSent(), second.readString());
+            assertTrue(second.isSessionResumed());
+            second.shutdown();
+            assertEquals(2, server.getResumptionStatistics().getIssuedTickets());
+            assertEquals(1.0, server.getResumptionStatistics().getHitRate());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    /**
+     * This test ensure that a sender waits for credits while its messages aren't read,
+     * so that the receiver buffers at most a message more than its window
+     */
+    @Test
+    void waitForCreditsWhileMessagesAreNotRead() throws InvocationTargetException, NoDefaultConstructorException,
+            InstantiationException, IllegalAccessException, IOException, FailedToConnectException,
+            UnreachableHostException, BadMessagesSequenceException, ServerShutdownException, NoSuchFieldException {
+        setReceiveWindow(1<<20);
+        ServerSocketConnection server=new ServerSocketConnection(PORT9, FloodAgent.class);
+        try {
+            SocketConnection connection=new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), PORT9);
+            ReceiveCredits credits=connection.getReceiveCredits();
+            long maxBuffered=credits.getWindow()+FloodAgent.MESSAGE.length+16;
+            await().atMost(5, TimeUnit.SECONDS).until(()->credits.getBufferedBytes()>=credits.getWindow());
+            await().pollDelay(300, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS)
+                    .until(()->credits.getBufferedBytes()<=maxBuffered);
+            for (int i=0; i<FloodAgent.MESSAGES; i++) assertArrayEquals(FloodAgent.MESSAGE, connection.readBytes());
+            assertTrue(credits.getGranted()>=FloodAgent.MESSAGES*FloodAgent.MESSAGE.length);
+            assertEquals(0, credits.getBufferedBytes());
+            connection.shutdown();
+        } finally {
+            server.shutdown();
+            setReceiveWindow(0);
+        }
+    }
+
+    /**
+     * Flow control is disabled by default: the window set is used by the connections created after this call
+     * @param bytes receive window of the connections, 0 to disable flow control
+     */
+    private static void setReceiveWindow(long bytes) throws NoSuchFieldException, IllegalAccessException {
+        Field window=SocketConnectionConfigurations.class.getDeclaredField("receiveWindowBytes");
+        window.setAccessible(true);
+        window.setLong(ConfigurationHandler.getInstance().getSocketConnectionConfigurations(),bytes);
     }
 
 
@@ -131,6 +209,96 @@ class SocketConnectionTest {
                 .untilAsserted(()->assertThrows(BadMessagesSequenceException.class, connection::readInt));
     }
 
+    /**
+     * This test uses a server side agent that will send a int and a string and than he will close.
+     * {@link Agent3#run()}
+     *
+     * It checks that inputs are read without blocking, and that reading a closed connection
+     * without inputs throws a {@link UnreachableHostException}
+     */
+    @Test
+    void readWithoutBlocking() throws FailedToConnectException, UnreachableHostException {
+        SocketConnection connection=new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), PORT3);
+        List<Object> inputs=new ArrayList<>();
+        await().atMost(2, TimeUnit.SECONDS).until(()->connection.drainTo(inputs,1)==1);
+        assertEquals(Integer.valueOf(Agent3.getMessageSent()), inputs.get(0));
+        assertEquals("random message", connection.readString(2, TimeUnit.SECONDS).orElse(null));
+        assertFalse(connection.tryReadString().isPresent());
+        connection.shutdown();
+        assertThrows(UnreachableHostException.class, connection::tryReadString);
+    }
+
+    /**
+     * This test uses a server side agent that will send a int and a string and than he will close.
+     * {@link Agent3#run()}
+     *
+     * It checks that the inputs published are delivered only when requested, and that the
+     * subscriber completes when the connection is closed
+     */
+    @Test
+    void publishInputsOnDemand() throws FailedToConnectException {
+        SocketConnection connection=new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), PORT3);
+        List<Object> inputs=Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<Flow.Subscription> subscription=new AtomicReference<>();
+        AtomicBoolean completed=new AtomicBoolean();
+        connection.publishInputs().subscribe(new Flow.Subscriber<Object>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription.set(s);
+            }
+
+            @Override
+            public void onNext(Object item) {
+                inputs.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                inputs.add(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.set(true);
+            }
+        });
+        await().atMost(2, TimeUnit.SECONDS).until(()->subscription.get()!=null);
+        subscription.get().request(1);
+        await().atMost(2, TimeUnit.SECONDS).until(()->inputs.size()==1);
+        assertEquals(Integer.valueOf(Agent3.getMessageSent()), inputs.get(0));
+        await().pollDelay(200, TimeUnit.MILLISECONDS).until(()->true);
+        assertEquals(1, inputs.size());
+        subscription.get().request(1);
+        await().atMost(2, TimeUnit.SECONDS).until(()->inputs.size()==2);
+        assertEquals("random message", inputs.get(1));
+        connection.shutdown();
+        await().atMost(2, TimeUnit.SECONDS).until(completed::get);
+    }
+
+    /**
+     * This test uses a server side agent that will send a value for each supported type.
+     * {@link TypedAgent#run()}
+     *
+     * It checks that each value is read with the same type and value
+     */
+    @Test
+    void testReadAndWriteTypedData() throws FailedToConnectException, UnreachableHostException, BadMessagesSequenceException {
+        SocketConnection connection=new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), PORT7);
+        assertEquals(Integer.MIN_VALUE, connection.readInt());
+        assertEquals(Long.MAX_VALUE, connection.readLong());
+        assertEquals(Math.PI, connection.readDouble());
+        assertTrue(connection.readBoolean());
+        assertArrayEquals(TypedAgent.BYTES, connection.readBytes());
+        assertArrayEquals(TypedAgent.INTS, connection.readIntArray());
+        assertArrayEquals(TypedAgent.LONGS, connection.readLongArray());
+        assertArrayEquals(TypedAgent.DOUBLES, connection.readDoubleArray());
+        assertThrows(BadMessagesSequenceException.class, connection::readInt);
+        assertEquals(TypedAgent.OBJECT, connection.readObject(TypedAgent.Payload.class));
+        assertEquals(TypedAgent.LARGE_STRING, connection.readString());
+        assertEquals(1, connection.getCompressionStatistics().getDecompressedMessages());
+        assertEquals("end", connection.readString());
+    }
+
     //****************************************************************************************
     //
     //                         TEST: isDataAvailable()
@@ -177,6 +345,56 @@ class SocketConnectionTest {
         if(connection.getPing()<0) fail("This condition should be impossible");
     }
 
+    /**
+     * This test checks that the round trip time is measured with ping frames
+     * and that getPing answers without waiting for the network
+     */
+    @Test
+    void measureRoundTripWithPingFrames() throws FailedToConnectException, UnreachableHostException {
+        SocketConnection connection= new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), PORT1);
+        RoundTripStatistics statistics=connection.getRoundTripStatistics();
+        await().atMost(5, TimeUnit.SECONDS).until(()->statistics.getSamples()>0);
+        assertTrue(statistics.getMinRttInNs()>0);
+        assertTrue(statistics.getMinRttInNs()<=statistics.getSmoothedRttInNs());
+        assertTrue(statistics.getSmoothedRttInNs()<=statistics.getMaxRttInNs());
+        long start=System.nanoTime();
+        assertEquals(TimeUnit.NANOSECONDS.toMillis(statistics.getSmoothedRttInNs()),connection.getPing());
+        assertTrue(System.nanoTime()-start<TimeUnit.MILLISECONDS.toNanos(100));
+        connection.shutdown();
+    }
+
+    /**
+     * This test checks that the round trip time is measured while messages are sent,
+     * when heartbeats aren't needed
+     */
+    @Test
+    void measureRoundTripOnBusyConnection() throws FailedToConnectException, UnreachableHostException, InterruptedException {
+        SocketConnection connection= new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), PORT1);
+        RoundTripStatistics statistics=connection.getRoundTripStatistics();
+        long samples=-1;
+        long end=System.nanoTime()+TimeUnit.SECONDS.toNanos(3);
+        while (System.nanoTime()-end<0){
+            connection.writeString("busy");
+            if(samples<0 && statistics.getSamples()>0) samples=statistics.getSamples();
+            Thread.sleep(10);
+        }
+        assertTrue(samples>0);
+        assertTrue(statistics.getSamples()>samples);
+        connection.shutdown();
+    }
+
+    /**
+     * This test checks that heartbeats keep alive a connection on which nothing is sent
+     * for longer than the time to live
+     */
+    @Test
+    void heartbeatsKeepIdleConnectionAlive() throws FailedToConnectException {
+        SocketConnection connection= new SocketConnection(InetAddress.getLoopbackAddress().getHostAddress(), PORT1);
+        await().pollDelay(connection.getTimeToLive()+1, TimeUnit.SECONDS)
+                .atMost(connection.getTimeToLive()+3, TimeUnit.SECONDS).until(connection::isConnected);
+        connection.shutdown();
+    }
+
     /**
      * This test checks that getPing throws an {@link UnreachableHostException} when
      * used on a closed connection
@@ -403,4 +621,94 @@ class Agent5 implements SocketUserAgentInterface{
         }
     }
 
-}
\ No newline at end of file
+}
+class TypedAgent implements SocketUserAgentInterface{
+
+    static final byte[] BYTES={0,-1,127,-128};
+    static final int[] INTS={0,-1,Integer.MAX_VALUE};
+    static final long[] LONGS={Long.MIN_VALUE,42};
+    static final double[] DOUBLES={-0.25,Double.NaN};
+    static final Payload OBJECT=new Payload("name",3);
+    static final String LARGE_STRING=String.join(",", Collections.nCopies(100,"{\"x\":0,\"y\":0}"));
+    private SocketConnection connection;
+
+    public TypedAgent(){
+    }
+
+    @Override
+    public void setConnection(SocketConnection connection) {
+        this.connection=connection;
+    }
+
+    @Override
+    public void shutdown() {
+        connection.shutdown();
+    }
+
+    @Override @SuppressWarnings("all")
+    public void run() {
+        try {
+            connection.writeInt(Integer.MIN_VALUE);
+            connection.writeLong(Long.MAX_VALUE);
+            connection.writeDouble(Math.PI);
+            connection.writeBoolean(true);
+            connection.writeBytes(BYTES);
+            connection.writeIntArray(INTS);
+            connection.writeLongArray(LONGS);
+            connection.writeDoubleArray(DOUBLES);
+            connection.writeObject(OBJECT);
+            connection.writeString(LARGE_STRING);
+            connection.writeString("end");
+        } catch (UnreachableHostException e) {
+            e.printStackTrace();
+        }
+    }
+
+    static class Payload {
+        private String name;
+        private int value;
+
+        Payload(String name, int value){
+            this.name=name;
+            this.value=value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Payload && ((Payload) o).name.equals(name) && ((Payload) o).value==value;
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode()*31+value;
+        }
+    }
+}
+class FloodAgent implements SocketUserAgentInterface{
+
+    static final byte[] MESSAGE=new byte[1<<16];
+    static final int MESSAGES=48;
+    private SocketConnection connection;
+
+    public FloodAgent(){
+    }
+
+    @Override
+    public void setConnection(SocketConnection connection) {
+        this.connection=connection;
+    }
+
+    @Override
+    public void shutdown() {
+        connection.shutdown();
+    }
+
+    @Override @SuppressWarnings("all")
+    public void run() {
+        try {
+            for (int i=0; i<MESSAGES; i++) connection.writeBytes(MESSAGE);
+        } catch (UnreachableHostException e) {
+            e.printStackTrace();
+        }
+    }
+}
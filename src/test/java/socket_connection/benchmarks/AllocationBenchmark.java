@@ -0,0 +1,105 @@
+package socket_connection.benchmarks;
+
+import socket_connection.socket_exceptions.exceptions.BadMessagesSequenceException;
+import socket_connection.tools.BinaryReader;
+import socket_connection.tools.BinaryWriter;
+import socket_connection.tools.DataFormatter;
+import socket_connection.tools.SynchronizedDataBuffer;
+import socket_connection.tools.TypedFrames;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * This benchmark measures the bytes allocated per message by the send path (prepare, box)
+ * and by the receive path (unbox, deliver to the buffer) of a connection, comparing the
+ * methods reusing buffers with the ones allocating new arrays.
+ * It isn't run by the test phase: run its main method.
+ */
+public class AllocationBenchmark {
+
+    private static final int ITERATIONS=20000;
+    private static final com.sun.management.ThreadMXBean threads=
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final double[] DOUBLES=new double[8];
+    private static long sink;
+
+    public static void main(String[] args) throws NoSuchAlgorithmException {
+        KeyPairGenerator generator=KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keys=generator.generateKeyPair();
+        System.out.printf("%-10s %-12s %-10s %12s %12s%n", "payload", "encryption", "path", "send B/msg", "recv B/msg");
+        for (boolean encryption : new boolean[]{false,true}){
+            DataFormatter formatter=new DataFormatter(StandardCharsets.UTF_8);
+            if(encryption) formatter.setUpEncryption(keys.getPrivate(),keys.getPublic());
+            String encryptionName=encryption ? "RSA" : "none";
+            measure("int", encryptionName, formatter,
+                    writer -> TypedFrames.writeInt(writer,42), SynchronizedDataBuffer::popInt);
+            measure("double[8]", encryptionName, formatter,
+                    writer -> TypedFrames.writeDoubleArray(writer,DOUBLES), SynchronizedDataBuffer::popDoubleArray);
+        }
+        if(sink==0) System.out.println();
+    }
+
+    private static void measure(String payload, String encryption, DataFormatter formatter, Payload write, Pop pop){
+        BinaryWriter output=new BinaryWriter();
+        write.writeOn(output);
+        byte[] frame=formatter.boxBytes(output.toByteArray());
+        SynchronizedDataBuffer buffer=new SynchronizedDataBuffer();
+        //reused buffers
+        long send=allocatedPerMessage(() -> {
+            output.reset();
+            write.writeOn(output);
+            ByteBuffer boxed=formatter.boxFrame(output.array(),0,output.size());
+            sink+=boxed.remaining();
+        });
+        long receive=allocatedPerMessage(() -> {
+            TypedFrames.deliver(formatter.unBoxFrame(frame,0,frame.length),buffer);
+            pop.popFrom(buffer);
+        });
+        System.out.printf("%-10s %-12s %-10s %12d %12d%n", payload, encryption, "reused", send, receive);
+        //new arrays for each message
+        send=allocatedPerMessage(() -> {
+            BinaryWriter writer=new BinaryWriter();
+            write.writeOn(writer);
+            sink+=formatter.boxBytes(writer.toByteArray()).length;
+        });
+        receive=allocatedPerMessage(() -> {
+            byte[] unBoxed=formatter.unBoxBytes(frame);
+            TypedFrames.deliver(new BinaryReader(unBoxed),buffer);
+            pop.popFrom(buffer);
+        });
+        System.out.printf("%-10s %-12s %-10s %12d %12d%n", payload, encryption, "allocating", send, receive);
+    }
+
+    private static long allocatedPerMessage(Operation operation){
+        try {
+            for (int i=0; i<ITERATIONS; i++) operation.run();
+            long threadId=Thread.currentThread().getId();
+            long allocated=threads.getThreadAllocatedBytes(threadId);
+            for (int i=0; i<ITERATIONS; i++) operation.run();
+            return (threads.getThreadAllocatedBytes(threadId)-allocated)/ITERATIONS;
+        } catch (BadMessagesSequenceException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Payload{
+        void writeOn(BinaryWriter writer);
+    }
+
+    @FunctionalInterface
+    private interface Pop{
+        void popFrom(SynchronizedDataBuffer buffer) throws BadMessagesSequenceException;
+    }
+
+    @FunctionalInterface
+    private interface Operation{
+        void run() throws BadMessagesSequenceException;
+    }
+}
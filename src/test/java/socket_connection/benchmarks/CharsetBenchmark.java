@@ -0,0 +1,67 @@
+package socket_connection.benchmarks;
+
+import socket_connection.tools.BinaryWriter;
+import socket_connection.tools.DataFormatter;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * This benchmark compares String.getBytes / new String with the encoding path of
+ * {@link DataFormatter} across payload sizes, reporting time, bytes on the wire and
+ * bytes allocated per message. It isn't run by the test phase: run its main method.
+ */
+public class CharsetBenchmark {
+
+    private static final int[] SIZES={16,256,4096,65536};
+    private static final int ITERATIONS=2000;
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        System.out.printf("%-8s %-10s %-24s %10s %10s %12s%n", "chars", "charset", "path", "bytes", "ns/msg", "alloc/msg");
+        for (int size : SIZES){
+            String text=payload(size);
+            for (Charset charset : new Charset[]{StandardCharsets.UTF_16, StandardCharsets.UTF_8}){
+                byte[] encoded=text.getBytes(charset);
+                DataFormatter formatter=new DataFormatter(charset);
+                BinaryWriter writer=new BinaryWriter(size*3);
+                run(size, charset, "String.getBytes", encoded.length, () -> sink+=text.getBytes(charset).length);
+                run(size, charset, "DataFormatter.encode", encoded.length, () -> {
+                    writer.reset();
+                    formatter.encode(text,writer);
+                    sink+=writer.size();
+                });
+                run(size, charset, "new String", encoded.length, () -> sink+=new String(encoded,charset).length());
+                run(size, charset, "DataFormatter.decode", encoded.length,
+                        () -> sink+=formatter.decode(encoded,0,encoded.length).length());
+            }
+        }
+        if(sink==0) System.out.println();
+    }
+
+    private static void run(int size, Charset charset, String path, int bytes, Runnable operation){
+        for (int i=0; i<ITERATIONS; i++) operation.run();
+        com.sun.management.ThreadMXBean threads=(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId=Thread.currentThread().getId();
+        long allocated=threads.getThreadAllocatedBytes(threadId);
+        long start=System.nanoTime();
+        for (int i=0; i<ITERATIONS; i++) operation.run();
+        long elapsed=System.nanoTime()-start;
+        allocated=threads.getThreadAllocatedBytes(threadId)-allocated;
+        System.out.printf("%-8d %-10s %-24s %10d %10d %12d%n", size, charset.name(), path,
+                bytes, elapsed/ITERATIONS, allocated/ITERATIONS);
+    }
+
+    /**
+     * @param size number of characters
+     * @return a JSON-like ASCII payload
+     */
+    private static String payload(int size){
+        String element="{\"row\":1,\"column\":2,\"level\":3},";
+        String repeated=String.join("", Collections.nCopies(size/element.length()+1, element));
+        return repeated.substring(0,size);
+    }
+}
@@ -0,0 +1,78 @@
+package socket_connection.benchmarks;
+
+import socket_connection.cryptography.SessionKeys;
+import socket_connection.cryptography.StandardCipherSuite;
+import socket_connection.tools.BinaryReader;
+import socket_connection.tools.DataFormatter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Random;
+
+/**
+ * This benchmark measures, for each cipher suite, the frames per second boxed by a host and
+ * unboxed by the remote host, and the bytes added to each frame.
+ * RSA is measured only with small frames: longer frames can't be encrypted with it.
+ * It isn't run by the test phase: run its main method.
+ */
+public class CipherSuiteBenchmark {
+
+    private static final int[] PAYLOADS={64,1024,16384};
+    private static final long DURATION_IN_NS=1_000_000_000L;
+    private static long sink;
+
+    public static void main(String[] args) throws GeneralSecurityException {
+        KeyPairGenerator generator=KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair clientKeys=generator.generateKeyPair();
+        KeyPair serverKeys=generator.generateKeyPair();
+        byte[] secret=SessionKeys.newSecret();
+        System.out.printf("%-18s %8s %12s %10s %10s%n", "suite", "payload", "frames/s", "MB/s", "overhead");
+        for (StandardCipherSuite suite : StandardCipherSuite.values()){
+            if(!suite.isAvailable()){
+                System.out.printf("%-18s not available%n", suite.getName());
+                continue;
+            }
+            DataFormatter sender=new DataFormatter(StandardCharsets.UTF_8);
+            sender.setUpEncryption(suite,new SessionKeys(serverKeys.getPrivate(),clientKeys.getPublic(),secret,true));
+            DataFormatter receiver=new DataFormatter(StandardCharsets.UTF_8);
+            receiver.setUpEncryption(suite,new SessionKeys(clientKeys.getPrivate(),serverKeys.getPublic(),secret,false));
+            for (int payload : PAYLOADS){
+                if(suite==StandardCipherSuite.RSA && payload>64) continue;
+                measure(suite.getName(),payload,sender,receiver);
+            }
+        }
+        if(sink==0) System.out.println();
+    }
+
+    private static void measure(String suite, int payload, DataFormatter sender, DataFormatter receiver){
+        byte[] message=new byte[payload];
+        new Random(payload).nextBytes(message);
+        int overhead=sender.boxFrame(message,0,message.length).remaining()-payload;
+        byte[] frame=new byte[payload+overhead];
+        //warm up
+        long end=System.nanoTime()+DURATION_IN_NS/2;
+        while (System.nanoTime()<end) roundTrip(message,frame,sender,receiver);
+        long frames=0;
+        long start=System.nanoTime();
+        end=start+DURATION_IN_NS;
+        while (System.nanoTime()<end){
+            roundTrip(message,frame,sender,receiver);
+            frames++;
+        }
+        double seconds=(System.nanoTime()-start)/1e9;
+        System.out.printf("%-18s %8d %12.0f %10.1f %10d%n", suite, payload, frames/seconds,
+                frames*(double) payload/seconds/(1<<20), overhead);
+    }
+
+    private static void roundTrip(byte[] message, byte[] frame, DataFormatter sender, DataFormatter receiver){
+        ByteBuffer boxed=sender.boxFrame(message,0,message.length);
+        int length=boxed.remaining();
+        boxed.get(frame,0,length);
+        BinaryReader reader=receiver.unBoxFrame(frame,0,length);
+        sink+=reader.remaining();
+    }
+}
@@ -0,0 +1,64 @@
+package socket_connection.benchmarks;
+
+import socket_connection.tools.CryptoWorkers;
+import socket_connection.tools.DataFormatter;
+import socket_connection.tools.OrderedPipeline;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * This benchmark measures the frames per second boxed and unboxed with RSA by a single thread
+ * and by the crypto workers through ordered pipelines, as a connection does with parallelCrypto enabled.
+ * It isn't run by the test phase: run its main method.
+ */
+public class ParallelCryptoBenchmark {
+
+    private static final int FRAMES=400;
+
+    public static void main(String[] args) throws NoSuchAlgorithmException, InterruptedException {
+        KeyPairGenerator generator=KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keys=generator.generateKeyPair();
+        DataFormatter formatter=new DataFormatter(StandardCharsets.UTF_8);
+        formatter.setUpEncryption(keys.getPrivate(),keys.getPublic());
+        byte[] message="{\"messageType\":\"GAME_STATE_UPDATE\",\"x\":10,\"y\":20}".getBytes(StandardCharsets.UTF_8);
+        System.out.printf("%-12s %10s %12s%n", "path", "threads", "frames/s");
+        for (int i=0; i<FRAMES; i++) formatter.unBoxBytes(formatter.boxBytes(message));
+        //sequential
+        long start=System.nanoTime();
+        for (int i=0; i<FRAMES; i++) formatter.unBoxBytes(formatter.boxBytes(message));
+        System.out.printf("%-12s %10d %12.0f%n", "sequential", 1, FRAMES*1e9/(System.nanoTime()-start));
+        //pipelines
+        ExecutorService workers=CryptoWorkers.getInstance(0);
+        CountDownLatch received=new CountDownLatch(FRAMES);
+        OrderedPipeline<byte[]> input=new OrderedPipeline<>(workers,64,
+                frame -> {
+                    formatter.unFrameBytes(frame);
+                    received.countDown();
+                }, ()->{});
+        BlockingQueue<byte[]> sent=new LinkedBlockingQueue<>();
+        OrderedPipeline<byte[]> output=new OrderedPipeline<>(workers,64,sent::put,()->{});
+        start=System.nanoTime();
+        for (int i=0; i<FRAMES; i++){
+            byte[] frame=formatter.frameBytes(message,0,message.length);
+            long sequence=formatter.nextOutputSequence();
+            output.submit(()->formatter.encryptBytes(frame,0,sequence));
+        }
+        //stages must not submit to other pipelines: they would wait for the workers they are using
+        for (int i=0; i<FRAMES; i++){
+            byte[] frame=sent.take();
+            long sequence=formatter.nextInputSequence();
+            input.submit(()->formatter.decryptBytes(frame,sequence));
+        }
+        received.await();
+        System.out.printf("%-12s %10d %12.0f%n", "pipelined", Runtime.getRuntime().availableProcessors(),
+                FRAMES*1e9/(System.nanoTime()-start));
+    }
+}
@@ -0,0 +1,75 @@
+package socket_connection.benchmarks;
+
+import socket_connection.tools.BinaryReader;
+import socket_connection.tools.BinaryWriter;
+import socket_connection.tools.StringTableDecoder;
+import socket_connection.tools.StringTableEncoder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * This benchmark measures the bytes per message saved by the string tables on a recorded
+ * message corpus. It isn't run by the test phase: run its main method.
+ */
+public class StringTableBenchmark {
+
+    private static final int[] TABLE_SIZES={16,64,256,1024};
+
+    public static void main(String[] args) throws IOException {
+        List<String> corpus=loadCorpus("/corpus/game_messages.txt");
+        long utf16=0;
+        long utf8=0;
+        for (String message : corpus){
+            utf16+=message.getBytes(StandardCharsets.UTF_16).length;
+            utf8+=message.getBytes(StandardCharsets.UTF_8).length;
+        }
+        System.out.printf("messages: %d%n", corpus.size());
+        System.out.printf("%-12s %10.1f bytes/message%n", "UTF-16", (double) utf16/corpus.size());
+        System.out.printf("%-12s %10.1f bytes/message%n", "UTF-8", (double) utf8/corpus.size());
+        //warm up
+        for (int i=0; i<20; i++) encodeCorpus(corpus,256);
+        for (int size : TABLE_SIZES){
+            StringTableEncoder encoder=new StringTableEncoder(size);
+            StringTableDecoder decoder=new StringTableDecoder(size);
+            BinaryWriter writer=new BinaryWriter();
+            long encoded=0;
+            long start=System.nanoTime();
+            for (String message : corpus){
+                writer.reset();
+                encoder.encode(message,writer);
+                encoded+=writer.size();
+                if(!message.equals(decoder.decode(new BinaryReader(writer.toByteArray()))))
+                    throw new AssertionError("tables out of sync");
+            }
+            long elapsed=System.nanoTime()-start;
+            System.out.printf("%-12s %10.1f bytes/message, saved %5.1f%% vs UTF-8 and %5.1f%% vs UTF-16, %6.0f ns/message%n",
+                    "table "+size, (double) encoded/corpus.size(), 100-100.0*encoded/utf8, 100-100.0*encoded/utf16,
+                    (double) elapsed/corpus.size());
+        }
+    }
+
+    private static long encodeCorpus(List<String> corpus, int size){
+        StringTableEncoder encoder=new StringTableEncoder(size);
+        StringTableDecoder decoder=new StringTableDecoder(size);
+        BinaryWriter writer=new BinaryWriter();
+        long length=0;
+        for (String message : corpus){
+            writer.reset();
+            encoder.encode(message,writer);
+            length+=decoder.decode(new BinaryReader(writer.toByteArray())).length();
+        }
+        return length;
+    }
+
+    private static List<String> loadCorpus(String resource) throws IOException {
+        try (BufferedReader reader=new BufferedReader(new InputStreamReader(
+                StringTableBenchmark.class.getResourceAsStream(resource), StandardCharsets.UTF_8))){
+            return reader.lines().filter(line->!line.isEmpty()).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package socket_connection.codecs;
+
+import org.junit.jupiter.api.Test;
+import socket_connection.socket_exceptions.runtime_exceptions.BadSetupException;
+import socket_connection.tools.BinaryReader;
+import socket_connection.tools.BinaryWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodecsTest {
+
+    //****************************************************************************************
+    //
+    //                         TEST: encode & decode
+    //
+    //****************************************************************************************
+
+    /**
+     * This test checks that an object encoded and than decoded with a GsonCodec is equal
+     * to the original one
+     */
+    @Test
+    void gsonCodecRoundTrip(){
+        Codec<Sample> codec=new GsonCodec<>(1,Sample.class);
+        Sample sample=Sample.create();
+        assertEquals(sample, roundTrip(codec,sample));
+    }
+
+    /**
+     * This test checks that an object encoded and than decoded with a BinaryCodec is equal
+     * to the original one, also with null and nested fields
+     */
+    @Test
+    void binaryCodecRoundTrip(){
+        Codec<Sample> codec=new BinaryCodec<>(1,Sample.class);
+        Sample sample=Sample.create();
+        assertEquals(sample, roundTrip(codec,sample));
+        sample.name=null;
+        sample.next=null;
+        assertEquals(sample, roundTrip(codec,sample));
+    }
+
+    /**
+     * This test checks that the binary codec is more compact than JSON
+     */
+    @Test
+    void binaryCodecIsCompact(){
+        Sample sample=Sample.create();
+        BinaryWriter json=new BinaryWriter();
+        new GsonCodec<>(1,Sample.class).encode(sample,json);
+        BinaryWriter binary=new BinaryWriter();
+        new BinaryCodec<>(1,Sample.class).encode(sample,binary);
+        assertTrue(binary.size()<json.size());
+    }
+
+    /**
+     * This test checks that a class without a default constructor can't be used with a BinaryCodec
+     */
+    @Test
+    void binaryCodecWithoutDefaultConstructor(){
+        assertThrows(BadSetupException.class, ()->new BinaryCodec<>(1,Integer.class));
+    }
+
+    //****************************************************************************************
+    //
+    //                         TEST: CodecRegistry
+    //
+    //****************************************************************************************
+
+    /**
+     * This test checks that registered codecs are found by type and by id, and that
+     * a generic codec is used for other types
+     */
+    @Test
+    void registryLookup(){
+        CodecRegistry registry=new CodecRegistry();
+        Codec<Sample> codec=new BinaryCodec<>(7,Sample.class);
+        registry.register(codec);
+        assertSame(codec, registry.codecFor(Sample.class));
+        assertSame(codec, registry.codecFor(7).orElse(null));
+        assertEquals(CodecRegistry.GENERIC_TYPE_ID, registry.codecFor(String.class).getTypeId());
+        assertFalse(registry.codecFor(8).isPresent());
+    }
+
+    /**
+     * This test checks that an id can't be used for two types, and that the generic id is reserved
+     */
+    @Test
+    void registryRejectsConflicts(){
+        CodecRegistry registry=new CodecRegistry();
+        registry.register(new BinaryCodec<>(7,Sample.class));
+        assertThrows(BadSetupException.class, ()->registry.register(new GsonCodec<>(7,String.class)));
+        assertThrows(BadSetupException.class, ()->registry.register(new GsonCodec<>(CodecRegistry.GENERIC_TYPE_ID,String.class)));
+    }
+
+    /**
+     * This test checks that a codec registered again for a type replaces the previous one and frees its id
+     */
+    @Test
+    void registryReplacesCodecOfType(){
+        CodecRegistry registry=new CodecRegistry();
+        registry.register(new BinaryCodec<>(7,Sample.class));
+        Codec<Sample> codec=new BinaryCodec<>(8,Sample.class);
+        registry.register(codec);
+        assertSame(codec, registry.codecFor(Sample.class));
+        assertSame(codec, registry.codecFor(8).orElse(null));
+        assertFalse(registry.codecFor(7).isPresent());
+        registry.register(new GsonCodec<>(7,String.class));
+    }
+
+    //---------------------------------------------------------------------------------------
+    //
+    //                                 SUPPORT METHODS
+    //
+    //---------------------------------------------------------------------------------------
+
+    private <T> T roundTrip(Codec<T> codec, T value){
+        BinaryWriter writer=new BinaryWriter();
+        codec.encode(value,writer);
+        byte[] bytes=writer.toByteArray();
+        return codec.decode(new BinaryReader(bytes));
+    }
+
+    enum Color {RED, GREEN}
+
+    static class Sample {
+        private int id;
+        private long time;
+        private double score;
+        private boolean active;
+        private String name;
+        private Color color;
+        private Integer boxed;
+        private Sample next;
+
+        Sample(){
+        }
+
+        static Sample create(){
+            Sample sample=new Sample();
+            sample.id=-3;
+            sample.time=123456789L;
+            sample.score=0.75;
+            sample.active=true;
+            sample.name="player";
+            sample.color=Color.GREEN;
+            sample.next=new Sample();
+            sample.next.name="nested";
+            return sample;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Sample)) return false;
+            Sample other=(Sample) o;
+            return id==other.id && time==other.time && score==other.score && active==other.active
+                    && java.util.Objects.equals(name,other.name) && color==other.color
+                    && java.util.Objects.equals(boxed,other.boxed) && java.util.Objects.equals(next,other.next);
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+    }
+}
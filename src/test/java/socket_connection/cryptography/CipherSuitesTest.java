@@ -0,0 +1,240 @@
+package socket_connection.cryptography;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import socket_connection.socket_exceptions.runtime_exceptions.BadSetupException;
+import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
+import socket_connection.tools.BinaryReader;
+import socket_connection.tools.DataFormatter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CipherSuitesTest {
+
+    private static KeyPair clientKeys;
+    private static KeyPair serverKeys;
+
+    @BeforeAll
+    static void generateKeys() throws GeneralSecurityException {
+        KeyPairGenerator generator=KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        clientKeys=generator.generateKeyPair();
+        serverKeys=generator.generateKeyPair();
+    }
+
+    /**
+     * This test ensure that frames boxed by a host with each suite are unboxed
+     * by the remote host, and that the secret sent by the server is read by the client
+     */
+    @Test
+    void boxAndUnBoxWithEachSuite() throws GeneralSecurityException {
+        byte[] secret=SessionKeys.newSecret();
+        byte[] received=SessionKeys.unwrapSecret(SessionKeys.wrapSecret(secret,clientKeys.getPublic()),clientKeys.getPrivate());
+        assertArrayEquals(secret,received);
+        byte[] message="{\"messageType\":\"GAME_STATE_UPDATE\"}".getBytes(StandardCharsets.UTF_8);
+        for (StandardCipherSuite suite : StandardCipherSuite.values()){
+            if(!suite.isAvailable()) continue;
+            DataFormatter server=formatter(suite,serverKeys,clientKeys,secret,true);
+            DataFormatter client=formatter(suite,clientKeys,serverKeys,received,false);
+            for (int i=0; i<3; i++){
+                assertArrayEquals(message,client.unBoxBytes(server.boxBytes(message)),suite.getName());
+                assertArrayEquals(message,server.unFrameBytes(server.decryptBytes(client.encryptBytes(
+                        client.frameBytes(message,0,message.length)))),suite.getName());
+                ByteBuffer boxed=client.boxFrame(message,0,message.length);
+                byte[] frame=new byte[boxed.remaining()];
+                boxed.get(frame);
+                BinaryReader reader=server.unBoxFrame(frame,0,frame.length);
+                assertEquals(message.length,reader.remaining(),suite.getName());
+            }
+        }
+    }
+
+    /**
+     * This test ensure that authenticated suites reject modified frames and frames
+     * sent with another key
+     */
+    @Test
+    void rejectFramesNotAuthentic() throws GeneralSecurityException {
+        byte[] secret=SessionKeys.newSecret();
+        byte[] message="authentic message".getBytes(StandardCharsets.UTF_8);
+        for (StandardCipherSuite suite : StandardCipherSuite.values()){
+            if(!suite.isAvailable() || !suite.isAuthenticated()) continue;
+            DataFormatter server=formatter(suite,serverKeys,clientKeys,secret,true);
+            DataFormatter client=formatter(suite,clientKeys,serverKeys,secret,false);
+            byte[] boxed=server.boxBytes(message);
+            boxed[boxed.length/2]^=1;
+            assertThrows(UndefinedInputTypeException.class,()->client.unBoxBytes(boxed),suite.getName());
+            assertThrows(UndefinedInputTypeException.class,()->client.unBoxFrame(boxed,0,boxed.length),suite.getName());
+            //a frame sent by the client can't be read as sent by the server
+            byte[] reflected=client.boxBytes(message);
+            assertThrows(UndefinedInputTypeException.class,()->client.unBoxBytes(reflected),suite.getName());
+        }
+    }
+
+    /**
+     * This test ensure that the keys of rekeyable suites are rotated while frames are in flight:
+     * frames sent before and after the rotation are read whether they are decrypted before
+     * or after the rekey frame is computed
+     */
+    @Test
+    void rotateKeysDuringSession() throws GeneralSecurityException {
+        byte[] secret=SessionKeys.newSecret();
+        byte[] message="message around a rotation".getBytes(StandardCharsets.UTF_8);
+        for (StandardCipherSuite suite : StandardCipherSuite.values()){
+            if(!suite.isAvailable()) continue;
+            DataFormatter server=formatter(suite,serverKeys,clientKeys,secret,true);
+            DataFormatter client=formatter(suite,clientKeys,serverKeys,secret,false);
+            assertEquals(suite.isRekeyable(),server.isRekeyable(),suite.getName());
+            if(!suite.isRekeyable()){
+                assertThrows(GeneralSecurityException.class,server::rekeyOutput,suite.getName());
+                continue;
+            }
+            byte[] oldFrame=server.encryptBytes(server.frameBytes(message,0,message.length),0,server.nextOutputSequence());
+            assertEquals(1,server.rekeyOutput(),suite.getName());
+            byte[] newFrame=server.boxBytes(message);
+            //frames are numbered when they are received, and decrypted in parallel
+            long oldSequence=client.nextInputSequence();
+            long newSequence=client.nextInputSequence();
+            //the new key is used before the rekey frame is computed
+            assertArrayEquals(message,client.unFrameBytes(client.decryptBytes(newFrame,newSequence)),suite.getName());
+            client.rekeyInput(1);
+            //the previous key is used after the rekey frame is computed
+            assertArrayEquals(message,client.unFrameBytes(client.decryptBytes(oldFrame,oldSequence)),suite.getName());
+            ByteBuffer boxed=server.boxFrame(message,0,message.length);
+            byte[] frame=new byte[boxed.remaining()];
+            boxed.get(frame);
+            assertEquals(message.length,client.unBoxFrame(frame,0,frame.length).remaining(),suite.getName());
+            assertThrows(UndefinedInputTypeException.class,()->client.rekeyInput(3),suite.getName());
+            //keys older than the previous one aren't accepted
+            server.rekeyOutput();
+            client.rekeyInput(2);
+            server.rekeyOutput();
+            client.rekeyInput(3);
+            assertThrows(UndefinedInputTypeException.class,()->client.decryptBytes(oldFrame,oldSequence),suite.getName());
+            assertArrayEquals(message,client.unBoxBytes(server.boxBytes(message)),suite.getName());
+        }
+    }
+
+    /**
+     * This test ensure that authenticated suites reject frames replayed, reordered or dropped
+     */
+    @Test
+    void rejectFramesOutOfSequence() throws GeneralSecurityException {
+        byte[] secret=SessionKeys.newSecret();
+        byte[] first="first".getBytes(StandardCharsets.UTF_8);
+        byte[] second="second".getBytes(StandardCharsets.UTF_8);
+        for (StandardCipherSuite suite : StandardCipherSuite.values()){
+            if(!suite.isAvailable() || !suite.isAuthenticated()) continue;
+            DataFormatter server=formatter(suite,serverKeys,clientKeys,secret,true);
+            DataFormatter client=formatter(suite,clientKeys,serverKeys,secret,false);
+            byte[] firstFrame=server.boxBytes(first);
+            byte[] secondFrame=server.boxBytes(second);
+            assertThrows(UndefinedInputTypeException.class,()->client.decryptBytes(secondFrame,0),suite.getName());
+            assertArrayEquals(first,client.unBoxBytes(firstFrame),suite.getName());
+            assertThrows(UndefinedInputTypeException.class,()->client.unBoxBytes(firstFrame),suite.getName());
+            assertArrayEquals(second,client.unFrameBytes(client.decryptBytes(secondFrame,1)),suite.getName());
+        }
+    }
+
+    /**
+     * This test ensure that frames encrypted in parallel with the same key never
+     * repeat a nonce, and that they are decrypted with their sequence numbers
+     */
+    @Test
+    void encryptFramesInParallel() throws GeneralSecurityException, InterruptedException, ExecutionException {
+        byte[] secret=SessionKeys.newSecret();
+        byte[] message="the same message".getBytes(StandardCharsets.UTF_8);
+        ExecutorService executor=Executors.newFixedThreadPool(4);
+        for (StandardCipherSuite suite : StandardCipherSuite.values()){
+            if(!suite.isAvailable() || !suite.isAuthenticated()) continue;
+            DataFormatter server=formatter(suite,serverKeys,clientKeys,secret,true);
+            DataFormatter client=formatter(suite,clientKeys,serverKeys,secret,false);
+            List<Future<byte[]>> encrypted=new ArrayList<>();
+            for (int i=0; i<64; i++){
+                byte[] frame=server.frameBytes(message,0,message.length);
+                long sequence=server.nextOutputSequence();
+                encrypted.add(executor.submit(()->server.encryptBytes(frame,0,sequence)));
+            }
+            Set<String> sent=new HashSet<>();
+            for (Future<byte[]> frame : encrypted){
+                assertTrue(sent.add(Arrays.toString(frame.get())),suite.getName());
+                assertArrayEquals(message,client.unBoxBytes(frame.get()),suite.getName());
+            }
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * This test ensure that control frames are boxed without framing them again, and that
+     * they are encrypted each time they are sent
+     */
+    @Test
+    void boxControlFrames() throws GeneralSecurityException {
+        byte[] secret=SessionKeys.newSecret();
+        byte[] frame=DataFormatter.plainFrame("control".getBytes(StandardCharsets.UTF_8));
+        for (StandardCipherSuite suite : StandardCipherSuite.values()){
+            if(!suite.isAvailable()) continue;
+            DataFormatter server=formatter(suite,serverKeys,clientKeys,secret,true);
+            DataFormatter client=formatter(suite,clientKeys,serverKeys,secret,false);
+            byte[] boxed=server.boxControlFrame(frame);
+            assertEquals(suite==StandardCipherSuite.NONE,boxed==frame,suite.getName());
+            assertArrayEquals("control".getBytes(StandardCharsets.UTF_8),client.unBoxBytes(boxed),suite.getName());
+            assertArrayEquals("control".getBytes(StandardCharsets.UTF_8),client.unBoxBytes(server.boxControlFrame(frame)),suite.getName());
+        }
+    }
+
+    /**
+     * This test ensure that suites are found by name only if they are available
+     */
+    @Test
+    void findSuitesByName() {
+        assertEquals(StandardCipherSuite.AES_GCM,CipherSuites.get("AES-GCM").orElse(null));
+        assertFalse(CipherSuites.get("UNKNOWN").isPresent());
+        assertFalse(CipherSuites.get(null).isPresent());
+        assertArrayEquals(new String[]{"HMAC-SHA256","NONE"},CipherSuites.available("UNKNOWN","HMAC-SHA256","NONE","NONE"));
+        CipherSuites.register(StandardCipherSuite.NONE);
+        assertThrows(BadSetupException.class,()->CipherSuites.register(new CipherSuite() {
+            @Override
+            public String getName() {
+                return "AES-GCM";
+            }
+
+            @Override
+            public boolean isAuthenticated() {
+                return false;
+            }
+
+            @Override
+            public Encrypter newEncrypter(SessionKeys keys) {
+                return null;
+            }
+
+            @Override
+            public Decrypter newDecrypter(SessionKeys keys) {
+                return null;
+            }
+        }));
+    }
+
+    private static DataFormatter formatter(CipherSuite suite, KeyPair myKeys, KeyPair foreignKeys, byte[] secret, boolean serverSide)
+            throws GeneralSecurityException {
+        DataFormatter formatter=new DataFormatter(StandardCharsets.UTF_8);
+        formatter.setUpEncryption(suite,new SessionKeys(myKeys.getPrivate(),foreignKeys.getPublic(),secret,serverSide));
+        return formatter;
+    }
+}
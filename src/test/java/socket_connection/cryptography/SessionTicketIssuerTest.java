@@ -0,0 +1,51 @@
+package socket_connection.cryptography;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionTicketIssuerTest {
+
+    /**
+     * This test ensure that a ticket can be redeemed once, only for the suite it was issued for
+     */
+    @Test
+    void redeemTicketsOnce() throws GeneralSecurityException {
+        SessionTicketIssuer issuer=new SessionTicketIssuer(16,60000);
+        byte[] secret=SessionKeys.newSecret();
+        byte[] ticket=issuer.issue(secret,"AES-GCM");
+        byte[] otherTicket=issuer.issue(secret,"AES-GCM");
+        assertFalse(issuer.redeem(otherTicket,"HMAC-SHA256").isPresent());
+        SessionTicketIssuer.Ticket redeemed=issuer.redeem(ticket,"AES-GCM").orElseThrow(AssertionError::new);
+        assertArrayEquals(secret,redeemed.getSecret());
+        assertEquals("AES-GCM",redeemed.getCipherSuite());
+        assertFalse(issuer.redeem(ticket,"AES-GCM").isPresent());
+        ticket[ticket.length-1]^=1;
+        assertFalse(issuer.redeem(ticket,"AES-GCM").isPresent());
+        assertFalse(new SessionTicketIssuer(16,60000).redeem(otherTicket,"AES-GCM").isPresent());
+        assertEquals(2,issuer.getStatistics().getIssuedTickets());
+        assertEquals(4,issuer.getStatistics().getAttempts());
+        assertEquals(0.25,issuer.getStatistics().getHitRate());
+    }
+
+    /**
+     * This test ensure that tickets expire and that the server keeps only the last tickets issued
+     */
+    @Test
+    void expireAndEvictTickets() throws GeneralSecurityException {
+        AtomicLong now=new AtomicLong();
+        SessionTicketIssuer issuer=new SessionTicketIssuer(2,1000,now::get);
+        byte[] secret=SessionKeys.newSecret();
+        byte[] evicted=issuer.issue(secret,"AES-GCM");
+        byte[] expired=issuer.issue(secret,"AES-GCM");
+        now.set(500);
+        byte[] valid=issuer.issue(secret,"AES-GCM");
+        assertFalse(issuer.redeem(evicted,"AES-GCM").isPresent());
+        now.set(1001);
+        assertFalse(issuer.redeem(expired,"AES-GCM").isPresent());
+        assertTrue(issuer.redeem(valid,"AES-GCM").isPresent());
+    }
+}
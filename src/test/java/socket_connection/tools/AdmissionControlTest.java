@@ -0,0 +1,53 @@
+package socket_connection.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTest {
+
+    /**
+     * This test ensure that connections over the total limit or over the limit of their
+     * address are rejected, and admitted again when a connection is released
+     */
+    @Test
+    void limitConnections() throws UnknownHostException {
+        AdmissionControl admission=new AdmissionControl(3,2,0,0,0,0);
+        InetAddress first=InetAddress.getByAddress(new byte[]{10,0,0,1});
+        InetAddress second=InetAddress.getByAddress(new byte[]{10,0,0,2});
+        assertTrue(admission.admit(first));
+        assertTrue(admission.admit(first));
+        assertFalse(admission.admit(first));
+        assertTrue(admission.admit(second));
+        assertFalse(admission.admit(second));
+        admission.release(first);
+        assertTrue(admission.admit(second));
+        assertFalse(admission.admit(first));
+        AdmissionStatistics statistics=admission.getStatistics();
+        assertEquals(4,statistics.getAccepted());
+        assertEquals(1,statistics.getRejectedOverAddressLimit());
+        assertEquals(2,statistics.getRejectedOverLimit());
+        assertNull(admission.newInputLimit());
+    }
+
+    /**
+     * This test ensure that new connections and inputs are rejected once their bucket is empty
+     */
+    @Test
+    void limitRates() throws UnknownHostException {
+        AdmissionControl admission=new AdmissionControl(0,0,0.001,2,0.001,3);
+        InetAddress address=InetAddress.getByAddress(new byte[]{10,0,0,1});
+        assertTrue(admission.admit(address));
+        assertTrue(admission.admit(address));
+        assertFalse(admission.admit(address));
+        TokenBucket inputs=admission.newInputLimit();
+        for (int i=0; i<3; i++) assertTrue(inputs.tryAcquire());
+        assertFalse(inputs.tryAcquire());
+        assertEquals(1,admission.getStatistics().getRejectedOverRate());
+        assertEquals(1,admission.getStatistics().getThrottledInputs());
+        assertEquals(1,admission.getStatistics().getRejected());
+    }
+}
@@ -0,0 +1,33 @@
+package socket_connection.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackoffTest {
+
+    /**
+     * This test ensure that the limit of the delay doubles at each attempt up to the maximum,
+     * and that delays are spread between 0 and the limit
+     */
+    @Test
+    void delaysGrowWithJitter() {
+        Random random=new Random(42);
+        Backoff backoff=new Backoff(100,1000,()->random);
+        assertEquals(100,backoff.limitInMs(0));
+        assertEquals(400,backoff.limitInMs(2));
+        assertEquals(1000,backoff.limitInMs(4));
+        assertEquals(1000,backoff.limitInMs(Integer.MAX_VALUE));
+        long min=Long.MAX_VALUE;
+        long max=0;
+        for (int i=0; i<1000; i++){
+            long delay=backoff.delayInMs(3);
+            min=Math.min(min,delay);
+            max=Math.max(max,delay);
+        }
+        assertTrue(min>=0 && min<80);
+        assertTrue(max<=800 && max>720);
+    }
+}
@@ -1,7 +1,9 @@
 package socket_connection.tools;
 
 import org.junit.jupiter.api.Test;
+import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
@@ -9,9 +11,14 @@ import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 
 class DataFormatterTest {
@@ -68,4 +75,142 @@ class DataFormatterTest {
         //check that a formatter can't decrypt the message if it was not initialized with the private key
         assertEquals(casualData,trialFormatter.unBox(trialFormatter.box(casualData)));
     }
+
+    /**
+     * This test ensure that frames longer than the threshold are compressed
+     * and that unboxing them produces the same data
+     */
+    @Test
+    void boxAndUnBoxCorrectlyWithCompression() {
+        StringBuilder builder=new StringBuilder();
+        for (int i=0; i<200; i++) builder.append("{\"player\":").append(i%4).append(",\"score\":0}");
+        byte[] longData=builder.toString().getBytes(StandardCharsets.UTF_16);
+        byte[] shortData="data".getBytes(StandardCharsets.UTF_16);
+        byte[] dictionary="{\"player\":,\"score\":}".getBytes(StandardCharsets.UTF_16);
+        DataFormatter formatter=new DataFormatter(StandardCharsets.UTF_16);
+        formatter.setUpCompression(64,6,dictionary);
+        byte[] boxed=formatter.boxBytes(longData);
+        assertTrue(boxed.length<longData.length/10);
+        assertArrayEquals(longData,formatter.unBoxBytes(boxed));
+        assertArrayEquals(shortData,formatter.unBoxBytes(formatter.boxBytes(shortData)));
+        CompressionStatistics statistics=formatter.getCompressionStatistics();
+        assertEquals(1,statistics.getCompressedMessages());
+        assertEquals(1,statistics.getDecompressedMessages());
+        assertTrue(statistics.getCompressionRatio()<0.1);
+        //a formatter without compression can't read compressed frames
+        assertThrows(UndefinedInputTypeException.class,()->new DataFormatter(StandardCharsets.UTF_16).unBoxBytes(boxed));
+    }
+
+    /**
+     * This test ensure that a compressed frame declaring a length bigger than
+     * the max length of a frame is refused before allocating its buffer
+     */
+    @Test
+    void refuseOversizedCompressedFrame() {
+        DataFormatter formatter=new DataFormatter(StandardCharsets.UTF_16);
+        formatter.setUpCompression(64,6,new byte[0]);
+        byte[] oversized=new BinaryWriter().writeByte(1).writeVarInt(Integer.MAX_VALUE).writeBytes(new byte[16]).toByteArray();
+        assertThrows(UndefinedInputTypeException.class,()->formatter.unBoxBytes(oversized));
+        byte[] justOversized=new BinaryWriter().writeByte(1).writeVarInt(SocketStreamsHandler.MAX_FRAME_LENGTH+1).writeBytes(new byte[16]).toByteArray();
+        assertThrows(UndefinedInputTypeException.class,()->formatter.unBoxBytes(justOversized));
+        assertEquals(0,formatter.getCompressionStatistics().getDecompressedMessages());
+    }
+
+    /**
+     * This test ensure that texts encoded by the formatter are equal to the ones
+     * produced by String.getBytes and that they are decoded correctly, with the
+     * UTF-8 fast path and with reused encoders
+     */
+    @Test
+    void encodeAndDecodeLikeStringWithAllStandardCharsets() {
+        String[] texts={"", "ascii only", "àèìòù €", "emoji \uD83D\uDE00 end", "unpaired \uD800 surrogate",
+                String.join("", Collections.nCopies(1000, "long text "))};
+        Charset[] charsets={StandardCharsets.UTF_8, StandardCharsets.UTF_16, StandardCharsets.UTF_16LE,
+                StandardCharsets.US_ASCII, StandardCharsets.ISO_8859_1};
+        for (Charset charset : charsets){
+            DataFormatter formatter=new DataFormatter(charset);
+            for (String text : texts){
+                BinaryWriter writer=new BinaryWriter();
+                formatter.encode(text,writer);
+                byte[] expected=text.getBytes(charset);
+                assertArrayEquals(expected,writer.toByteArray(),charset+": "+text);
+                assertEquals(new String(expected,charset),formatter.decode(expected,0,expected.length));
+            }
+        }
+        for (String text : texts)
+            assertEquals(text.getBytes(StandardCharsets.UTF_8).length,BinaryWriter.utf8Length(text,0,text.length()));
+    }
+
+    /**
+     * This test ensure that the charset can be changed after the creation of the formatter
+     */
+    @Test
+    void changeCharset() {
+        DataFormatter formatter=new DataFormatter(StandardCharsets.UTF_16);
+        formatter.setUpCharset(StandardCharsets.UTF_8);
+        BinaryWriter writer=new BinaryWriter();
+        formatter.encode("data",writer);
+        assertEquals(4,writer.size());
+        assertEquals(StandardCharsets.UTF_8,formatter.getCharset());
+    }
+
+    /**
+     * This test ensure that frames boxed with reused buffers are unboxed correctly,
+     * also by the methods allocating new arrays, with encryption and compression
+     */
+    @Test
+    void boxAndUnBoxFramesWithReusedBuffers() throws NoSuchAlgorithmException {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(2048);
+        KeyPair kp = kpg.generateKeyPair();
+        DataFormatter formatter=new DataFormatter(StandardCharsets.UTF_8);
+        formatter.setUpEncryption(kp.getPrivate(),kp.getPublic());
+        formatter.setUpCompression(64,6,new byte[0]);
+        byte[][] messages={"short".getBytes(StandardCharsets.UTF_8),new byte[100],new byte[5000],new byte[3]};
+        for (byte[] message : messages){
+            ByteBuffer boxed=formatter.boxFrame(message,0,message.length);
+            byte[] frame=new byte[boxed.remaining()+2];
+            boxed.get(frame,1,frame.length-2);
+            BinaryReader reader=formatter.unBoxFrame(frame,1,frame.length-2);
+            assertEquals(message.length,reader.remaining());
+            byte[] unBoxed=new byte[message.length];
+            System.arraycopy(reader.array(),reader.position(),unBoxed,0,unBoxed.length);
+            assertArrayEquals(message,unBoxed);
+            assertArrayEquals(message,formatter.unBoxBytes(formatter.boxBytes(message)));
+        }
+    }
+
+    /**
+     * This test ensure that frames encrypted and decrypted by several threads
+     * are unboxed correctly
+     */
+    @Test
+    void encryptAndDecryptFramesInParallel() throws NoSuchAlgorithmException, InterruptedException, ExecutionException {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(2048);
+        KeyPair kp = kpg.generateKeyPair();
+        DataFormatter formatter=new DataFormatter(StandardCharsets.UTF_8);
+        formatter.setUpEncryption(kp.getPrivate(),kp.getPublic());
+        formatter.setUpCompression(64,6,new byte[0]);
+        ExecutorService executor=Executors.newFixedThreadPool(4);
+        List<byte[]> messages=new ArrayList<>();
+        List<Future<byte[]>> encrypted=new ArrayList<>();
+        for (int i=0; i<16; i++){
+            byte[] message=("message number "+i).getBytes(StandardCharsets.UTF_8);
+            byte[] frame=formatter.frameBytes(message,0,message.length);
+            long sequence=formatter.nextOutputSequence();
+            messages.add(message);
+            encrypted.add(executor.submit(()->formatter.encryptBytes(frame,0,sequence)));
+        }
+        List<Future<byte[]>> decrypted=new ArrayList<>();
+        for (Future<byte[]> frame : encrypted){
+            byte[] toDecrypt=frame.get();
+            long sequence=formatter.nextInputSequence();
+            decrypted.add(executor.submit(()->formatter.decryptBytes(toDecrypt,sequence)));
+        }
+        for (int i=0; i<messages.size(); i++)
+            assertArrayEquals(messages.get(i),formatter.unFrameBytes(decrypted.get(i).get()));
+        executor.shutdown();
+    }
 }
+
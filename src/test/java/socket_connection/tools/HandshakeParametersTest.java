@@ -0,0 +1,94 @@
+package socket_connection.tools;
+
+import org.junit.jupiter.api.Test;
+import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HandshakeParametersTest {
+
+    /**
+     * This test ensure that the server chooses parameters supported by both hosts
+     */
+    @Test
+    void negotiateCommonParameters() {
+        HandshakeParameters server=new HandshakeParameters(true,42,256,"UTF-8","UTF-16");
+        HandshakeParameters client=HandshakeParameters.fromFrame(
+                new HandshakeParameters(true,42,64,"UTF-16","UTF-8").toFrame());
+        HandshakeParameters session=HandshakeParameters.fromFrame(server.negotiate(client).toFrame());
+        assertTrue(session.isCompression());
+        assertEquals(64,session.getStringTableSize());
+        assertEquals("UTF-8",session.getCharset());
+    }
+
+    /**
+     * This test ensure that compression and charsets are not used if hosts don't agree
+     */
+    @Test
+    void negotiateWithoutAgreement() {
+        HandshakeParameters server=new HandshakeParameters(true,42,256,"UTF-8");
+        HandshakeParameters session=server.negotiate(new HandshakeParameters(true,7,0,"UTF-16"));
+        assertFalse(session.isCompression());
+        assertEquals(0,session.getStringTableSize());
+        assertNull(session.getCharset());
+        //parameters sent by a host that doesn't know some fields
+        session=server.negotiate(HandshakeParameters.fromFrame("{}".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(session.isCompression());
+        assertNull(session.getCharset());
+        assertThrows(UndefinedInputTypeException.class,()->HandshakeParameters.fromFrame(new byte[]{1,2,3}));
+    }
+
+    /**
+     * This test ensure that the server chooses the first of its cipher suites proposed by the client
+     * and that hosts not proposing suites use RSA
+     */
+    @Test
+    void negotiateCipherSuite() {
+        HandshakeParameters server=new HandshakeParameters(true,42,256,"UTF-8")
+                .withCipherSuites("HMAC-SHA256","AES-GCM","RSA");
+        HandshakeParameters client=new HandshakeParameters(true,42,256,"UTF-8")
+                .withCipherSuites("AES-GCM","HMAC-SHA256");
+        HandshakeParameters session=HandshakeParameters.fromFrame(
+                server.negotiate(client).withSessionKey(new byte[]{1,2,3}).toFrame());
+        assertEquals("HMAC-SHA256",session.getCipherSuite());
+        assertArrayEquals(new byte[]{1,2,3},session.getSessionKey());
+        assertEquals("RSA",server.negotiate(HandshakeParameters.fromFrame("{}".getBytes(StandardCharsets.UTF_8)))
+                .getCipherSuite());
+        assertNull(server.withCipherSuites("AES-GCM").negotiate(client.withCipherSuites("NONE")).getCipherSuite());
+        assertNull(client.getSessionKey());
+    }
+
+    /**
+     * This test ensure that the client refuses a cipher suite it didn't propose,
+     * so that the server can't downgrade the session
+     */
+    @Test
+    void refuseCipherSuiteNotProposed() {
+        HandshakeParameters client=new HandshakeParameters(true,42,256,"UTF-8")
+                .withCipherSuites("AES-GCM","HMAC-SHA256");
+        HandshakeParameters session=new HandshakeParameters(true,42,256,"UTF-8").withCipherSuites("HMAC-SHA256");
+        assertEquals("HMAC-SHA256",client.accept(session).getCipherSuite());
+        assertThrows(UndefinedInputTypeException.class,
+                ()->client.accept(HandshakeParameters.fromFrame(session.withCipherSuites("NONE").toFrame())));
+        //a server that doesn't send suites is considered as choosing RSA
+        assertThrows(UndefinedInputTypeException.class,
+                ()->client.accept(HandshakeParameters.fromFrame("{}".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * This test ensure that the client refuses a charset it didn't propose and
+     * doesn't use string tables bigger than the ones it proposed
+     */
+    @Test
+    void limitParametersToProposal() {
+        HandshakeParameters client=new HandshakeParameters(true,42,64,"UTF-16","UTF-8");
+        HandshakeParameters session=client.accept(new HandshakeParameters(true,42,Integer.MAX_VALUE,"UTF-8"));
+        assertEquals(64,session.getStringTableSize());
+        assertEquals("UTF-8",session.getCharset());
+        assertEquals(16,client.accept(new HandshakeParameters(true,42,16,"UTF-16")).getStringTableSize());
+        assertThrows(UndefinedInputTypeException.class,
+                ()->client.accept(new HandshakeParameters(true,42,16,"ISO-8859-1")));
+    }
+}
@@ -0,0 +1,34 @@
+package socket_connection.tools;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadShedderTest {
+
+    /**
+     * This test ensure that the level follows the highest signal and that levels are left
+     * only under the recovery ratio of their threshold
+     */
+    @Test
+    void shedLoadWithHysteresis() {
+        LoadShedder shedder=new LoadShedder(100,10,1000,2,0.5);
+        assertTrue(shedder.isEnabled());
+        assertEquals(LoadShedder.Level.NORMAL,shedder.update(50,5,500));
+        assertTrue(shedder.admitsHandshakes());
+        assertEquals(LoadShedder.Level.ELEVATED,shedder.update(0,0,1000));
+        assertFalse(shedder.admitsHandshakes());
+        assertFalse(shedder.isAcceptPaused());
+        assertEquals(LoadShedder.Level.CRITICAL,shedder.update(250,0,0));
+        assertTrue(shedder.isAcceptPaused());
+        //under the threshold of the level, but not under its recovery ratio
+        assertEquals(LoadShedder.Level.CRITICAL,shedder.update(150,0,0));
+        //levels are left one at a time
+        assertEquals(LoadShedder.Level.ELEVATED,shedder.update(60,0,0));
+        assertEquals(LoadShedder.Level.ELEVATED,shedder.update(0,6,0));
+        assertEquals(LoadShedder.Level.NORMAL,shedder.update(0,4,0));
+        assertEquals(4,shedder.getLevelChanges());
+        assertEquals(0.4,shedder.getLoad(),1e-9);
+        assertFalse(new LoadShedder(0,0,0,2,0.5).isEnabled());
+    }
+}
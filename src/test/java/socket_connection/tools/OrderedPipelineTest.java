@@ -0,0 +1,64 @@
+package socket_connection.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderedPipelineTest {
+
+    /**
+     * This test ensure that results are delivered in submission order even if
+     * tasks end in a different order
+     */
+    @Test
+    void deliverResultsInSubmissionOrder() throws InterruptedException {
+        ExecutorService executor=Executors.newFixedThreadPool(4);
+        List<Integer> delivered=Collections.synchronizedList(new ArrayList<>());
+        OrderedPipeline<Integer> pipeline=new OrderedPipeline<>(executor,8,delivered::add,()->{});
+        for (int i=0; i<100; i++){
+            int value=i;
+            pipeline.submit(()->{
+                Thread.sleep((100-value)%7);
+                return value;
+            });
+        }
+        await().atMost(5, TimeUnit.SECONDS).until(()->delivered.size()==100);
+        for (int i=0; i<100; i++) assertEquals(i,(int) delivered.get(i));
+        assertFalse(pipeline.isFailed());
+        executor.shutdown();
+    }
+
+    /**
+     * This test ensure that a failure is notified once and that
+     * the following results are discarded
+     */
+    @Test
+    void stopDeliveringAfterAFailure() throws InterruptedException {
+        ExecutorService executor=Executors.newFixedThreadPool(4);
+        List<Integer> delivered=Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failures=new AtomicInteger();
+        OrderedPipeline<Integer> pipeline=new OrderedPipeline<>(executor,4,delivered::add,failures::incrementAndGet);
+        for (int i=0; i<20; i++){
+            int value=i;
+            pipeline.submit(()->{
+                if(value==5 || value==10) throw new IllegalStateException();
+                return value;
+            });
+        }
+        await().atMost(5, TimeUnit.SECONDS).until(()->failures.get()==1);
+        Thread.sleep(100);
+        assertTrue(pipeline.isFailed());
+        assertEquals(1,failures.get());
+        assertEquals(5,delivered.size());
+        executor.shutdown();
+    }
+}
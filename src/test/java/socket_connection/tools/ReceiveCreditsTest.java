@@ -0,0 +1,60 @@
+package socket_connection.tools;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiveCreditsTest {
+
+    /**
+     * This test ensure that credits are granted once half of the window was read,
+     * and that the limit granted is the window beyond the bytes read
+     */
+    @Test
+    void grantCreditsAsMessagesAreRead() {
+        ReceiveCredits credits=new ReceiveCredits(100,new MemoryBudget(0));
+        assertEquals(100,credits.getGranted());
+        for (int i=0; i<4; i++) credits.deliver(20);
+        assertEquals(80,credits.getBufferedBytes());
+        credits.consume();
+        credits.consume();
+        assertFalse(credits.isGrantPending());
+        credits.consume();
+        assertTrue(credits.isGrantPending());
+        assertEquals(160,credits.takeGrant());
+        assertFalse(credits.isGrantPending());
+        assertEquals(20,credits.getBufferedBytes());
+        //messages moved from another connection are read first and give no credits
+        credits.prependUncounted(2);
+        credits.consume();
+        credits.consume();
+        assertEquals(20,credits.getBufferedBytes());
+        credits.consume();
+        assertEquals(0,credits.getBufferedBytes());
+    }
+
+    /**
+     * This test ensure that grants are withheld while the shared budget is exhausted,
+     * and that the bytes of a closed connection are given back to the budget
+     */
+    @Test
+    void withholdCreditsWhileBudgetIsExhausted() {
+        MemoryBudget budget=new MemoryBudget(100);
+        ReceiveCredits first=new ReceiveCredits(100,budget);
+        ReceiveCredits second=new ReceiveCredits(100,budget);
+        first.deliver(60);
+        second.deliver(60);
+        second.deliver(60);
+        assertEquals(180,budget.getUsedBytes());
+        second.consume();
+        assertTrue(budget.isExhausted());
+        assertFalse(second.isGrantPending());
+        first.close();
+        assertFalse(budget.isExhausted());
+        assertTrue(second.isGrantPending());
+        assertFalse(first.isGrantPending());
+        first.deliver(10);
+        first.consume();
+        assertEquals(60,budget.getUsedBytes());
+    }
+}
@@ -0,0 +1,40 @@
+package socket_connection.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RekeyScheduleTest {
+
+    /**
+     * This test ensure that keys are rotated after the first limit reached,
+     * and that disabled limits are ignored
+     */
+    @Test
+    void rotateAfterFirstLimitReached() {
+        AtomicLong clock=new AtomicLong();
+        RekeySchedule bytes=new RekeySchedule(100,0,0,clock::get);
+        assertTrue(bytes.isEnabled());
+        assertFalse(bytes.record(60));
+        assertTrue(bytes.record(40));
+        bytes.reset();
+        assertFalse(bytes.record(99));
+        RekeySchedule messages=new RekeySchedule(0,3,0,clock::get);
+        assertFalse(messages.record(1_000_000));
+        assertFalse(messages.record(1_000_000));
+        assertTrue(messages.record(1_000_000));
+        RekeySchedule time=new RekeySchedule(0,0,60,clock::get);
+        assertFalse(time.record(1));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        assertTrue(time.record(1));
+        time.reset();
+        assertFalse(time.record(1));
+        RekeySchedule disabled=new RekeySchedule(0,0,0,clock::get);
+        assertFalse(disabled.isEnabled());
+        clock.addAndGet(TimeUnit.DAYS.toNanos(1));
+        assertFalse(disabled.record(Integer.MAX_VALUE));
+    }
+}
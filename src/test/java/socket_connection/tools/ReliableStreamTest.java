@@ -0,0 +1,106 @@
+package socket_connection.tools;
+
+import org.junit.jupiter.api.Test;
+import socket_connection.socket_exceptions.runtime_exceptions.ShutDownException;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReliableStreamTest {
+
+    /**
+     * This test ensure that messages stay in the window until they are acknowledged,
+     * and that cumulative acknowledgements remove all the messages before them
+     */
+    @Test
+    void keepMessagesUntilAcknowledged() throws InterruptedException {
+        ReliableStream stream=new ReliableStream(8,1024);
+        byte[] payload={1,2,3,4};
+        assertEquals(1,stream.append(payload,4,()->true));
+        assertEquals(2,stream.append(payload,2,()->true));
+        assertEquals(3,stream.append(payload,3,()->true));
+        assertEquals(3,stream.getUnacknowledgedMessages());
+        assertEquals(9,stream.getUnacknowledgedBytes());
+        stream.acknowledge(2);
+        assertEquals(1,stream.getUnacknowledgedMessages());
+        assertEquals(3,stream.getUnacknowledgedBytes());
+        assertEquals(1,stream.getAcknowledgementLatency().getSamples());
+        //acknowledgements of messages already acknowledged, or never sent, are ignored
+        stream.acknowledge(1);
+        stream.acknowledge(10);
+        assertEquals(3,stream.getLastAcknowledged());
+        assertEquals(0,stream.getUnacknowledgedMessages());
+        stream.append(payload,4,()->true);
+        payload[0]=9;
+        List<ReliableStream.Retransmission> retransmissions=stream.retransmissions();
+        assertEquals(1,retransmissions.size());
+        assertEquals(4,retransmissions.get(0).getSequence());
+        assertArrayEquals(new byte[]{1,2,3,4},retransmissions.get(0).getPayload());
+        assertEquals(1,stream.getRetransmissions());
+    }
+
+    /**
+     * This test ensure that messages already delivered are discarded, and that
+     * acknowledgements are pending only after new deliveries
+     */
+    @Test
+    void discardDuplicates() {
+        ReliableStream stream=new ReliableStream(8,1024);
+        assertFalse(stream.isAcknowledgementPending());
+        assertTrue(stream.deliver(1));
+        assertTrue(stream.deliver(2));
+        assertTrue(stream.isAcknowledgementPending());
+        assertEquals(2,stream.takeAcknowledgement());
+        assertFalse(stream.isAcknowledgementPending());
+        assertFalse(stream.deliver(1));
+        assertFalse(stream.deliver(2));
+        assertTrue(stream.deliver(3));
+        assertEquals(2,stream.getDuplicates());
+        stream.resetDelivered();
+        assertTrue(stream.deliver(1));
+    }
+
+    /**
+     * This test ensure that writers wait while the window is full, and that they
+     * stop waiting if their connection is closed
+     */
+    @Test
+    void waitWhileWindowIsFull() throws InterruptedException {
+        ReliableStream stream=new ReliableStream(2,1024);
+        stream.append(new byte[1],1,()->true);
+        stream.append(new byte[1],1,()->true);
+        AtomicLong sequence=new AtomicLong();
+        Thread writer=new Thread(()->{
+            try {
+                sequence.set(stream.append(new byte[1],1,()->true));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        writer.start();
+        await().pollDelay(100, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(()->sequence.get()==0);
+        stream.acknowledge(1);
+        await().atMost(1, TimeUnit.SECONDS).until(()->sequence.get()==3);
+        AtomicBoolean open=new AtomicBoolean(true);
+        AtomicBoolean closed=new AtomicBoolean();
+        Thread closedWriter=new Thread(()->{
+            try {
+                stream.append(new byte[1],1,open::get);
+            } catch (ShutDownException e) {
+                closed.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        closedWriter.start();
+        open.set(false);
+        stream.wakeUp();
+        await().atMost(1, TimeUnit.SECONDS).until(closed::get);
+        assertEquals(2,stream.getUnacknowledgedMessages());
+    }
+}
@@ -0,0 +1,29 @@
+package socket_connection.tools;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoundTripStatisticsTest {
+
+    /**
+     * This test ensure that the round trip time is smoothed as TCP does
+     * and that negative samples are ignored
+     */
+    @Test
+    void smoothRoundTripTime() {
+        RoundTripStatistics statistics=new RoundTripStatistics();
+        assertEquals(0,statistics.getSmoothedRttInNs());
+        statistics.registerSample(800);
+        assertEquals(800,statistics.getSmoothedRttInNs());
+        assertEquals(400,statistics.getRttVarianceInNs());
+        statistics.registerSample(1600);
+        assertEquals(900,statistics.getSmoothedRttInNs());
+        assertEquals(500,statistics.getRttVarianceInNs());
+        statistics.registerSample(-1);
+        assertEquals(2,statistics.getSamples());
+        assertEquals(800,statistics.getMinRttInNs());
+        assertEquals(1600,statistics.getMaxRttInNs());
+        assertEquals(1600,statistics.getLastRttInNs());
+    }
+}
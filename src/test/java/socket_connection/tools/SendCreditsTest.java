@@ -0,0 +1,73 @@
+package socket_connection.tools;
+
+import org.junit.jupiter.api.Test;
+import socket_connection.socket_exceptions.runtime_exceptions.ShutDownException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SendCreditsTest {
+
+    /**
+     * This test ensure that a message is sent while a credit is left, and that
+     * grants received late don't lower the limit
+     */
+    @Test
+    void sendWhileCreditsAreLeft() {
+        SendCredits credits=new SendCredits(10);
+        assertTrue(credits.isAvailable());
+        credits.spend(8);
+        assertEquals(2,credits.getAvailable());
+        //the last credit lets a bigger message through
+        credits.spend(5);
+        assertFalse(credits.isAvailable());
+        assertEquals(0,credits.getAvailable());
+        credits.grant(20);
+        credits.grant(15);
+        assertEquals(7,credits.getAvailable());
+        assertEquals(13,credits.getSent());
+    }
+
+    /**
+     * This test ensure that writers wait for credits, and that they
+     * stop waiting if their connection is closed
+     */
+    @Test
+    void waitForCredits() {
+        SendCredits credits=new SendCredits(1);
+        credits.spend(1);
+        AtomicBoolean sent=new AtomicBoolean();
+        Thread writer=new Thread(()->{
+            try {
+                credits.await(()->true);
+                sent.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        writer.start();
+        await().pollDelay(100, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(()->!sent.get());
+        credits.grant(2);
+        await().atMost(1, TimeUnit.SECONDS).until(sent::get);
+        assertEquals(1,credits.getStalls());
+        credits.spend(1);
+        AtomicBoolean open=new AtomicBoolean(true);
+        AtomicBoolean closed=new AtomicBoolean();
+        Thread closedWriter=new Thread(()->{
+            try {
+                credits.await(open::get);
+            } catch (ShutDownException e) {
+                closed.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        closedWriter.start();
+        open.set(false);
+        credits.wakeUp();
+        await().atMost(1, TimeUnit.SECONDS).until(closed::get);
+    }
+}
@@ -0,0 +1,75 @@
+package socket_connection.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerialExecutorTest {
+
+    /**
+     * This test ensure that the tasks of each executor are run in order and never concurrently,
+     * even if the executors share a pool with more threads
+     */
+    @Test
+    void runTasksInOrder() {
+        final int executors=8;
+        final int tasks=200;
+        ExecutorService pool=Executors.newFixedThreadPool(4);
+        ExecutorStatistics statistics=new ExecutorStatistics();
+        List<List<Integer>> results=new ArrayList<>();
+        AtomicInteger overlaps=new AtomicInteger();
+        for (int i=0; i<executors; i++){
+            SerialExecutor executor=new SerialExecutor(pool,statistics);
+            List<Integer> result=Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger running=new AtomicInteger();
+            results.add(result);
+            for (int task=0; task<tasks; task++){
+                final int value=task;
+                executor.execute(()->{
+                    if(running.incrementAndGet()>1) overlaps.incrementAndGet();
+                    result.add(value);
+                    running.decrementAndGet();
+                });
+            }
+        }
+        await().atMost(5, TimeUnit.SECONDS).until(()->statistics.getExecutedTasks()==executors*tasks);
+        assertEquals(0,overlaps.get());
+        assertEquals(0,statistics.getQueuedTasks());
+        for (List<Integer> result : results)
+            for (int task=0; task<tasks; task++) assertEquals(Integer.valueOf(task),result.get(task));
+        pool.shutdown();
+    }
+
+    /**
+     * This test ensure that the time a task waits for a thread of the pool is measured
+     */
+    @Test
+    void measureQueueingDelay() {
+        ExecutorService pool=Executors.newFixedThreadPool(1);
+        ExecutorStatistics statistics=new ExecutorStatistics();
+        SerialExecutor busy=new SerialExecutor(pool,statistics);
+        SerialExecutor waiting=new SerialExecutor(pool,statistics);
+        busy.execute(()->{
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiting.execute(()->{});
+        assertEquals(1,waiting.getQueuedTasks());
+        await().atMost(2, TimeUnit.SECONDS).until(()->statistics.getExecutedTasks()==2);
+        assertTrue(statistics.getMaxQueueingDelayInNs()>=TimeUnit.MILLISECONDS.toNanos(150));
+        assertTrue(statistics.getAverageQueueingDelayInNs()<=statistics.getMaxQueueingDelayInNs());
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,64 @@
+package socket_connection.tools;
+
+import org.junit.jupiter.api.Test;
+import socket_connection.socket_exceptions.runtime_exceptions.UndefinedInputTypeException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringTableTest {
+
+    /**
+     * This test ensure that the decoder rebuilds the strings encoded and that
+     * repeated words are replaced by references
+     */
+    @Test
+    void encodeAndDecodeRepeatedWords() {
+        StringTableEncoder encoder=new StringTableEncoder(16);
+        StringTableDecoder decoder=new StringTableDecoder(16);
+        String message="{\"messageType\":\"GAME_STATE_UPDATE\",\"currentPlayer\":\"player1\"}";
+        int previousSize=Integer.MAX_VALUE;
+        for (int i=0; i<3; i++){
+            BinaryWriter writer=new BinaryWriter();
+            encoder.encode(message,writer);
+            assertEquals(message,decoder.decode(new BinaryReader(writer.toByteArray())));
+            if(i==2) assertTrue(writer.size()<previousSize);
+            previousSize=writer.size();
+        }
+        BinaryWriter writer=new BinaryWriter();
+        encoder.encode("",writer);
+        assertEquals(0,writer.size());
+        assertEquals("",decoder.decode(new BinaryReader(writer.toByteArray())));
+    }
+
+    /**
+     * This test ensure that encoder and decoder evict the same words when
+     * the table is full
+     */
+    @Test
+    void tablesStayInSyncAfterEvictions() {
+        StringTableEncoder encoder=new StringTableEncoder(4);
+        StringTableDecoder decoder=new StringTableDecoder(4);
+        String[] words={"alpha","bravo","charlie","delta","echo","foxtrot","golf"};
+        for (int i=0; i<500; i++){
+            String message=words[i%words.length]+" "+words[(i*3)%words.length]+" àè "+words[(i*5)%words.length];
+            BinaryWriter writer=new BinaryWriter();
+            encoder.encode(message,writer);
+            assertEquals(message,decoder.decode(new BinaryReader(writer.toByteArray())));
+        }
+    }
+
+    /**
+     * This test ensure that references to empty slots are refused
+     */
+    @Test
+    void referenceToEmptySlot() {
+        StringTableDecoder decoder=new StringTableDecoder(4);
+        byte[] reference=new BinaryWriter().writeVarInt(3<<2|StringTableEncoder.REFERENCE).toByteArray();
+        assertThrows(UndefinedInputTypeException.class,()->decoder.decode(new BinaryReader(reference)));
+        byte[] truncated=new BinaryWriter().writeVarInt(10<<2|StringTableEncoder.LITERAL)
+                .writeBytes("abc".getBytes(StandardCharsets.UTF_8)).toByteArray();
+        assertThrows(UndefinedInputTypeException.class,()->decoder.decode(new BinaryReader(truncated)));
+    }
+}
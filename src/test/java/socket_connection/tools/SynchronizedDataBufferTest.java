@@ -7,8 +7,11 @@ import socket_connection.socket_exceptions.runtime_exceptions.ShutDownException;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.concurrent.TimeUnit;
 
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.CoreMatchers.is;
@@ -196,6 +199,63 @@ class SynchronizedDataBufferTest {
 
 
 
+    //****************************************************************************************
+    //
+    //                         TEST: typed elements
+    //
+    //****************************************************************************************
+
+    /**
+     * This test checks that typed elements are popped in the same order they were put
+     * and with the same value
+     */
+    @Test
+    void popTypedElementsInOrder() throws BadMessagesSequenceException {
+        SynchronizedDataBuffer buffer= new SynchronizedDataBuffer();
+        buffer.putInt(-7);
+        buffer.put("Element");
+        buffer.putLong(Long.MAX_VALUE);
+        buffer.putDouble(0.5);
+        buffer.putBoolean(true);
+        buffer.putBytes(new byte[]{1,2,3});
+        buffer.putIntArray(new int[]{4,5});
+        assertEquals(7, buffer.size());
+        assertEquals(-7, buffer.popInt());
+        assertEquals("Element", buffer.popString());
+        assertEquals(Long.MAX_VALUE, buffer.popLong());
+        assertEquals(0.5, buffer.popDouble());
+        assertTrue(buffer.popBoolean());
+        assertArrayEquals(new byte[]{1,2,3}, buffer.popBytes());
+        assertArrayEquals(new int[]{4,5}, buffer.popIntArray());
+        assertEquals(0, buffer.size());
+    }
+
+    /**
+     * This test checks that popping an element of the wrong type throws a BadMessagesSequenceException
+     * and leaves the element in the buffer
+     */
+    @Test
+    void popTypedElementWithWrongType() throws BadMessagesSequenceException {
+        SynchronizedDataBuffer buffer= new SynchronizedDataBuffer();
+        buffer.putDouble(1.5);
+        assertThrows(BadMessagesSequenceException.class, buffer::popInt);
+        assertThrows(BadMessagesSequenceException.class, buffer::popBytes);
+        assertEquals(1, buffer.size());
+        assertEquals(1.5, buffer.popDouble());
+    }
+
+    /**
+     * This test checks that many primitive values can be held at the same time
+     */
+    @Test
+    void manyPrimitiveValues() throws BadMessagesSequenceException {
+        SynchronizedDataBuffer buffer= new SynchronizedDataBuffer();
+        for (int i=0; i<100; i++) buffer.putInt(i);
+        for (int i=0; i<50; i++) assertEquals(i, buffer.popInt());
+        for (int i=100; i<200; i++) buffer.putInt(i);
+        for (int i=50; i<200; i++) assertEquals(i, buffer.popInt());
+    }
+
     //****************************************************************************************
     //
     //                         TEST: String size()
@@ -222,6 +282,88 @@ class SynchronizedDataBufferTest {
         assertEquals(2, buffer.size());
     }
 
+    //****************************************************************************************
+    //
+    //                         TEST: void moveTo(SynchronizedDataBuffer target)
+    //
+    //****************************************************************************************
+    @Test
+    void moveElementsBeforeTheOnesOfTarget() throws BadMessagesSequenceException {
+        SynchronizedDataBuffer closed= new SynchronizedDataBuffer();
+        closed.putInt(1);
+        closed.put("two");
+        closed.putDouble(3.0);
+        closed.closeBuffer();
+        SynchronizedDataBuffer buffer= new SynchronizedDataBuffer();
+        buffer.putLong(4);
+        buffer.put("five");
+        closed.moveTo(buffer);
+        assertEquals(0, closed.size());
+        assertEquals(5, buffer.size());
+        assertEquals(1, buffer.popInt());
+        assertEquals("two", buffer.popString());
+        assertEquals(3.0, buffer.popDouble());
+        assertEquals(4, buffer.popLong());
+        assertEquals("five", buffer.popString());
+    }
+
+    /**
+     * This test ensure that the buffer is full once it reaches its capacity in elements or in bytes,
+     * and that dropped elements and the time spent at capacity are counted
+     */
+    @Test
+    void reachCapacity() throws BadMessagesSequenceException {
+        SynchronizedDataBuffer buffer= new SynchronizedDataBuffer();
+        buffer.setCapacity(2,0);
+        buffer.putInt(1);
+        assertFalse(buffer.isFull());
+        buffer.put("two");
+        assertTrue(buffer.isFull());
+        assertTrue(buffer.dropFirst());
+        assertFalse(buffer.isFull());
+        buffer.registerDrop();
+        assertEquals(2, buffer.getDrops());
+        assertTrue(buffer.getTimeAtCapacityInNs()>0);
+        assertEquals("two", buffer.popString());
+        assertFalse(buffer.dropFirst());
+        buffer.setCapacity(0,16);
+        buffer.putBytes(new byte[8]);
+        assertFalse(buffer.isFull());
+        buffer.putLong(3);
+        assertTrue(buffer.isFull());
+        assertEquals(16, buffer.getBufferedBytes());
+        buffer.popBytes();
+        assertFalse(buffer.isFull());
+        assertEquals(8, buffer.getBufferedBytes());
+    }
+
+    /**
+     * This test ensure that elements are read without waiting for them, or waiting at most
+     * the given time, and that they are moved in order to a collection with primitive values boxed
+     */
+    @Test
+    void readWithoutWaiting() {
+        SynchronizedDataBuffer buffer= new SynchronizedDataBuffer();
+        assertFalse(buffer.pollString(0, TimeUnit.SECONDS).isPresent());
+        assertFalse(buffer.pollString(50, TimeUnit.MILLISECONDS).isPresent());
+        buffer.putInt(1);
+        buffer.put("two");
+        buffer.putBoolean(true);
+        buffer.putObject(new EncodedObject(7,new byte[2],0,2));
+        buffer.putBytes(new byte[1]);
+        assertEquals(Optional.of("1"), buffer.pollString(0, TimeUnit.SECONDS));
+        List<Object> elements=new ArrayList<>();
+        assertEquals(3, buffer.drainTo(elements,3));
+        assertEquals("two", elements.get(0));
+        assertEquals(Boolean.TRUE, elements.get(1));
+        assertEquals(7, ((EncodedObject) elements.get(2)).getTypeId());
+        assertEquals(1, buffer.drainTo(elements,10));
+        assertEquals(0, buffer.drainTo(elements,10));
+        buffer.closeBuffer();
+        assertThrows(ShutDownException.class, ()->buffer.pollString(1, TimeUnit.SECONDS));
+        assertThrows(ShutDownException.class, ()->buffer.drainTo(elements,10));
+    }
+
     //---------------------------------------------------------------------------------------
     //
     //                                 SUPPORT METHODS